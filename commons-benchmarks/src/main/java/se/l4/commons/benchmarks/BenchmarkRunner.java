@@ -0,0 +1,41 @@
+package se.l4.commons.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for running the benchmarks. Accepts the same arguments as the
+ * regular JMH runner but always enables the {@link GCProfiler} so that
+ * allocation rates are reported together with every result.
+ *
+ * <pre>
+ * java -jar commons-benchmarks/target/benchmarks.jar FormatRoundTrip
+ * </pre>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class BenchmarkRunner
+{
+	private BenchmarkRunner()
+	{
+	}
+
+	public static void main(String[] args)
+		throws RunnerException, CommandLineOptionException
+	{
+		CommandLineOptions cli = new CommandLineOptions(args);
+
+		Options options = new OptionsBuilder()
+			.parent(cli)
+			.addProfiler(GCProfiler.class)
+			.build();
+
+		new Runner(options).run();
+	}
+}
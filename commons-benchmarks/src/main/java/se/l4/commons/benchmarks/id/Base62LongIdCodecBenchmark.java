@@ -0,0 +1,58 @@
+package se.l4.commons.benchmarks.id;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.id.Base62LongIdCodec;
+import se.l4.commons.id.LongIdCodec;
+
+/**
+ * Benchmark for encoding and decoding identifiers with
+ * {@link Base62LongIdCodec}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base62LongIdCodecBenchmark
+{
+	private LongIdCodec<String> codec;
+
+	private long id;
+	private String encoded;
+
+	@Setup
+	public void setup()
+	{
+		codec = new Base62LongIdCodec();
+		id = 3_482_395_827_345_839l;
+		encoded = codec.encode(id);
+	}
+
+	@Benchmark
+	public String encode()
+	{
+		return codec.encode(id);
+	}
+
+	@Benchmark
+	public long decode()
+	{
+		return codec.decode(encoded);
+	}
+}
@@ -0,0 +1,56 @@
+package se.l4.commons.benchmarks.id;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.id.LongIdGenerator;
+import se.l4.commons.id.SequenceLongIdGenerator;
+
+/**
+ * Benchmark for {@link SequenceLongIdGenerator#next()}, both from a single
+ * thread and with several threads sharing the same generator.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceLongIdGeneratorBenchmark
+{
+	private LongIdGenerator generator;
+
+	@Setup
+	public void setup()
+	{
+		generator = new SequenceLongIdGenerator();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long uncontended()
+	{
+		return generator.next();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long contended()
+	{
+		return generator.next();
+	}
+}
@@ -0,0 +1,114 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.lang.invoke.MethodHandles;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.serialization.internal.reflection.FieldAccessor;
+import se.l4.commons.serialization.internal.reflection.MethodHandleFieldAccessor;
+import se.l4.commons.serialization.internal.reflection.ReflectionFieldAccessor;
+
+/**
+ * Compares {@link MethodHandleFieldAccessor} with plain reflection via
+ * {@link ReflectionFieldAccessor}. Accessors are held in fields that are
+ * not constant, just like they are held by the serializers created by
+ * {@code ReflectionSerializer}, so the JIT can not inline the handles as
+ * constants.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessorBenchmark
+{
+	private FieldAccessor methodHandleInt;
+	private FieldAccessor methodHandleName;
+	private FieldAccessor reflectionInt;
+	private FieldAccessor reflectionName;
+
+	private Point point;
+	private int counter;
+
+	@Setup
+	public void setup()
+		throws Exception
+	{
+		methodHandleInt = new MethodHandleFieldAccessor(MethodHandles.lookup(), Point.class.getDeclaredField("x"));
+		methodHandleName = new MethodHandleFieldAccessor(MethodHandles.lookup(), Point.class.getDeclaredField("name"));
+		reflectionInt = new ReflectionFieldAccessor(Point.class.getDeclaredField("x"));
+		reflectionName = new ReflectionFieldAccessor(Point.class.getDeclaredField("name"));
+
+		point = new Point();
+		point.x = 12;
+		point.name = "point";
+	}
+
+	@Benchmark
+	public int methodHandleGetInt()
+	{
+		return methodHandleInt.getInt(point);
+	}
+
+	@Benchmark
+	public int reflectionGetInt()
+	{
+		return reflectionInt.getInt(point);
+	}
+
+	@Benchmark
+	public void methodHandleSetInt()
+	{
+		methodHandleInt.setInt(point, counter++);
+	}
+
+	@Benchmark
+	public void reflectionSetInt()
+	{
+		reflectionInt.setInt(point, counter++);
+	}
+
+	@Benchmark
+	public Object methodHandleGetObject()
+	{
+		return methodHandleName.get(point);
+	}
+
+	@Benchmark
+	public Object reflectionGetObject()
+	{
+		return reflectionName.get(point);
+	}
+
+	@Benchmark
+	public void methodHandleSetObject()
+	{
+		methodHandleName.set(point, "point");
+	}
+
+	@Benchmark
+	public void reflectionSetObject()
+	{
+		reflectionName.set(point, "point");
+	}
+
+	public static class Point
+	{
+		public int x;
+		public String name;
+	}
+}
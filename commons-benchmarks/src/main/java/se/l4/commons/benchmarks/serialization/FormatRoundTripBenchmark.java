@@ -0,0 +1,114 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.benchmarks.serialization.model.Order;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.format.StreamingFormat;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * Benchmark for writing and reading an {@link Order} via the binary
+ * formats and JSON.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatRoundTripBenchmark
+{
+	@Param({ "BINARY", "BINARY_V2", "BINARY_V2_SIZED", "JSON" })
+	private String format;
+
+	@Param({ "1", "20" })
+	private int lines;
+
+	private StreamingFormat streamingFormat;
+	private Serializer<Order> serializer;
+	private Order order;
+
+	private ByteArrayOutputStream buffer;
+	private byte[] data;
+
+	@Setup
+	public void setup()
+		throws IOException
+	{
+		switch(format)
+		{
+			case "JSON":
+				streamingFormat = StreamingFormat.JSON;
+				break;
+			case "BINARY_V2":
+				streamingFormat = StreamingFormat.BINARY_V2;
+				break;
+			case "BINARY_V2_SIZED":
+				streamingFormat = StreamingFormat.BINARY_V2_SIZED;
+				break;
+			default:
+				streamingFormat = StreamingFormat.BINARY;
+		}
+
+		serializer = new DefaultSerializers().find(Order.class);
+		order = Order.create(lines);
+
+		buffer = new ByteArrayOutputStream(4096);
+		data = write();
+	}
+
+	@Benchmark
+	public byte[] write()
+		throws IOException
+	{
+		buffer.reset();
+		try(StreamingOutput out = streamingFormat.createOutput(buffer))
+		{
+			serializer.write(order, out);
+		}
+
+		return buffer.toByteArray();
+	}
+
+	@Benchmark
+	public Order read()
+		throws IOException
+	{
+		try(StreamingInput in = streamingFormat.createInput(new ByteArrayInputStream(data)))
+		{
+			return serializer.read(in);
+		}
+	}
+
+	@Benchmark
+	public Order roundTrip()
+		throws IOException
+	{
+		byte[] written = write();
+		try(StreamingInput in = streamingFormat.createInput(new ByteArrayInputStream(written)))
+		{
+			return serializer.read(in);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.serialization.format.JsonOutput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * Benchmark for writing different types of values via {@link JsonOutput}.
+ * Output is written to a stream that discards everything to only measure
+ * the encoding.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonOutputBenchmark
+{
+	private static final int COUNT = 100;
+
+	private int[] ints;
+	private long[] longs;
+	private double[] doubles;
+	private String[] strings;
+	private byte[] bytes;
+
+	private OutputStream stream;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(1201);
+
+		ints = new int[COUNT];
+		longs = new long[COUNT];
+		doubles = new double[COUNT];
+		strings = new String[COUNT];
+		for(int i=0; i<COUNT; i++)
+		{
+			ints[i] = random.nextInt();
+			longs[i] = random.nextLong();
+			doubles[i] = i % 2 == 0
+				? random.nextInt(1000000) / 100.0
+				: random.nextDouble() * 1000;
+			strings[i] = "Value " + i + (i % 10 == 0 ? " with \"quotes\"\n" : " plain text");
+		}
+
+		bytes = new byte[4096];
+		random.nextBytes(bytes);
+
+		stream = new OutputStream()
+		{
+			@Override
+			public void write(byte[] b, int off, int len)
+			{
+			}
+
+			@Override
+			public void write(int b)
+			{
+			}
+		};
+	}
+
+	@Benchmark
+	public void writeInts()
+		throws IOException
+	{
+		try(StreamingOutput out = new JsonOutput(stream))
+		{
+			out.writeListStart();
+			for(int i : ints)
+			{
+				out.writeInt(i);
+			}
+			out.writeListEnd();
+		}
+	}
+
+	@Benchmark
+	public void writeLongs()
+		throws IOException
+	{
+		try(StreamingOutput out = new JsonOutput(stream))
+		{
+			out.writeListStart();
+			for(long l : longs)
+			{
+				out.writeLong(l);
+			}
+			out.writeListEnd();
+		}
+	}
+
+	@Benchmark
+	public void writeDoubles()
+		throws IOException
+	{
+		try(StreamingOutput out = new JsonOutput(stream))
+		{
+			out.writeListStart();
+			for(double d : doubles)
+			{
+				out.writeDouble(d);
+			}
+			out.writeListEnd();
+		}
+	}
+
+	@Benchmark
+	public void writeStrings()
+		throws IOException
+	{
+		try(StreamingOutput out = new JsonOutput(stream))
+		{
+			out.writeListStart();
+			for(String s : strings)
+			{
+				out.writeString(s);
+			}
+			out.writeListEnd();
+		}
+	}
+
+	@Benchmark
+	public void writeBytes()
+		throws IOException
+	{
+		try(StreamingOutput out = new JsonOutput(stream))
+		{
+			out.writeBytes(bytes);
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.benchmarks.serialization.model.Order;
+import se.l4.commons.io.ByteBufferChain;
+import se.l4.commons.io.ByteBufferPool;
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.StreamingCodec;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.format.PooledBinaryOutput;
+import se.l4.commons.serialization.format.StreamingFormat;
+
+/**
+ * Compares creating binary data for an {@link Order} via
+ * {@link Bytes#forObject(StreamingCodec, Object)} with writing it into
+ * pooled heap and direct buffers.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PooledOutputBenchmark
+{
+	@Param({ "1", "200" })
+	private int lines;
+
+	private Serializer<Order> serializer;
+	private StreamingCodec<Order> codec;
+	private Order order;
+
+	private ByteBufferPool heapPool;
+	private ByteBufferPool directPool;
+
+	@Setup
+	public void setup()
+	{
+		serializer = new DefaultSerializers().find(Order.class);
+		codec = serializer.toCodec(StreamingFormat.BINARY);
+		order = Order.create(lines);
+
+		heapPool = ByteBufferPool.builder().build();
+		directPool = ByteBufferPool.builder().direct().build();
+	}
+
+	@Benchmark
+	public Bytes forObject()
+		throws IOException
+	{
+		return Bytes.forObject(codec, order);
+	}
+
+	private long writePooled(ByteBufferPool pool)
+		throws IOException
+	{
+		try(PooledBinaryOutput out = new PooledBinaryOutput(pool))
+		{
+			serializer.write(order, out);
+
+			try(ByteBufferChain result = out.getResult())
+			{
+				return result.toByteBuffers().length;
+			}
+		}
+	}
+
+	@Benchmark
+	public long pooledHeap()
+		throws IOException
+	{
+		return writePooled(heapPool);
+	}
+
+	@Benchmark
+	public long pooledDirect()
+		throws IOException
+	{
+		return writePooled(directPool);
+	}
+}
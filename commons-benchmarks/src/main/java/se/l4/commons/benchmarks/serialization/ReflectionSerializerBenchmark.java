@@ -0,0 +1,278 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.serialization.CompiledSerializer;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.Serializers;
+import se.l4.commons.serialization.Use;
+import se.l4.commons.serialization.format.BinaryInput;
+import se.l4.commons.serialization.format.BinaryOutput;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * Compares the serializers created by {@link ReflectionSerializer} with the
+ * generated serializers of {@link CompiledSerializer}. Every serializer
+ * handles a type with the same fields, the types only differ in their
+ * constructors which is what decides the serializer used:
+ *
+ * <ul>
+ *   <li>{@code streaming} - default constructor, fields are set directly
+ *   <li>{@code singleFactory} - constructor taking every field
+ *   <li>{@code nonStreaming} - constructor taking some of the fields,
+ *     values are collected before an instance is created
+ *   <li>{@code compiled} - default constructor, generated serializer
+ * </ul>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionSerializerBenchmark
+{
+	private Serializer<StreamingPerson> streaming;
+	private Serializer<SingleFactoryPerson> singleFactory;
+	private Serializer<NonStreamingPerson> nonStreaming;
+	private Serializer<CompiledPerson> compiled;
+
+	private StreamingPerson streamingValue;
+	private SingleFactoryPerson singleFactoryValue;
+	private NonStreamingPerson nonStreamingValue;
+	private CompiledPerson compiledValue;
+
+	private byte[] streamingData;
+	private byte[] singleFactoryData;
+	private byte[] nonStreamingData;
+	private byte[] compiledData;
+
+	private ByteArrayOutputStream buffer;
+
+	@Setup
+	public void setup()
+		throws IOException
+	{
+		Serializers serializers = new DefaultSerializers();
+		streaming = serializers.find(StreamingPerson.class);
+		singleFactory = serializers.find(SingleFactoryPerson.class);
+		nonStreaming = serializers.find(NonStreamingPerson.class);
+		compiled = serializers.find(CompiledPerson.class);
+
+		streamingValue = new StreamingPerson();
+		streamingValue.id = 1201l;
+		streamingValue.name = "Donna Noble";
+		streamingValue.age = 38;
+		streamingValue.score = 98.5;
+		streamingValue.active = true;
+
+		singleFactoryValue = new SingleFactoryPerson(1201l, "Donna Noble", 38, 98.5, true);
+		nonStreamingValue = new NonStreamingPerson(1201l, "Donna Noble", 38, 98.5, true);
+
+		compiledValue = new CompiledPerson();
+		compiledValue.id = 1201l;
+		compiledValue.name = "Donna Noble";
+		compiledValue.age = 38;
+		compiledValue.score = 98.5;
+		compiledValue.active = true;
+
+		buffer = new ByteArrayOutputStream(256);
+
+		streamingData = toBytes(streaming, streamingValue);
+		singleFactoryData = toBytes(singleFactory, singleFactoryValue);
+		nonStreamingData = toBytes(nonStreaming, nonStreamingValue);
+		compiledData = toBytes(compiled, compiledValue);
+	}
+
+	private <T> byte[] toBytes(Serializer<T> serializer, T object)
+		throws IOException
+	{
+		buffer.reset();
+		try(StreamingOutput out = new BinaryOutput(buffer))
+		{
+			serializer.write(object, out);
+		}
+
+		return buffer.toByteArray();
+	}
+
+	private <T> T fromBytes(Serializer<T> serializer, byte[] data)
+		throws IOException
+	{
+		try(StreamingInput in = new BinaryInput(new ByteArrayInputStream(data)))
+		{
+			return serializer.read(in);
+		}
+	}
+
+	@Benchmark
+	public byte[] writeStreaming()
+		throws IOException
+	{
+		return toBytes(streaming, streamingValue);
+	}
+
+	@Benchmark
+	public byte[] writeSingleFactory()
+		throws IOException
+	{
+		return toBytes(singleFactory, singleFactoryValue);
+	}
+
+	@Benchmark
+	public byte[] writeNonStreaming()
+		throws IOException
+	{
+		return toBytes(nonStreaming, nonStreamingValue);
+	}
+
+	@Benchmark
+	public byte[] writeCompiled()
+		throws IOException
+	{
+		return toBytes(compiled, compiledValue);
+	}
+
+	@Benchmark
+	public StreamingPerson readStreaming()
+		throws IOException
+	{
+		return fromBytes(streaming, streamingData);
+	}
+
+	@Benchmark
+	public SingleFactoryPerson readSingleFactory()
+		throws IOException
+	{
+		return fromBytes(singleFactory, singleFactoryData);
+	}
+
+	@Benchmark
+	public NonStreamingPerson readNonStreaming()
+		throws IOException
+	{
+		return fromBytes(nonStreaming, nonStreamingData);
+	}
+
+	@Benchmark
+	public CompiledPerson readCompiled()
+		throws IOException
+	{
+		return fromBytes(compiled, compiledData);
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class StreamingPerson
+	{
+		@Expose
+		private long id;
+		@Expose
+		private String name;
+		@Expose
+		private int age;
+		@Expose
+		private double score;
+		@Expose
+		private boolean active;
+	}
+
+	@Use(CompiledSerializer.class)
+	public static class CompiledPerson
+	{
+		@Expose
+		private long id;
+		@Expose
+		private String name;
+		@Expose
+		private int age;
+		@Expose
+		private double score;
+		@Expose
+		private boolean active;
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class SingleFactoryPerson
+	{
+		@Expose
+		private final long id;
+		@Expose
+		private final String name;
+		@Expose
+		private final int age;
+		@Expose
+		private final double score;
+		@Expose
+		private final boolean active;
+
+		public SingleFactoryPerson(
+			@Expose("id") long id,
+			@Expose("name") String name,
+			@Expose("age") int age,
+			@Expose("score") double score,
+			@Expose("active") boolean active
+		)
+		{
+			this.id = id;
+			this.name = name;
+			this.age = age;
+			this.score = score;
+			this.active = active;
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class NonStreamingPerson
+	{
+		@Expose
+		private final long id;
+		@Expose
+		private final String name;
+		@Expose
+		private final int age;
+		@Expose
+		private final double score;
+		@Expose
+		private boolean active;
+
+		public NonStreamingPerson(
+			@Expose("id") long id,
+			@Expose("name") String name,
+			@Expose("age") int age,
+			@Expose("score") double score
+		)
+		{
+			this.id = id;
+			this.name = name;
+			this.age = age;
+			this.score = score;
+		}
+
+		public NonStreamingPerson(long id, String name, int age, double score, boolean active)
+		{
+			this(id, name, age, score);
+			this.active = active;
+		}
+	}
+}
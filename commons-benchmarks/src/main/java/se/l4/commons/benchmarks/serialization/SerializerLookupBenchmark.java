@@ -0,0 +1,79 @@
+package se.l4.commons.benchmarks.serialization;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.benchmarks.serialization.model.Order;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.Serializers;
+
+/**
+ * Benchmark for {@link DefaultSerializers#find(Class)}. Hot lookups find a
+ * type that has already been resolved, cold lookups resolve the entire
+ * graph of an {@link Order} in a new collection.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerLookupBenchmark
+{
+	@State(Scope.Benchmark)
+	public static class Hot
+	{
+		private Serializers serializers;
+
+		@Setup
+		public void setup()
+		{
+			serializers = new DefaultSerializers();
+			serializers.find(Order.class);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cold
+	{
+		private Serializers serializers;
+
+		@Setup(Level.Invocation)
+		public void setup()
+		{
+			serializers = new DefaultSerializers();
+		}
+	}
+
+	@Benchmark
+	public Serializer<Order> hotComplex(Hot state)
+	{
+		return state.serializers.find(Order.class);
+	}
+
+	@Benchmark
+	public Serializer<String> hotSimple(Hot state)
+	{
+		return state.serializers.find(String.class);
+	}
+
+	@Benchmark
+	public Serializer<Order> cold(Cold state)
+	{
+		return state.serializers.find(Order.class);
+	}
+}
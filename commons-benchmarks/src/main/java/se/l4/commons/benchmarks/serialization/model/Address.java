@@ -0,0 +1,30 @@
+package se.l4.commons.benchmarks.serialization.model;
+
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Use;
+
+@Use(ReflectionSerializer.class)
+public class Address
+{
+	@Expose
+	private String street;
+	@Expose
+	private String postalCode;
+	@Expose
+	private String city;
+	@Expose
+	private String country;
+
+	public Address()
+	{
+	}
+
+	public Address(String street, String postalCode, String city, String country)
+	{
+		this.street = street;
+		this.postalCode = postalCode;
+		this.city = city;
+		this.country = country;
+	}
+}
@@ -0,0 +1,33 @@
+package se.l4.commons.benchmarks.serialization.model;
+
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Use;
+
+@Use(ReflectionSerializer.class)
+public class Customer
+{
+	@Expose
+	private long id;
+	@Expose
+	private String name;
+	@Expose
+	private String email;
+	@Expose
+	private boolean verified;
+	@Expose
+	private Address address;
+
+	public Customer()
+	{
+	}
+
+	public Customer(long id, String name, String email, boolean verified, Address address)
+	{
+		this.id = id;
+		this.name = name;
+		this.email = email;
+		this.verified = verified;
+		this.address = address;
+	}
+}
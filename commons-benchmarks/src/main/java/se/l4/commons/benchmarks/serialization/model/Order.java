@@ -0,0 +1,78 @@
+package se.l4.commons.benchmarks.serialization.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Use;
+import se.l4.commons.serialization.collections.StringKey;
+
+/**
+ * Order used as a realistic object graph in benchmarks. Contains nested
+ * objects, a list of objects, a map and a mix of primitive values.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@Use(ReflectionSerializer.class)
+public class Order
+{
+	@Expose
+	private long id;
+	@Expose
+	private long created;
+	@Expose
+	private String status;
+	@Expose
+	private Customer customer;
+	@Expose
+	private List<OrderLine> lines;
+	@Expose
+	@StringKey
+	private Map<String, String> attributes;
+	@Expose
+	private double total;
+
+	public Order()
+	{
+	}
+
+	/**
+	 * Create an order with the given number of lines.
+	 *
+	 * @param lines
+	 * @return
+	 */
+	public static Order create(int lines)
+	{
+		Order order = new Order();
+		order.id = 8_589_934_592l + lines;
+		order.created = 1_577_836_800_000l;
+		order.status = "shipped";
+		order.customer = new Customer(
+			1201l,
+			"Donna Noble",
+			"donna.noble@example.com",
+			true,
+			new Address("Temple Street 12", "11 234", "Stockholm", "Sweden")
+		);
+
+		order.lines = new ArrayList<>(lines);
+		for(int i=0; i<lines; i++)
+		{
+			OrderLine line = new OrderLine("SKU-" + (10_000 + i), "Item number " + i + " with a description", i % 5 + 1, 19.95 + i);
+			order.lines.add(line);
+			order.total += (i % 5 + 1) * (19.95 + i);
+		}
+
+		order.attributes = new LinkedHashMap<>();
+		order.attributes.put("channel", "web");
+		order.attributes.put("campaign", "spring-sale");
+		order.attributes.put("notes", "Leave the package by the door, \"thanks\"!");
+
+		return order;
+	}
+}
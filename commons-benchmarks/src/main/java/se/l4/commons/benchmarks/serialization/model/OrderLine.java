@@ -0,0 +1,30 @@
+package se.l4.commons.benchmarks.serialization.model;
+
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Use;
+
+@Use(ReflectionSerializer.class)
+public class OrderLine
+{
+	@Expose
+	private String sku;
+	@Expose
+	private String description;
+	@Expose
+	private int quantity;
+	@Expose
+	private double price;
+
+	public OrderLine()
+	{
+	}
+
+	public OrderLine(String sku, String description, int quantity, double price)
+	{
+		this.sku = sku;
+		this.description = description;
+		this.quantity = quantity;
+		this.price = price;
+	}
+}
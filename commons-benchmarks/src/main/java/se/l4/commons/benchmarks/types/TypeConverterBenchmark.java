@@ -0,0 +1,64 @@
+package se.l4.commons.benchmarks.types;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.types.conversion.StandardTypeConverter;
+import se.l4.commons.types.conversion.TypeConverter;
+
+/**
+ * Benchmark for {@link StandardTypeConverter#convert(Object, Class)}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeConverterBenchmark
+{
+	private TypeConverter converter;
+
+	@Setup
+	public void setup()
+	{
+		converter = new StandardTypeConverter();
+	}
+
+	@Benchmark
+	public Integer stringToInteger()
+	{
+		return converter.convert("4096", Integer.class);
+	}
+
+	@Benchmark
+	public String longToString()
+	{
+		return converter.convert(8_589_934_592l, String.class);
+	}
+
+	@Benchmark
+	public Long integerToLong()
+	{
+		return converter.convert(4096, Long.class);
+	}
+
+	@Benchmark
+	public String identity()
+	{
+		return converter.convert("value", String.class);
+	}
+}
@@ -0,0 +1,72 @@
+package se.l4.commons.benchmarks.types;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.l4.commons.types.Types;
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * Benchmark for visiting the hierarchy of types, both via {@link TypeRef}
+ * and via {@link Types#visitHierarchy(Class, java.util.function.Predicate)}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeHierarchyBenchmark
+{
+	private TypeRef type;
+
+	@Setup
+	public void setup()
+	{
+		type = Types.reference(ArrayList.class, String.class);
+	}
+
+	@Benchmark
+	public int visitTypeRef()
+	{
+		int[] count = new int[1];
+		type.visitHierarchy(t -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	@Benchmark
+	public int visitClass()
+	{
+		int[] count = new int[1];
+		Types.visitHierarchy(ArrayList.class, t -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	@Benchmark
+	public TypeRef createAndVisit()
+	{
+		TypeRef ref = Types.reference(ArrayList.class, String.class);
+		ref.visitHierarchy(t -> true);
+		return ref;
+	}
+}
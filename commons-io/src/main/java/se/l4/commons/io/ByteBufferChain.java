@@ -0,0 +1,234 @@
+package se.l4.commons.io;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Growable chain of {@link ByteBuffer}s acquired from a
+ * {@link ByteBufferPool}. Data is appended to the last buffer and new
+ * buffers are acquired when it is full, data is never moved once it has been
+ * written.
+ *
+ * <p>
+ * The chain can be used as {@link Bytes} or be turned into an array of
+ * buffers via {@link #toByteBuffers()} for gathering writes. The buffers
+ * are returned to the pool when the chain is {@link #close() closed}, the
+ * data of the chain must not be used after that.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ByteBufferChain
+	implements Bytes, Closeable
+{
+	private final ByteBufferPool pool;
+
+	private ByteBuffer[] buffers;
+	private int count;
+
+	public ByteBufferChain(@NonNull ByteBufferPool pool)
+	{
+		this.pool = Objects.requireNonNull(pool);
+
+		buffers = new ByteBuffer[4];
+	}
+
+	/**
+	 * Get the pool used by this chain.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public ByteBufferPool getPool()
+	{
+		return pool;
+	}
+
+	/**
+	 * Get the number of bytes in this chain.
+	 *
+	 * @return
+	 */
+	public long size()
+	{
+		long size = 0;
+		for(int i=0; i<count; i++)
+		{
+			size += buffers[i].position();
+		}
+		return size;
+	}
+
+	/**
+	 * Append some data to the chain, acquiring new buffers as needed.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 */
+	public void append(@NonNull byte[] data, int offset, int length)
+	{
+		while(length > 0)
+		{
+			ByteBuffer last = count == 0 ? null : buffers[count - 1];
+			if(last == null || ! last.hasRemaining())
+			{
+				last = pool.acquire();
+				add(last);
+			}
+
+			int n = Math.min(length, last.remaining());
+			last.put(data, offset, n);
+			offset += n;
+			length -= n;
+		}
+	}
+
+	/**
+	 * Add a buffer to the end of the chain. The data of the buffer is
+	 * expected to be between the start of the buffer and its position. The
+	 * chain takes ownership of the buffer and will release it to the pool
+	 * when closed.
+	 *
+	 * @param buffer
+	 */
+	public void add(@NonNull ByteBuffer buffer)
+	{
+		if(count == buffers.length)
+		{
+			buffers = Arrays.copyOf(buffers, count * 2);
+		}
+
+		buffers[count++] = buffer;
+	}
+
+	/**
+	 * Get the data of this chain as an array of buffers. Every buffer
+	 * is a view of the data in this chain, ready to be read from.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public ByteBuffer[] toByteBuffers()
+	{
+		ByteBuffer[] result = new ByteBuffer[count];
+		for(int i=0; i<count; i++)
+		{
+			result[i] = view(buffers[i]);
+		}
+		return result;
+	}
+
+	private static ByteBuffer view(ByteBuffer buffer)
+	{
+		ByteBuffer result = buffer.duplicate();
+		result.flip();
+		return result;
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer()
+	{
+		if(count == 1)
+		{
+			return view(buffers[0]);
+		}
+
+		ByteBuffer result = ByteBuffer.allocate(Math.toIntExact(size()));
+		for(int i=0; i<count; i++)
+		{
+			result.put(view(buffers[i]));
+		}
+		result.flip();
+		return result;
+	}
+
+	@Override
+	public byte[] toByteArray()
+	{
+		byte[] result = new byte[Math.toIntExact(size())];
+		int offset = 0;
+		for(int i=0; i<count; i++)
+		{
+			ByteBuffer view = view(buffers[i]);
+			int n = view.remaining();
+			view.get(result, offset, n);
+			offset += n;
+		}
+		return result;
+	}
+
+	@Override
+	public InputStream asInputStream()
+	{
+		ByteBuffer[] views = toByteBuffers();
+		return new InputStream()
+		{
+			private int current;
+
+			@Override
+			public int read()
+			{
+				while(current < views.length)
+				{
+					ByteBuffer buffer = views[current];
+					if(buffer.hasRemaining())
+					{
+						return buffer.get() & 0xff;
+					}
+
+					current++;
+				}
+
+				return -1;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len)
+			{
+				if(len == 0) return 0;
+
+				while(current < views.length)
+				{
+					ByteBuffer buffer = views[current];
+					if(buffer.hasRemaining())
+					{
+						int n = Math.min(len, buffer.remaining());
+						buffer.get(b, off, n);
+						return n;
+					}
+
+					current++;
+				}
+
+				return -1;
+			}
+		};
+	}
+
+	/**
+	 * Release all of the buffers in this chain back to the pool.
+	 */
+	@Override
+	public void close()
+	{
+		for(int i=0; i<count; i++)
+		{
+			pool.release(buffers[i]);
+			buffers[i] = null;
+		}
+
+		count = 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{size=" + size() + ", buffers=" + count + "}";
+	}
+}
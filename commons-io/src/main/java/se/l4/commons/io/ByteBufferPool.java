@@ -0,0 +1,195 @@
+package se.l4.commons.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Pool of {@link ByteBuffer}s of a fixed size. Buffers are acquired via
+ * {@link #acquire()} and should be given back via {@link #release(ByteBuffer)}
+ * when they are no longer used. The pool keeps at most a certain number of
+ * idle buffers, buffers released when the pool is full are left for the
+ * garbage collector.
+ *
+ * <pre>
+ * ByteBufferPool pool = ByteBufferPool.builder()
+ *   .withBufferSize(16384)
+ *   .withMaxPooled(128)
+ *   .direct()
+ *   .build();
+ * </pre>
+ *
+ * <p>
+ * Pools are thread-safe.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ByteBufferPool
+{
+	private final int bufferSize;
+	private final boolean direct;
+	private final ArrayBlockingQueue<ByteBuffer> pooled;
+
+	private ByteBufferPool(int bufferSize, int maxPooled, boolean direct)
+	{
+		this.bufferSize = bufferSize;
+		this.direct = direct;
+
+		pooled = maxPooled > 0 ? new ArrayBlockingQueue<>(maxPooled) : null;
+	}
+
+	/**
+	 * Get the size of the buffers in this pool.
+	 *
+	 * @return
+	 */
+	public int getBufferSize()
+	{
+		return bufferSize;
+	}
+
+	/**
+	 * Get if this pool creates direct buffers.
+	 *
+	 * @return
+	 */
+	public boolean isDirect()
+	{
+		return direct;
+	}
+
+	/**
+	 * Get the number of idle buffers currently kept by this pool.
+	 *
+	 * @return
+	 */
+	public int getPooledCount()
+	{
+		return pooled == null ? 0 : pooled.size();
+	}
+
+	/**
+	 * Acquire a buffer from this pool. The returned buffer is cleared and
+	 * ready to be written to.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public ByteBuffer acquire()
+	{
+		ByteBuffer buffer = pooled == null ? null : pooled.poll();
+		if(buffer != null)
+		{
+			buffer.clear();
+			return buffer;
+		}
+
+		return direct
+			? ByteBuffer.allocateDirect(bufferSize)
+			: ByteBuffer.allocate(bufferSize);
+	}
+
+	/**
+	 * Release a buffer so that it can be reused. Buffers that were not
+	 * created by a pool with the same settings are ignored. The buffer must
+	 * not be used after it has been released.
+	 *
+	 * @param buffer
+	 */
+	public void release(@NonNull ByteBuffer buffer)
+	{
+		if(pooled == null
+			|| buffer.capacity() != bufferSize
+			|| buffer.isDirect() != direct
+			|| buffer.isReadOnly()
+			|| (! direct && buffer.arrayOffset() != 0))
+		{
+			return;
+		}
+
+		pooled.offer(buffer);
+	}
+
+	/**
+	 * Start building a new pool.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	/**
+	 * Builder for instances of {@link ByteBufferPool}.
+	 */
+	public static class Builder
+	{
+		private int bufferSize;
+		private int maxPooled;
+		private boolean direct;
+
+		private Builder()
+		{
+			bufferSize = 8192;
+			maxPooled = 64;
+		}
+
+		/**
+		 * Set the size of the buffers in the pool. Defaults to 8 KiB.
+		 *
+		 * @param bufferSize
+		 * @return
+		 */
+		@NonNull
+		public Builder withBufferSize(int bufferSize)
+		{
+			if(bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be a positive number");
+
+			this.bufferSize = bufferSize;
+			return this;
+		}
+
+		/**
+		 * Set the maximum number of idle buffers to keep in the pool.
+		 * Defaults to 64, use {@code 0} to disable pooling.
+		 *
+		 * @param maxPooled
+		 * @return
+		 */
+		@NonNull
+		public Builder withMaxPooled(int maxPooled)
+		{
+			if(maxPooled < 0) throw new IllegalArgumentException("maxPooled can not be negative");
+
+			this.maxPooled = maxPooled;
+			return this;
+		}
+
+		/**
+		 * Create direct buffers instead of buffers backed by an array.
+		 *
+		 * @return
+		 */
+		@NonNull
+		public Builder direct()
+		{
+			this.direct = true;
+			return this;
+		}
+
+		/**
+		 * Create the pool.
+		 *
+		 * @return
+		 */
+		@NonNull
+		public ByteBufferPool build()
+		{
+			return new ByteBufferPool(bufferSize, maxPooled, direct);
+		}
+	}
+}
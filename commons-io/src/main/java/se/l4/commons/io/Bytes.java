@@ -3,6 +3,7 @@ package se.l4.commons.io;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -41,6 +42,24 @@ public interface Bytes
 	byte[] toByteArray()
 		throws IOException;
 
+	/**
+	 * Get the data as a {@link ByteBuffer}. Implementations that keep their
+	 * data in memory return a buffer that shares the data with this
+	 * instance, the default implementation copies the data via
+	 * {@link #toByteArray()}.
+	 *
+	 * @return
+	 *   buffer positioned at the start of the data
+	 * @throws IOException
+	 *   if unable to read the byte data
+	 */
+	@NonNull
+	default ByteBuffer asByteBuffer()
+		throws IOException
+	{
+		return ByteBuffer.wrap(toByteArray());
+	}
+
 	/**
 	 * Stream this instance to the given consumer.
 	 *
@@ -102,10 +121,7 @@ public interface Bytes
 	default <T> T asObject(StreamingCodec<T> codec)
 		throws IOException
 	{
-		try(InputStream in = asInputStream())
-		{
-			return codec.read(in);
-		}
+		return codec.read(this);
 	}
 
 	/**
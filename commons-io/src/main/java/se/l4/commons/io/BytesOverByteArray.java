@@ -3,6 +3,7 @@ package se.l4.commons.io;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
 
@@ -45,7 +46,7 @@ public class BytesOverByteArray
 	public InputStream asInputStream()
 		throws IOException
 	{
-		return new ByteArrayInputStream(data);
+		return new ByteArrayInputStream(data, offset, length);
 	}
 
 	@Override
@@ -55,9 +56,20 @@ public class BytesOverByteArray
 		return Arrays.copyOfRange(data, offset, offset + length);
 	}
 
+	/**
+	 * Get a buffer that wraps the data of this instance, the data is not
+	 * copied.
+	 */
+	@Override
+	@SuppressFBWarnings("EI_EXPOSE_REP")
+	public ByteBuffer asByteBuffer()
+	{
+		return ByteBuffer.wrap(data, offset, length).slice();
+	}
+
 	@Override
 	public String toString()
 	{
-		return getClass().getSimpleName() + "{size=" + data.length + "}";
+		return getClass().getSimpleName() + "{size=" + length + "}";
 	}
 }
@@ -29,6 +29,28 @@ public interface StreamingCodec<T>
 	T read(@NonNull InputStream in)
 		throws IOException;
 
+	/**
+	 * Read an object from the given {@link Bytes}. The default
+	 * implementation reads from {@link Bytes#asInputStream()}, codecs that
+	 * can decode directly from memory may override this.
+	 *
+	 * @param bytes
+	 *   the bytes to read
+	 * @return
+	 *   object read from the bytes
+	 * @throws IOException
+	 *   if unable to read
+	 */
+	@Nullable
+	default T read(@NonNull Bytes bytes)
+		throws IOException
+	{
+		try(InputStream in = bytes.asInputStream())
+		{
+			return read(in);
+		}
+	}
+
 	/**
 	 * Write an object to the given {@link OutputStream}.
 	 *
@@ -4,6 +4,8 @@ module se.l4.commons.serialization {
 	requires transitive se.l4.commons.types;
 	requires transitive se.l4.commons.io;
 
+	requires org.objectweb.asm;
+
 	exports se.l4.commons.serialization;
 	exports se.l4.commons.serialization.collections;
 	exports se.l4.commons.serialization.enums;
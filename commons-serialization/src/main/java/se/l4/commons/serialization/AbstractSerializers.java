@@ -1,11 +1,15 @@
 package se.l4.commons.serialization;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import se.l4.commons.serialization.collections.ArraySerializerResolver;
 import se.l4.commons.serialization.internal.DelayedSerializer;
@@ -13,9 +17,11 @@ import se.l4.commons.serialization.internal.SerializerResolverAdapter;
 import se.l4.commons.serialization.internal.TypeEncounterImpl;
 import se.l4.commons.serialization.internal.UseSerializerResolver;
 import se.l4.commons.types.Types;
+import se.l4.commons.types.mapping.CachePolicy;
 import se.l4.commons.types.mapping.Mapped;
 import se.l4.commons.types.mapping.MutableTypeMapper;
 import se.l4.commons.types.mapping.OutputDeduplicator;
+import se.l4.commons.types.mapping.TypeMapperStats;
 import se.l4.commons.types.reflect.TypeRef;
 import se.l4.commons.types.reflect.TypeUsage;
 
@@ -31,16 +37,56 @@ public abstract class AbstractSerializers
 	private static final ThreadLocal<Set<TypeRef>> stack = new ThreadLocal<Set<TypeRef>>();
 
 	protected final Map<QualifiedName, Serializer<?>> nameToSerializer;
+	/**
+	 * Serializers found for classes without hints, checked before the full
+	 * resolution done by {@link #find(TypeRef)}. Slots are stored on the
+	 * classes themselves and only refer to serializers weakly, so they keep
+	 * neither classes nor this instance alive. Entries are tagged with the
+	 * generation they were found in, which is bumped whenever a binding is
+	 * added.
+	 */
+	private final ClassValue<ClassSlot> classToSerializer;
+	private final AtomicLong generation;
+	/**
+	 * Number of lookups answered by {@link #classToSerializer}, reported as
+	 * hits together with those of the mapper.
+	 */
+	private final LongAdder classHits;
 	protected final MutableTypeMapper<TypeEncounter, Serializer<?>> mapper;
 	protected final OutputDeduplicator<Serializer<?>> deduplicator;
 
+	/**
+	 * Create a new instance that caches up to 100 resolved serializers.
+	 */
 	public AbstractSerializers()
+	{
+		this(CachePolicy.maximumSize(100));
+	}
+
+	/**
+	 * Create a new instance that caches resolved serializers using the
+	 * given policy. Use {@link CachePolicy#unbounded()} to never evict
+	 * serializers.
+	 *
+	 * @param cachePolicy
+	 */
+	public AbstractSerializers(CachePolicy cachePolicy)
 	{
 		nameToSerializer = new ConcurrentHashMap<QualifiedName, Serializer<?>>();
+		classToSerializer = new ClassValue<ClassSlot>()
+		{
+			@Override
+			protected ClassSlot computeValue(Class<?> type)
+			{
+				return new ClassSlot();
+			}
+		};
+		generation = new AtomicLong();
+		classHits = new LongAdder();
 
 		deduplicator = createDeduplicator();
 		mapper = MutableTypeMapper.create(this::createEncounter)
-			.withCaching(100)
+			.withCaching(cachePolicy)
 			.withOutputDeduplication(deduplicator)
 			.build();
 
@@ -79,6 +125,7 @@ public abstract class AbstractSerializers
 	public <T> Serializers bind(Class<T> type, Serializer<T> serializer)
 	{
 		mapper.addSpecific(type, serializer);
+		clearClassCache();
 		return this;
 	}
 
@@ -86,14 +133,46 @@ public abstract class AbstractSerializers
 	public <T> Serializers bind(Class<T> type, SerializerResolver<? extends T> resolver)
 	{
 		mapper.addHierarchyResolver(type, new SerializerResolverAdapter(resolver));
+		clearClassCache();
 		return this;
 	}
 
+	private void clearClassCache()
+	{
+		generation.incrementAndGet();
+	}
+
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public <T> Serializer<T> find(Class<T> type)
 	{
-		return (Serializer) find(Types.reference(type));
+		long current = generation.get();
+
+		ClassSlot slot = classToSerializer.get(type);
+		ClassEntry entry = slot.entry;
+		if(entry != null && entry.generation == current)
+		{
+			Serializer<?> serializer = entry.serializer.get();
+			if(serializer != null)
+			{
+				classHits.increment();
+				return (Serializer) serializer;
+			}
+		}
+
+		Serializer<?> serializer = find(Types.reference(type));
+
+		/*
+		 * Delayed serializers are only valid during the current resolution.
+		 * If a binding was added while resolving the serializer may already
+		 * be stale, in which case it is not kept.
+		 */
+		if(! (serializer instanceof DelayedSerializer) && generation.get() == current)
+		{
+			slot.entry = new ClassEntry(current, serializer);
+		}
+
+		return (Serializer) serializer;
 	}
 
 	@Override
@@ -163,6 +242,12 @@ public abstract class AbstractSerializers
 		return Optional.ofNullable(nameToSerializer.get(new QualifiedName(namespace, name)));
 	}
 
+	@Override
+	public TypeMapperStats getCacheStats()
+	{
+		return new ClassHitStats(mapper.getStats(), classHits.sum());
+	}
+
 	@Override
 	public boolean isSupported(Class<?> type)
 	{
@@ -176,4 +261,91 @@ public abstract class AbstractSerializers
 			return false;
 		}
 	}
+
+	/**
+	 * Holder stored for every class via {@link ClassValue}.
+	 */
+	private static class ClassSlot
+	{
+		private volatile ClassEntry entry;
+	}
+
+	private static class ClassEntry
+	{
+		private final long generation;
+		private final WeakReference<Serializer<?>> serializer;
+
+		public ClassEntry(long generation, Serializer<?> serializer)
+		{
+			this.generation = generation;
+			this.serializer = new WeakReference<>(serializer);
+		}
+	}
+
+	/**
+	 * Statistics of the mapper with lookups answered for plain classes
+	 * added as hits.
+	 */
+	private static class ClassHitStats
+		implements TypeMapperStats
+	{
+		private final TypeMapperStats stats;
+		private final long classHits;
+
+		public ClassHitStats(TypeMapperStats stats, long classHits)
+		{
+			this.stats = stats;
+			this.classHits = classHits;
+		}
+
+		@Override
+		public long getHitCount()
+		{
+			return stats.getHitCount() + classHits;
+		}
+
+		@Override
+		public long getMissCount()
+		{
+			return stats.getMissCount();
+		}
+
+		@Override
+		public double getHitRate()
+		{
+			long hits = getHitCount();
+			long total = hits + getMissCount();
+			return total == 0 ? 1.0 : (double) hits / total;
+		}
+
+		@Override
+		public long getEvictionCount()
+		{
+			return stats.getEvictionCount();
+		}
+
+		@Override
+		public long getLoadCount()
+		{
+			return stats.getLoadCount();
+		}
+
+		@Override
+		public Duration getTotalLoadTime()
+		{
+			return stats.getTotalLoadTime();
+		}
+
+		@Override
+		public Duration getAverageLoadTime()
+		{
+			return stats.getAverageLoadTime();
+		}
+
+		@Override
+		public long getSize()
+		{
+			return stats.getSize();
+		}
+	}
 }
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for booleans that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code boolean}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface BooleanValueSerializer
+	extends Serializer<Boolean>
+{
+	/**
+	 * Read a boolean from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	boolean readBoolean(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a boolean to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeBoolean(boolean value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Boolean read(StreamingInput in)
+		throws IOException
+	{
+		return readBoolean(in);
+	}
+
+	@Override
+	default void write(Boolean object, StreamingOutput out)
+		throws IOException
+	{
+		writeBoolean(object, out);
+	}
+}
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for bytes that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code byte}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface ByteValueSerializer
+	extends Serializer<Byte>
+{
+	/**
+	 * Read a byte from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	byte readByte(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a byte to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeByte(byte value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Byte read(StreamingInput in)
+		throws IOException
+	{
+		return readByte(in);
+	}
+
+	@Override
+	default void write(Byte object, StreamingOutput out)
+		throws IOException
+	{
+		writeByte(object, out);
+	}
+}
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for characters that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code char}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface CharValueSerializer
+	extends Serializer<Character>
+{
+	/**
+	 * Read a char from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	char readChar(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a char to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeChar(char value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Character read(StreamingInput in)
+		throws IOException
+	{
+		return readChar(in);
+	}
+
+	@Override
+	default void write(Character object, StreamingOutput out)
+		throws IOException
+	{
+		writeChar(object, out);
+	}
+}
@@ -0,0 +1,48 @@
+package se.l4.commons.serialization;
+
+import java.util.Optional;
+
+/**
+ * Variant of {@link ReflectionSerializer} that generates a class for
+ * every type it handles. The generated serializer writes the fields of an
+ * object as an unrolled sequence of keys and values and reads objects by
+ * switching on the index of the key, primitive fields are read and written
+ * without boxing.
+ *
+ * <p>
+ * Only types that can be fully streamed, that is types that do not take
+ * any serialized fields in their constructors, will have a class generated.
+ * Other types use the same serializers as {@link ReflectionSerializer}.
+ *
+ * <pre>
+ * &#64;Use(CompiledSerializer.class)
+ * public class Person {
+ *   &#64;Expose
+ *   private String name;
+ *
+ *   &#64;Expose
+ *   private int age;
+ * }
+ * </pre>
+ *
+ * <p>
+ * Every generated class is defined in a class loader of its own, so it
+ * is unloaded together with its serializer and does not keep the type it
+ * serializes from being unloaded.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class CompiledSerializer<T>
+	implements SerializerResolver<T>
+{
+	public CompiledSerializer()
+	{
+	}
+
+	@Override
+	public Optional<Serializer<T>> find(TypeEncounter encounter)
+	{
+		return Optional.of(ReflectionSerializer.create(encounter, true));
+	}
+}
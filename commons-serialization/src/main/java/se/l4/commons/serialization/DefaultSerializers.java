@@ -26,6 +26,7 @@ import se.l4.commons.serialization.standard.StringSerializer;
 import se.l4.commons.serialization.standard.UuidSerializer;
 import se.l4.commons.types.DefaultInstanceFactory;
 import se.l4.commons.types.InstanceFactory;
+import se.l4.commons.types.mapping.CachePolicy;
 
 /**
  * Default implementation of {@link Serializers}.
@@ -43,8 +44,28 @@ public class DefaultSerializers
 		this(new DefaultInstanceFactory());
 	}
 
+	/**
+	 * Create a new instance that caches up to 100 resolved serializers.
+	 *
+	 * @param instanceFactory
+	 */
 	public DefaultSerializers(InstanceFactory instanceFactory)
 	{
+		this(instanceFactory, CachePolicy.maximumSize(100));
+	}
+
+	/**
+	 * Create a new instance that caches resolved serializers using the
+	 * given policy. Use {@link CachePolicy#unbounded()} to never evict
+	 * serializers.
+	 *
+	 * @param instanceFactory
+	 * @param cachePolicy
+	 */
+	public DefaultSerializers(InstanceFactory instanceFactory, CachePolicy cachePolicy)
+	{
+		super(cachePolicy);
+
 		this.instanceFactory = instanceFactory;
 
 		// Standard types
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for doubles that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code double}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface DoubleValueSerializer
+	extends Serializer<Double>
+{
+	/**
+	 * Read a double from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	double readDouble(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a double to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeDouble(double value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Double read(StreamingInput in)
+		throws IOException
+	{
+		return readDouble(in);
+	}
+
+	@Override
+	default void write(Double object, StreamingOutput out)
+		throws IOException
+	{
+		writeDouble(object, out);
+	}
+}
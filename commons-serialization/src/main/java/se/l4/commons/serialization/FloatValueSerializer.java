@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for floats that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code float}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface FloatValueSerializer
+	extends Serializer<Float>
+{
+	/**
+	 * Read a float from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	float readFloat(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a float to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeFloat(float value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Float read(StreamingInput in)
+		throws IOException
+	{
+		return readFloat(in);
+	}
+
+	@Override
+	default void write(Float object, StreamingOutput out)
+		throws IOException
+	{
+		writeFloat(object, out);
+	}
+}
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for integers that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code int}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface IntValueSerializer
+	extends Serializer<Integer>
+{
+	/**
+	 * Read an int from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	int readInt(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write an int to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeInt(int value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Integer read(StreamingInput in)
+		throws IOException
+	{
+		return readInt(in);
+	}
+
+	@Override
+	default void write(Integer object, StreamingOutput out)
+		throws IOException
+	{
+		writeInt(object, out);
+	}
+}
@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for longs that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code long}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface LongValueSerializer
+	extends Serializer<Long>
+{
+	/**
+	 * Read a long from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	long readLong(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a long to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeLong(long value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Long read(StreamingInput in)
+		throws IOException
+	{
+		return readLong(in);
+	}
+
+	@Override
+	default void write(Long object, StreamingOutput out)
+		throws IOException
+	{
+		writeLong(object, out);
+	}
+}
@@ -9,7 +9,9 @@ import org.eclipse.collections.api.list.MutableList;
 import org.eclipse.collections.api.map.ImmutableMap;
 import org.eclipse.collections.api.map.MutableMap;
 
+import se.l4.commons.serialization.internal.reflection.CompiledSerializerGenerator;
 import se.l4.commons.serialization.internal.reflection.FactoryDefinition;
+import se.l4.commons.serialization.internal.reflection.FieldAccessor;
 import se.l4.commons.serialization.internal.reflection.FieldDefinition;
 import se.l4.commons.serialization.internal.reflection.ReflectionNonStreamingSerializer;
 import se.l4.commons.serialization.internal.reflection.ReflectionOnlySingleFactorySerializer;
@@ -44,8 +46,22 @@ public class ReflectionSerializer<T>
 	}
 
 	@Override
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public Optional<Serializer<T>> find(TypeEncounter encounter)
+	{
+		return Optional.of(create(encounter, false));
+	}
+
+	/**
+	 * Create a serializer for the type in the given encounter.
+	 *
+	 * @param encounter
+	 *   the encounter to create a serializer for
+	 * @param compile
+	 *   if a class should be generated for types that can be fully streamed
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <T> Serializer<T> create(TypeEncounter encounter, boolean compile)
 	{
 		TypeRef type = encounter.getType();
 		Serializers collection = encounter.getCollection();
@@ -68,9 +84,10 @@ public class ReflectionSerializer<T>
 			Field reflectiveField = field.getField();
 			reflectiveField.setAccessible(true);
 
-			// Define how we access this field
+			// Define how we access this field, prefers method handles over reflection
+			FieldAccessor accessor = FieldAccessor.create(reflectiveField);
 			String name = getName(reflectiveField);
-			FieldDefinition def = new FieldDefinition(reflectiveField, name, serializer, field.getType().getErasedType(), skipIfDefault);
+			FieldDefinition def = new FieldDefinition(accessor, name, serializer, field.getType().getErasedType(), skipIfDefault);
 			builder.put(name, def);
 			nonRenamedFields.put(reflectiveField.getName(), def);
 		}
@@ -115,16 +132,21 @@ public class ReflectionSerializer<T>
 			if(factoryWithEverything == null)
 			{
 				// There is no factory that takes in every single field, use a non-streaming serializer
-				return Optional.of(new ReflectionNonStreamingSerializer<>(typeInfo));
+				return new ReflectionNonStreamingSerializer<>(typeInfo);
 			}
 			else
 			{
-				return Optional.of(new ReflectionOnlySingleFactorySerializer<>(typeInfo, factoryWithEverything));
+				return new ReflectionOnlySingleFactorySerializer<>(typeInfo, factoryWithEverything);
 			}
 		}
+		else if(compile)
+		{
+			return CompiledSerializerGenerator.generate(typeInfo)
+				.orElseGet(() -> new ReflectionStreamingSerializer<>(typeInfo));
+		}
 		else
 		{
-			return Optional.of(new ReflectionStreamingSerializer<>(typeInfo));
+			return new ReflectionStreamingSerializer<>(typeInfo);
 		}
 	}
 
@@ -8,6 +8,7 @@ import java.util.Optional;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.UnknownNullness;
+import se.l4.commons.io.Bytes;
 import se.l4.commons.io.StreamingCodec;
 import se.l4.commons.serialization.format.StreamingFormat;
 import se.l4.commons.serialization.format.StreamingInput;
@@ -91,20 +92,36 @@ public interface Serializer<T>
 			{
 				try(StreamingInput streamingIn = format.createInput(in))
 				{
-					if(streamingIn.peek() == Token.NULL && ! (Serializer.this instanceof NullHandling))
-					{
-						/*
-						 * If this serializer doesn't handle null values read
-						 * it and return null.
-						 */
-						streamingIn.next(Token.NULL);
-						return null;
-					}
+					return readValue(streamingIn);
+				}
+			}
 
-					return Serializer.this.read(streamingIn);
+			@Override
+			public T read(Bytes bytes)
+				throws IOException
+			{
+				try(StreamingInput streamingIn = format.createInput(bytes))
+				{
+					return readValue(streamingIn);
 				}
 			}
 
+			private T readValue(StreamingInput streamingIn)
+				throws IOException
+			{
+				if(streamingIn.peek() == Token.NULL && ! (Serializer.this instanceof NullHandling))
+				{
+					/*
+					 * If this serializer doesn't handle null values read
+					 * it and return null.
+					 */
+					streamingIn.next(Token.NULL);
+					return null;
+				}
+
+				return Serializer.this.read(streamingIn);
+			}
+
 			@Override
 			public void write(T item, OutputStream out)
 				throws IOException
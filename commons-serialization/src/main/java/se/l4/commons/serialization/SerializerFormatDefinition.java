@@ -40,8 +40,19 @@ public class SerializerFormatDefinition
 	private final int type;
 	private final ValueType valueType;
 	private final ImmutableMap<String, FieldDefinition> fields;
+	private final SerializerFormatDefinition itemDefinition;
 
 	public SerializerFormatDefinition(int type, ValueType valueType, Iterable<FieldDefinition> definitions)
+	{
+		this(type, valueType, null, definitions);
+	}
+
+	public SerializerFormatDefinition(
+		int type,
+		ValueType valueType,
+		SerializerFormatDefinition itemDefinition,
+		Iterable<FieldDefinition> definitions
+	)
 	{
 		MutableMap<String, FieldDefinition> builder = Maps.mutable.empty();
 		for(FieldDefinition fd : definitions)
@@ -53,6 +64,7 @@ public class SerializerFormatDefinition
 
 		this.type = type;
 		this.valueType = valueType;
+		this.itemDefinition = itemDefinition;
 	}
 
 	public FieldDefinition getField(String fieldName)
@@ -70,6 +82,18 @@ public class SerializerFormatDefinition
 		return valueType;
 	}
 
+	/**
+	 * Get the definition used for items if this is a list.
+	 *
+	 * @return
+	 *   definition of items, or {@code null} if not a list or if the items
+	 *   are not known
+	 */
+	public SerializerFormatDefinition getItemDefinition()
+	{
+		return itemDefinition;
+	}
+
 	public boolean isList()
 	{
 		return type == 2;
@@ -1,10 +1,16 @@
 package se.l4.commons.serialization;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.types.InstanceFactory;
+import se.l4.commons.types.mapping.TypeMapperStats;
 import se.l4.commons.types.reflect.TypeRef;
 
 
@@ -118,4 +124,67 @@ public interface Serializers
 	 * @return
 	 */
 	boolean isSupported(@NonNull Class<?> type);
+
+	/**
+	 * Get statistics about the cache of resolved serializers. Lookups of
+	 * plain classes that are answered without resolving the type again are
+	 * counted as hits. Implementations that do not keep track of their
+	 * cache return {@link TypeMapperStats#empty()}.
+	 *
+	 * @return
+	 */
+	@NonNull
+	default TypeMapperStats getCacheStats()
+	{
+		return TypeMapperStats.empty();
+	}
+
+	/**
+	 * Read a list from the given input one item at a time, using the
+	 * serializer for the given type. See
+	 * {@link StreamingInput#readAsIterator(Serializer)}.
+	 *
+	 * @param in
+	 * @param type
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	default <T> Iterator<T> readAsIterator(@NonNull StreamingInput in, @NonNull Class<T> type)
+		throws IOException
+	{
+		return in.readAsIterator(find(type));
+	}
+
+	/**
+	 * Read a list from the given input one item at a time as a
+	 * {@link Stream}, using the serializer for the given type. See
+	 * {@link StreamingInput#readAsStream(Serializer)}.
+	 *
+	 * @param in
+	 * @param type
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	default <T> Stream<T> readAsStream(@NonNull StreamingInput in, @NonNull Class<T> type)
+		throws IOException
+	{
+		return in.readAsStream(find(type));
+	}
+
+	/**
+	 * Write all items of an iterator as a list, using the serializer for
+	 * the given type. See {@link StreamingOutput#writeAll(Serializer, Iterator)}.
+	 *
+	 * @param out
+	 * @param type
+	 * @param items
+	 * @throws IOException
+	 */
+	default <T> void writeAll(@NonNull StreamingOutput out, @NonNull Class<T> type, @NonNull Iterator<? extends T> items)
+		throws IOException
+	{
+		out.writeAll(find(type), items);
+	}
 }
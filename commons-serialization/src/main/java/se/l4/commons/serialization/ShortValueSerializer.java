@@ -0,0 +1,53 @@
+package se.l4.commons.serialization;
+
+import java.io.IOException;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+
+/**
+ * {@link Serializer} for shorts that can read and write them without
+ * boxing. The reflection serializers use these methods directly for fields
+ * of type {@code short}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface ShortValueSerializer
+	extends Serializer<Short>
+{
+	/**
+	 * Read a short from the specified stream.
+	 *
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	short readShort(@NonNull StreamingInput in)
+		throws IOException;
+
+	/**
+	 * Write a short to the specified stream.
+	 *
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	void writeShort(short value, @NonNull StreamingOutput out)
+		throws IOException;
+
+	@Override
+	default Short read(StreamingInput in)
+		throws IOException
+	{
+		return readShort(in);
+	}
+
+	@Override
+	default void write(Short object, StreamingOutput out)
+		throws IOException
+	{
+		writeShort(object, out);
+	}
+}
@@ -1,6 +1,7 @@
 package se.l4.commons.serialization;
 
 import se.l4.commons.types.InstanceFactory;
+import se.l4.commons.types.mapping.CachePolicy;
 import se.l4.commons.types.mapping.Mapped;
 import se.l4.commons.types.reflect.TypeRef;
 
@@ -21,6 +22,20 @@ public class WrappedSerializers
 		this.other = other;
 	}
 
+	/**
+	 * Create a new instance that caches resolved serializers using the
+	 * given policy.
+	 *
+	 * @param other
+	 * @param cachePolicy
+	 */
+	public WrappedSerializers(Serializers other, CachePolicy cachePolicy)
+	{
+		super(cachePolicy);
+
+		this.other = other;
+	}
+
 	@Override
 	public InstanceFactory getInstanceFactory()
 	{
@@ -20,19 +20,25 @@ public class CollectionSerializers
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public static Serializer<?> resolveSerializer(TypeEncounter encounter, TypeRef type)
 	{
-		if(encounter.getHint(AllowAnyItem.class) != null)
+		if(encounter.getHint(AllowAnyItem.class).isPresent())
 		{
 			return new DynamicSerializer.Impl(encounter.getCollection());
 		}
 
 		Optional<Item> item = encounter.getHint(Item.class);
-		if(item.isPresent())
-		{
-			return encounter.find((Class) item.get().value(), type);
-		}
-		else
+		Serializer<?> serializer = item.isPresent()
+			? encounter.find((Class) item.get().value(), type)
+			: encounter.find(type);
+
+		if(serializer.getName().isPresent())
 		{
-			return encounter.find(type);
+			/*
+			 * Items of named types have always been written with their name,
+			 * keep doing so to be able to read existing data.
+			 */
+			return new DynamicSerializer.Impl(encounter.getCollection());
 		}
+
+		return serializer;
 	}
 }
@@ -44,6 +44,22 @@ public abstract class AbstractStreamingInput
 	protected abstract Token next0()
 		throws IOException;
 
+	/**
+	 * Skip the contents of the object or list that was just started without
+	 * reading its tokens, including the token that ends it. Used by
+	 * {@link #skip()} for inputs that know the size of containers.
+	 *
+	 * @return
+	 *   if the container was skipped, if {@code false} it will be skipped
+	 *   by reading all of its tokens
+	 * @throws IOException
+	 */
+	protected boolean skipContainer()
+		throws IOException
+	{
+		return false;
+	}
+
 	protected IOException raiseException(String message)
 	{
 		return new IOException(message);
@@ -110,6 +126,13 @@ public abstract class AbstractStreamingInput
 				throw raiseException("Can only skip when start of object, start of list or value, token is now " + token);
 		}
 
+		if(skipContainer())
+		{
+			level--;
+			token = stop;
+			return;
+		}
+
 		int currentLevel = level;
 		Token next = peek();
 		while(true)
@@ -0,0 +1,254 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+
+/**
+ * {@link FeedInput} for the binary format. Finds the end of values by
+ * reading the tags and lengths of every item, values are decoded by
+ * {@link BinaryInput}. Keys defined by a value are available to the values
+ * after it, in the same way as when reading from a stream.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class BinaryFeedInput
+	extends FeedInput
+{
+	private int depth;
+	/**
+	 * If the tag of an item has been scanned but not all of its data.
+	 */
+	private boolean inItem;
+
+	/**
+	 * Data remaining in the current item, either as bytes, encoded
+	 * characters or variable length integers.
+	 */
+	private long remainingBytes;
+	private int remainingChars;
+	private int remainingVarints;
+
+	/**
+	 * The end of the variable length integer read by
+	 * {@link #readVarint(int)}.
+	 */
+	private int varintEnd;
+
+	private BinaryInput previous;
+
+	@Override
+	protected boolean scan(boolean ended)
+		throws IOException
+	{
+		while(true)
+		{
+			if(remainingBytes > 0)
+			{
+				int n = (int) Math.min(remainingBytes, limit - position);
+				position += n;
+				remainingBytes -= n;
+
+				if(remainingBytes > 0)
+				{
+					return false;
+				}
+			}
+			else if(remainingChars > 0)
+			{
+				if(position == limit)
+				{
+					return false;
+				}
+
+				int c = buffer[position++] & 0xff;
+				int t = c >> 4;
+				if(t == 12 || t == 13)
+				{
+					remainingBytes = 1;
+				}
+				else if(t == 14)
+				{
+					remainingBytes = 2;
+				}
+				else if(t >= 8)
+				{
+					throw new IOException("Invalid character in string, read byte was " + c);
+				}
+
+				remainingChars--;
+			}
+			else if(remainingVarints > 0)
+			{
+				if(readVarint(position) < 0)
+				{
+					return false;
+				}
+
+				position = varintEnd;
+				remainingVarints--;
+			}
+			else if(inItem)
+			{
+				inItem = false;
+				if(depth == 0)
+				{
+					return true;
+				}
+			}
+			else
+			{
+				if(position == limit)
+				{
+					return false;
+				}
+
+				int end = scanTag(position);
+				if(end < 0)
+				{
+					return false;
+				}
+
+				position = end;
+				inItem = true;
+			}
+		}
+	}
+
+	/**
+	 * Scan the tag at the given position together with any length that
+	 * follows it.
+	 *
+	 * @param position
+	 * @return
+	 *   the position after the tag and its length, or {@code -1} if more data
+	 *   is needed
+	 * @throws IOException
+	 */
+	private int scanTag(int position)
+		throws IOException
+	{
+		int tag = buffer[position++] & 0xff;
+		switch(tag)
+		{
+			case BinaryOutput.TAG_OBJECT_START:
+			case BinaryOutput.TAG_LIST_START:
+				depth++;
+				return position;
+			case BinaryOutput.TAG_OBJECT_END:
+			case BinaryOutput.TAG_LIST_END:
+				if(depth == 0)
+				{
+					throw new IOException("Unexpected end of object or list at root");
+				}
+
+				depth--;
+				return position;
+			case BinaryOutput.TAG_NULL:
+				return position;
+			case BinaryOutput.TAG_BOOLEAN:
+				remainingBytes = 1;
+				return position;
+			case BinaryOutput.TAG_FLOAT:
+				remainingBytes = 4;
+				return position;
+			case BinaryOutput.TAG_DOUBLE:
+				remainingBytes = 8;
+				return position;
+			case BinaryOutput.TAG_INT:
+			case BinaryOutput.TAG_LONG:
+			case BinaryOutput.TAG_POSITIVE_INT:
+			case BinaryOutput.TAG_POSITIVE_LONG:
+			case BinaryOutput.TAG_NEGATIVE_INT:
+			case BinaryOutput.TAG_NEGATIVE_LONG:
+			case BinaryOutput.TAG_KEY_REFERENCE:
+				return readVarint(position) < 0 ? -1 : varintEnd;
+		}
+
+		long length = readVarint(position);
+		if(length < 0)
+		{
+			return -1;
+		}
+
+		switch(tag)
+		{
+			case BinaryOutput.TAG_KEY:
+			case BinaryOutput.TAG_KEY_DEFINITION:
+			case BinaryOutput.TAG_STRING:
+				remainingChars = (int) length;
+				break;
+			case BinaryOutput.TAG_BYTE_ARRAY:
+			case BinaryOutput.TAG_SIZED_OBJECT_START:
+			case BinaryOutput.TAG_SIZED_LIST_START:
+				// Sized containers are skipped as a whole
+				remainingBytes = length;
+				break;
+			case BinaryOutput.TAG_PACKED_INT:
+			case BinaryOutput.TAG_PACKED_LONG:
+				remainingVarints = (int) length;
+				break;
+			case BinaryOutput.TAG_PACKED_FLOAT:
+				remainingBytes = length * 4;
+				break;
+			case BinaryOutput.TAG_PACKED_DOUBLE:
+				remainingBytes = length * 8;
+				break;
+			default:
+				throw new IOException("Unknown tag " + tag);
+		}
+
+		return varintEnd;
+	}
+
+	/**
+	 * Read a variable length integer at the given position, storing its end
+	 * in {@link #varintEnd}.
+	 *
+	 * @param position
+	 * @return
+	 *   the value, or {@code -1} if more data is needed
+	 * @throws IOException
+	 */
+	private long readVarint(int position)
+		throws IOException
+	{
+		long result = 0;
+		for(int shift=0; shift<64; shift+=7)
+		{
+			if(position == limit)
+			{
+				return -1;
+			}
+
+			int b = buffer[position++];
+			result |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0)
+			{
+				varintEnd = position;
+				return result & Long.MAX_VALUE;
+			}
+		}
+
+		throw new IOException("Invalid variable length integer");
+	}
+
+	@Override
+	protected StreamingInput createInput(byte[] data, int offset, int length)
+		throws IOException
+	{
+		BinaryInput in = new BinaryInput(data, offset, length, previous);
+		previous = in;
+		return in;
+	}
+
+	@Override
+	protected void finish(StreamingInput in)
+		throws IOException
+	{
+		// Read the rest of the value so that all keys in it are defined
+		while(in.peek() != Token.END_OF_STREAM)
+		{
+			in.next();
+		}
+	}
+}
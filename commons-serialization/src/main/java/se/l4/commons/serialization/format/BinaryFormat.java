@@ -0,0 +1,66 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import se.l4.commons.io.Bytes;
+
+/**
+ * {@link StreamingFormat} for the binary format. Decodes directly from
+ * memory when created for {@link Bytes} or a {@link ByteBuffer}. Inputs
+ * read data written by both versions of the format, outputs only write
+ * version two and sizes of containers if the format has been created for
+ * it.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class BinaryFormat
+	implements StreamingFormat
+{
+	private final boolean version2;
+	private final boolean sizedContainers;
+
+	public BinaryFormat(boolean version2, boolean sizedContainers)
+	{
+		this.version2 = version2;
+		this.sizedContainers = sizedContainers;
+	}
+
+	@Override
+	public StreamingInput createInput(InputStream in)
+		throws IOException
+	{
+		return new BinaryInput(in);
+	}
+
+	@Override
+	public StreamingInput createInput(Bytes bytes)
+		throws IOException
+	{
+		return new BinaryInput(bytes.asByteBuffer());
+	}
+
+	@Override
+	public StreamingInput createInput(ByteBuffer buffer)
+		throws IOException
+	{
+		return new BinaryInput(buffer);
+	}
+
+	@Override
+	public Optional<FeedInput> createFeedInput()
+	{
+		return Optional.of(new BinaryFeedInput());
+	}
+
+	@Override
+	public StreamingOutput createOutput(OutputStream out)
+		throws IOException
+	{
+		return new BinaryOutput(out, BinaryOutput.DEFAULT_BUFFER_SIZE, version2, sizedContainers);
+	}
+}
@@ -4,17 +4,29 @@ import java.io.ByteArrayInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import se.l4.commons.io.Bytes;
 
 /**
- * Input for binary format.
+ * Input for binary format. Reads from the stream in blocks into an internal
+ * buffer, which means that the input may read further than the end of the
+ * value being decoded.
+ *
+ * <p>
+ * When created over a {@code byte[]} or a heap {@link ByteBuffer} the data is
+ * decoded directly from the array without copying it and byte values read via
+ * {@link #readBytes()} are slices of the array. Such inputs can also be
+ * used by {@link LazyValue} to start reading at the position of a value.
  *
  * @author Andreas Holstenson
  *
  */
 public class BinaryInput
 	extends AbstractStreamingInput
+	implements SeekableInput
 {
 	private static final int CHARS_SIZE = 1024;
 	private static final ThreadLocal<char[]> CHARS = new ThreadLocal<char[]>()
@@ -22,31 +34,243 @@ public class BinaryInput
 		@Override
 		protected char[] initialValue()
 		{
-			return new char[1024];
+			return new char[CHARS_SIZE];
 		}
 	};
 
+	/**
+	 * The default size of the internal buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	/**
+	 * The smallest buffer that can be used, needs to be able to hold a
+	 * double.
+	 */
+	private static final int MIN_BUFFER_SIZE = 16;
+
+	/**
+	 * Marker used in place of a read byte for the next item of a packed
+	 * array.
+	 */
+	private static final int PACKED_ITEM = -3;
+	/**
+	 * Marker used in place of a read byte for the end of a packed array.
+	 */
+	private static final int PACKED_END = -4;
+
 	private final InputStream in;
+	private final ByteBuffer source;
+	private final KeyCache keyCache = KeyCache.get();
 
 	private final byte[] buffer;
+	private final boolean shared;
+	private int position;
+	private int limit;
 
 	private int peekedByte;
 	private int currentValueByte;
 	private boolean didReadValue;
 
+	/**
+	 * Keys defined via {@link BinaryOutput#TAG_KEY_DEFINITION}, created when
+	 * the first key is defined.
+	 */
+	private String[] keys;
+	private int keyCount;
+	/**
+	 * If the keys are shared with the input this input was created from and
+	 * need to be copied before defining more keys.
+	 */
+	private boolean sharedKeys;
+
+	/**
+	 * The tag that items of the current packed array are read as and the
+	 * number of items remaining.
+	 */
+	private int packedValueByte;
+	private int packedRemaining;
+
+	/**
+	 * The size in bytes of the contents of the container that was just
+	 * started, {@code -1} if the size is not known.
+	 */
+	private int containerSize;
+
 	public BinaryInput(InputStream in)
+	{
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a new input that uses a buffer of the given size.
+	 *
+	 * @param in
+	 * @param bufferSize
+	 *   the size of the internal buffer in bytes
+	 */
+	public BinaryInput(InputStream in, int bufferSize)
 	{
 		this.in = in;
-		buffer = new byte[8];
+		source = null;
+		buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+		shared = false;
+
+		peekedByte = -2;
+	}
+
+	/**
+	 * Create a new input that decodes directly from the given array.
+	 *
+	 * @param data
+	 */
+	public BinaryInput(byte[] data)
+	{
+		this(data, 0, data.length);
+	}
+
+	/**
+	 * Create a new input that decodes directly from a region of the given
+	 * array. The array is not copied and must not be modified while the
+	 * input is in use.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 */
+	@SuppressFBWarnings("EI_EXPOSE_REP2")
+	public BinaryInput(byte[] data, int offset, int length)
+	{
+		if(offset < 0 || length < 0 || offset + length > data.length)
+		{
+			throw new IndexOutOfBoundsException("Region " + offset + "+" + length + " is outside of array with length " + data.length);
+		}
+
+		in = null;
+		source = null;
+		buffer = data;
+		shared = true;
+		position = offset;
+		limit = offset + length;
+
+		peekedByte = -2;
+	}
+
+	/**
+	 * Create a new input that decodes the remaining data of the given
+	 * buffer. Heap buffers are decoded directly from their backing array,
+	 * other buffers are copied in blocks into an internal buffer. The
+	 * position of the given buffer is not modified.
+	 *
+	 * @param data
+	 */
+	@SuppressFBWarnings("EI_EXPOSE_REP2")
+	public BinaryInput(ByteBuffer data)
+	{
+		in = null;
+
+		if(data.hasArray())
+		{
+			source = null;
+			buffer = data.array();
+			shared = true;
+			position = data.arrayOffset() + data.position();
+			limit = position + data.remaining();
+		}
+		else
+		{
+			source = data.duplicate();
+			buffer = new byte[Math.max(Math.min(data.remaining(), DEFAULT_BUFFER_SIZE), MIN_BUFFER_SIZE)];
+			shared = false;
+		}
+
+		peekedByte = -2;
+	}
+
+	/**
+	 * Create a new input that decodes directly from a region of the given
+	 * array and continues to use the keys defined by a previous input. Used
+	 * by {@link BinaryFeedInput} where every value is decoded by its own
+	 * input.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @param previous
+	 *   the input used for the previous value, or {@code null}
+	 */
+	BinaryInput(byte[] data, int offset, int length, BinaryInput previous)
+	{
+		this(data, offset, length);
+
+		if(previous != null)
+		{
+			keys = previous.keys;
+			keyCount = previous.keyCount;
+			sharedKeys = keys != null;
+		}
+	}
+
+	/**
+	 * Create a new input that reads from the array of another input,
+	 * starting at the given offset with the given number of keys defined.
+	 *
+	 * @param parent
+	 * @param offset
+	 * @param keyCount
+	 */
+	private BinaryInput(BinaryInput parent, int offset, int keyCount)
+	{
+		in = null;
+		source = null;
+		buffer = parent.buffer;
+		shared = true;
+		position = offset;
+		limit = parent.limit;
+
+		keys = parent.keys;
+		this.keyCount = keyCount;
+		sharedKeys = keys != null;
 
 		peekedByte = -2;
 	}
 
+	@Override
+	public long position()
+		throws IOException
+	{
+		if(! shared || peek() == Token.END_OF_STREAM
+			|| peekedByte == PACKED_ITEM || peekedByte == PACKED_END)
+		{
+			return -1;
+		}
+
+		// The tag of the next token has been read by peek
+		return (long) keyCount << 32 | (position - 1);
+	}
+
+	@Override
+	public StreamingInput seek(long position)
+		throws IOException
+	{
+		int offset = (int) position;
+		int keyCount = (int) (position >>> 32);
+		if(! shared || offset < 0 || offset >= limit || keyCount > this.keyCount)
+		{
+			throw raiseException("Invalid position " + position);
+		}
+
+		return new BinaryInput(this, offset, keyCount);
+	}
+
 	@Override
 	public void close()
 		throws IOException
 	{
-		in.close();
+		if(in != null)
+		{
+			in.close();
+		}
 	}
 
 	@Override
@@ -56,12 +280,12 @@ public class BinaryInput
 		if((current() == Token.VALUE || current() == Token.KEY) && ! didReadValue)
 		{
 			// The value hasn't actually been read
-			readDynamic();
+			skipCurrentValue();
 		}
 
 		if(peekedByte == -2)
 		{
-			peekedByte = in.read();
+			peekedByte = read();
 		}
 
 		switch(peekedByte)
@@ -69,14 +293,23 @@ public class BinaryInput
 			case -1:
 				return Token.END_OF_STREAM;
 			case BinaryOutput.TAG_KEY:
+			case BinaryOutput.TAG_KEY_DEFINITION:
+			case BinaryOutput.TAG_KEY_REFERENCE:
 				return Token.KEY;
 			case BinaryOutput.TAG_OBJECT_START:
+			case BinaryOutput.TAG_SIZED_OBJECT_START:
 				return Token.OBJECT_START;
 			case BinaryOutput.TAG_OBJECT_END:
 				return Token.OBJECT_END;
 			case BinaryOutput.TAG_LIST_START:
+			case BinaryOutput.TAG_SIZED_LIST_START:
+			case BinaryOutput.TAG_PACKED_INT:
+			case BinaryOutput.TAG_PACKED_LONG:
+			case BinaryOutput.TAG_PACKED_FLOAT:
+			case BinaryOutput.TAG_PACKED_DOUBLE:
 				return Token.LIST_START;
 			case BinaryOutput.TAG_LIST_END:
+			case PACKED_END:
 				return Token.LIST_END;
 			case BinaryOutput.TAG_NULL:
 				return Token.NULL;
@@ -90,12 +323,28 @@ public class BinaryInput
 		throws IOException
 	{
 		Token current = peek();
+		containerSize = -1;
+
 		if(current == Token.KEY || current == Token.VALUE)
 		{
 			// Read actual data of keys and values
-			currentValueByte = peekedByte;
+			currentValueByte = peekedByte == PACKED_ITEM ? packedValueByte : peekedByte;
 			didReadValue = false;
 		}
+		else if(peekedByte == BinaryOutput.TAG_SIZED_OBJECT_START
+			|| peekedByte == BinaryOutput.TAG_SIZED_LIST_START)
+		{
+			// Keep the size around in case the container is skipped
+			containerSize = readRawInteger();
+			peekedByte = -2;
+		}
+		else if(peekedByte >= BinaryOutput.TAG_PACKED_INT && peekedByte <= BinaryOutput.TAG_PACKED_DOUBLE)
+		{
+			// Packed arrays are read as lists of values without tags
+			packedValueByte = packedValueByte(peekedByte);
+			packedRemaining = readRawInteger();
+			peekedByte = packedRemaining == 0 ? PACKED_END : PACKED_ITEM;
+		}
 		else
 		{
 			if(current == Token.NULL)
@@ -103,63 +352,446 @@ public class BinaryInput
 				currentValueByte = peekedByte;
 			}
 
-			peekedByte = in.read();
+			peekedByte = read();
 		}
 
 		return current;
 	}
 
-	private void readBuffer(int len)
+	@Override
+	protected boolean skipContainer()
 		throws IOException
 	{
-		int n = 0;
-		while(n < len)
+		if(containerSize < 0)
 		{
-			int count = in.read(buffer, n, len - n);
-			if(count < 0)
+			return false;
+		}
+
+		int bytes = containerSize;
+		if(peekedByte != -2)
+		{
+			// The first byte of the contents has been peeked at
+			bytes--;
+		}
+
+		skipRaw(bytes);
+
+		containerSize = -1;
+		peekedByte = -2;
+		return true;
+	}
+
+	/**
+	 * Skip the current key or value without decoding it.
+	 *
+	 * @throws IOException
+	 */
+	private void skipCurrentValue()
+		throws IOException
+	{
+		switch(currentValueByte)
+		{
+			case BinaryOutput.TAG_KEY:
+			case BinaryOutput.TAG_STRING:
+				skipRawChars(readRawInteger());
+				break;
+			case BinaryOutput.TAG_KEY_DEFINITION:
+				// The key needs to be added to the dictionary
+				readString();
+				return;
+			case BinaryOutput.TAG_KEY_REFERENCE:
+			case BinaryOutput.TAG_INT:
+			case BinaryOutput.TAG_POSITIVE_INT:
+			case BinaryOutput.TAG_NEGATIVE_INT:
+				readRawInteger();
+				break;
+			case BinaryOutput.TAG_LONG:
+			case BinaryOutput.TAG_POSITIVE_LONG:
+			case BinaryOutput.TAG_NEGATIVE_LONG:
+				readRawLong();
+				break;
+			case BinaryOutput.TAG_BOOLEAN:
+				skipRaw(1);
+				break;
+			case BinaryOutput.TAG_FLOAT:
+				skipRaw(4);
+				break;
+			case BinaryOutput.TAG_DOUBLE:
+				skipRaw(8);
+				break;
+			case BinaryOutput.TAG_BYTE_ARRAY:
+				skipRaw(readRawInteger());
+				break;
+			default:
+				throw raiseException("Unexpected value type, no idea what to do (type was " + currentValueByte + ")");
+		}
+
+		markValueRead();
+	}
+
+	/**
+	 * Skip the given number of bytes.
+	 *
+	 * @param bytes
+	 * @throws IOException
+	 */
+	private void skipRaw(int bytes)
+		throws IOException
+	{
+		while(bytes > limit - position)
+		{
+			bytes -= limit - position;
+			position = limit;
+
+			if(! fill())
 			{
-				throw new EOFException("Expected to read " + len + " bytes, but could only read " + n);
+				throw new EOFException("Unexpected end of stream while skipping value");
 			}
-			n += count;
 		}
+
+		position += bytes;
+	}
+
+	/**
+	 * Skip the given number of encoded characters.
+	 *
+	 * @param length
+	 * @throws IOException
+	 */
+	private void skipRawChars(int length)
+		throws IOException
+	{
+		for(int i=0; i<length; i++)
+		{
+			int c = readRequired();
+			int t = c >> 4;
+			if(t == 12 || t == 13)
+			{
+				skipRaw(1);
+			}
+			else if(t == 14)
+			{
+				skipRaw(2);
+			}
+			else if(t >= 8)
+			{
+				throw raiseException("Invalid character in string, read byte was " + c);
+			}
+		}
+	}
+
+	/**
+	 * Get the tag that items in a packed array are read as.
+	 *
+	 * @param tag
+	 * @return
+	 */
+	private static int packedValueByte(int tag)
+	{
+		switch(tag)
+		{
+			case BinaryOutput.TAG_PACKED_INT:
+				return BinaryOutput.TAG_INT;
+			case BinaryOutput.TAG_PACKED_LONG:
+				return BinaryOutput.TAG_LONG;
+			case BinaryOutput.TAG_PACKED_FLOAT:
+				return BinaryOutput.TAG_FLOAT;
+			default:
+				return BinaryOutput.TAG_DOUBLE;
+		}
+	}
+
+	/**
+	 * Start reading a packed array with the given tag if the next token is
+	 * one.
+	 *
+	 * @param tag
+	 * @return
+	 *   the number of items in the array, or {@code -1} if the next token
+	 *   is not a packed array with the given tag
+	 * @throws IOException
+	 */
+	private int startPacked(int tag)
+		throws IOException
+	{
+		if(peek() != Token.LIST_START || peekedByte != tag)
+		{
+			return -1;
+		}
+
+		next();
+		return packedRemaining;
+	}
+
+	/**
+	 * Finish reading a packed array after all its items have been read.
+	 *
+	 * @throws IOException
+	 */
+	private void endPacked()
+		throws IOException
+	{
+		packedRemaining = 0;
+		peekedByte = PACKED_END;
+		next();
+	}
+
+	@Override
+	public int[] readIntArray()
+		throws IOException
+	{
+		int length = startPacked(BinaryOutput.TAG_PACKED_INT);
+		if(length < 0)
+		{
+			return super.readIntArray();
+		}
+
+		int[] result = new int[length];
+		for(int i=0; i<length; i++)
+		{
+			int v = readRawInteger();
+			result[i] = (v >>> 1) ^ -(v & 1);
+		}
+
+		endPacked();
+		return result;
+	}
+
+	@Override
+	public long[] readLongArray()
+		throws IOException
+	{
+		int length = startPacked(BinaryOutput.TAG_PACKED_LONG);
+		if(length < 0)
+		{
+			return super.readLongArray();
+		}
+
+		long[] result = new long[length];
+		for(int i=0; i<length; i++)
+		{
+			long v = readRawLong();
+			result[i] = (v >>> 1) ^ -(v & 1);
+		}
+
+		endPacked();
+		return result;
+	}
+
+	@Override
+	public float[] readFloatArray()
+		throws IOException
+	{
+		int length = startPacked(BinaryOutput.TAG_PACKED_FLOAT);
+		if(length < 0)
+		{
+			return super.readFloatArray();
+		}
+
+		float[] result = new float[length];
+		for(int i=0; i<length; i++)
+		{
+			result[i] = readRawFloat();
+		}
+
+		endPacked();
+		return result;
+	}
+
+	@Override
+	public double[] readDoubleArray()
+		throws IOException
+	{
+		int length = startPacked(BinaryOutput.TAG_PACKED_DOUBLE);
+		if(length < 0)
+		{
+			return super.readDoubleArray();
+		}
+
+		double[] result = new double[length];
+		for(int i=0; i<length; i++)
+		{
+			result[i] = readRawDouble();
+		}
+
+		endPacked();
+		return result;
+	}
+
+	/**
+	 * Fill the buffer with more data from the stream. Any data that has not
+	 * been consumed is moved to the start of the buffer.
+	 *
+	 * @return
+	 *   if any data was read
+	 * @throws IOException
+	 */
+	private boolean fill()
+		throws IOException
+	{
+		if(shared)
+		{
+			// The entire input is already available
+			return false;
+		}
+
+		int remaining = limit - position;
+		if(remaining > 0 && position > 0)
+		{
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+		}
+
+		position = 0;
+		limit = remaining;
+
+		if(source != null)
+		{
+			int count = Math.min(buffer.length - limit, source.remaining());
+			if(count == 0)
+			{
+				return false;
+			}
+
+			source.get(buffer, limit, count);
+			limit += count;
+			return true;
+		}
+
+		int count;
+		do
+		{
+			count = in.read(buffer, limit, buffer.length - limit);
+		}
+		while(count == 0);
+
+		if(count < 0)
+		{
+			return false;
+		}
+
+		limit += count;
+		return true;
+	}
+
+	/**
+	 * Make sure that at least the given number of bytes are available in
+	 * the buffer.
+	 *
+	 * @param bytes
+	 * @throws IOException
+	 */
+	private void require(int bytes)
+		throws IOException
+	{
+		while(limit - position < bytes)
+		{
+			int available = limit - position;
+			if(! fill())
+			{
+				throw new EOFException("Expected to read " + bytes + " bytes, but could only read " + available);
+			}
+		}
+	}
+
+	/**
+	 * Read a single byte.
+	 *
+	 * @return
+	 *   the byte or {@code -1} if the end of the stream has been reached
+	 * @throws IOException
+	 */
+	private int read()
+		throws IOException
+	{
+		if(position == limit && ! fill())
+		{
+			return -1;
+		}
+
+		return buffer[position++] & 0xff;
+	}
+
+	/**
+	 * Read a single byte that is part of a value.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private int readRequired()
+		throws IOException
+	{
+		if(position == limit && ! fill())
+		{
+			throw new EOFException("Unexpected end of stream while reading value");
+		}
+
+		return buffer[position++] & 0xff;
 	}
 
 	private double readRawDouble()
 		throws IOException
 	{
-		readBuffer(8);
-		long value = ((long) buffer[0] & 0xff) |
-			((long) buffer[1] & 0xff) << 8 |
-			((long) buffer[2] & 0xff) << 16 |
-			((long) buffer[3] & 0xff) << 24 |
-			((long) buffer[4] & 0xff) << 32 |
-			((long) buffer[5] & 0xff) << 40 |
-			((long) buffer[6] & 0xff) << 48 |
-			((long) buffer[7] & 0xff) << 56;
+		require(8);
+
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		long value = ((long) buffer[position] & 0xff) |
+			((long) buffer[position + 1] & 0xff) << 8 |
+			((long) buffer[position + 2] & 0xff) << 16 |
+			((long) buffer[position + 3] & 0xff) << 24 |
+			((long) buffer[position + 4] & 0xff) << 32 |
+			((long) buffer[position + 5] & 0xff) << 40 |
+			((long) buffer[position + 6] & 0xff) << 48 |
+			((long) buffer[position + 7] & 0xff) << 56;
 
+		this.position = position + 8;
 		return Double.longBitsToDouble(value);
 	}
 
 	private float readRawFloat()
 		throws IOException
 	{
-		readBuffer(4);
-		int value = (buffer[0] & 0xff) |
-			(buffer[1] & 0xff) << 8 |
-			(buffer[2] & 0xff) << 16 |
-			(buffer[3] & 0xff) << 24;
+		require(4);
 
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		int value = (buffer[position] & 0xff) |
+			(buffer[position + 1] & 0xff) << 8 |
+			(buffer[position + 2] & 0xff) << 16 |
+			(buffer[position + 3] & 0xff) << 24;
+
+		this.position = position + 4;
 		return Float.intBitsToFloat(value);
 	}
 
 	private int readRawInteger()
 		throws IOException
 	{
+		if(limit - position >= 5)
+		{
+			// Fast path, the entire integer is available in the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int result = 0;
+			for(int shift=0; shift<32; shift+=7)
+			{
+				byte b = buffer[position++];
+				result |= (b & 0x7F) << shift;
+				if((b & 0x80) == 0)
+				{
+					this.position = position;
+					return result;
+				}
+			}
+
+			throw new EOFException("Invalid integer");
+		}
+
 		int shift = 0;
 		int result = 0;
 		while(shift < 32)
 		{
-			final byte b = (byte) in.read();
+			final byte b = (byte) readRequired();
 			result |= (b & 0x7F) << shift;
 			if((b & 0x80) == 0) return result;
 
@@ -172,11 +804,31 @@ public class BinaryInput
 	private long readRawLong()
 		throws IOException
 	{
+		if(limit - position >= 10)
+		{
+			// Fast path, the entire long is available in the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			long result = 0;
+			for(int shift=0; shift<64; shift+=7)
+			{
+				byte b = buffer[position++];
+				result |= (long) (b & 0x7F) << shift;
+				if((b & 0x80) == 0)
+				{
+					this.position = position;
+					return result;
+				}
+			}
+
+			throw new EOFException("Invalid long");
+		}
+
 		int shift = 0;
 		long result = 0;
 		while(shift < 64)
 		{
-			final byte b = (byte) in.read();
+			final byte b = (byte) readRequired();
 			result |= (long) (b & 0x7F) << shift;
 			if((b & 0x80) == 0) return result;
 
@@ -190,49 +842,165 @@ public class BinaryInput
 		throws IOException
 	{
 		int length = readRawInteger();
+		return new String(readRawChars(length), 0, length);
+	}
+
+	/**
+	 * Decode the given number of characters into a temporary array.
+	 *
+	 * @param length
+	 * @return
+	 * @throws IOException
+	 */
+	private char[] readRawChars(int length)
+		throws IOException
+	{
 		char[] chars = length < CHARS_SIZE ? CHARS.get() : new char[length];
 
-		for(int i=0; i<length; i++)
+		int i = 0;
+		while(i < length)
 		{
-			int c = in.read() & 0xff;
-			int t = c >> 4;
-			if(t > -1 && t < 8)
+			if(limit - position < 3)
 			{
-				chars[i] = (char) c;
+				// Close to the end of the buffer, decode a single character
+				chars[i++] = readRawChar();
+				continue;
 			}
-			else if(t == 12 || t == 13)
-			{
-				chars[i] = (char) ((c & 0x1f) << 6 | in.read() & 0x3f);
-			}
-			else if(t == 14)
+
+			// Decode as many characters as possible directly from the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int end = limit - 3;
+			while(i < length && position <= end)
 			{
-				chars[i] = (char) ((c & 0x0f) << 12
-					| (in.read() & 0x3f) << 6
-					| (in.read() & 0x3f) << 0);
+				int c = buffer[position++] & 0xff;
+				int t = c >> 4;
+				if(t < 8)
+				{
+					chars[i++] = (char) c;
+				}
+				else if(t == 12 || t == 13)
+				{
+					chars[i++] = (char) ((c & 0x1f) << 6 | buffer[position++] & 0x3f);
+				}
+				else if(t == 14)
+				{
+					chars[i++] = (char) ((c & 0x0f) << 12
+						| (buffer[position++] & 0x3f) << 6
+						| (buffer[position++] & 0x3f) << 0);
+				}
+				else
+				{
+					this.position = position;
+					throw raiseException("Invalid character in string, read byte was " + c);
+				}
 			}
+
+			this.position = position;
 		}
 
-		return new String(chars, 0, length);
+		return chars;
+	}
+
+	/**
+	 * Read a single encoded character, used when the character might span
+	 * the end of the buffer.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private char readRawChar()
+		throws IOException
+	{
+		int c = readRequired();
+		int t = c >> 4;
+		if(t < 8)
+		{
+			return (char) c;
+		}
+		else if(t == 12 || t == 13)
+		{
+			return (char) ((c & 0x1f) << 6 | readRequired() & 0x3f);
+		}
+		else if(t == 14)
+		{
+			return (char) ((c & 0x0f) << 12
+				| (readRequired() & 0x3f) << 6
+				| (readRequired() & 0x3f) << 0);
+		}
+
+		throw raiseException("Invalid character in string, read byte was " + c);
 	}
 
 	private byte[] readRawByteArray()
 		throws IOException
 	{
 		int length = readRawInteger();
-		byte[] buffer = new byte[length];
+		byte[] result = new byte[length];
+
+		// Copy whatever is available in the buffer
+		int n = Math.min(length, limit - position);
+		System.arraycopy(buffer, position, result, 0, n);
+		position += n;
+
+		if(n < length)
+		{
+			readRemaining(result, n, length);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Read data that is not available in the buffer directly from the
+	 * stream or source buffer.
+	 *
+	 * @param result
+	 * @param n
+	 *   the number of bytes already read into the result
+	 * @param length
+	 * @throws IOException
+	 */
+	private void readRemaining(byte[] result, int n, int length)
+		throws IOException
+	{
+		if(source != null)
+		{
+			if(source.remaining() < length - n)
+			{
+				throw new EOFException("Expected to read " + length + " bytes, but could only read " + (n + source.remaining()));
+			}
+
+			source.get(result, n, length - n);
+			return;
+		}
 
-		int n = 0;
 		while(n < length)
 		{
-			int count = in.read(buffer, n, length - n);
+			int count = in == null ? -1 : in.read(result, n, length - n);
 			if(count < 0)
 			{
 				throw new EOFException("Expected to read " + length + " bytes, but could only read " + n);
 			}
 			n += count;
 		}
+	}
 
-		return buffer;
+	/**
+	 * Read a byte array as a slice of the shared array.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private Bytes readRawSlice()
+		throws IOException
+	{
+		int length = readRawInteger();
+		require(length);
+
+		Bytes result = Bytes.create(buffer, position, length);
+		position += length;
+		return result;
 	}
 
 	public Object readDynamic()
@@ -255,6 +1023,8 @@ public class BinaryInput
 			case BinaryOutput.TAG_NEGATIVE_LONG:
 				return readLong();
 			case BinaryOutput.TAG_KEY:
+			case BinaryOutput.TAG_KEY_DEFINITION:
+			case BinaryOutput.TAG_KEY_REFERENCE:
 			case BinaryOutput.TAG_STRING:
 				return readString();
 			case BinaryOutput.TAG_BYTE_ARRAY:
@@ -273,7 +1043,7 @@ public class BinaryInput
 		switch(currentValueByte)
 		{
 			case BinaryOutput.TAG_BOOLEAN:
-				int b = in.read();
+				int b = readRequired();
 				markValueRead();
 				return b == 1;
 			default:
@@ -433,15 +1203,107 @@ public class BinaryInput
 		switch(currentValueByte)
 		{
 			case BinaryOutput.TAG_STRING:
-			case BinaryOutput.TAG_KEY:
 				String s = readRawString();
 				markValueRead();
 				return s;
+			case BinaryOutput.TAG_KEY:
+			{
+				int length = readRawInteger();
+				String key = keyCache.get(readRawChars(length), 0, length);
+				markValueRead();
+				return key;
+			}
+			case BinaryOutput.TAG_KEY_DEFINITION:
+			{
+				int length = readRawInteger();
+				String key = keyCache.get(readRawChars(length), 0, length);
+				defineKey(key);
+				markValueRead();
+				return key;
+			}
+			case BinaryOutput.TAG_KEY_REFERENCE:
+			{
+				String key = readRawKeyReference();
+				markValueRead();
+				return key;
+			}
 			default:
 				throw raiseException("Expected " + ValueType.STRING + ", but found " + valueType(currentValueByte));
 		}
 	}
 
+	@Override
+	public int readKey(KeySet keys)
+		throws IOException
+	{
+		switch(currentValueByte)
+		{
+			case BinaryOutput.TAG_KEY:
+			{
+				int length = readRawInteger();
+				int index = keys.indexOf(readRawChars(length), 0, length);
+				markValueRead();
+				return index;
+			}
+			case BinaryOutput.TAG_KEY_DEFINITION:
+			case BinaryOutput.TAG_KEY_REFERENCE:
+				return keys.indexOf(readString());
+			default:
+				throw raiseException("Expected key, but found " + valueType(currentValueByte));
+		}
+	}
+
+	/**
+	 * Add a key to the dictionary of keys.
+	 *
+	 * @param key
+	 * @throws IOException
+	 */
+	private void defineKey(String key)
+		throws IOException
+	{
+		if(sharedKeys)
+		{
+			// Keys are shared with another input, copy before modifying
+			keys = Arrays.copyOf(keys, keys.length);
+			sharedKeys = false;
+		}
+
+		if(keys == null)
+		{
+			keys = new String[32];
+		}
+		else if(keyCount == keys.length)
+		{
+			if(keyCount == BinaryOutput.MAX_KEYS)
+			{
+				throw raiseException("Too many keys defined, limit is " + BinaryOutput.MAX_KEYS);
+			}
+
+			keys = Arrays.copyOf(keys, keys.length * 2);
+		}
+
+		keys[keyCount++] = key;
+	}
+
+	/**
+	 * Read a reference to a key that has been defined earlier.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private String readRawKeyReference()
+		throws IOException
+	{
+		int id = readRawInteger();
+		if(id < 0 || id >= keyCount)
+		{
+			throw raiseException("Reference to undefined key " + id);
+		}
+
+		return keys[id];
+	}
+
 	@Override
 	public byte[] readByteArray()
 		throws IOException
@@ -461,13 +1323,31 @@ public class BinaryInput
 	public Bytes readBytes()
 		throws IOException
 	{
-		return Bytes.create(readByteArray());
+		if(! shared)
+		{
+			return Bytes.create(readByteArray());
+		}
+
+		switch(currentValueByte)
+		{
+			case BinaryOutput.TAG_BYTE_ARRAY:
+				Bytes b = readRawSlice();
+				markValueRead();
+				return b;
+			default:
+				throw raiseException("Expected " + ValueType.BYTES + ", but found " + valueType(currentValueByte));
+		}
 	}
 
 	@Override
 	public InputStream asInputStream()
 		throws IOException
 	{
+		if(shared)
+		{
+			return readBytes().asInputStream();
+		}
+
 		return new ByteArrayInputStream(readByteArray());
 	}
 
@@ -475,7 +1355,17 @@ public class BinaryInput
 		throws IOException
 	{
 		didReadValue = true;
-		peekedByte = in.read();
+
+		if(packedRemaining > 0)
+		{
+			// Items of packed arrays are not tagged
+			packedRemaining--;
+			peekedByte = packedRemaining == 0 ? PACKED_END : PACKED_ITEM;
+		}
+		else
+		{
+			peekedByte = read();
+		}
 	}
 
 	private ValueType valueType(int b)
@@ -4,11 +4,32 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import se.l4.commons.io.Bytes;
 
 /**
- * Output for custom binary format.
+ * Output for custom binary format. Data is collected in an internal buffer
+ * and written to the stream when the buffer is full, when a value at the
+ * root has been written, when {@link #flush()} is called or when the
+ * output is closed.
+ *
+ * <p>
+ * If created for version two of the format the name of a key is only
+ * written the first time it is used, later uses refer to it via a number
+ * assigned in the order keys are first written. Arrays of primitives are
+ * also packed, written as a single tag followed by the number of items and
+ * the items without tags. {@link BinaryInput} reads data written by both
+ * versions.
+ *
+ * <p>
+ * Objects and lists can also be written with their size in bytes, which
+ * lets {@link BinaryInput} skip them without reading their contents. To
+ * write the size the contents of a container are kept in memory until it
+ * ends, so the buffer grows to hold the largest value at the root. Keys are
+ * always written in full when sizes are written, as a key dictionary would
+ * require readers to see every key definition.
  *
  * @author Andreas Holstenson
  *
@@ -18,6 +39,23 @@ public class BinaryOutput
 {
 	private static final int LEVELS = 20;
 
+	/**
+	 * The default size of the internal buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	/**
+	 * The smallest buffer that can be used, needs to be able to hold a tag
+	 * and a variable length long.
+	 */
+	static final int MIN_BUFFER_SIZE = 16;
+
+	/**
+	 * The maximum number of keys kept in a key dictionary, keys written
+	 * after this are written in full every time.
+	 */
+	static final int MAX_KEYS = 4096;
+
 	public static final int TAG_KEY = 0;
 
 	public static final int TAG_OBJECT_START = 1;
@@ -38,18 +76,140 @@ public class BinaryOutput
 	public static final int TAG_NEGATIVE_INT = 20;
 	public static final int TAG_NEGATIVE_LONG = 21;
 
+	/**
+	 * Key that is written in full and added to the key dictionary.
+	 */
+	public static final int TAG_KEY_DEFINITION = 22;
+	/**
+	 * Key that refers to a previously defined key by its number.
+	 */
+	public static final int TAG_KEY_REFERENCE = 23;
+
+	/**
+	 * Array of integers, written as the number of items followed by each
+	 * item as a zigzag encoded variable length integer.
+	 */
+	public static final int TAG_PACKED_INT = 24;
+	/**
+	 * Array of longs, written as the number of items followed by each item
+	 * as a zigzag encoded variable length long.
+	 */
+	public static final int TAG_PACKED_LONG = 25;
+	/**
+	 * Array of floats, written as the number of items followed by each item
+	 * as four little-endian bytes.
+	 */
+	public static final int TAG_PACKED_FLOAT = 26;
+	/**
+	 * Array of doubles, written as the number of items followed by each
+	 * item as eight little-endian bytes.
+	 */
+	public static final int TAG_PACKED_DOUBLE = 27;
+
+	/**
+	 * Start of an object, followed by the size in bytes of everything up
+	 * to and including the end of the object.
+	 */
+	public static final int TAG_SIZED_OBJECT_START = 28;
+	/**
+	 * Start of a list, followed by the size in bytes of everything up to
+	 * and including the end of the list.
+	 */
+	public static final int TAG_SIZED_LIST_START = 29;
+
 	private final OutputStream out;
 
+	private byte[] buffer;
+	private int position;
+
+	private final Map<String, Integer> keys;
+	private final boolean packArrays;
+
 	private boolean[] lists;
 	private boolean nextKey;
 
+	/**
+	 * Position of the size of every open container, {@code null} if sizes
+	 * are not written.
+	 */
+	private int[] sizes;
+
 	private int level;
 
 	public BinaryOutput(OutputStream out)
+	{
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a new output that uses a buffer of the given size.
+	 *
+	 * @param out
+	 * @param bufferSize
+	 *   the size of the internal buffer in bytes
+	 */
+	public BinaryOutput(OutputStream out, int bufferSize)
+	{
+		this(out, bufferSize, false);
+	}
+
+	/**
+	 * Create a new output that uses a buffer of the given size and that
+	 * optionally writes version two of the format.
+	 *
+	 * @param out
+	 * @param bufferSize
+	 *   the size of the internal buffer in bytes
+	 * @param version2
+	 *   if keys should only be written in full the first time they are used
+	 *   and arrays of primitives should be packed
+	 */
+	public BinaryOutput(OutputStream out, int bufferSize, boolean version2)
+	{
+		this(out, bufferSize, version2, false);
+	}
+
+	/**
+	 * Create a new output that uses a buffer of the given size, that
+	 * optionally writes version two of the format and that optionally
+	 * writes the size of objects and lists.
+	 *
+	 * @param out
+	 * @param bufferSize
+	 *   the size of the internal buffer in bytes
+	 * @param version2
+	 *   if keys should only be written in full the first time they are used
+	 *   and arrays of primitives should be packed
+	 * @param sizedContainers
+	 *   if objects and lists should be written with their size in bytes,
+	 *   disables the key dictionary
+	 */
+	public BinaryOutput(OutputStream out, int bufferSize, boolean version2, boolean sizedContainers)
+	{
+		this(out, new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)], version2, sizedContainers);
+	}
+
+	/**
+	 * Create a new output that starts writing into the given buffer.
+	 *
+	 * @param out
+	 * @param buffer
+	 * @param version2
+	 * @param sizedContainers
+	 */
+	BinaryOutput(OutputStream out, byte[] buffer, boolean version2, boolean sizedContainers)
 	{
 		this.out = out;
+		this.buffer = buffer;
+
+		// Skipped containers would hide keys defined in them, so sizes and a key dictionary can not be combined
+		keys = version2 && ! sizedContainers ? new HashMap<>() : null;
+		packArrays = version2;
 
 		lists = new boolean[LEVELS];
+		// Values at the root are written one after another like in a list
+		lists[0] = true;
+		sizes = sizedContainers ? new int[LEVELS] : null;
 	}
 
 	@Override
@@ -60,6 +220,102 @@ public class BinaryOutput
 		out.close();
 	}
 
+	/**
+	 * Write everything in the buffer to the stream.
+	 *
+	 * @throws IOException
+	 */
+	void flushBuffer()
+		throws IOException
+	{
+		if(position > 0 && ! isHoldingBuffer())
+		{
+			buffer = drain(buffer, position);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Write the contents of a full buffer.
+	 *
+	 * @param buffer
+	 * @param length
+	 * @return
+	 *   the buffer to continue writing into
+	 * @throws IOException
+	 */
+	byte[] drain(byte[] buffer, int length)
+		throws IOException
+	{
+		out.write(buffer, 0, length);
+		return buffer;
+	}
+
+	/**
+	 * Write data that is too large for the buffer, called after the buffer
+	 * has been flushed.
+	 *
+	 * @param data
+	 * @throws IOException
+	 */
+	void writeDirect(byte[] data)
+		throws IOException
+	{
+		out.write(data);
+	}
+
+	/**
+	 * Make sure that the buffer has room for at least the given number of
+	 * bytes.
+	 *
+	 * @param bytes
+	 * @throws IOException
+	 */
+	private void ensure(int bytes)
+		throws IOException
+	{
+		if(buffer.length - position < bytes)
+		{
+			if(isHoldingBuffer())
+			{
+				// The size of an open container has not been written, grow the buffer
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+			}
+			else
+			{
+				flushBuffer();
+			}
+		}
+	}
+
+	/**
+	 * Get if the contents of the buffer need to be kept as containers have
+	 * been started whose size has not been written.
+	 *
+	 * @return
+	 */
+	private boolean isHoldingBuffer()
+	{
+		return sizes != null && level > 0;
+	}
+
+	/**
+	 * Write a single byte.
+	 *
+	 * @param b
+	 * @throws IOException
+	 */
+	private void write(int b)
+		throws IOException
+	{
+		if(position == buffer.length)
+		{
+			ensure(1);
+		}
+
+		buffer[position++] = (byte) b;
+	}
+
 	/**
 	 * Increase the level by one.
 	 *
@@ -72,6 +328,11 @@ public class BinaryOutput
 		{
 			// Grow lists when needed
 			lists = Arrays.copyOf(lists, lists.length * 2);
+
+			if(sizes != null)
+			{
+				sizes = Arrays.copyOf(sizes, lists.length);
+			}
 		}
 
 		lists[level] = list;
@@ -106,15 +367,104 @@ public class BinaryOutput
 		nextKey = ! lists[level];
 	}
 
+	/**
+	 * Called when a value has been written. If the value is at the root it
+	 * is complete, so the buffer is written to the stream.
+	 *
+	 * @throws IOException
+	 */
+	private void valueWritten()
+		throws IOException
+	{
+		if(level == 0)
+		{
+			flushBuffer();
+		}
+	}
+
+	/**
+	 * Start a container, reserving a byte for its size if sizes are
+	 * written.
+	 *
+	 * @param tag
+	 * @param sizedTag
+	 * @param list
+	 * @throws IOException
+	 */
+	private void startContainer(int tag, int sizedTag, boolean list)
+		throws IOException
+	{
+		if(sizes == null)
+		{
+			write(tag);
+			increaseLevel(list);
+			return;
+		}
+
+		write(sizedTag);
+		increaseLevel(list);
+
+		ensure(1);
+		sizes[level] = position++;
+	}
+
+	/**
+	 * End a container, writing its size if sizes are written.
+	 *
+	 * @param tag
+	 * @throws IOException
+	 */
+	private void endContainer(int tag)
+		throws IOException
+	{
+		if(sizes == null)
+		{
+			decreaseLevel();
+			write(tag);
+			valueWritten();
+			return;
+		}
+
+		write(tag);
+
+		int start = sizes[level];
+		int size = position - start - 1;
+
+		int sizeBytes = 1;
+		for(int v = size >>> 7; v != 0; v >>>= 7)
+		{
+			sizeBytes++;
+		}
+
+		if(sizeBytes > 1)
+		{
+			// Move the contents to make room for the size
+			ensure(sizeBytes - 1);
+			System.arraycopy(buffer, start + 1, buffer, start + sizeBytes, size);
+			position += sizeBytes - 1;
+		}
+
+		byte[] buffer = this.buffer;
+		int value = size;
+		while((value & ~0x7F) != 0)
+		{
+			buffer[start++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+
+		buffer[start] = (byte) value;
+
+		decreaseLevel();
+		valueWritten();
+	}
+
 	@Override
 	public void writeObjectStart()
 		throws IOException
 	{
 		failKey();
 
-		out.write(TAG_OBJECT_START);
-
-		increaseLevel(false);
+		startContainer(TAG_OBJECT_START, TAG_SIZED_OBJECT_START, false);
 	}
 
 	@Override
@@ -126,9 +476,7 @@ public class BinaryOutput
 			throw new IOException("Trying to end an object without writing a key");
 		}
 
-		decreaseLevel();
-
-		out.write(TAG_OBJECT_END);
+		endContainer(TAG_OBJECT_END);
 	}
 
 	@Override
@@ -137,9 +485,7 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_LIST_START);
-
-		increaseLevel(true);
+		startContainer(TAG_LIST_START, TAG_SIZED_LIST_START, true);
 	}
 
 	@Override
@@ -148,8 +494,7 @@ public class BinaryOutput
 	{
 		failKey();
 
-		decreaseLevel();
-		out.write(TAG_LIST_END);
+		endContainer(TAG_LIST_END);
 	}
 
 	@Override
@@ -158,37 +503,79 @@ public class BinaryOutput
 	{
 		if(nextKey)
 		{
-			out.write(TAG_KEY);
-
 			nextKey = false;
+
+			if(keys == null)
+			{
+				write(TAG_KEY);
+			}
+			else
+			{
+				Integer id = keys.get(value);
+				if(id != null)
+				{
+					write(TAG_KEY_REFERENCE);
+					writeIntegerNoTag(id);
+					return;
+				}
+
+				if(keys.size() < MAX_KEYS)
+				{
+					keys.put(value, keys.size());
+					write(TAG_KEY_DEFINITION);
+				}
+				else
+				{
+					write(TAG_KEY);
+				}
+			}
 		}
 		else
 		{
-			out.write(TAG_STRING);
+			write(TAG_STRING);
 
 			nextKey = ! lists[level];
 		}
 
-		writeIntegerNoTag(value.length());
-		for(int i=0, n=value.length(); i<n; i++)
+		int length = value.length();
+		writeIntegerNoTag(length);
+
+		int i = 0;
+		while(i < length)
 		{
-			char c = value.charAt(i);
-			if(c <= 0x007f)
+			if(buffer.length - position < 3)
 			{
-				out.write((byte) c);
+				ensure(3);
 			}
-			else if(c > 0x07ff)
-			{
-				out.write((byte) (0xe0 | c >> 12 & 0x0f));
-				out.write((byte) (0x80 | c >> 6 & 0x3f));
-				out.write((byte) (0x80 | c >> 0 & 0x3f));
-			}
-			else
+
+			// Encode as many characters as fit in the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int end = buffer.length - 3;
+			while(i < length && position <= end)
 			{
-				out.write((byte) (0xc0 | c >> 6 & 0x1f));
-				out.write((byte) (0x80 | c >> 0 & 0x3f));
+				char c = value.charAt(i++);
+				if(c <= 0x007f)
+				{
+					buffer[position++] = (byte) c;
+				}
+				else if(c > 0x07ff)
+				{
+					buffer[position++] = (byte) (0xe0 | c >> 12 & 0x0f);
+					buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+					buffer[position++] = (byte) (0x80 | c >> 0 & 0x3f);
+				}
+				else
+				{
+					buffer[position++] = (byte) (0xc0 | c >> 6 & 0x1f);
+					buffer[position++] = (byte) (0x80 | c >> 0 & 0x3f);
+				}
 			}
+
+			this.position = position;
 		}
+
+		valueWritten();
 	}
 
 	@Override
@@ -226,14 +613,16 @@ public class BinaryOutput
 
 		if(value < 0)
 		{
-			out.write(TAG_NEGATIVE_INT);
+			write(TAG_NEGATIVE_INT);
 			writeIntegerNoTag(-value);
 		}
 		else
 		{
-			out.write(TAG_POSITIVE_INT);
+			write(TAG_POSITIVE_INT);
 			writeIntegerNoTag(value);
 		}
+
+		valueWritten();
 	}
 
 	/**
@@ -245,19 +634,18 @@ public class BinaryOutput
 	private void writeIntegerNoTag(int value)
 		throws IOException
 	{
-		while(true)
+		ensure(5);
+
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		while((value & ~0x7F) != 0)
 		{
-			if((value & ~0x7F) == 0)
-			{
-				out.write(value);
-				break;
-			}
-			else
-			{
-				out.write((value & 0x7f) | 0x80);
-				value >>>= 7;
-			}
+			buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
 		}
+
+		buffer[position++] = (byte) value;
+		this.position = position;
 	}
 
 	/**
@@ -274,14 +662,16 @@ public class BinaryOutput
 
 		if(value < 0)
 		{
-			out.write(TAG_NEGATIVE_LONG);
+			write(TAG_NEGATIVE_LONG);
 			writeLongNoTag(- value);
 		}
 		else
 		{
-			out.write(TAG_POSITIVE_LONG);
+			write(TAG_POSITIVE_LONG);
 			writeLongNoTag(value);
 		}
+
+		valueWritten();
 	}
 
 
@@ -294,19 +684,18 @@ public class BinaryOutput
 	private void writeLongNoTag(long value)
 		throws IOException
 	{
-		while(true)
+		ensure(10);
+
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		while((value & ~0x7FL) != 0)
 		{
-			if((value & ~0x7FL) == 0)
-			{
-				out.write((int) value);
-				break;
-			}
-			else
-			{
-				out.write(((int) value & 0x7f) | 0x80);
-				value >>>= 7;
-			}
+			buffer[position++] = (byte) (((int) value & 0x7f) | 0x80);
+			value >>>= 7;
 		}
+
+		buffer[position++] = (byte) value;
+		this.position = position;
 	}
 
 	@Override
@@ -315,7 +704,9 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_NULL);
+		write(TAG_NULL);
+
+		valueWritten();
 	}
 
 	@Override
@@ -324,13 +715,19 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_FLOAT);
+		ensure(5);
 
 		int i = Float.floatToRawIntBits(value);
-		out.write(i & 0xff);
-		out.write((i >> 8) & 0xff);
-		out.write((i >> 16) & 0xff);
-		out.write((i >> 24) & 0xff);
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		buffer[position] = TAG_FLOAT;
+		buffer[position + 1] = (byte) i;
+		buffer[position + 2] = (byte) (i >> 8);
+		buffer[position + 3] = (byte) (i >> 16);
+		buffer[position + 4] = (byte) (i >> 24);
+		this.position = position + 5;
+
+		valueWritten();
 	}
 
 	@Override
@@ -339,17 +736,23 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_DOUBLE);
+		ensure(9);
 
 		long l = Double.doubleToRawLongBits(value);
-		out.write((int) l & 0xff);
-		out.write((int) (l >> 8) & 0xff);
-		out.write((int) (l >> 16) & 0xff);
-		out.write((int) (l >> 24) & 0xff);
-		out.write((int) (l >> 32) & 0xff);
-		out.write((int) (l >> 40) & 0xff);
-		out.write((int) (l >> 48) & 0xff);
-		out.write((int) (l >> 56) & 0xff);
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		buffer[position] = TAG_DOUBLE;
+		buffer[position + 1] = (byte) l;
+		buffer[position + 2] = (byte) (l >> 8);
+		buffer[position + 3] = (byte) (l >> 16);
+		buffer[position + 4] = (byte) (l >> 24);
+		buffer[position + 5] = (byte) (l >> 32);
+		buffer[position + 6] = (byte) (l >> 40);
+		buffer[position + 7] = (byte) (l >> 48);
+		buffer[position + 8] = (byte) (l >> 56);
+		this.position = position + 9;
+
+		valueWritten();
 	}
 
 	@Override
@@ -358,9 +761,141 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_BOOLEAN);
+		ensure(2);
+		buffer[position++] = TAG_BOOLEAN;
+		buffer[position++] = (byte) (b ? 1 : 0);
+
+		valueWritten();
+	}
+
+	@Override
+	public void writeIntArray(int[] values)
+		throws IOException
+	{
+		if(! packArrays)
+		{
+			StreamingOutput.super.writeIntArray(values);
+			return;
+		}
+
+		failKey();
+
+		write(TAG_PACKED_INT);
+		writeIntegerNoTag(values.length);
 
-		out.write(b ? 1 : 0);
+		for(int v : values)
+		{
+			writeIntegerNoTag((v << 1) ^ (v >> 31));
+		}
+
+		valueWritten();
+	}
+
+	@Override
+	public void writeLongArray(long[] values)
+		throws IOException
+	{
+		if(! packArrays)
+		{
+			StreamingOutput.super.writeLongArray(values);
+			return;
+		}
+
+		failKey();
+
+		write(TAG_PACKED_LONG);
+		writeIntegerNoTag(values.length);
+
+		for(long v : values)
+		{
+			writeLongNoTag((v << 1) ^ (v >> 63));
+		}
+
+		valueWritten();
+	}
+
+	@Override
+	public void writeFloatArray(float[] values)
+		throws IOException
+	{
+		if(! packArrays)
+		{
+			StreamingOutput.super.writeFloatArray(values);
+			return;
+		}
+
+		failKey();
+
+		write(TAG_PACKED_FLOAT);
+		writeIntegerNoTag(values.length);
+
+		int i = 0;
+		while(i < values.length)
+		{
+			ensure(4);
+
+			// Encode as many values as fit in the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int end = buffer.length - 4;
+			while(i < values.length && position <= end)
+			{
+				int v = Float.floatToRawIntBits(values[i++]);
+				buffer[position] = (byte) v;
+				buffer[position + 1] = (byte) (v >> 8);
+				buffer[position + 2] = (byte) (v >> 16);
+				buffer[position + 3] = (byte) (v >> 24);
+				position += 4;
+			}
+
+			this.position = position;
+		}
+
+		valueWritten();
+	}
+
+	@Override
+	public void writeDoubleArray(double[] values)
+		throws IOException
+	{
+		if(! packArrays)
+		{
+			StreamingOutput.super.writeDoubleArray(values);
+			return;
+		}
+
+		failKey();
+
+		write(TAG_PACKED_DOUBLE);
+		writeIntegerNoTag(values.length);
+
+		int i = 0;
+		while(i < values.length)
+		{
+			ensure(8);
+
+			// Encode as many values as fit in the buffer
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int end = buffer.length - 8;
+			while(i < values.length && position <= end)
+			{
+				long v = Double.doubleToRawLongBits(values[i++]);
+				buffer[position] = (byte) v;
+				buffer[position + 1] = (byte) (v >> 8);
+				buffer[position + 2] = (byte) (v >> 16);
+				buffer[position + 3] = (byte) (v >> 24);
+				buffer[position + 4] = (byte) (v >> 32);
+				buffer[position + 5] = (byte) (v >> 40);
+				buffer[position + 6] = (byte) (v >> 48);
+				buffer[position + 7] = (byte) (v >> 56);
+				position += 8;
+			}
+
+			this.position = position;
+		}
+
+		valueWritten();
 	}
 
 	@Override
@@ -369,11 +904,24 @@ public class BinaryOutput
 	{
 		failKey();
 
-		out.write(TAG_BYTE_ARRAY);
+		write(TAG_BYTE_ARRAY);
 
 		writeIntegerNoTag(data.length);
 
-		out.write(data);
+		if(data.length <= buffer.length - position || isHoldingBuffer())
+		{
+			ensure(data.length);
+			System.arraycopy(data, 0, buffer, position, data.length);
+			position += data.length;
+		}
+		else
+		{
+			// Too large for the buffer, write directly to the stream
+			flushBuffer();
+			writeDirect(data);
+		}
+
+		valueWritten();
 	}
 
 	@Override
@@ -402,6 +950,7 @@ public class BinaryOutput
 	public void flush()
 		throws IOException
 	{
+		flushBuffer();
 		out.flush();
 	}
 }
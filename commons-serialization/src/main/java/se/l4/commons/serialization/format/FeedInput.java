@@ -0,0 +1,250 @@
+package se.l4.commons.serialization.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.serialization.Serializer;
+
+/**
+ * Input that is fed data as it arrives instead of pulling it from a stream,
+ * for decoding data from non-blocking sources such as NIO channels. Data is
+ * scanned as it is fed and {@link #poll()} returns
+ * {@link FeedState#NEED_MORE_INPUT} until a complete value has been
+ * received, after which the value can be read without blocking.
+ *
+ * <pre>
+ * FeedInput feed = StreamingFormat.JSON.createFeedInput().get();
+ *
+ * // Every time data arrives
+ * feed.feed(buffer);
+ * while(feed.poll() == FeedState.VALUE_AVAILABLE)
+ * {
+ *   Order order = feed.read(serializer);
+ * }
+ * </pre>
+ *
+ * <p>
+ * Data is kept in memory until the value it belongs to has been read.
+ * Instances are not safe to use from several threads at the same time.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public abstract class FeedInput
+{
+	private static final int DEFAULT_BUFFER_SIZE = 1024;
+
+	/**
+	 * Data that has been fed but not read.
+	 */
+	protected byte[] buffer;
+	/**
+	 * The start of the current value in the buffer.
+	 */
+	protected int start;
+	/**
+	 * The position up to which the buffer has been scanned.
+	 */
+	protected int position;
+	/**
+	 * The end of the data in the buffer.
+	 */
+	protected int limit;
+
+	private boolean ended;
+	private boolean available;
+	/**
+	 * If values have been read directly from {@link #buffer}. They may
+	 * share its data, so it is not modified in place once this is set.
+	 */
+	private boolean exposed;
+
+	protected FeedInput()
+	{
+		buffer = new byte[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Scan the data between {@link #position} and {@link #limit} for the end
+	 * of the current value, updating {@link #position} with how far the data
+	 * has been scanned. Data before the start of a value, such as
+	 * whitespace, may be dropped by moving {@link #start}.
+	 *
+	 * @param ended
+	 *   if no more data will be fed
+	 * @return
+	 *   if the data between {@link #start} and {@link #position} is a
+	 *   complete value
+	 * @throws IOException
+	 *   if the data is invalid
+	 */
+	protected abstract boolean scan(boolean ended)
+		throws IOException;
+
+	/**
+	 * Create an input for a single complete value, decoding directly from
+	 * the given region of the buffer.
+	 *
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @return
+	 * @throws IOException
+	 */
+	protected abstract StreamingInput createInput(byte[] data, int offset, int length)
+		throws IOException;
+
+	/**
+	 * Called after a value has been read from an input created by
+	 * {@link #createInput(byte[], int, int)}.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	protected void finish(StreamingInput in)
+		throws IOException
+	{
+	}
+
+	/**
+	 * Feed the remaining data of the given buffer to this input. The data is
+	 * copied and the position of the buffer is moved to its limit.
+	 *
+	 * @param data
+	 */
+	public void feed(@NonNull ByteBuffer data)
+	{
+		if(ended)
+		{
+			throw new IllegalStateException("End of input has already been reached");
+		}
+
+		int length = data.remaining();
+		ensure(length);
+
+		data.get(buffer, limit, length);
+		limit += length;
+	}
+
+	/**
+	 * Indicate that no more data will be fed to this input.
+	 */
+	public void endOfInput()
+	{
+		ended = true;
+	}
+
+	/**
+	 * Make room for the given number of bytes in the buffer, either by
+	 * moving the current value to the start of the buffer or by growing it.
+	 * If values have been read from the buffer the current value is copied
+	 * to a new buffer instead of being moved.
+	 *
+	 * @param length
+	 */
+	private void ensure(int length)
+	{
+		if(buffer.length - limit >= length)
+		{
+			return;
+		}
+
+		int remaining = limit - start;
+		int size = buffer.length;
+		if(size - remaining < length)
+		{
+			size = Math.max(size * 2, remaining + length);
+		}
+		else if(! exposed)
+		{
+			System.arraycopy(buffer, start, buffer, 0, remaining);
+			limit = remaining;
+			position -= start;
+			start = 0;
+			return;
+		}
+
+		byte[] compacted = new byte[size];
+		System.arraycopy(buffer, start, compacted, 0, remaining);
+		buffer = compacted;
+		exposed = false;
+
+		limit = remaining;
+		position -= start;
+		start = 0;
+	}
+
+	/**
+	 * Check if a complete value is available. Never blocks.
+	 *
+	 * @return
+	 * @throws IOException
+	 *   if the data is invalid or if the end of input was reached in the
+	 *   middle of a value
+	 */
+	@NonNull
+	public FeedState poll()
+		throws IOException
+	{
+		if(! available)
+		{
+			available = scan(ended);
+		}
+
+		if(available)
+		{
+			return FeedState.VALUE_AVAILABLE;
+		}
+		else if(! ended)
+		{
+			return FeedState.NEED_MORE_INPUT;
+		}
+		else if(start == limit)
+		{
+			return FeedState.END_OF_INPUT;
+		}
+
+		throw new EOFException("End of input reached before value was complete");
+	}
+
+	/**
+	 * Read the next value using the given serializer. Should only be called
+	 * when {@link #poll()} returns {@link FeedState#VALUE_AVAILABLE}.
+	 *
+	 * @param serializer
+	 * @return
+	 * @throws IOException
+	 */
+	public <T> T read(@NonNull Serializer<T> serializer)
+		throws IOException
+	{
+		if(poll() != FeedState.VALUE_AVAILABLE)
+		{
+			throw new IllegalStateException("No complete value available");
+		}
+
+		int offset = start;
+		start = position;
+		available = false;
+		exposed = true;
+
+		try(StreamingInput in = createInput(buffer, offset, position - offset))
+		{
+			T result;
+			if(in.peek() == Token.NULL && ! (serializer instanceof Serializer.NullHandling))
+			{
+				in.next();
+				result = null;
+			}
+			else
+			{
+				result = serializer.read(in);
+			}
+
+			finish(in);
+			return result;
+		}
+	}
+}
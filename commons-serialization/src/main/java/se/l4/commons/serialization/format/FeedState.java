@@ -0,0 +1,24 @@
+package se.l4.commons.serialization.format;
+
+/**
+ * State of a {@link FeedInput}, returned by {@link FeedInput#poll()}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public enum FeedState
+{
+	/**
+	 * A complete value has been received and can be read without blocking.
+	 */
+	VALUE_AVAILABLE,
+	/**
+	 * The next value has not been fully received, more data needs to be fed
+	 * to the input.
+	 */
+	NEED_MORE_INPUT,
+	/**
+	 * The end of the input has been reached and all values have been read.
+	 */
+	END_OF_INPUT
+}
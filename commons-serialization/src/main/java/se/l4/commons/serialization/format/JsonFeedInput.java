@@ -0,0 +1,161 @@
+package se.l4.commons.serialization.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * {@link FeedInput} for JSON. Finds the end of values by tracking strings
+ * and the nesting of objects and lists, values are decoded by
+ * {@link Utf8JsonInput}. Values at the root may be separated by whitespace
+ * or commas.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class JsonFeedInput
+	extends FeedInput
+{
+	private int depth;
+	private boolean inString;
+	private boolean escaped;
+	private boolean inScalar;
+
+	@Override
+	protected boolean scan(boolean ended)
+		throws IOException
+	{
+		byte[] buffer = this.buffer;
+		int position = this.position;
+		int limit = this.limit;
+
+		while(position < limit)
+		{
+			int c = buffer[position] & 0xff;
+			if(inString)
+			{
+				position++;
+				if(escaped)
+				{
+					escaped = false;
+				}
+				else if(c == '\\')
+				{
+					escaped = true;
+				}
+				else if(c == '"')
+				{
+					inString = false;
+					if(depth == 0)
+					{
+						return complete(position);
+					}
+				}
+
+				continue;
+			}
+			else if(inScalar)
+			{
+				if(isDelimiter(c))
+				{
+					return complete(position);
+				}
+
+				position++;
+				continue;
+			}
+
+			switch(c)
+			{
+				case '"':
+					inString = true;
+					break;
+				case '{':
+				case '[':
+					depth++;
+					break;
+				case '}':
+				case ']':
+					if(depth == 0)
+					{
+						this.position = position;
+						throw new IOException("Unexpected `" + (char) c + "` at root");
+					}
+
+					depth--;
+					if(depth == 0)
+					{
+						return complete(position + 1);
+					}
+					break;
+				default:
+					if(depth == 0)
+					{
+						if(c == ',' || isWhitespace(c))
+						{
+							// Skip separators between values at the root
+							start = position + 1;
+						}
+						else
+						{
+							inScalar = true;
+						}
+					}
+			}
+
+			position++;
+		}
+
+		this.position = position;
+
+		if(ended && inScalar)
+		{
+			// Numbers and literals at the root end with the input
+			return complete(position);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Mark that the current value ends at the given position.
+	 *
+	 * @param position
+	 * @return
+	 */
+	private boolean complete(int position)
+	{
+		this.position = position;
+		depth = 0;
+		inScalar = false;
+		return true;
+	}
+
+	private static boolean isWhitespace(int c)
+	{
+		return c < 128 && Character.isWhitespace((char) c);
+	}
+
+	private static boolean isDelimiter(int c)
+	{
+		switch(c)
+		{
+			case ',':
+			case ':':
+			case '"':
+			case '{':
+			case '}':
+			case '[':
+			case ']':
+				return true;
+			default:
+				return isWhitespace(c);
+		}
+	}
+
+	@Override
+	protected StreamingInput createInput(byte[] data, int offset, int length)
+		throws IOException
+	{
+		return new Utf8JsonInput(new ByteArrayInputStream(data, offset, length));
+	}
+}
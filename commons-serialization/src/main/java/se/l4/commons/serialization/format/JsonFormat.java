@@ -0,0 +1,37 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * {@link StreamingFormat} for JSON, reads via {@link Utf8JsonInput} and
+ * writes via {@link JsonOutput}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class JsonFormat
+	implements StreamingFormat
+{
+	@Override
+	public StreamingInput createInput(InputStream in)
+		throws IOException
+	{
+		return new Utf8JsonInput(in);
+	}
+
+	@Override
+	public Optional<FeedInput> createFeedInput()
+	{
+		return Optional.of(new JsonFeedInput());
+	}
+
+	@Override
+	public StreamingOutput createOutput(OutputStream out)
+		throws IOException
+	{
+		return new JsonOutput(out);
+	}
+}
@@ -32,6 +32,10 @@ public class JsonInput
 	private final boolean[] lists;
 	private final String[] names;
 
+	private final KeyCache keys;
+	private final StringBuilder key;
+	private char[] keyChars;
+
 	private ValueType value;
 	private String valueString;
 	private boolean valueBoolean;
@@ -50,6 +54,10 @@ public class JsonInput
 		lists = new boolean[20];
 		names = new String[20];
 		buffer = new char[1024];
+
+		keys = KeyCache.get();
+		key = new StringBuilder();
+		keyChars = new char[64];
 	}
 
 	@Override
@@ -97,7 +105,7 @@ public class JsonInput
 			case KEY:
 			{
 				readWhitespace();
-				String key = readString(true);
+				String key = readKeyName();
 				char next = readNext();
 				if(next != ':')
 				{
@@ -406,10 +414,40 @@ public class JsonInput
 		value = ValueType.NULL;
 	}
 
+	/**
+	 * Read a key, keys are read into a reused builder and then looked up in
+	 * the cache of recently read keys.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private String readKeyName()
+		throws IOException
+	{
+		key.setLength(0);
+		readString(key, true);
+
+		int length = key.length();
+		if(keyChars.length < length)
+		{
+			keyChars = new char[length];
+		}
+
+		key.getChars(0, length, keyChars, 0);
+		return keys.get(keyChars, 0, length);
+	}
+
 	private String readString(boolean readStart)
 		throws IOException
 	{
-		StringBuilder key = new StringBuilder();
+		StringBuilder result = new StringBuilder();
+		readString(result, readStart);
+		return result.toString();
+	}
+
+	private void readString(StringBuilder result, boolean readStart)
+		throws IOException
+	{
 		char c = read();
 		if(readStart)
 		{
@@ -421,17 +459,15 @@ public class JsonInput
 		{
 			if(c == '\\')
 			{
-				readEscaped(key);
+				readEscaped(result);
 			}
 			else
 			{
-				key.append(c);
+				result.append(c);
 			}
 
 			c = read();
 		}
-
-		return key.toString();
 	}
 
 	private void readEscaped(StringBuilder result)
@@ -649,13 +685,13 @@ public class JsonInput
 		switch(value)
 		{
 			case LONG:
-				if(valueLong < Float.MIN_VALUE || valueLong > Float.MAX_VALUE)
+				if(valueLong < -Float.MAX_VALUE || valueLong > Float.MAX_VALUE)
 				{
 					throw raiseException("Expected " + ValueType.FLOAT + " but " + valueLong + " is outside valid range");
 				}
 				return (float) valueLong;
 			case DOUBLE:
-				if(valueDouble < Float.MIN_VALUE || valueDouble > Float.MAX_VALUE)
+				if(valueDouble < -Float.MAX_VALUE || valueDouble > Float.MAX_VALUE)
 				{
 					throw raiseException("Expected " + ValueType.FLOAT + " but " + valueDouble + " is outside valid range");
 				}
@@ -672,11 +708,7 @@ public class JsonInput
 		switch(value)
 		{
 			case LONG:
-				if(valueLong < Double.MIN_VALUE || valueLong > Double.MAX_VALUE)
-				{
-					throw raiseException("Expected " + ValueType.DOUBLE + " but " + valueLong + " is outside valid range");
-				}
-				return (float) valueLong;
+				return (double) valueLong;
 			case DOUBLE:
 				return valueDouble;
 			default:
@@ -11,7 +11,10 @@ import java.util.Arrays;
 import se.l4.commons.io.Bytes;
 
 /**
- * Streamer that outputs JSON.
+ * Streamer that outputs JSON. Output is collected in an internal buffer and
+ * written to the {@link Writer} when the buffer is full, when a value at
+ * the root has been written, when {@link #flush()} is called or when the
+ * output is closed.
  *
  * @author andreas
  *
@@ -34,8 +37,46 @@ public class JsonOutput
 		'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '+', '/'
 	};
 
+	/**
+	 * Characters that need to be escaped, zero for characters that can be
+	 * written as is.
+	 */
+	private static final char[] ESCAPES = new char[128];
+
+	static
+	{
+		for(int i=0; i<0x20; i++)
+		{
+			ESCAPES[i] = 'u';
+		}
+
+		ESCAPES['"'] = '"';
+		ESCAPES['\\'] = '\\';
+		ESCAPES['\r'] = 'r';
+		ESCAPES['\n'] = 'n';
+		ESCAPES['\t'] = 't';
+		ESCAPES['\b'] = 'b';
+		ESCAPES['\f'] = 'f';
+	}
+
+	/**
+	 * Powers of ten that can be represented exactly as doubles.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17
+	};
+
 	private static final int LEVELS = 20;
 
+	private static final int BUFFER_SIZE = 2048;
+
+	/**
+	 * Buffers of closed outputs, taken from the thread while in use so that
+	 * nested outputs get their own buffers.
+	 */
+	private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<>();
+
 	protected final Writer writer;
 	private final boolean beautify;
 
@@ -45,7 +86,8 @@ public class JsonOutput
 	private int level;
 	private boolean nextKey;
 
-	private final char[] encoded;
+	private char[] buffer;
+	private int position;
 
 	/**
 	 * Create a JSON streamer that will write to the given output.
@@ -92,9 +134,19 @@ public class JsonOutput
 		this.beautify = beautify;
 
 		lists = new boolean[LEVELS];
+		// Values at the root are written one after another like in a list
+		lists[0] = true;
 		hasData = new boolean[LEVELS];
 
-		encoded = new char[4];
+		buffer = BUFFERS.get();
+		if(buffer == null)
+		{
+			buffer = new char[BUFFER_SIZE];
+		}
+		else
+		{
+			BUFFERS.set(null);
+		}
 	}
 
 	@Override
@@ -103,10 +155,77 @@ public class JsonOutput
 	{
 		flush();
 		writer.close();
+
+		if(buffer != null)
+		{
+			BUFFERS.set(buffer);
+			buffer = null;
+		}
+	}
+
+	/**
+	 * Write everything in the buffer to the writer.
+	 *
+	 * @throws IOException
+	 */
+	private void flushBuffer()
+		throws IOException
+	{
+		if(position > 0)
+		{
+			writer.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	/**
+	 * Make sure that the buffer has room for at least the given number of
+	 * characters.
+	 *
+	 * @param chars
+	 * @throws IOException
+	 */
+	private void ensure(int chars)
+		throws IOException
+	{
+		if(buffer.length - position < chars)
+		{
+			flushBuffer();
+		}
+	}
+
+	/**
+	 * Write a single character.
+	 *
+	 * @param c
+	 * @throws IOException
+	 */
+	private void write(char c)
+		throws IOException
+	{
+		if(position == buffer.length)
+		{
+			flushBuffer();
+		}
+
+		buffer[position++] = c;
+	}
+
+	/**
+	 * Write a string that does not need escaping.
+	 *
+	 * @param value
+	 * @throws IOException
+	 */
+	private void write(String value)
+		throws IOException
+	{
+		writeRange(value, 0, value.length());
 	}
 
 	/**
-	 * Escape and write the given string.
+	 * Escape and write the given string. Runs of characters that do not need
+	 * escaping are copied to the buffer in bulk.
 	 *
 	 * @param in
 	 * @throws IOException
@@ -114,60 +233,67 @@ public class JsonOutput
 	private void writeEscaped(String in)
 		throws IOException
 	{
-		for(int i=0, n=in.length(); i<n; i++)
+		char[] escapes = ESCAPES;
+		int length = in.length();
+		int start = 0;
+		for(int i=0; i<length; i++)
 		{
 			char c = in.charAt(i);
-			if(c == '"' || c == '\\')
-			{
-				writer.write('\\');
-				writer.write(c);
-			}
-			else if(c == '\r')
-			{
-				writer.write('\\');
-				writer.write('r');
-			}
-			else if(c == '\n')
+			if(c >= 128 || escapes[c] == 0)
 			{
-				writer.write('\\');
-				writer.write('n');
+				continue;
 			}
-			else if(c == '\t')
-			{
-				writer.write('\\');
-				writer.write('t');
-			}
-			else if(c == '\b')
-			{
-				writer.write('\\');
-				writer.write('b');
-			}
-			else if(c == '\f')
+
+			if(start < i)
 			{
-				writer.write('\\');
-				writer.write('f');
+				writeRange(in, start, i);
 			}
-			else if(c <= 0x1F)
+
+			start = i + 1;
+
+			ensure(6);
+			char[] buffer = this.buffer;
+			buffer[position++] = '\\';
+
+			char escape = escapes[c];
+			buffer[position++] = escape;
+			if(escape == 'u')
 			{
-				writer.write('\\');
-				writer.write('u');
-
-				int v = c;
-				int pos = 4;
-				do
-				{
-					encoded[--pos] = DIGITS[v & HEX_MASK];
-					v >>>= 4;
-				}
-				while (v != 0);
-
-				for(int j=0; j<pos; j++) writer.write('0');
-				writer.write(encoded, pos, 4 - pos);
+				buffer[position++] = '0';
+				buffer[position++] = '0';
+				buffer[position++] = DIGITS[(c >> 4) & HEX_MASK];
+				buffer[position++] = DIGITS[c & HEX_MASK];
 			}
-			else
+		}
+
+		if(start < length)
+		{
+			writeRange(in, start, length);
+		}
+	}
+
+	/**
+	 * Write part of a string that does not need escaping.
+	 *
+	 * @param value
+	 * @param start
+	 * @param end
+	 * @throws IOException
+	 */
+	private void writeRange(String value, int start, int end)
+		throws IOException
+	{
+		while(start < end)
+		{
+			if(position == buffer.length)
 			{
-				writer.write(c);
+				flushBuffer();
 			}
+
+			int n = Math.min(end - start, buffer.length - position);
+			value.getChars(start, start + n, buffer, position);
+			position += n;
+			start += n;
 		}
 	}
 
@@ -206,11 +332,11 @@ public class JsonOutput
 
 		if(beautify && hasData[level])
 		{
-			writer.write('\n');
+			write('\n');
 
 			for(int i=0; i<level; i++)
 			{
-				writer.write("\t");
+				write('\t');
 			}
 		}
 	}
@@ -231,6 +357,21 @@ public class JsonOutput
 		nextKey = ! lists[level];
 	}
 
+	/**
+	 * Called when a value has been written. If the value is at the root it
+	 * is complete, so the buffer is written to the writer.
+	 *
+	 * @throws IOException
+	 */
+	private void valueWritten()
+		throws IOException
+	{
+		if(level == 0)
+		{
+			flushBuffer();
+		}
+	}
+
 	/**
 	 * Start a write, will output commas and beautification if needed.
 	 *
@@ -244,17 +385,17 @@ public class JsonOutput
 			return;
 		}
 
-		if(hasData[level]) writer.write(',');
+		if(hasData[level]) write(',');
 
 		hasData[level] = true;
 
 		if(beautify && level > 0)
 		{
-			writer.write('\n');
+			write('\n');
 
 			for(int i=0; i<level; i++)
 			{
-				writer.write('\t');
+				write('\t');
 			}
 		}
 	}
@@ -266,7 +407,7 @@ public class JsonOutput
 		startWrite();
 		failKey();
 
-		writer.write('{');
+		write('{');
 
 		increaseLevel(false);
 	}
@@ -281,7 +422,9 @@ public class JsonOutput
 		}
 
 		decreaseLevel();
-		writer.write('}');
+		write('}');
+
+		valueWritten();
 	}
 
 	@Override
@@ -291,7 +434,7 @@ public class JsonOutput
 		startWrite();
 		failKey();
 
-		writer.write('[');
+		write('[');
 
 		increaseLevel(true);
 	}
@@ -302,7 +445,9 @@ public class JsonOutput
 	{
 		failKey();
 		decreaseLevel();
-		writer.write(']');
+		write(']');
+
+		valueWritten();
 	}
 
 	@Override
@@ -318,10 +463,10 @@ public class JsonOutput
 
 			startWrite();
 
-			writer.write('"');
+			write('"');
 			writeEscaped(value);
-			writer.write('"');
-			writer.write(':');
+			write('"');
+			write(':');
 
 			nextKey = false;
 		}
@@ -331,16 +476,18 @@ public class JsonOutput
 
 			if(value == null)
 			{
-				writer.write("null");
+				write("null");
 			}
 			else
 			{
-				writer.write('"');
+				write('"');
 				writeEscaped(value);
-				writer.write('"');
+				write('"');
 			}
 
 			nextKey = ! lists[level];
+
+			valueWritten();
 		}
 	}
 
@@ -352,26 +499,103 @@ public class JsonOutput
 
 		if(value == null)
 		{
-			writer.write("null");
+			write("null");
+		}
+		else
+		{
+			write(value);
+		}
+
+		valueWritten();
+	}
+
+	/**
+	 * Write the digits of a positive long directly into the buffer.
+	 *
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeDigits(long value)
+		throws IOException
+	{
+		ensure(19);
+
+		int digits = 1;
+		for(long limit=10; digits<19 && value >= limit; limit*=10)
+		{
+			digits++;
+		}
+
+		writeDigits(value, digits);
+	}
+
+	/**
+	 * Write the given number of digits of a positive long, padding with
+	 * zeroes if needed. The buffer must have room for the digits.
+	 *
+	 * @param value
+	 * @param digits
+	 */
+	private void writeDigits(long value, int digits)
+	{
+		char[] buffer = this.buffer;
+		int end = position + digits;
+		for(int i=end - 1; i>=position; i--)
+		{
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+
+		position = end;
+	}
+
+	/**
+	 * Write a long value without allocating a string.
+	 *
+	 * @param number
+	 * @throws IOException
+	 */
+	private void writeNumber(long number)
+		throws IOException
+	{
+		startWrite();
+		failKey();
+
+		if(number == Long.MIN_VALUE)
+		{
+			// Can not be negated
+			write(Long.toString(number));
 		}
 		else
 		{
-			writer.write(value);
+			if(number < 0)
+			{
+				write('-');
+				number = -number;
+			}
+
+			writeDigits(number);
 		}
+
+		valueWritten();
 	}
 
 	@Override
 	public void writeByte(byte b)
 		throws IOException
 	{
-		writeUnescaped(Byte.toString(b));
+		writeNumber(b);
 	}
 
 	@Override
 	public void writeChar(char c)
 		throws IOException
 	{
-		failKey();
+		if(nextKey)
+		{
+			throw new IOException("Trying to write a key that is not a string");
+		}
+
 		writeString(String.valueOf(c));
 	}
 
@@ -379,42 +603,166 @@ public class JsonOutput
 	public void writeShort(short s)
 		throws IOException
 	{
-		writeUnescaped(Short.toString(s));
+		writeNumber(s);
 	}
 
 	@Override
 	public void writeInt(int number)
 		throws IOException
 	{
-		writeUnescaped(Integer.toString(number));
+		writeNumber(number);
 	}
 
 	@Override
 	public void writeLong(long number)
 		throws IOException
 	{
-		writeUnescaped(Long.toString(number));
+		writeNumber(number);
 	}
 
 	@Override
 	public void writeFloat(float number)
 		throws IOException
 	{
-		writeUnescaped(Float.toString(number));
+		startWrite();
+		failKey();
+
+		if(! writeDecimal(number, true))
+		{
+			write(Float.toString(number));
+		}
+
+		valueWritten();
 	}
 
 	@Override
 	public void writeDouble(double number)
 		throws IOException
 	{
-		writeUnescaped(Double.toString(number));
+		startWrite();
+		failKey();
+
+		if(! writeDecimal(number, false))
+		{
+			write(Double.toString(number));
+		}
+
+		valueWritten();
+	}
+
+	/**
+	 * Try to write a double or float as a plain decimal number with as few
+	 * fraction digits as possible. This handles values between {@code 0.001}
+	 * and {@code 10^7}, which are the values {@link Double#toString(double)}
+	 * and {@link Float#toString(float)} do not use scientific notation for.
+	 *
+	 * <p>
+	 * The shortest fraction is found by scaling the value with powers of ten
+	 * until it becomes an integer {@code m} where {@code m / 10^k} gives
+	 * back the exact same double. As both {@code m} and {@code 10^k} are
+	 * exact doubles the division is correctly rounded, just like parsing
+	 * the decimal representation. Floats are checked via
+	 * {@link #roundsToFloat(double, float)}.
+	 *
+	 * @param number
+	 * @param single
+	 *   if the number is a float
+	 * @return
+	 *   if the number was written
+	 * @throws IOException
+	 */
+	private boolean writeDecimal(double number, boolean single)
+		throws IOException
+	{
+		double abs = Math.abs(number);
+		if(! (abs >= 1e-3 && abs < 1e7))
+		{
+			// Zero, NaN, infinity and values written in scientific notation
+			if(number == 0)
+			{
+				write(Double.doubleToRawLongBits(number) == 0 ? "0.0" : "-0.0");
+				return true;
+			}
+
+			return false;
+		}
+
+		double[] powers = POWERS_OF_TEN;
+		for(int k=0; k<powers.length; k++)
+		{
+			double scaled = abs * powers[k];
+			if(scaled >= 0x1p53)
+			{
+				// Can no longer be represented exactly
+				return false;
+			}
+
+			long m = Math.round(scaled);
+			double value = m / powers[k];
+			if(single ? ! roundsToFloat(value, (float) abs) : value != abs)
+			{
+				continue;
+			}
+
+			long power = (long) powers[k];
+			ensure(44);
+
+			if(number < 0)
+			{
+				buffer[position++] = '-';
+			}
+
+			writeDigits(m / power);
+			buffer[position++] = '.';
+
+			if(k == 0)
+			{
+				buffer[position++] = '0';
+			}
+			else
+			{
+				writeDigits(m % power, k);
+			}
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check if a decimal that rounds to the given double also rounds to the
+	 * given float. Rounding first to a double and then to a float only gives
+	 * a different result than rounding directly if the double ends up
+	 * exactly halfway between two floats.
+	 *
+	 * @param value
+	 * @param expected
+	 * @return
+	 */
+	private static boolean roundsToFloat(double value, float expected)
+	{
+		float rounded = (float) value;
+		if(rounded != expected)
+		{
+			return false;
+		}
+
+		double diff = value - rounded;
+		if(diff == 0)
+		{
+			return true;
+		}
+
+		float neighbour = diff > 0 ? Math.nextUp(rounded) : Math.nextDown(rounded);
+		return Math.abs(diff) != Math.abs(neighbour - value);
 	}
 
 	@Override
 	public void writeBoolean(boolean bool)
 		throws IOException
 	{
-		writeUnescaped(Boolean.toString(bool));
+		writeUnescaped(bool ? "true" : "false");
 	}
 
 	@Override
@@ -426,16 +774,40 @@ public class JsonOutput
 
 		if(data == null)
 		{
-			writer.write("null");
+			write("null");
+			valueWritten();
 			return;
 		}
 
-		writer.write('"');
+		write('"');
 
+		char[] chars = BASE64;
 		int i = 0;
-		for(int n=data.length - 2; i<n; i+=3)
+		int full = data.length - data.length % 3;
+		while(i < full)
 		{
-			write(data, i, 3);
+			if(buffer.length - position < 4)
+			{
+				flushBuffer();
+			}
+
+			// Encode as many blocks as fit in the buffer
+			char[] buffer = this.buffer;
+			int position = this.position;
+			int end = Math.min(full, i + (buffer.length - position) / 4 * 3);
+			for(; i<end; i+=3)
+			{
+				int loc = (data[i] & 0xff) << 16
+					| (data[i + 1] & 0xff) << 8
+					| (data[i + 2] & 0xff);
+
+				buffer[position++] = chars[loc >>> 18];
+				buffer[position++] = chars[(loc >>> 12) & 0x3f];
+				buffer[position++] = chars[(loc >>> 6) & 0x3f];
+				buffer[position++] = chars[loc & 0x3f];
+			}
+
+			this.position = position;
 		}
 
 		if(i < data.length)
@@ -443,7 +815,9 @@ public class JsonOutput
 			write(data, i, data.length - i);
 		}
 
-		writer.write('"');
+		write('"');
+
+		valueWritten();
 	}
 
 	@Override
@@ -469,7 +843,7 @@ public class JsonOutput
 	}
 
 	/**
-	 * Write some BASE64 encoded bytes.
+	 * Write the last BASE64 encoded bytes with padding.
 	 *
 	 * @param data
 	 * @param pos
@@ -489,22 +863,22 @@ public class JsonOutput
 		switch(len)
 		{
 			case 3:
-				writer.write(chars[loc >>> 18]);
-				writer.write(chars[(loc >>> 12) & 0x3f]);
-				writer.write(chars[(loc >>> 6) & 0x3f]);
-				writer.write(chars[loc & 0x3f]);
+				write(chars[loc >>> 18]);
+				write(chars[(loc >>> 12) & 0x3f]);
+				write(chars[(loc >>> 6) & 0x3f]);
+				write(chars[loc & 0x3f]);
 				break;
 			case 2:
-				writer.write(chars[loc >>> 18]);
-				writer.write(chars[(loc >>> 12) & 0x3f]);
-				writer.write(chars[(loc >>> 6) & 0x3f]);
-				writer.write('=');
+				write(chars[loc >>> 18]);
+				write(chars[(loc >>> 12) & 0x3f]);
+				write(chars[(loc >>> 6) & 0x3f]);
+				write('=');
 				break;
 			case 1:
-				writer.write(chars[loc >>> 18]);
-				writer.write(chars[(loc >>> 12) & 0x3f]);
-				writer.write('=');
-				writer.write('=');
+				write(chars[loc >>> 18]);
+				write(chars[(loc >>> 12) & 0x3f]);
+				write('=');
+				write('=');
 		}
 	}
 
@@ -518,6 +892,7 @@ public class JsonOutput
 	@Override
 	public void flush() throws IOException
 	{
+		flushBuffer();
 		writer.flush();
 	}
 }
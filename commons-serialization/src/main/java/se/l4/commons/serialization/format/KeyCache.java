@@ -0,0 +1,133 @@
+package se.l4.commons.serialization.format;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cache of recently read keys, used by inputs to return the same instance
+ * of {@link String} for keys that occur often instead of creating a new one
+ * every time. Every slot holds a single string, keys with the same slot
+ * replace each other.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class KeyCache
+{
+	private static final int SIZE = 512;
+	private static final int MAX_LENGTH = 64;
+
+	private static final ThreadLocal<KeyCache> CACHES = new ThreadLocal<KeyCache>()
+	{
+		@Override
+		protected KeyCache initialValue()
+		{
+			return new KeyCache();
+		}
+	};
+
+	private final String[] entries;
+
+	private KeyCache()
+	{
+		entries = new String[SIZE];
+	}
+
+	/**
+	 * Get the cache of the current thread.
+	 *
+	 * @return
+	 */
+	public static KeyCache get()
+	{
+		return CACHES.get();
+	}
+
+	private static int slot(int hash)
+	{
+		return (hash ^ (hash >>> 16)) & (SIZE - 1);
+	}
+
+	/**
+	 * Get a key from its characters.
+	 *
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	public String get(char[] chars, int offset, int length)
+	{
+		if(length > MAX_LENGTH)
+		{
+			return new String(chars, offset, length);
+		}
+
+		int hash = 0;
+		for(int i=offset, n=offset + length; i<n; i++)
+		{
+			hash = 31 * hash + chars[i];
+		}
+
+		int slot = slot(hash);
+		String entry = entries[slot];
+		if(entry != null && entry.length() == length)
+		{
+			int i = 0;
+			while(i < length && entry.charAt(i) == chars[offset + i])
+			{
+				i++;
+			}
+
+			if(i == length)
+			{
+				return entry;
+			}
+		}
+
+		String result = new String(chars, offset, length);
+		entries[slot] = result;
+		return result;
+	}
+
+	/**
+	 * Get a key from bytes that are known to only contain ASCII characters.
+	 *
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return
+	 */
+	public String getAscii(byte[] bytes, int offset, int length)
+	{
+		if(length > MAX_LENGTH)
+		{
+			return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+		}
+
+		int hash = 0;
+		for(int i=offset, n=offset + length; i<n; i++)
+		{
+			hash = 31 * hash + bytes[i];
+		}
+
+		int slot = slot(hash);
+		String entry = entries[slot];
+		if(entry != null && entry.length() == length)
+		{
+			int i = 0;
+			while(i < length && entry.charAt(i) == bytes[offset + i])
+			{
+				i++;
+			}
+
+			if(i == length)
+			{
+				return entry;
+			}
+		}
+
+		String result = new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+		entries[slot] = result;
+		return result;
+	}
+}
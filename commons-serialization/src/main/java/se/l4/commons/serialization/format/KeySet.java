@@ -0,0 +1,170 @@
+package se.l4.commons.serialization.format;
+
+import java.util.Objects;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Precomputed set of keys that the current key of a {@link StreamingInput}
+ * can be matched against via {@link StreamingInput#readKey(KeySet)}. Inputs
+ * that support it match the key directly against the encoded data without
+ * creating a {@link String} for it.
+ *
+ * <pre>
+ * KeySet keys = KeySet.of("id", "name");
+ *
+ * in.next(Token.KEY);
+ * switch(in.readKey(keys))
+ * {
+ *   case 0:
+ *     // id
+ *   case 1:
+ *     // name
+ *   default:
+ *     in.skipValue();
+ * }
+ * </pre>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class KeySet
+{
+	private final String[] keys;
+
+	private final String[] table;
+	private final int[] indexes;
+	private final int mask;
+
+	private KeySet(String[] keys)
+	{
+		this.keys = keys;
+
+		int size = Integer.highestOneBit(Math.max(keys.length, 1) * 4 - 1) << 1;
+
+		this.table = new String[size];
+		this.indexes = new int[size];
+		this.mask = size - 1;
+
+		for(int i=0; i<keys.length; i++)
+		{
+			String key = Objects.requireNonNull(keys[i]);
+			if(indexOf(key) >= 0)
+			{
+				throw new IllegalArgumentException("The key " + key + " has already been added");
+			}
+
+			int slot = key.hashCode() & mask;
+			while(this.table[slot] != null)
+			{
+				slot = (slot + 1) & mask;
+			}
+
+			this.table[slot] = key;
+			this.indexes[slot] = i;
+		}
+	}
+
+	/**
+	 * Create a set for the given keys. The index of a key is its position in
+	 * the given array.
+	 *
+	 * @param keys
+	 * @return
+	 */
+	@NonNull
+	public static KeySet of(@NonNull String... keys)
+	{
+		return new KeySet(keys.clone());
+	}
+
+	/**
+	 * Get the number of keys in this set.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return keys.length;
+	}
+
+	/**
+	 * Get the key at the given index.
+	 *
+	 * @param index
+	 * @return
+	 */
+	@NonNull
+	public String get(int index)
+	{
+		return keys[index];
+	}
+
+	/**
+	 * Get the index of the given key.
+	 *
+	 * @param key
+	 * @return
+	 *   index of the key or {@code -1} if the key is unknown
+	 */
+	public int indexOf(@NonNull String key)
+	{
+		int slot = key.hashCode() & mask;
+		String current;
+		while((current = table[slot]) != null)
+		{
+			if(current.equals(key))
+			{
+				return indexes[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the index of the key represented by the given characters.
+	 *
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 * @return
+	 *   index of the key or {@code -1} if the key is unknown
+	 */
+	int indexOf(char[] chars, int offset, int length)
+	{
+		int hash = 0;
+		for(int i=offset, n=offset + length; i<n; i++)
+		{
+			hash = 31 * hash + chars[i];
+		}
+
+		int slot = hash & mask;
+		String current;
+		while((current = table[slot]) != null)
+		{
+			if(equals(current, chars, offset, length))
+			{
+				return indexes[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	private static boolean equals(String key, char[] chars, int offset, int length)
+	{
+		if(key.length() != length) return false;
+
+		for(int i=0; i<length; i++)
+		{
+			if(key.charAt(i) != chars[offset + i]) return false;
+		}
+
+		return true;
+	}
+}
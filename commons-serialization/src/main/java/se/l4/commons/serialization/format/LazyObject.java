@@ -0,0 +1,133 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.ImmutableMap;
+import org.eclipse.collections.api.map.MutableMap;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Object in serialized data where the position of every value has been
+ * indexed but no values have been decoded. Retrieved via
+ * {@link LazyValue#asObject()}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LazyObject
+{
+	private final LazyValue value;
+	private final ImmutableList<String> keys;
+	private final ImmutableMap<String, LazyValue> fields;
+
+	private LazyObject(LazyValue value, ImmutableList<String> keys, ImmutableMap<String, LazyValue> fields)
+	{
+		this.value = value;
+		this.keys = keys;
+		this.fields = fields;
+	}
+
+	/**
+	 * Index the keys of the given value, which must be an object.
+	 *
+	 * @param value
+	 * @return
+	 * @throws IOException
+	 */
+	static LazyObject index(LazyValue value)
+		throws IOException
+	{
+		try(StreamingInput in = value.open())
+		{
+			in.next(Token.OBJECT_START);
+
+			SeekableInput seekable = in instanceof SeekableInput ? (SeekableInput) in : null;
+			MutableList<String> keys = Lists.mutable.empty();
+			MutableMap<String, LazyValue> fields = Maps.mutable.empty();
+			while(in.peek() != Token.OBJECT_END)
+			{
+				in.next(Token.KEY);
+				String key = in.readString();
+
+				if(! fields.containsKey(key))
+				{
+					// If a key is repeated the first value is used
+					keys.add(key);
+					fields.put(key, value.child(in, seekable, key, -1));
+				}
+
+				in.skipValue();
+			}
+
+			return new LazyObject(value, keys.toImmutable(), fields.toImmutable());
+		}
+	}
+
+	/**
+	 * Get the value this object was created from.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public LazyValue getValue()
+	{
+		return value;
+	}
+
+	/**
+	 * Get the keys of this object in the order they were written.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public RichIterable<String> keys()
+	{
+		return keys;
+	}
+
+	/**
+	 * Get the number of keys in this object.
+	 *
+	 * @return
+	 */
+	public int size()
+	{
+		return keys.size();
+	}
+
+	/**
+	 * Get the value of a single key in this object.
+	 *
+	 * @param key
+	 * @return
+	 *   the value, or empty if this object does not contain the key
+	 */
+	@NonNull
+	public Optional<LazyValue> getField(@NonNull String key)
+	{
+		return Optional.ofNullable(fields.get(key));
+	}
+
+	/**
+	 * Get a value using a path relative to this object, see
+	 * {@link LazyValue#get(String)}.
+	 *
+	 * @param path
+	 * @return
+	 *   the value, or empty if there is no value at the path
+	 * @throws IOException
+	 */
+	@NonNull
+	public Optional<LazyValue> get(@NonNull String path)
+		throws IOException
+	{
+		return value.get(path);
+	}
+}
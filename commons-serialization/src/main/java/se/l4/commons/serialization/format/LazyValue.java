@@ -0,0 +1,501 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ListIterable;
+import org.eclipse.collections.api.list.MutableList;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.SerializationException;
+import se.l4.commons.serialization.Serializer;
+
+/**
+ * Value in serialized data that is only decoded when requested. Objects and
+ * lists index the positions of their values the first time they are
+ * accessed, after which single values can be decoded without reading the
+ * rest of the data.
+ *
+ * <pre>
+ * LazyValue value = LazyValue.of(bytes, StreamingFormat.BINARY);
+ * Optional&lt;LazyValue&gt; id = value.get("order.customer.id");
+ * </pre>
+ *
+ * <p>
+ * The data is never copied. Inputs created by {@link StreamingFormat#BINARY}
+ * and its versions over {@link Bytes} backed by an array start reading
+ * directly at the position of a value, for other formats values are found
+ * by reading from the start of their parent. Instances are not safe to use
+ * from several threads at the same time.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LazyValue
+{
+	private final Bytes bytes;
+	private final StreamingFormat format;
+
+	/**
+	 * The parent and the key or index in the parent, used to find this value
+	 * if the input can not seek.
+	 */
+	private final LazyValue parent;
+	private final String key;
+	private final int index;
+
+	/**
+	 * Input that can seek to the position of this value, {@code null} if
+	 * this value is found via its parent.
+	 */
+	private final SeekableInput source;
+	private final long position;
+
+	private Token token;
+
+	private LazyObject object;
+	private ListIterable<LazyValue> list;
+
+	LazyValue(
+		Bytes bytes,
+		StreamingFormat format,
+		LazyValue parent,
+		String key,
+		int index,
+		SeekableInput source,
+		long position,
+		Token token
+	)
+	{
+		this.bytes = bytes;
+		this.format = format;
+		this.parent = parent;
+		this.key = key;
+		this.index = index;
+		this.source = source;
+		this.position = position;
+		this.token = token;
+	}
+
+	/**
+	 * Create a lazy view of the value stored in the given data.
+	 *
+	 * @param bytes
+	 *   the data to read
+	 * @param format
+	 *   the format the data is in
+	 * @return
+	 */
+	@NonNull
+	public static LazyValue of(@NonNull Bytes bytes, @NonNull StreamingFormat format)
+	{
+		return new LazyValue(bytes, format, null, null, -1, null, -1, null);
+	}
+
+	/**
+	 * Create an input that starts at this value.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	StreamingInput open()
+		throws IOException
+	{
+		if(source != null)
+		{
+			return source.seek(position);
+		}
+
+		if(parent == null)
+		{
+			return format.createInput(bytes);
+		}
+
+		StreamingInput in = parent.open();
+		if(key != null)
+		{
+			in.next(Token.OBJECT_START);
+			while(in.peek() != Token.OBJECT_END)
+			{
+				in.next(Token.KEY);
+				if(key.equals(in.readString()))
+				{
+					return in;
+				}
+
+				in.skipValue();
+			}
+		}
+		else
+		{
+			in.next(Token.LIST_START);
+			for(int i=0; i<index && in.peek() != Token.LIST_END; i++)
+			{
+				skipNext(in);
+			}
+
+			if(in.peek() != Token.LIST_END)
+			{
+				return in;
+			}
+		}
+
+		throw new SerializationException("Value could not be found, data has changed");
+	}
+
+	/**
+	 * Skip the next value of the given input.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	private static void skipNext(StreamingInput in)
+		throws IOException
+	{
+		switch(in.next())
+		{
+			case OBJECT_START:
+			case LIST_START:
+			case VALUE:
+				in.skip();
+				break;
+			default:
+				// Nothing more to skip
+		}
+	}
+
+	/**
+	 * Get the token this value starts with, {@link Token#OBJECT_START} for
+	 * objects, {@link Token#LIST_START} for lists, {@link Token#NULL} for
+	 * null and {@link Token#VALUE} for other values.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public Token getToken()
+		throws IOException
+	{
+		if(token == null)
+		{
+			try(StreamingInput in = open())
+			{
+				token = in.peek();
+			}
+		}
+
+		return token;
+	}
+
+	/**
+	 * Get if this value is {@code null}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isNull()
+		throws IOException
+	{
+		return getToken() == Token.NULL;
+	}
+
+	/**
+	 * Get if this value is an object.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isObject()
+		throws IOException
+	{
+		return getToken() == Token.OBJECT_START;
+	}
+
+	/**
+	 * Get if this value is a list.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean isList()
+		throws IOException
+	{
+		return getToken() == Token.LIST_START;
+	}
+
+	/**
+	 * Get this value as an object. The keys of the object are indexed the
+	 * first time this is called.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public LazyObject asObject()
+		throws IOException
+	{
+		if(object == null)
+		{
+			if(getToken() != Token.OBJECT_START)
+			{
+				throw new SerializationException("Value is not an object, token is " + token);
+			}
+
+			object = LazyObject.index(this);
+		}
+
+		return object;
+	}
+
+	/**
+	 * Get this value as a list of values. The items of the list are
+	 * indexed the first time this is called.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public ListIterable<LazyValue> asList()
+		throws IOException
+	{
+		if(list == null)
+		{
+			if(getToken() != Token.LIST_START)
+			{
+				throw new SerializationException("Value is not a list, token is " + token);
+			}
+
+			try(StreamingInput in = open())
+			{
+				in.next(Token.LIST_START);
+
+				SeekableInput seekable = in instanceof SeekableInput ? (SeekableInput) in : null;
+				MutableList<LazyValue> items = Lists.mutable.empty();
+				while(in.peek() != Token.LIST_END)
+				{
+					items.add(child(in, seekable, null, items.size()));
+					skipNext(in);
+				}
+
+				list = items.toImmutable();
+			}
+		}
+
+		return list;
+	}
+
+	/**
+	 * Create a child of this value for the next value of the given input.
+	 *
+	 * @param in
+	 * @param seekable
+	 * @param key
+	 * @param index
+	 * @return
+	 * @throws IOException
+	 */
+	LazyValue child(StreamingInput in, SeekableInput seekable, String key, int index)
+		throws IOException
+	{
+		Token token = in.peek();
+		long position = seekable == null ? -1 : seekable.position();
+		return new LazyValue(
+			bytes,
+			format,
+			this,
+			key,
+			index,
+			position < 0 ? null : seekable,
+			position,
+			token
+		);
+	}
+
+	/**
+	 * Get a value using a path relative to this value. The path is made up
+	 * of keys and list indexes separated by dots, such as
+	 * {@code order.lines.0.id}.
+	 *
+	 * @param path
+	 * @return
+	 *   the value, or empty if there is no value at the path
+	 * @throws IOException
+	 */
+	@NonNull
+	public Optional<LazyValue> get(@NonNull String path)
+		throws IOException
+	{
+		LazyValue current = this;
+		int start = 0;
+		while(current != null && start <= path.length())
+		{
+			int end = path.indexOf('.', start);
+			if(end < 0)
+			{
+				end = path.length();
+			}
+
+			current = current.getSegment(path.substring(start, end));
+			start = end + 1;
+		}
+
+		return Optional.ofNullable(current);
+	}
+
+	/**
+	 * Get a single key or index of this value.
+	 *
+	 * @param segment
+	 * @return
+	 * @throws IOException
+	 */
+	private LazyValue getSegment(String segment)
+		throws IOException
+	{
+		switch(getToken())
+		{
+			case OBJECT_START:
+				return asObject().getField(segment).orElse(null);
+			case LIST_START:
+				ListIterable<LazyValue> items = asList();
+				try
+				{
+					int index = Integer.parseInt(segment);
+					return index >= 0 && index < items.size() ? items.get(index) : null;
+				}
+				catch(NumberFormatException e)
+				{
+					return null;
+				}
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Read this value using the given serializer.
+	 *
+	 * @param serializer
+	 * @return
+	 * @throws IOException
+	 */
+	public <T> T read(@NonNull Serializer<T> serializer)
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			if(in.peek() == Token.NULL && ! (serializer instanceof Serializer.NullHandling))
+			{
+				in.next();
+				return null;
+			}
+
+			return serializer.read(in);
+		}
+	}
+
+	/**
+	 * Read this value as a string.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public String asString()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			return in.next() == Token.NULL ? null : in.readString();
+		}
+	}
+
+	/**
+	 * Read this value as an integer.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public int asInt()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			in.next(Token.VALUE);
+			return in.readInt();
+		}
+	}
+
+	/**
+	 * Read this value as a long.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public long asLong()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			in.next(Token.VALUE);
+			return in.readLong();
+		}
+	}
+
+	/**
+	 * Read this value as a double.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public double asDouble()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			in.next(Token.VALUE);
+			return in.readDouble();
+		}
+	}
+
+	/**
+	 * Read this value as a boolean.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean asBoolean()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			in.next(Token.VALUE);
+			return in.readBoolean();
+		}
+	}
+
+	/**
+	 * Read this value without any conversion, see
+	 * {@link StreamingInput#readDynamic()}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public Object asDynamic()
+		throws IOException
+	{
+		try(StreamingInput in = open())
+		{
+			switch(in.next())
+			{
+				case NULL:
+					return null;
+				case VALUE:
+					return in.readDynamic();
+				default:
+					throw new SerializationException("Value is not a single value, token is " + in.current());
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package se.l4.commons.serialization.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import se.l4.commons.serialization.Serializer;
+
+/**
+ * Iterator that reads the items of a list one at a time, used by
+ * {@link StreamingInput#readAsIterator(Serializer)}.
+ *
+ * @author Andreas Holstenson
+ *
+ * @param <T>
+ */
+class ListItemIterator<T>
+	implements Iterator<T>
+{
+	private final StreamingInput in;
+	private final Serializer<T> serializer;
+	private final boolean nullHandling;
+
+	private boolean ended;
+
+	ListItemIterator(StreamingInput in, Serializer<T> serializer)
+	{
+		this.in = in;
+		this.serializer = serializer;
+		this.nullHandling = serializer instanceof Serializer.NullHandling;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if(ended)
+		{
+			return false;
+		}
+
+		try
+		{
+			switch(in.peek())
+			{
+				case LIST_END:
+					in.next();
+					ended = true;
+					return false;
+				case END_OF_STREAM:
+					throw new EOFException("End of stream reached before end of list");
+				default:
+					return true;
+			}
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public T next()
+	{
+		if(! hasNext())
+		{
+			throw new NoSuchElementException();
+		}
+
+		try
+		{
+			if(in.peek() == Token.NULL && ! nullHandling)
+			{
+				in.next();
+				return null;
+			}
+
+			return serializer.read(in);
+		}
+		catch(IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+}
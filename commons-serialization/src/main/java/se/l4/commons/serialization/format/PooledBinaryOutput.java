@@ -0,0 +1,164 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.io.ByteBufferChain;
+import se.l4.commons.io.ByteBufferPool;
+import se.l4.commons.io.Bytes;
+
+/**
+ * Variant of {@link BinaryOutput} that writes into buffers taken from a
+ * {@link ByteBufferPool} instead of a stream. The written data is available
+ * via {@link #getResult()} as a {@link ByteBufferChain} which can be used
+ * as {@link Bytes} or as an array of {@link ByteBuffer}s for gathering
+ * writes.
+ *
+ * <p>
+ * When the pool creates heap buffers data is encoded directly into the
+ * arrays of the pooled buffers, for direct buffers data is encoded into a
+ * temporary array and copied to the pooled buffers in blocks.
+ *
+ * <pre>
+ * try(PooledBinaryOutput out = new PooledBinaryOutput(pool))
+ * {
+ *   serializer.write(object, out);
+ *
+ *   try(ByteBufferChain result = out.getResult())
+ *   {
+ *     channel.write(result.toByteBuffers());
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class PooledBinaryOutput
+	extends BinaryOutput
+{
+	/**
+	 * Temporary arrays used when writing to direct buffers, taken from the
+	 * thread while in use so that nested outputs get their own arrays.
+	 */
+	private static final ThreadLocal<byte[]> TEMPORARY = new ThreadLocal<>();
+
+	private final ByteBufferPool pool;
+	private final ByteBufferChain result;
+
+	/**
+	 * The pooled buffer whose array is currently being written into, or
+	 * {@code null} if a temporary array is used.
+	 */
+	private ByteBuffer current;
+
+	/**
+	 * The temporary array being written into, or {@code null} if writing
+	 * directly into pooled buffers.
+	 */
+	private byte[] temporary;
+
+	public PooledBinaryOutput(@NonNull ByteBufferPool pool)
+	{
+		this(pool, canWriteDirectly(pool) ? pool.acquire() : null);
+	}
+
+	private PooledBinaryOutput(ByteBufferPool pool, ByteBuffer current)
+	{
+		this(pool, current, current == null ? takeTemporary() : null);
+	}
+
+	private PooledBinaryOutput(ByteBufferPool pool, ByteBuffer current, byte[] temporary)
+	{
+		super(null, current == null ? temporary : current.array(), false, false);
+
+		this.pool = pool;
+		this.current = current;
+		this.temporary = temporary;
+
+		result = new ByteBufferChain(pool);
+	}
+
+	private static byte[] takeTemporary()
+	{
+		byte[] result = TEMPORARY.get();
+		if(result == null)
+		{
+			return new byte[DEFAULT_BUFFER_SIZE];
+		}
+
+		TEMPORARY.set(null);
+		return result;
+	}
+
+	private static boolean canWriteDirectly(ByteBufferPool pool)
+	{
+		return ! pool.isDirect() && pool.getBufferSize() >= MIN_BUFFER_SIZE;
+	}
+
+	@Override
+	byte[] drain(byte[] buffer, int length)
+		throws IOException
+	{
+		if(current == null)
+		{
+			result.append(buffer, 0, length);
+			return buffer;
+		}
+
+		current.position(length);
+		result.add(current);
+
+		current = pool.acquire();
+		return current.array();
+	}
+
+	@Override
+	void writeDirect(byte[] data)
+		throws IOException
+	{
+		result.append(data, 0, data.length);
+	}
+
+	/**
+	 * Get the data written to this output. The returned chain should be
+	 * closed when the data is no longer needed to return its buffers to
+	 * the pool.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	public ByteBufferChain getResult()
+		throws IOException
+	{
+		flushBuffer();
+		return result;
+	}
+
+	@Override
+	public void flush()
+		throws IOException
+	{
+		// Data is made available when the result is requested
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		flushBuffer();
+
+		if(current != null)
+		{
+			pool.release(current);
+			current = null;
+		}
+		else if(temporary != null)
+		{
+			TEMPORARY.set(temporary);
+			temporary = null;
+		}
+	}
+}
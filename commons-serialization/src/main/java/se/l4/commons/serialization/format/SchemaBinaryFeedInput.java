@@ -0,0 +1,82 @@
+package se.l4.commons.serialization.format;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * {@link FeedInput} for the schema based binary format. The header is
+ * checked once when it has been fed, after which values are found by
+ * trying to skip over them with a {@link SchemaBinaryInput}. A value that
+ * has not been fully received is tried again when more data is fed.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class SchemaBinaryFeedInput
+	extends FeedInput
+{
+	private static final int HEADER_SIZE = 9;
+
+	private final SchemaLayout layout;
+	private boolean headerRead;
+
+	public SchemaBinaryFeedInput(SchemaLayout layout)
+	{
+		this.layout = layout;
+	}
+
+	@Override
+	protected boolean scan(boolean ended)
+		throws IOException
+	{
+		if(! headerRead)
+		{
+			if(limit - start < HEADER_SIZE)
+			{
+				return false;
+			}
+
+			// Let the input check the header, it does not read any values
+			try(StreamingInput in = new SchemaBinaryInput(layout, buffer, start, HEADER_SIZE))
+			{
+				in.peek();
+			}
+
+			start += HEADER_SIZE;
+			position = start;
+			headerRead = true;
+		}
+
+		if(start == limit)
+		{
+			return false;
+		}
+
+		try(SchemaBinaryInput in = new SchemaBinaryInput(layout, buffer, start, limit - start, false))
+		{
+			switch(in.next())
+			{
+				case OBJECT_START:
+				case LIST_START:
+					in.skip();
+					break;
+				default:
+					// Single values are read when their token is read
+			}
+
+			position = in.getPosition();
+			return true;
+		}
+		catch(EOFException e)
+		{
+			return false;
+		}
+	}
+
+	@Override
+	protected StreamingInput createInput(byte[] data, int offset, int length)
+		throws IOException
+	{
+		return new SchemaBinaryInput(layout, data, offset, length, false);
+	}
+}
@@ -0,0 +1,74 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.SerializerFormatDefinition;
+
+/**
+ * {@link StreamingFormat} for the schema based binary format. The layout is
+ * created once from the definition and shared by all inputs and outputs.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class SchemaBinaryFormat
+	implements StreamingFormat
+{
+	private final SchemaLayout layout;
+
+	public SchemaBinaryFormat(SerializerFormatDefinition definition)
+	{
+		layout = SchemaLayout.of(definition);
+	}
+
+	@Override
+	public StreamingInput createInput(InputStream in)
+		throws IOException
+	{
+		return new SchemaBinaryInput(layout, in);
+	}
+
+	@Override
+	public StreamingInput createInput(Bytes bytes)
+		throws IOException
+	{
+		return createInput(bytes.asByteBuffer());
+	}
+
+	@Override
+	public StreamingInput createInput(ByteBuffer buffer)
+		throws IOException
+	{
+		if(buffer.hasArray())
+		{
+			return new SchemaBinaryInput(
+				layout,
+				buffer.array(),
+				buffer.arrayOffset() + buffer.position(),
+				buffer.remaining()
+			);
+		}
+
+		byte[] data = new byte[buffer.remaining()];
+		buffer.duplicate().get(data);
+		return new SchemaBinaryInput(layout, data, 0, data.length);
+	}
+
+	@Override
+	public Optional<FeedInput> createFeedInput()
+	{
+		return Optional.of(new SchemaBinaryFeedInput(layout));
+	}
+
+	@Override
+	public StreamingOutput createOutput(OutputStream out)
+		throws IOException
+	{
+		return new SchemaBinaryOutput(layout, out);
+	}
+}
@@ -0,0 +1,783 @@
+package se.l4.commons.serialization.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.format.SchemaLayout.Node;
+
+/**
+ * Input for the schema based binary format written by
+ * {@link SchemaBinaryOutput}. The data is read into memory and decoded
+ * using the same {@link SchemaLayout} as it was written with, the
+ * fingerprint in the header is checked before anything is read.
+ *
+ * <p>
+ * Fields of objects are returned in the order of the layout, fields that
+ * were {@code null} when written are not returned.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class SchemaBinaryInput
+	extends AbstractStreamingInput
+{
+	private static final int ROOT = -1;
+
+	private final SchemaLayout layout;
+	private final KeyCache keyCache = KeyCache.get();
+
+	private InputStream in;
+	private boolean headerRead;
+	private byte[] data;
+	private int position;
+	private int limit;
+
+	private char[] chars;
+
+	private Frame[] frames;
+	private int depth;
+	private int anyDepth;
+
+	/*
+	 * The next token and its value, set when peeking.
+	 */
+	private Token peeked;
+	private ValueType nextType;
+	private long nextLong;
+	private double nextDouble;
+	private String nextString;
+	private int nextOffset;
+	private int nextLength;
+
+	/*
+	 * Value of the current token.
+	 */
+	private ValueType valueType;
+	private long valueLong;
+	private double valueDouble;
+	private String valueString;
+	private int valueOffset;
+	private int valueLength;
+
+	SchemaBinaryInput(SchemaLayout layout, InputStream in)
+	{
+		this.layout = layout;
+		this.in = in;
+
+		init();
+	}
+
+	SchemaBinaryInput(SchemaLayout layout, byte[] data, int offset, int length)
+	{
+		this(layout, data, offset, length, true);
+	}
+
+	/**
+	 * Create an input over the given data.
+	 *
+	 * @param layout
+	 * @param data
+	 * @param offset
+	 * @param length
+	 * @param header
+	 *   if the data starts with a header, {@code false} if the header has
+	 *   already been checked by the creator of this input
+	 */
+	SchemaBinaryInput(SchemaLayout layout, byte[] data, int offset, int length, boolean header)
+	{
+		this.layout = layout;
+		this.data = data;
+		this.position = offset;
+		this.limit = offset + length;
+		this.headerRead = ! header;
+
+		init();
+	}
+
+	/**
+	 * Get the position in the data up to which it has been read.
+	 *
+	 * @return
+	 */
+	int getPosition()
+	{
+		return position;
+	}
+
+	private void init()
+	{
+		chars = new char[64];
+
+		frames = new Frame[8];
+		frames[0] = new Frame();
+		frames[0].kind = ROOT;
+		frames[0].node = layout.getRoot();
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		if(in != null)
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Load the data if needed and check the header.
+	 *
+	 * @throws IOException
+	 */
+	private void readHeader()
+		throws IOException
+	{
+		if(data == null)
+		{
+			data = in.readAllBytes();
+			limit = data.length;
+		}
+
+		require(9);
+		if((data[position++] & 0xff) != SchemaBinaryOutput.MAGIC)
+		{
+			throw raiseException("Data is not in the schema binary format");
+		}
+
+		long fingerprint = readRawFixedLong();
+		if(fingerprint != layout.getFingerprint())
+		{
+			throw raiseException("Data was written using a different schema, fingerprint was "
+				+ Long.toHexString(fingerprint) + " but expected "
+				+ Long.toHexString(layout.getFingerprint()));
+		}
+	}
+
+	@Override
+	public Token peek()
+		throws IOException
+	{
+		if(peeked == null)
+		{
+			if(! headerRead)
+			{
+				readHeader();
+				headerRead = true;
+			}
+
+			peeked = readToken();
+		}
+
+		return peeked;
+	}
+
+	@Override
+	protected Token next0()
+		throws IOException
+	{
+		Token token = peek();
+		peeked = null;
+
+		valueType = nextType;
+		valueLong = nextLong;
+		valueDouble = nextDouble;
+		valueString = nextString;
+		valueOffset = nextOffset;
+		valueLength = nextLength;
+
+		return token;
+	}
+
+	private Token readToken()
+		throws IOException
+	{
+		nextType = null;
+
+		if(anyDepth > 0)
+		{
+			return readTagged();
+		}
+
+		Frame f = frames[depth];
+		switch(f.kind)
+		{
+			case ROOT:
+				if(position == limit)
+				{
+					return Token.END_OF_STREAM;
+				}
+
+				if(data[position++] == 0)
+				{
+					return nullValue();
+				}
+
+				return readValue(f.node);
+			case SchemaLayout.OBJECT:
+			{
+				if(f.awaitingValue)
+				{
+					f.awaitingValue = false;
+					return readValue(f.node.fields[f.current]);
+				}
+
+				Node node = f.node;
+				for(int i=f.index, n=node.fields.length; i<n; i++)
+				{
+					if(isSet(f.bitmap, i))
+					{
+						f.index = i + 1;
+						f.current = i;
+						f.awaitingValue = true;
+						return key(node.names[i]);
+					}
+				}
+
+				depth--;
+				return Token.OBJECT_END;
+			}
+			case SchemaLayout.LIST:
+			{
+				if(f.index == f.count)
+				{
+					depth--;
+					return Token.LIST_END;
+				}
+
+				int i = f.index++;
+				if(f.hasBitmap && ! isSet(f.bitmap, i))
+				{
+					return nullValue();
+				}
+
+				return readValue(f.node.item);
+			}
+			default:
+			{
+				if(f.awaitingValue)
+				{
+					f.awaitingValue = false;
+					if(f.hasBitmap && ! isSet(f.bitmap, f.index - 1))
+					{
+						return nullValue();
+					}
+
+					return readValue(f.node.item);
+				}
+
+				if(f.index == f.count)
+				{
+					depth--;
+					return Token.OBJECT_END;
+				}
+
+				f.index++;
+				f.awaitingValue = true;
+				return key(readRawString(true));
+			}
+		}
+	}
+
+	private boolean isSet(int bitmap, int index)
+	{
+		return (data[bitmap + (index >> 3)] & (1 << (index & 7))) != 0;
+	}
+
+	private Token key(String name)
+	{
+		nextType = ValueType.STRING;
+		nextString = name;
+		return Token.KEY;
+	}
+
+	private Token nullValue()
+	{
+		nextType = ValueType.NULL;
+		return Token.NULL;
+	}
+
+	private Frame push(int kind, Node node)
+	{
+		depth++;
+		if(depth == frames.length)
+		{
+			frames = Arrays.copyOf(frames, depth * 2);
+		}
+
+		Frame f = frames[depth];
+		if(f == null)
+		{
+			f = frames[depth] = new Frame();
+		}
+
+		f.kind = kind;
+		f.node = node;
+		f.index = 0;
+		f.awaitingValue = false;
+		return f;
+	}
+
+	/**
+	 * Read a value with the given layout.
+	 *
+	 * @param node
+	 * @return
+	 * @throws IOException
+	 */
+	private Token readValue(Node node)
+		throws IOException
+	{
+		switch(node.kind)
+		{
+			case SchemaLayout.VALUE:
+				readFixed(node.valueType);
+				return Token.VALUE;
+			case SchemaLayout.OBJECT:
+			{
+				Frame f = push(SchemaLayout.OBJECT, node);
+				f.bitmap = position;
+				skipRaw((node.fields.length + 7) >> 3);
+				return Token.OBJECT_START;
+			}
+			case SchemaLayout.LIST:
+			case SchemaLayout.MAP:
+			{
+				int header = readRawVarint();
+				Frame f = push(node.kind, node);
+				f.count = header >>> 1;
+				f.hasBitmap = (header & 1) != 0;
+				f.bitmap = position;
+				if(f.hasBitmap)
+				{
+					skipRaw((f.count + 7) >> 3);
+				}
+
+				return node.kind == SchemaLayout.LIST ? Token.LIST_START : Token.OBJECT_START;
+			}
+			default:
+				return readTagged();
+		}
+	}
+
+	/**
+	 * Read a value of a known type.
+	 *
+	 * @param type
+	 * @throws IOException
+	 */
+	private void readFixed(ValueType type)
+		throws IOException
+	{
+		nextType = type;
+		switch(type)
+		{
+			case BOOLEAN:
+				require(1);
+				nextLong = data[position++];
+				break;
+			case BYTE:
+			case SHORT:
+			case CHAR:
+			case INTEGER:
+			case LONG:
+				nextLong = readRawZigZag();
+				break;
+			case FLOAT:
+				nextDouble = Float.intBitsToFloat(readRawFixedInt());
+				break;
+			case DOUBLE:
+				nextDouble = Double.longBitsToDouble(readRawFixedLong());
+				break;
+			case STRING:
+				nextString = readRawString(false);
+				break;
+			case BYTES:
+				readRawSlice();
+				break;
+			default:
+				throw raiseException("Unsupported value type " + type);
+		}
+	}
+
+	/**
+	 * Read a token written in the self-describing format.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private Token readTagged()
+		throws IOException
+	{
+		require(1);
+		int tag = data[position++];
+		switch(tag)
+		{
+			case BinaryOutput.TAG_OBJECT_START:
+				anyDepth++;
+				return Token.OBJECT_START;
+			case BinaryOutput.TAG_LIST_START:
+				anyDepth++;
+				return Token.LIST_START;
+			case BinaryOutput.TAG_OBJECT_END:
+			case BinaryOutput.TAG_LIST_END:
+				if(anyDepth == 0)
+				{
+					throw raiseException("Unexpected end of object or list");
+				}
+
+				anyDepth--;
+				return tag == BinaryOutput.TAG_OBJECT_END ? Token.OBJECT_END : Token.LIST_END;
+			case BinaryOutput.TAG_KEY:
+				return key(readRawString(true));
+			case BinaryOutput.TAG_NULL:
+				return nullValue();
+			case BinaryOutput.TAG_STRING:
+				readFixed(ValueType.STRING);
+				return Token.VALUE;
+			case BinaryOutput.TAG_INT:
+				readFixed(ValueType.INTEGER);
+				return Token.VALUE;
+			case BinaryOutput.TAG_LONG:
+				readFixed(ValueType.LONG);
+				return Token.VALUE;
+			case BinaryOutput.TAG_FLOAT:
+				readFixed(ValueType.FLOAT);
+				return Token.VALUE;
+			case BinaryOutput.TAG_DOUBLE:
+				readFixed(ValueType.DOUBLE);
+				return Token.VALUE;
+			case BinaryOutput.TAG_BOOLEAN:
+				readFixed(ValueType.BOOLEAN);
+				return Token.VALUE;
+			case BinaryOutput.TAG_BYTE_ARRAY:
+				readFixed(ValueType.BYTES);
+				return Token.VALUE;
+			default:
+				throw raiseException("Unknown tag " + tag);
+		}
+	}
+
+	private void require(int bytes)
+		throws IOException
+	{
+		if(limit - position < bytes)
+		{
+			throw new EOFException("Unexpected end of data, needed " + bytes + " bytes but only " + (limit - position) + " available");
+		}
+	}
+
+	private void skipRaw(int bytes)
+		throws IOException
+	{
+		require(bytes);
+		position += bytes;
+	}
+
+	private int readRawVarint()
+		throws IOException
+	{
+		int shift = 0;
+		int result = 0;
+		while(shift < 32)
+		{
+			require(1);
+			byte b = data[position++];
+			result |= (b & 0x7f) << shift;
+			if((b & 0x80) == 0) return result;
+
+			shift += 7;
+		}
+
+		throw raiseException("Invalid variable length integer");
+	}
+
+	private long readRawZigZag()
+		throws IOException
+	{
+		int shift = 0;
+		long result = 0;
+		while(shift < 64)
+		{
+			require(1);
+			byte b = data[position++];
+			result |= (long) (b & 0x7f) << shift;
+			if((b & 0x80) == 0)
+			{
+				return (result >>> 1) ^ -(result & 1);
+			}
+
+			shift += 7;
+		}
+
+		throw raiseException("Invalid variable length integer");
+	}
+
+	private int readRawFixedInt()
+		throws IOException
+	{
+		require(4);
+
+		byte[] data = this.data;
+		int p = position;
+		position += 4;
+		return (data[p] & 0xff) << 24
+			| (data[p + 1] & 0xff) << 16
+			| (data[p + 2] & 0xff) << 8
+			| (data[p + 3] & 0xff);
+	}
+
+	private long readRawFixedLong()
+		throws IOException
+	{
+		long high = readRawFixedInt();
+		return high << 32 | (readRawFixedInt() & 0xffffffffl);
+	}
+
+	private String readRawString(boolean key)
+		throws IOException
+	{
+		int length = readRawVarint();
+		if(length > chars.length)
+		{
+			chars = new char[Math.max(length, chars.length * 2)];
+		}
+
+		char[] chars = this.chars;
+		byte[] data = this.data;
+		for(int i=0; i<length; i++)
+		{
+			require(1);
+			int c = data[position++] & 0xff;
+			int t = c >> 4;
+			if(t < 8)
+			{
+				chars[i] = (char) c;
+			}
+			else if(t == 12 || t == 13)
+			{
+				require(1);
+				chars[i] = (char) ((c & 0x1f) << 6 | data[position++] & 0x3f);
+			}
+			else if(t == 14)
+			{
+				require(2);
+				chars[i] = (char) ((c & 0x0f) << 12
+					| (data[position++] & 0x3f) << 6
+					| (data[position++] & 0x3f) << 0);
+			}
+			else
+			{
+				throw raiseException("Invalid character in string, read byte was " + c);
+			}
+		}
+
+		return key ? keyCache.get(chars, 0, length) : new String(chars, 0, length);
+	}
+
+	private void readRawSlice()
+		throws IOException
+	{
+		int length = readRawVarint();
+		require(length);
+
+		nextOffset = position;
+		nextLength = length;
+		position += length;
+	}
+
+	private IOException unexpected(ValueType expected)
+	{
+		return raiseException("Expected " + expected + ", but found " + valueType);
+	}
+
+	@Override
+	public Object readDynamic()
+		throws IOException
+	{
+		if(valueType == null)
+		{
+			throw raiseException("No value to read");
+		}
+
+		switch(valueType)
+		{
+			case STRING:
+				return valueString;
+			case BOOLEAN:
+				return valueLong != 0;
+			case BYTE:
+				return (byte) valueLong;
+			case SHORT:
+				return (short) valueLong;
+			case CHAR:
+				return (char) valueLong;
+			case INTEGER:
+				return (int) valueLong;
+			case LONG:
+				return valueLong;
+			case FLOAT:
+				return (float) valueDouble;
+			case DOUBLE:
+				return valueDouble;
+			case BYTES:
+				return readByteArray();
+			default:
+				return null;
+		}
+	}
+
+	@Override
+	public String readString()
+		throws IOException
+	{
+		if(valueType != ValueType.STRING)
+		{
+			throw unexpected(ValueType.STRING);
+		}
+
+		return valueString;
+	}
+
+	@Override
+	public boolean readBoolean()
+		throws IOException
+	{
+		if(valueType != ValueType.BOOLEAN)
+		{
+			throw unexpected(ValueType.BOOLEAN);
+		}
+
+		return valueLong != 0;
+	}
+
+	@Override
+	public long readLong()
+		throws IOException
+	{
+		if(valueType == null)
+		{
+			throw unexpected(ValueType.LONG);
+		}
+
+		switch(valueType)
+		{
+			case BYTE:
+			case SHORT:
+			case CHAR:
+			case INTEGER:
+			case LONG:
+				return valueLong;
+			case FLOAT:
+			case DOUBLE:
+				return (long) valueDouble;
+			default:
+				throw unexpected(ValueType.LONG);
+		}
+	}
+
+	@Override
+	public int readInt()
+		throws IOException
+	{
+		return (int) readLong();
+	}
+
+	@Override
+	public short readShort()
+		throws IOException
+	{
+		return (short) readLong();
+	}
+
+	@Override
+	public byte readByte()
+		throws IOException
+	{
+		return (byte) readLong();
+	}
+
+	@Override
+	public char readChar()
+		throws IOException
+	{
+		return (char) readLong();
+	}
+
+	@Override
+	public double readDouble()
+		throws IOException
+	{
+		if(valueType == ValueType.FLOAT || valueType == ValueType.DOUBLE)
+		{
+			return valueDouble;
+		}
+
+		return readLong();
+	}
+
+	@Override
+	public float readFloat()
+		throws IOException
+	{
+		return (float) readDouble();
+	}
+
+	@Override
+	public byte[] readByteArray()
+		throws IOException
+	{
+		if(valueType != ValueType.BYTES)
+		{
+			throw unexpected(ValueType.BYTES);
+		}
+
+		return Arrays.copyOfRange(data, valueOffset, valueOffset + valueLength);
+	}
+
+	@Override
+	public Bytes readBytes()
+		throws IOException
+	{
+		return Bytes.create(readByteArray());
+	}
+
+	@Override
+	public InputStream asInputStream()
+		throws IOException
+	{
+		if(valueType != ValueType.BYTES)
+		{
+			throw unexpected(ValueType.BYTES);
+		}
+
+		return new ByteArrayInputStream(data, valueOffset, valueLength);
+	}
+
+	/**
+	 * Object, list or map being read.
+	 */
+	private static class Frame
+	{
+		private int kind;
+		private Node node;
+
+		/*
+		 * Offset of the presence bitmap and index of the next field or
+		 * item to read.
+		 */
+		private int bitmap;
+		private boolean hasBitmap;
+		private int index;
+		private int count;
+
+		/*
+		 * If the key of a field or entry has been read but not its value.
+		 */
+		private int current;
+		private boolean awaitingValue;
+	}
+}
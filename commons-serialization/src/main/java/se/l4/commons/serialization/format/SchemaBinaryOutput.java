@@ -0,0 +1,941 @@
+package se.l4.commons.serialization.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.format.SchemaLayout.Node;
+
+/**
+ * Output for the schema based binary format. Values are written by their
+ * position in a {@link SchemaLayout} instead of with tags and keys.
+ *
+ * <p>
+ * The output starts with a header containing the fingerprint of the
+ * layout. Every root value is prefixed with a byte indicating if it is
+ * present. Objects are written as a bitmap of the fields that are present
+ * followed by the values of those fields in layout order, fields that are
+ * {@code null} or that are not written are not present. Lists and maps are
+ * written with their size, a bitmap of the items that are not {@code null}
+ * if any item is {@code null}, and the items. Values of a known type are
+ * written without a tag and values of unknown type are written with the
+ * tags used by {@link BinaryOutput}.
+ *
+ * <p>
+ * As fields can be written in any order the values of an object, list or
+ * map are collected and written when it ends.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class SchemaBinaryOutput
+	implements StreamingOutput
+{
+	/**
+	 * First byte of the header.
+	 */
+	static final int MAGIC = 0xb5;
+
+	private static final int ROOT = -1;
+
+	private final OutputStream out;
+	private final Segment root;
+
+	private Frame[] frames;
+	private int depth;
+
+	/**
+	 * The segment the current value is written to.
+	 */
+	private Segment target;
+
+	/*
+	 * State for values written in the self-describing format, anyDepth is
+	 * the level within such a value.
+	 */
+	private Segment anyTarget;
+	private int anyDepth;
+	private boolean[] anyLists;
+	private boolean anyNextKey;
+
+	SchemaBinaryOutput(SchemaLayout layout, OutputStream out)
+	{
+		this.out = out;
+
+		root = new Segment(256);
+		root.write(MAGIC);
+		root.writeFixedLong(layout.getFingerprint());
+
+		frames = new Frame[8];
+		frames[0] = new Frame();
+		frames[0].kind = ROOT;
+		frames[0].node = layout.getRoot();
+		frames[0].items = root;
+
+		anyLists = new boolean[8];
+	}
+
+	@Override
+	public void flush()
+		throws IOException
+	{
+		out.write(root.data, 0, root.length);
+		root.reset();
+
+		out.flush();
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		flush();
+		out.close();
+	}
+
+	private static IOException mismatch(Node node, String type)
+	{
+		String expected;
+		switch(node.kind)
+		{
+			case SchemaLayout.VALUE:
+				expected = node.valueType.toString();
+				break;
+			case SchemaLayout.LIST:
+				expected = "list";
+				break;
+			default:
+				expected = "object";
+		}
+
+		return new IOException("Schema expected " + expected + " but " + type + " was written");
+	}
+
+	/**
+	 * Start writing a value in the current frame.
+	 *
+	 * @return
+	 *   the layout of the value
+	 * @throws IOException
+	 */
+	private Node beginValue()
+		throws IOException
+	{
+		Frame f = frames[depth];
+		switch(f.kind)
+		{
+			case ROOT:
+				target = f.items;
+				target.write(1);
+				return f.node;
+			case SchemaLayout.OBJECT:
+				if(f.current < 0)
+				{
+					throw new IOException("Expected a key to be written");
+				}
+
+				f.present[f.current] = true;
+				target = f.fields[f.current];
+				return f.node.fields[f.current];
+			case SchemaLayout.LIST:
+				f.setBit(f.count++);
+				target = f.items;
+				return f.node.item;
+			default:
+				if(! f.awaitingValue)
+				{
+					throw new IOException("Expected a key to be written");
+				}
+
+				f.setBit(f.count - 1);
+				target = f.items;
+				return f.node.item;
+		}
+	}
+
+	/**
+	 * Mark that a value has been fully written in the current frame.
+	 */
+	private void endValue()
+	{
+		Frame f = frames[depth];
+		f.current = -1;
+		f.awaitingValue = false;
+	}
+
+	private Frame push(int kind, Node node)
+	{
+		depth++;
+		if(depth == frames.length)
+		{
+			frames = Arrays.copyOf(frames, depth * 2);
+		}
+
+		Frame f = frames[depth];
+		if(f == null)
+		{
+			f = frames[depth] = new Frame();
+		}
+
+		f.start(kind, node, target);
+		return f;
+	}
+
+	private void anyStart(int tag, boolean list)
+	{
+		anyTarget.write(tag);
+		anyDepth++;
+
+		if(anyDepth == anyLists.length)
+		{
+			anyLists = Arrays.copyOf(anyLists, anyDepth * 2);
+		}
+
+		anyLists[anyDepth] = list;
+		anyNextKey = ! list;
+	}
+
+	private void anyEnd(int tag)
+	{
+		anyTarget.write(tag);
+		anyDepth--;
+
+		if(anyDepth == 0)
+		{
+			endValue();
+		}
+		else
+		{
+			anyNextKey = ! anyLists[anyDepth];
+		}
+	}
+
+	private void anyValueWritten()
+	{
+		anyNextKey = ! anyLists[anyDepth];
+	}
+
+	private void failAnyKey()
+		throws IOException
+	{
+		if(anyNextKey)
+		{
+			throw new IOException("Trying to write a key that is not a string");
+		}
+	}
+
+	@Override
+	public void writeObjectStart()
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyStart(BinaryOutput.TAG_OBJECT_START, false);
+			return;
+		}
+
+		Node node = beginValue();
+		switch(node.kind)
+		{
+			case SchemaLayout.OBJECT:
+			case SchemaLayout.MAP:
+				push(node.kind, node);
+				break;
+			case SchemaLayout.ANY:
+				anyTarget = target;
+				anyStart(BinaryOutput.TAG_OBJECT_START, false);
+				break;
+			default:
+				throw mismatch(node, "object");
+		}
+	}
+
+	@Override
+	public void writeObjectEnd()
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			if(! anyNextKey)
+			{
+				throw new IOException("Trying to end an object without writing a key");
+			}
+
+			anyEnd(BinaryOutput.TAG_OBJECT_END);
+			return;
+		}
+
+		Frame f = frames[depth];
+		if(f.kind == SchemaLayout.OBJECT)
+		{
+			if(f.current >= 0)
+			{
+				throw new IOException("Trying to end an object without writing a value for a key");
+			}
+
+			f.finishObject();
+		}
+		else if(f.kind == SchemaLayout.MAP)
+		{
+			if(f.awaitingValue)
+			{
+				throw new IOException("Trying to end an object without writing a value for a key");
+			}
+
+			f.finishList();
+		}
+		else
+		{
+			throw new IOException("Trying to end an object, but no object has been started");
+		}
+
+		depth--;
+		endValue();
+	}
+
+	@Override
+	public void writeListStart()
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyStart(BinaryOutput.TAG_LIST_START, true);
+			return;
+		}
+
+		Node node = beginValue();
+		switch(node.kind)
+		{
+			case SchemaLayout.LIST:
+				push(node.kind, node);
+				break;
+			case SchemaLayout.ANY:
+				anyTarget = target;
+				anyStart(BinaryOutput.TAG_LIST_START, true);
+				break;
+			default:
+				throw mismatch(node, "list");
+		}
+	}
+
+	@Override
+	public void writeListEnd()
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyEnd(BinaryOutput.TAG_LIST_END);
+			return;
+		}
+
+		Frame f = frames[depth];
+		if(f.kind != SchemaLayout.LIST)
+		{
+			throw new IOException("Trying to end a list, but no list has been started");
+		}
+
+		f.finishList();
+
+		depth--;
+		endValue();
+	}
+
+	@Override
+	public void writeString(String value)
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			if(anyNextKey)
+			{
+				anyTarget.write(BinaryOutput.TAG_KEY);
+				anyNextKey = false;
+			}
+			else
+			{
+				anyTarget.write(BinaryOutput.TAG_STRING);
+				anyValueWritten();
+			}
+
+			anyTarget.writeString(value);
+			return;
+		}
+
+		Frame f = frames[depth];
+		if(f.kind == SchemaLayout.OBJECT && f.current < 0)
+		{
+			int index = f.node.keys.indexOf(value);
+			if(index < 0)
+			{
+				throw new IOException("The key " + value + " is not part of the schema");
+			}
+
+			f.current = index;
+			if(f.fields[index] == null)
+			{
+				f.fields[index] = new Segment(32);
+			}
+			else
+			{
+				f.fields[index].reset();
+			}
+			return;
+		}
+		else if(f.kind == SchemaLayout.MAP && ! f.awaitingValue)
+		{
+			f.items.writeString(value);
+			f.count++;
+			f.awaitingValue = true;
+			return;
+		}
+
+		Node node = beginValue();
+		if(node.kind == SchemaLayout.ANY)
+		{
+			target.write(BinaryOutput.TAG_STRING);
+		}
+		else if(node.kind != SchemaLayout.VALUE || node.valueType != ValueType.STRING)
+		{
+			throw mismatch(node, ValueType.STRING.toString());
+		}
+
+		target.writeString(value);
+		endValue();
+	}
+
+	/**
+	 * Write an integer value, integers are written using variable length
+	 * zig-zag encoding regardless of their size.
+	 *
+	 * @param value
+	 * @param tag
+	 * @param type
+	 * @throws IOException
+	 */
+	private void writeInteger(long value, int tag, ValueType type)
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyTarget.write(tag);
+			anyTarget.writeZigZag(value);
+			anyValueWritten();
+			return;
+		}
+
+		Node node = beginValue();
+		if(node.kind == SchemaLayout.ANY)
+		{
+			target.write(tag);
+			target.writeZigZag(value);
+		}
+		else if(node.kind == SchemaLayout.VALUE)
+		{
+			switch(node.valueType)
+			{
+				case BYTE:
+				case SHORT:
+				case CHAR:
+				case INTEGER:
+				case LONG:
+					target.writeZigZag(value);
+					break;
+				case FLOAT:
+					target.writeFixedInt(Float.floatToRawIntBits(value));
+					break;
+				case DOUBLE:
+					target.writeFixedLong(Double.doubleToRawLongBits(value));
+					break;
+				default:
+					throw mismatch(node, type.toString());
+			}
+		}
+		else
+		{
+			throw mismatch(node, type.toString());
+		}
+
+		endValue();
+	}
+
+	@Override
+	public void writeByte(byte b)
+		throws IOException
+	{
+		writeInteger(b, BinaryOutput.TAG_INT, ValueType.BYTE);
+	}
+
+	@Override
+	public void writeChar(char c)
+		throws IOException
+	{
+		writeInteger(c, BinaryOutput.TAG_INT, ValueType.CHAR);
+	}
+
+	@Override
+	public void writeShort(short s)
+		throws IOException
+	{
+		writeInteger(s, BinaryOutput.TAG_INT, ValueType.SHORT);
+	}
+
+	@Override
+	public void writeInt(int number)
+		throws IOException
+	{
+		writeInteger(number, BinaryOutput.TAG_INT, ValueType.INTEGER);
+	}
+
+	@Override
+	public void writeLong(long number)
+		throws IOException
+	{
+		writeInteger(number, BinaryOutput.TAG_LONG, ValueType.LONG);
+	}
+
+	/**
+	 * Write a floating point value.
+	 *
+	 * @param value
+	 * @param single
+	 *   if the value is a float
+	 * @throws IOException
+	 */
+	private void writeDecimal(double value, boolean single)
+		throws IOException
+	{
+		Segment target;
+		ValueType type;
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			target = anyTarget;
+			target.write(single ? BinaryOutput.TAG_FLOAT : BinaryOutput.TAG_DOUBLE);
+			type = single ? ValueType.FLOAT : ValueType.DOUBLE;
+		}
+		else
+		{
+			Node node = beginValue();
+			target = this.target;
+			if(node.kind == SchemaLayout.ANY)
+			{
+				target.write(single ? BinaryOutput.TAG_FLOAT : BinaryOutput.TAG_DOUBLE);
+				type = single ? ValueType.FLOAT : ValueType.DOUBLE;
+			}
+			else if(node.kind == SchemaLayout.VALUE
+				&& (node.valueType == ValueType.FLOAT || node.valueType == ValueType.DOUBLE))
+			{
+				type = node.valueType;
+			}
+			else
+			{
+				throw mismatch(node, single ? ValueType.FLOAT.toString() : ValueType.DOUBLE.toString());
+			}
+		}
+
+		if(type == ValueType.FLOAT)
+		{
+			target.writeFixedInt(Float.floatToRawIntBits((float) value));
+		}
+		else
+		{
+			target.writeFixedLong(Double.doubleToRawLongBits(value));
+		}
+
+		if(anyDepth > 0)
+		{
+			anyValueWritten();
+		}
+		else
+		{
+			endValue();
+		}
+	}
+
+	@Override
+	public void writeFloat(float number)
+		throws IOException
+	{
+		writeDecimal(number, true);
+	}
+
+	@Override
+	public void writeDouble(double number)
+		throws IOException
+	{
+		writeDecimal(number, false);
+	}
+
+	@Override
+	public void writeBoolean(boolean b)
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyTarget.write(BinaryOutput.TAG_BOOLEAN);
+			anyTarget.write(b ? 1 : 0);
+			anyValueWritten();
+			return;
+		}
+
+		Node node = beginValue();
+		if(node.kind == SchemaLayout.ANY)
+		{
+			target.write(BinaryOutput.TAG_BOOLEAN);
+		}
+		else if(node.kind != SchemaLayout.VALUE || node.valueType != ValueType.BOOLEAN)
+		{
+			throw mismatch(node, ValueType.BOOLEAN.toString());
+		}
+
+		target.write(b ? 1 : 0);
+		endValue();
+	}
+
+	@Override
+	public void writeBytes(byte[] data)
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyTarget.write(BinaryOutput.TAG_BYTE_ARRAY);
+			anyTarget.writeBytes(data);
+			anyValueWritten();
+			return;
+		}
+
+		Node node = beginValue();
+		if(node.kind == SchemaLayout.ANY)
+		{
+			target.write(BinaryOutput.TAG_BYTE_ARRAY);
+		}
+		else if(node.kind != SchemaLayout.VALUE || node.valueType != ValueType.BYTES)
+		{
+			throw mismatch(node, ValueType.BYTES.toString());
+		}
+
+		target.writeBytes(data);
+		endValue();
+	}
+
+	@Override
+	public void writeBytes(Bytes data)
+		throws IOException
+	{
+		writeBytes(data.toByteArray());
+	}
+
+	@Override
+	public OutputStream writeBytes()
+		throws IOException
+	{
+		return new ByteArrayOutputStream()
+		{
+			@Override
+			public void close()
+				throws IOException
+			{
+				writeBytes(toByteArray());
+			}
+		};
+	}
+
+	@Override
+	public void writeNull()
+		throws IOException
+	{
+		if(anyDepth > 0)
+		{
+			failAnyKey();
+			anyTarget.write(BinaryOutput.TAG_NULL);
+			anyValueWritten();
+			return;
+		}
+
+		Frame f = frames[depth];
+		switch(f.kind)
+		{
+			case ROOT:
+				f.items.write(0);
+				break;
+			case SchemaLayout.OBJECT:
+				if(f.current < 0)
+				{
+					throw new IOException("Expected a key to be written");
+				}
+
+				// Fields that are null are not present
+				f.present[f.current] = false;
+				f.current = -1;
+				break;
+			case SchemaLayout.LIST:
+				f.nulls = true;
+				f.count++;
+				break;
+			default:
+				if(! f.awaitingValue)
+				{
+					throw new IOException("Expected a key to be written");
+				}
+
+				f.nulls = true;
+				f.awaitingValue = false;
+		}
+	}
+
+	/**
+	 * Object, list or map that is being written. Frames are reused for
+	 * values at the same depth.
+	 */
+	private static class Frame
+	{
+		private int kind;
+		private Node node;
+		private Segment parent;
+
+		/*
+		 * Fields of objects, current is the index of the field that a
+		 * value is being written for.
+		 */
+		private Segment[] fields;
+		private boolean[] present;
+		private int current;
+
+		/*
+		 * Items of lists and entries of maps, bits is set for every item
+		 * that is not null.
+		 */
+		private Segment items;
+		private byte[] bits;
+		private int count;
+		private boolean nulls;
+		private boolean awaitingValue;
+
+		private void start(int kind, Node node, Segment parent)
+		{
+			this.kind = kind;
+			this.node = node;
+			this.parent = parent;
+
+			current = -1;
+			awaitingValue = false;
+
+			if(kind == SchemaLayout.OBJECT)
+			{
+				int n = node.fields.length;
+				if(fields == null || fields.length < n)
+				{
+					fields = new Segment[n];
+					present = new boolean[n];
+				}
+				else
+				{
+					Arrays.fill(present, 0, n, false);
+				}
+			}
+			else
+			{
+				if(items == null)
+				{
+					items = new Segment(64);
+					bits = new byte[8];
+				}
+				else
+				{
+					items.reset();
+					Arrays.fill(bits, 0, Math.min(bits.length, (count + 7) >> 3), (byte) 0);
+				}
+
+				count = 0;
+				nulls = false;
+			}
+		}
+
+		private void setBit(int index)
+		{
+			int i = index >> 3;
+			if(i >= bits.length)
+			{
+				bits = Arrays.copyOf(bits, Math.max(bits.length * 2, i + 1));
+			}
+
+			bits[i] |= 1 << (index & 7);
+		}
+
+		private void finishObject()
+		{
+			int n = node.fields.length;
+			for(int i=0; i<n; i+=8)
+			{
+				int b = 0;
+				for(int j=i, max=Math.min(n, i + 8); j<max; j++)
+				{
+					if(present[j])
+					{
+						b |= 1 << (j - i);
+					}
+				}
+
+				parent.write(b);
+			}
+
+			for(int i=0; i<n; i++)
+			{
+				if(present[i])
+				{
+					parent.append(fields[i]);
+				}
+			}
+		}
+
+		private void finishList()
+		{
+			parent.writeVarint(count << 1 | (nulls ? 1 : 0));
+			if(nulls)
+			{
+				int length = (count + 7) >> 3;
+				if(length > bits.length)
+				{
+					bits = Arrays.copyOf(bits, length);
+				}
+
+				parent.writeRaw(bits, 0, length);
+			}
+
+			parent.append(items);
+		}
+	}
+
+	/**
+	 * Growable buffer that values are encoded into.
+	 */
+	static class Segment
+	{
+		private byte[] data;
+		private int length;
+
+		Segment(int size)
+		{
+			data = new byte[size];
+		}
+
+		void reset()
+		{
+			length = 0;
+		}
+
+		private void ensure(int bytes)
+		{
+			if(data.length - length < bytes)
+			{
+				data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+			}
+		}
+
+		void write(int b)
+		{
+			ensure(1);
+			data[length++] = (byte) b;
+		}
+
+		void writeVarint(int value)
+		{
+			ensure(5);
+
+			while((value & ~0x7f) != 0)
+			{
+				data[length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+
+			data[length++] = (byte) value;
+		}
+
+		void writeZigZag(long value)
+		{
+			ensure(10);
+
+			long v = (value << 1) ^ (value >> 63);
+			while((v & ~0x7fl) != 0)
+			{
+				data[length++] = (byte) ((v & 0x7f) | 0x80);
+				v >>>= 7;
+			}
+
+			data[length++] = (byte) v;
+		}
+
+		void writeFixedInt(int value)
+		{
+			ensure(4);
+
+			data[length++] = (byte) (value >>> 24);
+			data[length++] = (byte) (value >>> 16);
+			data[length++] = (byte) (value >>> 8);
+			data[length++] = (byte) value;
+		}
+
+		void writeFixedLong(long value)
+		{
+			writeFixedInt((int) (value >>> 32));
+			writeFixedInt((int) value);
+		}
+
+		void writeString(String value)
+		{
+			int chars = value.length();
+			writeVarint(chars);
+			ensure(chars * 3);
+
+			byte[] data = this.data;
+			int length = this.length;
+			for(int i=0; i<chars; i++)
+			{
+				char c = value.charAt(i);
+				if(c <= 0x007f)
+				{
+					data[length++] = (byte) c;
+				}
+				else if(c > 0x07ff)
+				{
+					data[length++] = (byte) (0xe0 | c >> 12 & 0x0f);
+					data[length++] = (byte) (0x80 | c >> 6 & 0x3f);
+					data[length++] = (byte) (0x80 | c >> 0 & 0x3f);
+				}
+				else
+				{
+					data[length++] = (byte) (0xc0 | c >> 6 & 0x1f);
+					data[length++] = (byte) (0x80 | c >> 0 & 0x3f);
+				}
+			}
+
+			this.length = length;
+		}
+
+		void writeBytes(byte[] bytes)
+		{
+			writeVarint(bytes.length);
+			writeRaw(bytes, 0, bytes.length);
+		}
+
+		void writeRaw(byte[] bytes, int offset, int length)
+		{
+			ensure(length);
+			System.arraycopy(bytes, offset, data, this.length, length);
+			this.length += length;
+		}
+
+		void append(Segment other)
+		{
+			writeRaw(other.data, 0, other.length);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package se.l4.commons.serialization.format;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.SerializerFormatDefinition.FieldDefinition;
+
+/**
+ * Layout of values derived from a {@link SerializerFormatDefinition}, used
+ * by {@link SchemaBinaryOutput} and {@link SchemaBinaryInput} to write and
+ * read values by their position in the layout.
+ *
+ * <p>
+ * Fields of objects are ordered by name so that the layout only depends
+ * on the definition. Objects without fields, values of unknown type and
+ * anything without a definition are written in a self-describing format
+ * using the tags of {@link BinaryOutput}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+class SchemaLayout
+{
+	/**
+	 * Value of a known type, written without a tag.
+	 */
+	static final int VALUE = 0;
+	/**
+	 * Object with known fields, written as a presence bitmap followed by
+	 * the fields that are present.
+	 */
+	static final int OBJECT = 1;
+	/**
+	 * List where all items have the same layout.
+	 */
+	static final int LIST = 2;
+	/**
+	 * Object with keys that are not known, such as a map, where all values
+	 * have the same layout.
+	 */
+	static final int MAP = 3;
+	/**
+	 * Value that is written in a self-describing format.
+	 */
+	static final int ANY = 4;
+
+	/**
+	 * Name of the field used by definitions of objects with keys that are
+	 * not known.
+	 */
+	private static final String WILDCARD = "*";
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325l;
+	private static final long FNV_PRIME = 0x100000001b3l;
+
+	private static final Node ANY_NODE = new Node(ANY, null, null, null, null);
+
+	private final Node root;
+	private final long fingerprint;
+
+	private SchemaLayout(Node root, long fingerprint)
+	{
+		this.root = root;
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Get the layout of the root value.
+	 *
+	 * @return
+	 */
+	public Node getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Get the fingerprint of this layout. Layouts that encode values in
+	 * the same way have the same fingerprint.
+	 *
+	 * @return
+	 */
+	public long getFingerprint()
+	{
+		return fingerprint;
+	}
+
+	/**
+	 * Create the layout for the given definition.
+	 *
+	 * @param definition
+	 * @return
+	 */
+	public static SchemaLayout of(SerializerFormatDefinition definition)
+	{
+		StringBuilder description = new StringBuilder();
+		Node root = compile(definition, description);
+
+		long hash = FNV_OFFSET;
+		for(int i=0, n=description.length(); i<n; i++)
+		{
+			char c = description.charAt(i);
+			hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+			hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+		}
+
+		return new SchemaLayout(root, hash);
+	}
+
+	private static Node compile(SerializerFormatDefinition definition, StringBuilder description)
+	{
+		if(definition == null || definition.isAny() || definition.isUnknown())
+		{
+			description.append('A');
+			return ANY_NODE;
+		}
+
+		if(definition.isValue())
+		{
+			ValueType valueType = definition.getValueType();
+			if(valueType == null || valueType == ValueType.NULL)
+			{
+				description.append('A');
+				return ANY_NODE;
+			}
+
+			description.append('V').append(valueType.ordinal());
+			return new Node(VALUE, valueType, null, null, null);
+		}
+
+		if(definition.isList())
+		{
+			description.append('L');
+			Node item = compile(definition.getItemDefinition(), description);
+			return new Node(LIST, null, null, null, item);
+		}
+
+		FieldDefinition[] fields = definition.getFields().toArray(new FieldDefinition[0]);
+		if(fields.length == 0)
+		{
+			description.append('A');
+			return ANY_NODE;
+		}
+
+		if(fields.length == 1 && WILDCARD.equals(fields[0].getName()))
+		{
+			description.append('M');
+			Node item = compile(fields[0].getDefinition(), description);
+			return new Node(MAP, null, null, null, item);
+		}
+
+		Arrays.sort(fields, Comparator.comparing(FieldDefinition::getName));
+
+		description.append('O').append(fields.length).append('{');
+		String[] names = new String[fields.length];
+		Node[] children = new Node[fields.length];
+		for(int i=0; i<fields.length; i++)
+		{
+			names[i] = fields[i].getName();
+			description.append(names[i].length()).append(':').append(names[i]);
+			children[i] = compile(fields[i].getDefinition(), description);
+		}
+		description.append('}');
+
+		return new Node(OBJECT, null, names, children, null);
+	}
+
+	/**
+	 * Node in a layout.
+	 */
+	static class Node
+	{
+		final int kind;
+		final ValueType valueType;
+
+		final String[] names;
+		final KeySet keys;
+		final Node[] fields;
+
+		final Node item;
+
+		Node(int kind, ValueType valueType, String[] names, Node[] fields, Node item)
+		{
+			this.kind = kind;
+			this.valueType = valueType;
+			this.names = names;
+			this.keys = names == null ? null : KeySet.of(names);
+			this.fields = fields;
+			this.item = item;
+		}
+	}
+}
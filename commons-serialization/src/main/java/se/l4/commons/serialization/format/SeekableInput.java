@@ -0,0 +1,36 @@
+package se.l4.commons.serialization.format;
+
+import java.io.IOException;
+
+/**
+ * Input that can report where the next token starts and create new inputs
+ * that start reading at such a position. Used by {@link LazyValue} to decode
+ * values without reading everything before them.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+interface SeekableInput
+{
+	/**
+	 * Get the position of the next token.
+	 *
+	 * @return
+	 *   the position, or {@code -1} if the position can not be used with
+	 *   {@link #seek(long)}
+	 * @throws IOException
+	 */
+	long position()
+		throws IOException;
+
+	/**
+	 * Create a new input that starts reading at a position previously
+	 * returned by {@link #position()}.
+	 *
+	 * @param position
+	 * @return
+	 * @throws IOException
+	 */
+	StreamingInput seek(long position)
+		throws IOException;
+}
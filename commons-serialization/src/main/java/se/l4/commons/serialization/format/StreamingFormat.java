@@ -1,10 +1,17 @@
 package se.l4.commons.serialization.format;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 import java.util.function.Function;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.SerializerFormatDefinition;
+
 /**
  * Format used to read or write objects via a {@link se.l4.commons.serialization.Serializer}.
  */
@@ -20,6 +27,60 @@ public interface StreamingFormat
 	StreamingInput createInput(InputStream in)
 		throws IOException;
 
+	/**
+	 * Create a {@link StreamingInput} for the given {@link Bytes}. Formats
+	 * that can decode directly from memory will avoid copying the data.
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IOException
+	 */
+	default StreamingInput createInput(Bytes bytes)
+		throws IOException
+	{
+		return createInput(bytes.asInputStream());
+	}
+
+	/**
+	 * Create a {@link StreamingInput} for the remaining data in the given
+	 * {@link ByteBuffer}. The position of the buffer is not modified. Formats
+	 * that can decode directly from memory will avoid copying the data.
+	 *
+	 * @param buffer
+	 * @return
+	 * @throws IOException
+	 */
+	default StreamingInput createInput(ByteBuffer buffer)
+		throws IOException
+	{
+		if(buffer.hasArray())
+		{
+			return createInput(new ByteArrayInputStream(
+				buffer.array(),
+				buffer.arrayOffset() + buffer.position(),
+				buffer.remaining()
+			));
+		}
+
+		byte[] data = new byte[buffer.remaining()];
+		buffer.duplicate().get(data);
+		return createInput(new ByteArrayInputStream(data));
+	}
+
+	/**
+	 * Create an input that is fed data as it arrives instead of reading it
+	 * from a stream, see {@link FeedInput}. All of the built-in formats
+	 * support feeding.
+	 *
+	 * @return
+	 *   the input, or empty if this format can not be fed data
+	 */
+	@NonNull
+	default Optional<FeedInput> createFeedInput()
+	{
+		return Optional.empty();
+	}
+
 	/**
 	 * Create a {@link StreamingOutput} for the given stream.
 	 *
@@ -34,12 +95,58 @@ public interface StreamingFormat
 	/**
 	 * Format for JSON.
 	 */
-	static StreamingFormat JSON = create(JsonInput::new, JsonOutput::new);
+	static StreamingFormat JSON = new JsonFormat();
 
 	/**
 	 * Format for the binary custom format.
 	 */
-	static StreamingFormat BINARY = create(BinaryInput::new, BinaryOutput::new);
+	static StreamingFormat BINARY = new BinaryFormat(false, false);
+
+	/**
+	 * Version two of the binary custom format. Writes the name of a key only
+	 * the first time it is used in a stream and refers to it by a number
+	 * after that, which makes lists of similar objects much smaller. Arrays
+	 * of primitives are packed without a tag per item. Inputs of this format
+	 * can also read data written by {@link #BINARY}.
+	 */
+	static StreamingFormat BINARY_V2 = new BinaryFormat(true, false);
+
+	/**
+	 * Version two of the binary custom format where every object and list
+	 * starts with its size in bytes. Inputs can skip values that are not
+	 * needed without reading them, at the cost of keeping the value being
+	 * written in memory until it is complete. Keys are written in full as
+	 * skipping would otherwise hide keys defined in skipped values. Data
+	 * written with this format can only be read by inputs that support
+	 * {@link #BINARY_V2}.
+	 */
+	static StreamingFormat BINARY_V2_SIZED = new BinaryFormat(true, true);
+
+	/**
+	 * Create a binary format that writes values by their position in the
+	 * given definition instead of with keys and tags. Both the writer and
+	 * the reader must use the same definition, data written with a
+	 * different definition fails when read.
+	 *
+	 * <p>
+	 * Fields that are {@code null} are not written and will not be returned
+	 * when reading. Parts of the definition that are not known, such as
+	 * {@link SerializerFormatDefinition#any()}, are written in a
+	 * self-describing format similar to {@link #BINARY}.
+	 *
+	 * <pre>
+	 * StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+	 * </pre>
+	 *
+	 * @param definition
+	 *   the definition used to derive the layout of values
+	 * @return
+	 */
+	@NonNull
+	static StreamingFormat schemaBinary(@NonNull SerializerFormatDefinition definition)
+	{
+		return new SchemaBinaryFormat(definition);
+	}
 
 	/**
 	 * Create an instance of {@link StreamingFormat}.
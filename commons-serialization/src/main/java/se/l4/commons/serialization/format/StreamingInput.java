@@ -3,9 +3,16 @@ package se.l4.commons.serialization.format;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.Serializer;
 
 /**
  * Input that is streamed as a set of token with values.
@@ -78,6 +85,25 @@ public interface StreamingInput
 	String readString()
 		throws IOException;
 
+	/**
+	 * Read the current key and match it against a set of known keys. Can
+	 * be used instead of {@link #readString()} when the current token is
+	 * {@link Token#KEY} to find the index of the key without creating a
+	 * string for it.
+	 *
+	 * @param keys
+	 *   the keys to match against
+	 * @return
+	 *   index of the key in the set, or {@code -1} if the key is not part of
+	 *   the set
+	 * @throws IOException
+	 */
+	default int readKey(@NonNull KeySet keys)
+		throws IOException
+	{
+		return keys.indexOf(readString());
+	}
+
 	/**
 	 * Read any value from the input. The types returned by this method will
 	 * be input specific and will not perform any conversions.
@@ -152,6 +178,170 @@ public interface StreamingInput
 	short readShort()
 		throws IOException;
 
+	/**
+	 * Read a list of integers into an array. Should be called when the next
+	 * token is {@link Token#LIST_START}, consumes everything up to and
+	 * including the matching {@link Token#LIST_END}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	default int[] readIntArray()
+		throws IOException
+	{
+		next(Token.LIST_START);
+
+		int length = 0;
+		int[] current = new int[16];
+		while(peek() != Token.LIST_END)
+		{
+			next(Token.VALUE);
+
+			if(length == current.length)
+			{
+				current = Arrays.copyOf(current, length + (length >> 1));
+			}
+
+			current[length++] = readInt();
+		}
+
+		next(Token.LIST_END);
+		return length == current.length ? current : Arrays.copyOf(current, length);
+	}
+
+	/**
+	 * Read a list of longs into an array. Should be called when the next
+	 * token is {@link Token#LIST_START}, consumes everything up to and
+	 * including the matching {@link Token#LIST_END}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	default long[] readLongArray()
+		throws IOException
+	{
+		next(Token.LIST_START);
+
+		int length = 0;
+		long[] current = new long[16];
+		while(peek() != Token.LIST_END)
+		{
+			next(Token.VALUE);
+
+			if(length == current.length)
+			{
+				current = Arrays.copyOf(current, length + (length >> 1));
+			}
+
+			current[length++] = readLong();
+		}
+
+		next(Token.LIST_END);
+		return length == current.length ? current : Arrays.copyOf(current, length);
+	}
+
+	/**
+	 * Read a list of floats into an array. Should be called when the next
+	 * token is {@link Token#LIST_START}, consumes everything up to and
+	 * including the matching {@link Token#LIST_END}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	default float[] readFloatArray()
+		throws IOException
+	{
+		next(Token.LIST_START);
+
+		int length = 0;
+		float[] current = new float[16];
+		while(peek() != Token.LIST_END)
+		{
+			next(Token.VALUE);
+
+			if(length == current.length)
+			{
+				current = Arrays.copyOf(current, length + (length >> 1));
+			}
+
+			current[length++] = readFloat();
+		}
+
+		next(Token.LIST_END);
+		return length == current.length ? current : Arrays.copyOf(current, length);
+	}
+
+	/**
+	 * Read a list of doubles into an array. Should be called when the next
+	 * token is {@link Token#LIST_START}, consumes everything up to and
+	 * including the matching {@link Token#LIST_END}.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	default double[] readDoubleArray()
+		throws IOException
+	{
+		next(Token.LIST_START);
+
+		int length = 0;
+		double[] current = new double[16];
+		while(peek() != Token.LIST_END)
+		{
+			next(Token.VALUE);
+
+			if(length == current.length)
+			{
+				current = Arrays.copyOf(current, length + (length >> 1));
+			}
+
+			current[length++] = readDouble();
+		}
+
+		next(Token.LIST_END);
+		return length == current.length ? current : Arrays.copyOf(current, length);
+	}
+
+	/**
+	 * Read a list one item at a time. Should be called when the next token is
+	 * {@link Token#LIST_START}, which is consumed directly. Items are read
+	 * when requested from the returned iterator, which consumes the matching
+	 * {@link Token#LIST_END} when it runs out of items. Errors while reading
+	 * items are thrown as {@link java.io.UncheckedIOException}.
+	 *
+	 * @param serializer
+	 *   serializer used for every item
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	default <T> Iterator<T> readAsIterator(@NonNull Serializer<T> serializer)
+		throws IOException
+	{
+		next(Token.LIST_START);
+		return new ListItemIterator<>(this, serializer);
+	}
+
+	/**
+	 * Read a list one item at a time as a sequential {@link Stream}, see
+	 * {@link #readAsIterator(Serializer)}. Closing the stream does not close
+	 * this input.
+	 *
+	 * @param serializer
+	 *   serializer used for every item
+	 * @return
+	 * @throws IOException
+	 */
+	@NonNull
+	default <T> Stream<T> readAsStream(@NonNull Serializer<T> serializer)
+		throws IOException
+	{
+		return StreamSupport.stream(
+			Spliterators.spliteratorUnknownSize(readAsIterator(serializer), Spliterator.ORDERED),
+			false
+		);
+	}
+
 	/**
 	 * Get the value as a byte[] array.
 	 *
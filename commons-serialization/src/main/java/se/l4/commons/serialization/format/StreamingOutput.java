@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Iterator;
 
 import se.l4.commons.io.Bytes;
 import se.l4.commons.serialization.Serializer;
@@ -134,6 +135,78 @@ public interface StreamingOutput
 	void writeBoolean(boolean b)
 		throws IOException;
 
+	/**
+	 * Write an array of integers. Written as a list unless the output has a
+	 * more compact representation for it.
+	 *
+	 * @param values
+	 * @throws IOException
+	 */
+	default void writeIntArray(int[] values)
+		throws IOException
+	{
+		writeListStart();
+		for(int v : values)
+		{
+			writeInt(v);
+		}
+		writeListEnd();
+	}
+
+	/**
+	 * Write an array of longs. Written as a list unless the output has a
+	 * more compact representation for it.
+	 *
+	 * @param values
+	 * @throws IOException
+	 */
+	default void writeLongArray(long[] values)
+		throws IOException
+	{
+		writeListStart();
+		for(long v : values)
+		{
+			writeLong(v);
+		}
+		writeListEnd();
+	}
+
+	/**
+	 * Write an array of floats. Written as a list unless the output has a
+	 * more compact representation for it.
+	 *
+	 * @param values
+	 * @throws IOException
+	 */
+	default void writeFloatArray(float[] values)
+		throws IOException
+	{
+		writeListStart();
+		for(float v : values)
+		{
+			writeFloat(v);
+		}
+		writeListEnd();
+	}
+
+	/**
+	 * Write an array of doubles. Written as a list unless the output has a
+	 * more compact representation for it.
+	 *
+	 * @param values
+	 * @throws IOException
+	 */
+	default void writeDoubleArray(double[] values)
+		throws IOException
+	{
+		writeListStart();
+		for(double v : values)
+		{
+			writeDouble(v);
+		}
+		writeListEnd();
+	}
+
 	/**
 	 * Write a byte array to the output.
 	 *
@@ -172,6 +245,28 @@ public interface StreamingOutput
 	void writeNull()
 		throws IOException;
 
+	/**
+	 * Write all items of an iterator as a list. Items are taken from the
+	 * iterator one at a time, so the items do not need to be held in
+	 * memory.
+	 *
+	 * @param <T>
+	 * @param serializer
+	 *   serializer used for every item
+	 * @param items
+	 * @throws IOException
+	 */
+	default <T> void writeAll(Serializer<T> serializer, Iterator<? extends T> items)
+		throws IOException
+	{
+		writeListStart();
+		while(items.hasNext())
+		{
+			writeObject(serializer, items.next());
+		}
+		writeListEnd();
+	}
+
 	/**
 	 * Write an object to the output.
 	 *
@@ -0,0 +1,1045 @@
+package se.l4.commons.serialization.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import se.l4.commons.io.Bytes;
+
+/**
+ * Input for JSON encoded as UTF-8 that tokenizes the bytes directly instead
+ * of decoding them to characters first. Behaves like {@link JsonInput} and
+ * is used by {@link StreamingFormat#JSON}.
+ *
+ * <p>
+ * Numbers are parsed directly from the bytes, string values are only turned
+ * into instances of {@link String} when they are read and keys are looked
+ * up in a per-thread cache of recently seen keys so that the same key does
+ * not need to be decoded again.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class Utf8JsonInput
+	extends AbstractStreamingInput
+{
+	/**
+	 * The default size of the internal buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final int MIN_BUFFER_SIZE = 16;
+
+	private static final int LEVELS = 20;
+
+	/**
+	 * Flag set when a string contains bytes that are not ASCII.
+	 */
+	private static final int STRING_NON_ASCII = 1;
+
+	/**
+	 * Flag set when a string contains escaped characters.
+	 */
+	private static final int STRING_ESCAPED = 2;
+
+	private static final boolean[] WHITESPACE = new boolean[128];
+
+	static
+	{
+		for(int i=0; i<WHITESPACE.length; i++)
+		{
+			WHITESPACE[i] = Character.isWhitespace((char) i);
+		}
+	}
+
+	/**
+	 * Powers of ten that can be represented exactly as doubles.
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private final InputStream in;
+	private final KeyCache keys;
+
+	private byte[] buffer;
+	private int position;
+	private int limit;
+
+	private boolean[] lists;
+	private String[] names;
+
+	private ValueType value;
+	private String valueString;
+	private boolean valueBoolean;
+	private long valueLong;
+	private double valueDouble;
+
+	/*
+	 * String value that has not been decoded yet, the bytes are kept in the
+	 * buffer until the string is read or the buffer needs to be filled.
+	 */
+	private boolean pendingString;
+	private int pendingStart;
+	private int pendingLength;
+	private int pendingFlags;
+
+	public Utf8JsonInput(InputStream in)
+	{
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Create a new input that uses a buffer of the given size. The buffer
+	 * will grow if a single value does not fit in it.
+	 *
+	 * @param in
+	 * @param bufferSize
+	 */
+	public Utf8JsonInput(InputStream in, int bufferSize)
+	{
+		this.in = in;
+
+		keys = KeyCache.get();
+		buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+
+		lists = new boolean[LEVELS];
+		names = new String[LEVELS];
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		in.close();
+	}
+
+	@Override
+	protected IOException raiseException(String message)
+	{
+		StringBuilder path = new StringBuilder();
+		for(int i=1; i<level; i++)
+		{
+			if(i > 1) path.append(" > ");
+
+			path.append(names[i]);
+		}
+		return new IOException(message + (level > 0 ? " (at " + path + ")" : ""));
+	}
+
+	/**
+	 * Make sure that the given level can be tracked.
+	 *
+	 * @param level
+	 */
+	private void ensureLevel(int level)
+	{
+		if(level >= lists.length)
+		{
+			lists = Arrays.copyOf(lists, lists.length * 2);
+			names = Arrays.copyOf(names, names.length * 2);
+		}
+	}
+
+	@Override
+	public Token next0()
+		throws IOException
+	{
+		pendingString = false;
+		valueString = null;
+
+		Token token = peek();
+		switch(token)
+		{
+			case OBJECT_END:
+			case LIST_END:
+			{
+				readNext();
+
+				int c = peekByte(true);
+				if(c == ',') read();
+
+				return token;
+			}
+			case OBJECT_START:
+			case LIST_START:
+				readNext();
+				ensureLevel(level + 1);
+				lists[level + 1] = token == Token.LIST_START;
+				return token;
+			case KEY:
+			{
+				readWhitespace();
+				String key = readKeyName();
+				int next = readNext();
+				if(next != ':')
+				{
+					throw raiseException("Expected `:`, got `" + (char) next + "`");
+				}
+
+				ensureLevel(level);
+				names[level] = key;
+				setStringValue(key);
+				return token;
+			}
+			case VALUE:
+			case NULL:
+			{
+				readNextValue();
+
+				// Check for trailing commas
+				readWhitespace();
+
+				int c = peekByte(false);
+				if(c == ',') read();
+
+				return token;
+			}
+		}
+
+		return Token.END_OF_STREAM;
+	}
+
+	/**
+	 * Fill the buffer with more data from the stream. Data that has not been
+	 * consumed is moved to the start of the buffer, if the buffer is full of
+	 * unconsumed data it is grown.
+	 *
+	 * @return
+	 *   if any data was read
+	 * @throws IOException
+	 */
+	private boolean fill()
+		throws IOException
+	{
+		if(pendingString)
+		{
+			// The bytes of the pending string are about to be discarded
+			valueString = decodePending();
+			pendingString = false;
+		}
+
+		if(position > 0)
+		{
+			int remaining = limit - position;
+			System.arraycopy(buffer, position, buffer, 0, remaining);
+			position = 0;
+			limit = remaining;
+		}
+		else if(limit == buffer.length)
+		{
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+
+		int count;
+		do
+		{
+			count = in.read(buffer, limit, buffer.length - limit);
+		}
+		while(count == 0);
+
+		if(count < 0)
+		{
+			return false;
+		}
+
+		limit += count;
+		return true;
+	}
+
+	private static boolean isWhitespace(int b)
+	{
+		return b >= 0 && b < 128 && WHITESPACE[b];
+	}
+
+	/**
+	 * Read all of the whitespace at the current position.
+	 *
+	 * @throws IOException
+	 */
+	private void readWhitespace()
+		throws IOException
+	{
+		if(position < limit && ! isWhitespace(buffer[position])) return;
+
+		while(true)
+		{
+			if(position == limit && ! fill()) return;
+
+			byte b = buffer[position];
+			if(isWhitespace(b) || b == ',')
+			{
+				position++;
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Read the next byte while also skipping whitespace as necessary.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private int readNext()
+		throws IOException
+	{
+		readWhitespace();
+
+		return read();
+	}
+
+	/**
+	 * Read a single byte at the current position.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private int read()
+		throws IOException
+	{
+		if(position == limit && ! fill())
+		{
+			throw new EOFException();
+		}
+
+		return buffer[position++];
+	}
+
+	/**
+	 * Peek at the next byte.
+	 *
+	 * @param ws
+	 *   if whitespace should be skipped
+	 * @return
+	 *   the byte or {@code -1} if no more data is available
+	 * @throws IOException
+	 */
+	private int peekByte(boolean ws)
+		throws IOException
+	{
+		if(ws) readWhitespace();
+
+		if(position == limit && ! fill())
+		{
+			return -1;
+		}
+
+		return buffer[position];
+	}
+
+	/**
+	 * Take the current byte and turn it into a {@link Token}.
+	 *
+	 * @param c
+	 * @return
+	 */
+	private Token toToken(int c)
+	{
+		switch(c)
+		{
+			case '{':
+				return Token.OBJECT_START;
+			case '}':
+				return Token.OBJECT_END;
+			case '[':
+				return Token.LIST_START;
+			case ']':
+				return Token.LIST_END;
+			case '"':
+				if(current() != null && current() != Token.KEY && ! lists[level])
+				{
+					return Token.KEY;
+				}
+				break;
+			case 'n':
+				return Token.NULL;
+		}
+
+		return Token.VALUE;
+	}
+
+	/**
+	 * Scan a string whose starting quote has been read. Leaves the position
+	 * at the start of the string.
+	 *
+	 * @return
+	 *   the number of bytes in the string
+	 * @throws IOException
+	 */
+	private int scanString()
+		throws IOException
+	{
+		int offset = 0;
+		int flags = 0;
+		while(true)
+		{
+			while(position + offset >= limit)
+			{
+				if(! fill())
+				{
+					throw new EOFException();
+				}
+			}
+
+			byte b = buffer[position + offset];
+			if(b == '"')
+			{
+				pendingFlags = flags;
+				return offset;
+			}
+			else if(b == '\\')
+			{
+				flags |= STRING_ESCAPED;
+				offset += 2;
+			}
+			else
+			{
+				if(b < 0) flags |= STRING_NON_ASCII;
+				offset++;
+			}
+		}
+	}
+
+	/**
+	 * Read a key, will look up the key in the cache of known keys before
+	 * decoding it.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private String readKeyName()
+		throws IOException
+	{
+		int c = read();
+		if(c != '"') throw raiseException("Expected \", but got " + (char) c);
+
+		int length = scanString();
+		int start = position;
+		position += length + 1;
+
+		if(pendingFlags != 0)
+		{
+			return decode(start, length, pendingFlags);
+		}
+
+		return keys.getAscii(buffer, start, length);
+	}
+
+	private void readNextValue()
+		throws IOException
+	{
+		int c = readNext();
+		if(c == '"')
+		{
+			// This is a string, keep it in the buffer until it is read
+			int length = scanString();
+
+			value = ValueType.STRING;
+			pendingString = true;
+			pendingStart = position;
+			pendingLength = length;
+
+			position += length + 1;
+		}
+		else
+		{
+			position--;
+
+			int offset = 0;
+			_outer:
+			while(true)
+			{
+				if(position + offset == limit && ! fill())
+				{
+					break;
+				}
+
+				byte b = buffer[position + offset];
+				switch(b)
+				{
+					case '}':
+					case ']':
+					case ',':
+					case ':':
+						break _outer;
+					default:
+						if(isWhitespace(b)) break _outer;
+				}
+
+				offset++;
+			}
+
+			int start = position;
+			position += offset;
+			readNonString(start, offset);
+		}
+	}
+
+	private boolean matches(int start, int length, String literal)
+	{
+		if(length != literal.length()) return false;
+
+		for(int i=0; i<length; i++)
+		{
+			if(buffer[start + i] != literal.charAt(i)) return false;
+		}
+
+		return true;
+	}
+
+	private void readNonString(int start, int length)
+		throws IOException
+	{
+		if(matches(start, length, "null"))
+		{
+			value = ValueType.NULL;
+		}
+		else if(matches(start, length, "false"))
+		{
+			setBooleanValue(false);
+		}
+		else if(matches(start, length, "true"))
+		{
+			setBooleanValue(true);
+		}
+		else if(! readNumber(start, length))
+		{
+			readNumberSlow(new String(buffer, start, length, StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	/**
+	 * Parse a number directly from the buffer. Handles integers that fit in
+	 * a long and decimal numbers that can be calculated exactly from an
+	 * integer and a power of ten.
+	 *
+	 * @param start
+	 * @param length
+	 * @return
+	 *   if the number could be parsed
+	 */
+	private boolean readNumber(int start, int length)
+	{
+		byte[] buffer = this.buffer;
+		int i = start;
+		int end = start + length;
+
+		boolean negative = false;
+		if(i < end && buffer[i] == '-')
+		{
+			negative = true;
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		for(; i<end; i++)
+		{
+			int d = buffer[i] - '0';
+			if(d < 0 || d > 9) break;
+
+			if(mantissa > (Long.MAX_VALUE - d) / 10)
+			{
+				// Too large, let the slow path handle it
+				return false;
+			}
+
+			mantissa = mantissa * 10 + d;
+			digits++;
+		}
+
+		if(i == end)
+		{
+			if(digits == 0) return false;
+
+			setLongValue(negative ? -mantissa : mantissa);
+			return true;
+		}
+
+		int scale = 0;
+		if(buffer[i] == '.')
+		{
+			for(i++; i<end; i++)
+			{
+				int d = buffer[i] - '0';
+				if(d < 0 || d > 9) break;
+
+				if(mantissa >= (1L << 53) / 10)
+				{
+					return false;
+				}
+
+				mantissa = mantissa * 10 + d;
+				digits++;
+				scale++;
+			}
+		}
+
+		if(digits == 0) return false;
+
+		int exponent = 0;
+		if(i < end && (buffer[i] == 'e' || buffer[i] == 'E'))
+		{
+			i++;
+
+			boolean negativeExponent = false;
+			if(i < end && (buffer[i] == '-' || buffer[i] == '+'))
+			{
+				negativeExponent = buffer[i] == '-';
+				i++;
+			}
+
+			int exponentDigits = 0;
+			for(; i<end; i++)
+			{
+				int d = buffer[i] - '0';
+				if(d < 0 || d > 9 || exponent > 1000) break;
+
+				exponent = exponent * 10 + d;
+				exponentDigits++;
+			}
+
+			if(exponentDigits == 0) return false;
+			if(negativeExponent) exponent = -exponent;
+		}
+
+		if(i != end)
+		{
+			return false;
+		}
+
+		exponent -= scale;
+		if(mantissa >= (1L << 53) || exponent < -22 || exponent > 22)
+		{
+			// Can not be calculated exactly
+			return false;
+		}
+
+		double result = exponent < 0
+			? mantissa / POWERS_OF_TEN[-exponent]
+			: mantissa * POWERS_OF_TEN[exponent];
+
+		setDoubleValue(negative ? -result : result);
+		return true;
+	}
+
+	private void readNumberSlow(String in)
+		throws IOException
+	{
+		try
+		{
+			setLongValue(Long.parseLong(in));
+			return;
+		}
+		catch(NumberFormatException e)
+		{
+			try
+			{
+				setDoubleValue(Double.parseDouble(in));
+				return;
+			}
+			catch(NumberFormatException e2)
+			{
+			}
+		}
+
+		throw raiseException("Unknown type of value: " + in);
+	}
+
+	private void setStringValue(String s)
+	{
+		value = ValueType.STRING;
+		this.valueString = s;
+	}
+
+	private void setBooleanValue(boolean b)
+	{
+		value = ValueType.BOOLEAN;
+		this.valueBoolean = b;
+	}
+
+	private void setLongValue(long l)
+	{
+		value = ValueType.LONG;
+		this.valueLong = l;
+	}
+
+	private void setDoubleValue(double d)
+	{
+		value = ValueType.DOUBLE;
+		this.valueDouble = d;
+	}
+
+	/**
+	 * Get the current string value, decoding it if needed.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	private String stringValue()
+		throws IOException
+	{
+		if(pendingString)
+		{
+			valueString = decodePending();
+			pendingString = false;
+		}
+
+		return valueString;
+	}
+
+	private String decodePending()
+		throws IOException
+	{
+		return decode(pendingStart, pendingLength, pendingFlags);
+	}
+
+	/**
+	 * Decode a string in the buffer.
+	 *
+	 * @param start
+	 * @param length
+	 * @param flags
+	 * @return
+	 * @throws IOException
+	 */
+	String decode(int start, int length, int flags)
+		throws IOException
+	{
+		if(flags == 0)
+		{
+			return new String(buffer, start, length, StandardCharsets.ISO_8859_1);
+		}
+		else if(flags == STRING_NON_ASCII)
+		{
+			return new String(buffer, start, length, StandardCharsets.UTF_8);
+		}
+
+		StringBuilder result = new StringBuilder(length);
+		int end = start + length;
+		int segment = start;
+		int i = start;
+		while(i < end)
+		{
+			if(buffer[i] != '\\')
+			{
+				i++;
+				continue;
+			}
+
+			if(segment < i)
+			{
+				result.append(new String(buffer, segment, i - segment, StandardCharsets.UTF_8));
+			}
+
+			i = readEscaped(result, i + 1);
+			segment = i;
+		}
+
+		if(segment < end)
+		{
+			result.append(new String(buffer, segment, end - segment, StandardCharsets.UTF_8));
+		}
+
+		return result.toString();
+	}
+
+	/**
+	 * Decode an escaped character.
+	 *
+	 * @param result
+	 * @param i
+	 *   the index of the character after the backslash
+	 * @return
+	 *   the index after the escaped character
+	 * @throws IOException
+	 */
+	private int readEscaped(StringBuilder result, int i)
+		throws IOException
+	{
+		byte c = buffer[i];
+		switch(c)
+		{
+			case '\'':
+				result.append('\'');
+				break;
+			case '"':
+				result.append('"');
+				break;
+			case '\\':
+				result.append('\\');
+				break;
+			case '/':
+				result.append('/');
+				break;
+			case 'r':
+				result.append('\r');
+				break;
+			case 'n':
+				result.append('\n');
+				break;
+			case 't':
+				result.append('\t');
+				break;
+			case 'b':
+				result.append('\b');
+				break;
+			case 'f':
+				result.append('\f');
+				break;
+			case 'u':
+				// Unicode, read 4 chars and treat as hex
+				int v = 0;
+				for(int j=1; j<=4; j++)
+				{
+					int d = Character.digit(buffer[i + j], 16);
+					if(d < 0)
+					{
+						throw raiseException("Invalid unicode escape in string");
+					}
+
+					v = v << 4 | d;
+				}
+				result.append((char) v);
+				return i + 5;
+		}
+
+		return i + 1;
+	}
+
+	@Override
+	public Token peek()
+		throws IOException
+	{
+		readWhitespace();
+
+		if(position == limit && ! fill())
+		{
+			return Token.END_OF_STREAM;
+		}
+
+		return toToken(buffer[position]);
+	}
+
+	@Override
+	public Object readDynamic()
+		throws IOException
+	{
+		switch(value)
+		{
+			case STRING:
+				return stringValue();
+			case BOOLEAN:
+				return valueBoolean;
+			case LONG:
+				return valueLong;
+			case DOUBLE:
+				return valueDouble;
+		}
+
+		return null;
+	}
+
+	@Override
+	public boolean readBoolean()
+		throws IOException
+	{
+		switch(value)
+		{
+			case BOOLEAN:
+				return valueBoolean;
+			default:
+				throw raiseException("Expected " + ValueType.BOOLEAN + " but found " + value);
+		}
+	}
+
+	@Override
+	public byte readByte()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				if(valueLong < Byte.MIN_VALUE || valueLong > Byte.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.BYTE + " but " + valueLong + " is outside valid range");
+				}
+				return (byte) valueLong;
+			default:
+				throw raiseException("Expected " + ValueType.BYTE + " but found " + value);
+		}
+	}
+
+	@Override
+	public char readChar()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				if(valueLong < Character.MIN_VALUE || valueLong > Character.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.CHAR + " but " + valueLong + " is outside valid range");
+				}
+				return (char) valueLong;
+			case STRING:
+				String s = stringValue();
+				if(s.length() != 1)
+				{
+					throw raiseException("Expected " + ValueType.CHAR + " but STRING value was not a single character");
+				}
+				return s.charAt(0);
+			default:
+				throw raiseException("Expected " + ValueType.CHAR + " but found " + value);
+		}
+	}
+
+	@Override
+	public short readShort()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				if(valueLong < Short.MIN_VALUE || valueLong > Short.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.SHORT + " but " + valueLong + " is outside valid range");
+				}
+				return (short) valueLong;
+			default:
+				throw raiseException("Expected " + ValueType.SHORT + " but found " + value);
+		}
+	}
+
+	@Override
+	public int readInt()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				if(valueLong < Integer.MIN_VALUE || valueLong > Integer.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.INTEGER + " but " + valueLong + " is outside valid range");
+				}
+				return (int) valueLong;
+			default:
+				throw raiseException("Expected " + ValueType.INTEGER + " but found " + value);
+		}
+	}
+
+	@Override
+	public long readLong()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				return valueLong;
+			default:
+				throw raiseException("Expected " + ValueType.LONG + " but found " + value);
+		}
+	}
+
+	@Override
+	public float readFloat()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				if(valueLong < -Float.MAX_VALUE || valueLong > Float.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.FLOAT + " but " + valueLong + " is outside valid range");
+				}
+				return (float) valueLong;
+			case DOUBLE:
+				if(valueDouble < -Float.MAX_VALUE || valueDouble > Float.MAX_VALUE)
+				{
+					throw raiseException("Expected " + ValueType.FLOAT + " but " + valueDouble + " is outside valid range");
+				}
+				return (float) valueDouble;
+			default:
+				throw raiseException("Expected " + ValueType.FLOAT + " but found " + value);
+		}
+	}
+
+	@Override
+	public double readDouble()
+		throws IOException
+	{
+		switch(value)
+		{
+			case LONG:
+				return (double) valueLong;
+			case DOUBLE:
+				return valueDouble;
+			default:
+				throw raiseException("Expected " + ValueType.DOUBLE + " but found " + value);
+		}
+	}
+
+	@Override
+	public String readString()
+		throws IOException
+	{
+		switch(value)
+		{
+			case STRING:
+				return stringValue();
+			default:
+				throw raiseException("Expected " + ValueType.STRING + " but found " + value);
+		}
+	}
+
+	@Override
+	public byte[] readByteArray()
+		throws  IOException
+	{
+		switch(value)
+		{
+			case STRING:
+				/*
+				 * JSON uses Base64 strings, decode directly from the buffer
+				 * if the string has not been decoded.
+				 */
+				if(pendingString && pendingFlags == 0)
+				{
+					ByteBuffer decoded = Base64.getDecoder()
+						.decode(ByteBuffer.wrap(buffer, pendingStart, pendingLength));
+
+					byte[] result = new byte[decoded.remaining()];
+					decoded.get(result);
+					return result;
+				}
+
+				return Base64.getDecoder().decode(stringValue());
+			default:
+				throw raiseException("Expected " + ValueType.BYTES + " but found " + value);
+		}
+	}
+
+	@Override
+	public InputStream asInputStream()
+		throws IOException
+	{
+		return new ByteArrayInputStream(readByteArray());
+	}
+
+	@Override
+	public Bytes readBytes()
+		throws IOException
+	{
+		return Bytes.create(readByteArray());
+	}
+}
@@ -80,7 +80,7 @@ public class SerializerFormatDefinitionBuilderImpl
 			return SerializerFormatDefinition.forValue(valueType);
 		}
 
-		return new SerializerFormatDefinition(type, valueType, fields);
+		return new SerializerFormatDefinition(type, valueType, itemDefinition, fields);
 	}
 
 	private class FieldBuilderImpl
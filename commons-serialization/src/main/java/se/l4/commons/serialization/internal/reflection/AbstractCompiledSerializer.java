@@ -0,0 +1,241 @@
+package se.l4.commons.serialization.internal.reflection;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import se.l4.commons.serialization.QualifiedName;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.format.KeySet;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+import se.l4.commons.serialization.format.Token;
+
+/**
+ * Base class for serializers generated by {@link CompiledSerializerGenerator}.
+ * Handles the object structure when reading, generated subclasses implement
+ * {@link #readField(Object, int, StreamingInput)} and
+ * {@link #write(Object, StreamingOutput)}.
+ *
+ * @author Andreas Holstenson
+ *
+ * @param <T>
+ */
+public abstract class AbstractCompiledSerializer<T>
+	implements Serializer<T>
+{
+	private final TypeInfo<T> type;
+	private final KeySet keys;
+
+	protected AbstractCompiledSerializer(TypeInfo<T> type)
+	{
+		this.type = type;
+
+		keys = type.getKeys();
+	}
+
+	@Override
+	public Optional<QualifiedName> getName()
+	{
+		return Optional.ofNullable(type.getName());
+	}
+
+	@Override
+	public T read(StreamingInput in)
+		throws IOException
+	{
+		in.next(Token.OBJECT_START);
+
+		T instance = type.newInstance(null);
+		while(in.peek() != Token.OBJECT_END)
+		{
+			in.next(Token.KEY);
+			int field = in.readKey(keys);
+			if(field < 0)
+			{
+				// No such field, skip the entire value
+				in.skipValue();
+			}
+			else
+			{
+				readField(instance, field, in);
+			}
+		}
+
+		in.next(Token.OBJECT_END);
+		return instance;
+	}
+
+	/**
+	 * Read the value of the field with the given index, the index is the
+	 * same as the index of the field in {@link TypeInfo#getAllFields()}.
+	 *
+	 * @param instance
+	 * @param field
+	 * @param in
+	 * @throws IOException
+	 */
+	protected abstract void readField(T instance, int field, StreamingInput in)
+		throws IOException;
+
+	@Override
+	public SerializerFormatDefinition getFormatDefinition()
+	{
+		return type.getFormatDefinition();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{type=" + type.getType() + "}";
+	}
+
+	/*
+	 * Helpers called from generated code. Primitive values follow the same
+	 * rules as FieldDefinition where a null is read as the default value.
+	 */
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static void writeObject(StreamingOutput out, Serializer serializer, Object value)
+		throws IOException
+	{
+		if(value == null)
+		{
+			out.writeNull();
+		}
+		else
+		{
+			serializer.write(value, out);
+		}
+	}
+
+	public static void writeString(StreamingOutput out, Object value)
+		throws IOException
+	{
+		if(value == null)
+		{
+			out.writeNull();
+		}
+		else
+		{
+			out.writeString((String) value);
+		}
+	}
+
+	public static String readString(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return null;
+		}
+
+		in.next(Token.VALUE);
+		return in.readString();
+	}
+
+	public static boolean readBoolean(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return false;
+		}
+
+		in.next(Token.VALUE);
+		return in.readBoolean();
+	}
+
+	public static byte readByte(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readByte();
+	}
+
+	public static short readShort(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readShort();
+	}
+
+	public static char readChar(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readChar();
+	}
+
+	public static int readInt(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readInt();
+	}
+
+	public static long readLong(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readLong();
+	}
+
+	public static float readFloat(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readFloat();
+	}
+
+	public static double readDouble(StreamingInput in)
+		throws IOException
+	{
+		if(in.peek() == Token.NULL)
+		{
+			in.next();
+			return 0;
+		}
+
+		in.next(Token.VALUE);
+		return in.readDouble();
+	}
+}
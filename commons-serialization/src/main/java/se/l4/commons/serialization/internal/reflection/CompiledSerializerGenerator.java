@@ -0,0 +1,441 @@
+package se.l4.commons.serialization.internal.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import se.l4.commons.serialization.SerializationException;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+import se.l4.commons.serialization.standard.BooleanSerializer;
+import se.l4.commons.serialization.standard.ByteSerializer;
+import se.l4.commons.serialization.standard.CharacterSerializer;
+import se.l4.commons.serialization.standard.DoubleSerializer;
+import se.l4.commons.serialization.standard.FloatSerializer;
+import se.l4.commons.serialization.standard.IntSerializer;
+import se.l4.commons.serialization.standard.LongSerializer;
+import se.l4.commons.serialization.standard.ShortSerializer;
+import se.l4.commons.serialization.standard.StringSerializer;
+
+/**
+ * Generator for serializers of types that can be fully streamed. Generates
+ * a subclass of {@link AbstractCompiledSerializer} where writing is an
+ * unrolled sequence of keys and values and reading switches on the index of
+ * the key. Primitive fields using the standard serializers are read and
+ * written via their typed methods without boxing.
+ *
+ * <p>
+ * Field access goes through the method handles of
+ * {@link MethodHandleFieldAccessor} which are stored in static final fields
+ * of the generated class so they can be inlined. Fields that can not be
+ * handled directly, such as fields that skip default values, delegate to
+ * their {@link FieldDefinition}.
+ *
+ * <p>
+ * Every generated class is defined in its own {@link GeneratedClassLoader},
+ * a child of the class loader of this library, which also hands the
+ * constants over to the static initializer of the class. The class and its
+ * constants can be unloaded as soon as the serializer is no longer used.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class CompiledSerializerGenerator
+{
+	private static final String PACKAGE = CompiledSerializerGenerator.class.getPackageName().replace('.', '/');
+
+	private static final String BASE = Type.getInternalName(AbstractCompiledSerializer.class);
+	private static final String LOADER = Type.getInternalName(GeneratedClassLoader.class);
+	private static final String INPUT = Type.getInternalName(StreamingInput.class);
+	private static final String OUTPUT = Type.getInternalName(StreamingOutput.class);
+	private static final String FIELD_DEFINITION = Type.getInternalName(FieldDefinition.class);
+	private static final String METHOD_HANDLE = Type.getInternalName(MethodHandle.class);
+
+	private static final String FIELD_DEFINITION_DESC = Type.getDescriptor(FieldDefinition.class);
+	private static final String METHOD_HANDLE_DESC = Type.getDescriptor(MethodHandle.class);
+	private static final String SERIALIZER_DESC = Type.getDescriptor(Serializer.class);
+	private static final String INPUT_DESC = Type.getDescriptor(StreamingInput.class);
+	private static final String OUTPUT_DESC = Type.getDescriptor(StreamingOutput.class);
+
+	/**
+	 * Number of constants stored per field, a {@link FieldDefinition}, the
+	 * getter, the setter and the {@link Serializer}.
+	 */
+	private static final int CONSTANTS_PER_FIELD = 4;
+
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	private CompiledSerializerGenerator()
+	{
+	}
+
+	/**
+	 * Generate a serializer for the given type.
+	 *
+	 * @param type
+	 * @return
+	 *   serializer or empty if the generated class could not be accessed
+	 * @throws SerializationException
+	 *   if the generated class could not be defined or created
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> Optional<Serializer<T>> generate(TypeInfo<T> type)
+	{
+		String name = PACKAGE + "/CompiledSerializer$" + COUNTER.incrementAndGet()
+			+ "$" + type.getType().getSimpleName();
+
+		FieldDefinition[] fields = type.getAllFields();
+		Object[] constants = new Object[fields.length * CONSTANTS_PER_FIELD];
+		for(int i=0; i<fields.length; i++)
+		{
+			FieldDefinition def = fields[i];
+			constants[i * CONSTANTS_PER_FIELD] = def;
+
+			FieldAccessor accessor = def.getAccessor();
+			if(accessor instanceof MethodHandleFieldAccessor)
+			{
+				constants[i * CONSTANTS_PER_FIELD + 1] = ((MethodHandleFieldAccessor) accessor).getGetter();
+				constants[i * CONSTANTS_PER_FIELD + 2] = ((MethodHandleFieldAccessor) accessor).getSetter();
+			}
+
+			constants[i * CONSTANTS_PER_FIELD + 3] = def.getSerializer();
+		}
+
+		GeneratedClassLoader loader = new GeneratedClassLoader(constants);
+
+		Module module = CompiledSerializerGenerator.class.getModule();
+		if(module.isNamed())
+		{
+			// Generated classes extend and call classes in this package
+			module.addExports(CompiledSerializerGenerator.class.getPackageName(), loader.getUnnamedModule());
+		}
+
+		byte[] data = generateClass(name, fields);
+		try
+		{
+			Class<?> generated = loader.define(name.replace('/', '.'), data);
+			return Optional.of((Serializer<T>) generated.getConstructor(TypeInfo.class).newInstance(type));
+		}
+		catch(IllegalAccessException e)
+		{
+			// The generated class could not be accessed, use reflection instead
+			return Optional.empty();
+		}
+		catch(ReflectiveOperationException | LinkageError e)
+		{
+			throw new SerializationException("Could not generate serializer for " + type.getType().getName() + "; " + e.getMessage(), e);
+		}
+	}
+
+	private static byte[] generateClass(String name, FieldDefinition[] fields)
+	{
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS)
+		{
+			@Override
+			protected String getCommonSuperClass(String type1, String type2)
+			{
+				// Generated code never merges anything but plain objects
+				return "java/lang/Object";
+			}
+		};
+
+		cw.visit(Opcodes.V9, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC, name, null, BASE, null);
+
+		FieldKind[] kinds = new FieldKind[fields.length];
+		for(int i=0; i<fields.length; i++)
+		{
+			kinds[i] = FieldKind.resolve(fields[i]);
+
+			int access = Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+			cw.visitField(access, "F" + i, FIELD_DEFINITION_DESC, null, null).visitEnd();
+			cw.visitField(access, "G" + i, METHOD_HANDLE_DESC, null, null).visitEnd();
+			cw.visitField(access, "S" + i, METHOD_HANDLE_DESC, null, null).visitEnd();
+			cw.visitField(access, "SER" + i, SERIALIZER_DESC, null, null).visitEnd();
+		}
+
+		generateStaticInitializer(cw, name, fields.length);
+		generateConstructor(cw);
+		generateWrite(cw, name, fields, kinds);
+		generateReadField(cw, name, fields, kinds);
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void generateStaticInitializer(ClassWriter cw, String name, int fields)
+	{
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		mv.visitCode();
+
+		// Fetch the constants from the loader that defined this class
+		mv.visitLdcInsn(Type.getObjectType(name));
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Class", "getClassLoader", "()Ljava/lang/ClassLoader;", false);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, LOADER);
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, LOADER, "getConstants", "()[Ljava/lang/Object;", false);
+		mv.visitVarInsn(Opcodes.ASTORE, 0);
+
+		for(int i=0; i<fields; i++)
+		{
+			storeConstant(mv, name, i * CONSTANTS_PER_FIELD, "F" + i, FIELD_DEFINITION_DESC);
+			storeConstant(mv, name, i * CONSTANTS_PER_FIELD + 1, "G" + i, METHOD_HANDLE_DESC);
+			storeConstant(mv, name, i * CONSTANTS_PER_FIELD + 2, "S" + i, METHOD_HANDLE_DESC);
+			storeConstant(mv, name, i * CONSTANTS_PER_FIELD + 3, "SER" + i, SERIALIZER_DESC);
+		}
+
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void storeConstant(MethodVisitor mv, String name, int index, String field, String desc)
+	{
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitLdcInsn(index);
+		mv.visitInsn(Opcodes.AALOAD);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getType(desc).getInternalName());
+		mv.visitFieldInsn(Opcodes.PUTSTATIC, name, field, desc);
+	}
+
+	private static void generateConstructor(ClassWriter cw)
+	{
+		String desc = "(" + Type.getDescriptor(TypeInfo.class) + ")V";
+		MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", desc, null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitVarInsn(Opcodes.ALOAD, 1);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE, "<init>", desc, false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void generateWrite(ClassWriter cw, String name, FieldDefinition[] fields, FieldKind[] kinds)
+	{
+		MethodVisitor mv = cw.visitMethod(
+			Opcodes.ACC_PUBLIC,
+			"write",
+			"(Ljava/lang/Object;" + OUTPUT_DESC + ")V",
+			null,
+			new String[] { "java/io/IOException" }
+		);
+		mv.visitCode();
+
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, OUTPUT, "writeObjectStart", "()V", true);
+
+		for(int i=0; i<fields.length; i++)
+		{
+			FieldKind kind = kinds[i];
+			if(kind == FieldKind.DELEGATE)
+			{
+				mv.visitFieldInsn(Opcodes.GETSTATIC, name, "F" + i, FIELD_DEFINITION_DESC);
+				mv.visitVarInsn(Opcodes.ALOAD, 1);
+				mv.visitVarInsn(Opcodes.ALOAD, 2);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FIELD_DEFINITION, "write", "(Ljava/lang/Object;" + OUTPUT_DESC + ")V", false);
+				continue;
+			}
+
+			// Write the key
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitLdcInsn(fields[i].getName());
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, OUTPUT, "writeString", "(Ljava/lang/String;)V", true);
+
+			// Write the value
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			if(kind == FieldKind.OBJECT)
+			{
+				mv.visitFieldInsn(Opcodes.GETSTATIC, name, "SER" + i, SERIALIZER_DESC);
+			}
+
+			mv.visitFieldInsn(Opcodes.GETSTATIC, name, "G" + i, METHOD_HANDLE_DESC);
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METHOD_HANDLE, "invokeExact", "(Ljava/lang/Object;)" + kind.descriptor, false);
+
+			if(kind == FieldKind.OBJECT)
+			{
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, BASE, "writeObject", "(" + OUTPUT_DESC + SERIALIZER_DESC + "Ljava/lang/Object;)V", false);
+			}
+			else if(kind == FieldKind.STRING)
+			{
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, BASE, "writeString", "(" + OUTPUT_DESC + "Ljava/lang/Object;)V", false);
+			}
+			else
+			{
+				mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, OUTPUT, kind.writeMethod, kind.writeDescriptor, true);
+			}
+		}
+
+		mv.visitVarInsn(Opcodes.ALOAD, 2);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, OUTPUT, "writeObjectEnd", "()V", true);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static void generateReadField(ClassWriter cw, String name, FieldDefinition[] fields, FieldKind[] kinds)
+	{
+		MethodVisitor mv = cw.visitMethod(
+			Opcodes.ACC_PROTECTED,
+			"readField",
+			"(Ljava/lang/Object;I" + INPUT_DESC + ")V",
+			null,
+			new String[] { "java/io/IOException" }
+		);
+		mv.visitCode();
+
+		Label unknown = new Label();
+		if(fields.length > 0)
+		{
+			Label[] labels = new Label[fields.length];
+			for(int i=0; i<labels.length; i++)
+			{
+				labels[i] = new Label();
+			}
+
+			mv.visitVarInsn(Opcodes.ILOAD, 2);
+			mv.visitTableSwitchInsn(0, fields.length - 1, unknown, labels);
+
+			for(int i=0; i<fields.length; i++)
+			{
+				mv.visitLabel(labels[i]);
+
+				FieldKind kind = kinds[i];
+				if(kind.readMethod == null)
+				{
+					mv.visitFieldInsn(Opcodes.GETSTATIC, name, "F" + i, FIELD_DEFINITION_DESC);
+					mv.visitVarInsn(Opcodes.ALOAD, 1);
+					mv.visitVarInsn(Opcodes.ALOAD, 3);
+					mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, FIELD_DEFINITION, "read", "(Ljava/lang/Object;" + INPUT_DESC + ")V", false);
+				}
+				else
+				{
+					mv.visitFieldInsn(Opcodes.GETSTATIC, name, "S" + i, METHOD_HANDLE_DESC);
+					mv.visitVarInsn(Opcodes.ALOAD, 1);
+					mv.visitVarInsn(Opcodes.ALOAD, 3);
+					mv.visitMethodInsn(Opcodes.INVOKESTATIC, BASE, kind.readMethod, "(" + INPUT_DESC + ")" + kind.readDescriptor, false);
+					mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METHOD_HANDLE, "invokeExact", "(Ljava/lang/Object;" + kind.descriptor + ")V", false);
+				}
+
+				mv.visitInsn(Opcodes.RETURN);
+			}
+		}
+
+		mv.visitLabel(unknown);
+		mv.visitVarInsn(Opcodes.ALOAD, 3);
+		mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, INPUT, "skipValue", "()V", true);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	/**
+	 * Class loader that defines a single generated class and holds the
+	 * constants it picks up in its static initializer.
+	 */
+	public static final class GeneratedClassLoader
+		extends ClassLoader
+	{
+		private final Object[] constants;
+
+		private GeneratedClassLoader(Object[] constants)
+		{
+			super(CompiledSerializerGenerator.class.getClassLoader());
+
+			this.constants = constants;
+		}
+
+		private Class<?> define(String name, byte[] data)
+		{
+			return defineClass(name, data, 0, data.length);
+		}
+
+		/**
+		 * Get the constants of the generated class. Called from the static
+		 * initializer of the generated class.
+		 *
+		 * @return
+		 */
+		public Object[] getConstants()
+		{
+			return constants;
+		}
+	}
+
+	/**
+	 * How a field is read and written by the generated code.
+	 */
+	private enum FieldKind
+	{
+		DELEGATE(null, null, null, null, null, null),
+		OBJECT(null, "Ljava/lang/Object;", null, null, null, null),
+		STRING(StringSerializer.class, "Ljava/lang/Object;", null, null, "readString", "Ljava/lang/String;"),
+		BOOLEAN(BooleanSerializer.class, "Z", "writeBoolean", "(Z)V", "readBoolean", "Z"),
+		BYTE(ByteSerializer.class, "B", "writeByte", "(B)V", "readByte", "B"),
+		SHORT(ShortSerializer.class, "S", "writeInt", "(I)V", "readShort", "S"),
+		CHAR(CharacterSerializer.class, "C", "writeChar", "(C)V", "readChar", "C"),
+		INT(IntSerializer.class, "I", "writeInt", "(I)V", "readInt", "I"),
+		LONG(LongSerializer.class, "J", "writeLong", "(J)V", "readLong", "J"),
+		FLOAT(FloatSerializer.class, "F", "writeFloat", "(F)V", "readFloat", "F"),
+		DOUBLE(DoubleSerializer.class, "D", "writeDouble", "(D)V", "readDouble", "D");
+
+		private final Class<?> serializer;
+		private final String descriptor;
+		private final String writeMethod;
+		private final String writeDescriptor;
+		private final String readMethod;
+		private final String readDescriptor;
+
+		private FieldKind(
+			Class<?> serializer,
+			String descriptor,
+			String writeMethod,
+			String writeDescriptor,
+			String readMethod,
+			String readDescriptor
+		)
+		{
+			this.serializer = serializer;
+			this.descriptor = descriptor;
+			this.writeMethod = writeMethod;
+			this.writeDescriptor = writeDescriptor;
+			this.readMethod = readMethod;
+			this.readDescriptor = readDescriptor;
+		}
+
+		public static FieldKind resolve(FieldDefinition def)
+		{
+			Serializer<?> serializer = def.getSerializer();
+			if(def.isSkipIfDefault()
+				|| ! (def.getAccessor() instanceof MethodHandleFieldAccessor)
+				|| serializer instanceof Serializer.NullHandling)
+			{
+				return DELEGATE;
+			}
+
+			Class<?> type = def.getType();
+			if(type.isPrimitive() || type == String.class)
+			{
+				String descriptor = type.isPrimitive() ? Type.getDescriptor(type) : "Ljava/lang/Object;";
+				for(FieldKind kind : values())
+				{
+					if(kind.serializer == serializer.getClass() && kind.descriptor.equals(descriptor))
+					{
+						return kind;
+					}
+				}
+
+				// Primitive or string with a custom serializer
+				return type.isPrimitive() ? DELEGATE : OBJECT;
+			}
+
+			return OBJECT;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package se.l4.commons.serialization.internal.reflection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+/**
+ * Accessor for reading and writing the value of a single field. Accessors
+ * have typed methods for primitive fields that can be used to avoid boxing,
+ * these may only be called if the field is of that exact primitive type.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public interface FieldAccessor
+{
+	/**
+	 * Get the field this accessor is for.
+	 *
+	 * @return
+	 */
+	Field getField();
+
+	/**
+	 * Get the value of the field, primitives will be boxed.
+	 *
+	 * @param target
+	 * @return
+	 */
+	Object get(Object target);
+
+	/**
+	 * Set the value of the field, primitives should be boxed.
+	 *
+	 * @param target
+	 * @param value
+	 */
+	void set(Object target, Object value);
+
+	boolean getBoolean(Object target);
+
+	void setBoolean(Object target, boolean value);
+
+	byte getByte(Object target);
+
+	void setByte(Object target, byte value);
+
+	short getShort(Object target);
+
+	void setShort(Object target, short value);
+
+	char getChar(Object target);
+
+	void setChar(Object target, char value);
+
+	int getInt(Object target);
+
+	void setInt(Object target, int value);
+
+	long getLong(Object target);
+
+	void setLong(Object target, long value);
+
+	float getFloat(Object target);
+
+	void setFloat(Object target, float value);
+
+	double getDouble(Object target);
+
+	void setDouble(Object target, double value);
+
+	/**
+	 * Create an accessor for the given field. This will try to use method
+	 * handles to access the field and fallback to plain reflection if that
+	 * is not possible. The field should have been made accessible before
+	 * calling this method.
+	 *
+	 * @param field
+	 * @return
+	 */
+	static FieldAccessor create(Field field)
+	{
+		try
+		{
+			return new MethodHandleFieldAccessor(MethodHandles.lookup(), field);
+		}
+		catch(IllegalAccessException | RuntimeException e)
+		{
+			return new ReflectionFieldAccessor(field);
+		}
+	}
+}
@@ -6,15 +6,25 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Objects;
 
+import se.l4.commons.serialization.BooleanValueSerializer;
+import se.l4.commons.serialization.ByteValueSerializer;
+import se.l4.commons.serialization.CharValueSerializer;
+import se.l4.commons.serialization.DoubleValueSerializer;
+import se.l4.commons.serialization.FloatValueSerializer;
+import se.l4.commons.serialization.IntValueSerializer;
+import se.l4.commons.serialization.LongValueSerializer;
 import se.l4.commons.serialization.SerializationException;
 import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.ShortValueSerializer;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.serialization.format.Token;
 import se.l4.commons.types.Types;
 
 /**
- * Definition of a field within a reflection serializer.
+ * Definition of a field within a reflection serializer. Primitive fields
+ * with a serializer for that primitive, such as {@link IntValueSerializer},
+ * are read and written without boxing.
  *
  * @author Andreas Holstenson
  *
@@ -22,23 +32,88 @@ import se.l4.commons.types.Types;
 @SuppressWarnings("rawtypes")
 public class FieldDefinition
 {
+	private static final int OBJECT = 0;
+	private static final int BOOLEAN = 1;
+	private static final int BYTE = 2;
+	private static final int SHORT = 3;
+	private static final int CHAR = 4;
+	private static final int INT = 5;
+	private static final int LONG = 6;
+	private static final int FLOAT = 7;
+	private static final int DOUBLE = 8;
+
 	private final Field field;
+	private final FieldAccessor accessor;
 	private final Serializer serializer;
 	private final String name;
 	private final Class<?> type;
 	private final boolean readOnly;
 	private final boolean skipIfDefault;
 	private final boolean nullHandling;
+	private final int primitive;
 
 	public FieldDefinition(Field field, String name, Serializer serializer, Class type, boolean skipIfDefault)
 	{
-		this.field = field;
+		this(FieldAccessor.create(field), name, serializer, type, skipIfDefault);
+	}
+
+	public FieldDefinition(FieldAccessor accessor, String name, Serializer serializer, Class type, boolean skipIfDefault)
+	{
+		this.field = accessor.getField();
+		this.accessor = accessor;
 		this.name = name;
 		this.serializer = serializer;
 		this.type = type;
 		this.skipIfDefault = skipIfDefault;
 		this.nullHandling = serializer instanceof Serializer.NullHandling;
 		readOnly = Modifier.isFinal(field.getModifiers());
+		primitive = nullHandling || type != field.getType() ? OBJECT : primitive(type, serializer);
+	}
+
+	/**
+	 * Resolve if a field of the given type can be read and written via the
+	 * primitive methods of its serializer.
+	 *
+	 * @param type
+	 * @param serializer
+	 * @return
+	 */
+	private static int primitive(Class<?> type, Serializer<?> serializer)
+	{
+		if(type == boolean.class && serializer instanceof BooleanValueSerializer)
+		{
+			return BOOLEAN;
+		}
+		else if(type == byte.class && serializer instanceof ByteValueSerializer)
+		{
+			return BYTE;
+		}
+		else if(type == short.class && serializer instanceof ShortValueSerializer)
+		{
+			return SHORT;
+		}
+		else if(type == char.class && serializer instanceof CharValueSerializer)
+		{
+			return CHAR;
+		}
+		else if(type == int.class && serializer instanceof IntValueSerializer)
+		{
+			return INT;
+		}
+		else if(type == long.class && serializer instanceof LongValueSerializer)
+		{
+			return LONG;
+		}
+		else if(type == float.class && serializer instanceof FloatValueSerializer)
+		{
+			return FLOAT;
+		}
+		else if(type == double.class && serializer instanceof DoubleValueSerializer)
+		{
+			return DOUBLE;
+		}
+
+		return OBJECT;
 	}
 
 	public String getName()
@@ -46,6 +121,16 @@ public class FieldDefinition
 		return name;
 	}
 
+	/**
+	 * Get the accessor used to read and write the value of this field.
+	 *
+	 * @return
+	 */
+	public FieldAccessor getAccessor()
+	{
+		return accessor;
+	}
+
 	public Serializer getSerializer()
 	{
 		return serializer;
@@ -88,9 +173,66 @@ public class FieldDefinition
 	public void read(Object target, StreamingInput in)
 		throws IOException
 	{
+		if(primitive != OBJECT && in.peek() != Token.NULL)
+		{
+			readPrimitive(target, in);
+			return;
+		}
+
 		set(target, read(in));
 	}
 
+	/**
+	 * Read the value of a primitive field via the primitive methods of its
+	 * serializer.
+	 *
+	 * @param target
+	 * @param in
+	 * @throws IOException
+	 */
+	private void readPrimitive(Object target, StreamingInput in)
+		throws IOException
+	{
+		try
+		{
+			switch(primitive)
+			{
+				case BOOLEAN:
+					accessor.setBoolean(target, ((BooleanValueSerializer) serializer).readBoolean(in));
+					break;
+				case BYTE:
+					accessor.setByte(target, ((ByteValueSerializer) serializer).readByte(in));
+					break;
+				case SHORT:
+					accessor.setShort(target, ((ShortValueSerializer) serializer).readShort(in));
+					break;
+				case CHAR:
+					accessor.setChar(target, ((CharValueSerializer) serializer).readChar(in));
+					break;
+				case INT:
+					accessor.setInt(target, ((IntValueSerializer) serializer).readInt(in));
+					break;
+				case LONG:
+					accessor.setLong(target, ((LongValueSerializer) serializer).readLong(in));
+					break;
+				case FLOAT:
+					accessor.setFloat(target, ((FloatValueSerializer) serializer).readFloat(in));
+					break;
+				case DOUBLE:
+					accessor.setDouble(target, ((DoubleValueSerializer) serializer).readDouble(in));
+					break;
+			}
+		}
+		catch(SerializationException e)
+		{
+			throw e;
+		}
+		catch(RuntimeException e)
+		{
+			throw new SerializationException("Unable to read object; " + e.getMessage(), e);
+		}
+	}
+
 	public void set(Object target, Object value)
 		throws IOException
 	{
@@ -101,7 +243,7 @@ public class FieldDefinition
 				value = Types.defaultValue(type);
 			}
 
-			field.set(target, value);
+			accessor.set(target, value);
 		}
 		catch(Exception e)
 		{
@@ -113,23 +255,24 @@ public class FieldDefinition
 	{
 		try
 		{
-			return field.get(target);
-		}
-		catch(IllegalArgumentException e)
-		{
-			throw new SerializationException("Unable to write object; " + e.getMessage(), e);
+			return accessor.get(target);
 		}
-		catch(IllegalAccessException e)
+		catch(RuntimeException e)
 		{
 			throw new SerializationException("Unable to write object; " + e.getMessage(), e);
 		}
-
 	}
 
 	@SuppressWarnings("unchecked")
 	public void write(Object target, StreamingOutput stream)
 		throws IOException
 	{
+		if(primitive != OBJECT)
+		{
+			writePrimitive(target, stream);
+			return;
+		}
+
 		Object value = getValue(target);
 
 		if(skipIfDefault)
@@ -161,6 +304,106 @@ public class FieldDefinition
 		}
 	}
 
+	/**
+	 * Write the value of a primitive field via the primitive methods of its
+	 * serializer. Default values are compared in the same way as their
+	 * boxed versions.
+	 *
+	 * @param target
+	 * @param stream
+	 * @throws IOException
+	 */
+	private void writePrimitive(Object target, StreamingOutput stream)
+		throws IOException
+	{
+		try
+		{
+			switch(primitive)
+			{
+				case BOOLEAN:
+				{
+					boolean value = accessor.getBoolean(target);
+					if(skipIfDefault && ! value) return;
+
+					stream.writeString(name);
+					((BooleanValueSerializer) serializer).writeBoolean(value, stream);
+					break;
+				}
+				case BYTE:
+				{
+					byte value = accessor.getByte(target);
+					if(skipIfDefault && value == 0) return;
+
+					stream.writeString(name);
+					((ByteValueSerializer) serializer).writeByte(value, stream);
+					break;
+				}
+				case SHORT:
+				{
+					short value = accessor.getShort(target);
+					if(skipIfDefault && value == 0) return;
+
+					stream.writeString(name);
+					((ShortValueSerializer) serializer).writeShort(value, stream);
+					break;
+				}
+				case CHAR:
+				{
+					char value = accessor.getChar(target);
+					if(skipIfDefault && value == 0) return;
+
+					stream.writeString(name);
+					((CharValueSerializer) serializer).writeChar(value, stream);
+					break;
+				}
+				case INT:
+				{
+					int value = accessor.getInt(target);
+					if(skipIfDefault && value == 0) return;
+
+					stream.writeString(name);
+					((IntValueSerializer) serializer).writeInt(value, stream);
+					break;
+				}
+				case LONG:
+				{
+					long value = accessor.getLong(target);
+					if(skipIfDefault && value == 0) return;
+
+					stream.writeString(name);
+					((LongValueSerializer) serializer).writeLong(value, stream);
+					break;
+				}
+				case FLOAT:
+				{
+					float value = accessor.getFloat(target);
+					if(skipIfDefault && Float.floatToIntBits(value) == 0) return;
+
+					stream.writeString(name);
+					((FloatValueSerializer) serializer).writeFloat(value, stream);
+					break;
+				}
+				case DOUBLE:
+				{
+					double value = accessor.getDouble(target);
+					if(skipIfDefault && Double.doubleToLongBits(value) == 0) return;
+
+					stream.writeString(name);
+					((DoubleValueSerializer) serializer).writeDouble(value, stream);
+					break;
+				}
+			}
+		}
+		catch(SerializationException e)
+		{
+			throw e;
+		}
+		catch(RuntimeException e)
+		{
+			throw new SerializationException("Unable to write object; " + e.getMessage(), e);
+		}
+	}
+
 	public Annotation[] getHints()
 	{
 		return field.getAnnotations();
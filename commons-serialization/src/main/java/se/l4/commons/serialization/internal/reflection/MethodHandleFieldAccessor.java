@@ -0,0 +1,338 @@
+package se.l4.commons.serialization.internal.reflection;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+import se.l4.commons.serialization.SerializationException;
+
+/**
+ * {@link FieldAccessor} that uses {@link MethodHandle}s to access a field.
+ * The handles are adapted to take {@link Object} as the target so they can
+ * be invoked exactly, which lets primitive values be read and written
+ * without boxing.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class MethodHandleFieldAccessor
+	implements FieldAccessor
+{
+	private final Field field;
+
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	private final MethodHandle boxedGetter;
+	private final MethodHandle boxedSetter;
+
+	public MethodHandleFieldAccessor(MethodHandles.Lookup lookup, Field field)
+		throws IllegalAccessException
+	{
+		this.field = field;
+
+		Class<?> type = field.getType();
+		Class<?> exactType = type.isPrimitive() ? type : Object.class;
+
+		MethodHandle rawGetter = lookup.unreflectGetter(field);
+		MethodHandle rawSetter = lookup.unreflectSetter(field);
+
+		getter = rawGetter.asType(MethodType.methodType(exactType, Object.class));
+		setter = rawSetter.asType(MethodType.methodType(void.class, Object.class, exactType));
+
+		boxedGetter = rawGetter.asType(MethodType.methodType(Object.class, Object.class));
+		boxedSetter = rawSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+	}
+
+	/**
+	 * Get the getter of this field. The handle has the type
+	 * {@code (Object)T} where {@code T} is either the primitive type of the
+	 * field or {@link Object}.
+	 *
+	 * @return
+	 */
+	public MethodHandle getGetter()
+	{
+		return getter;
+	}
+
+	/**
+	 * Get the setter of this field. The handle has the type
+	 * {@code (Object,T)void} where {@code T} is either the primitive type of
+	 * the field or {@link Object}.
+	 *
+	 * @return
+	 */
+	public MethodHandle getSetter()
+	{
+		return setter;
+	}
+
+	@Override
+	public Field getField()
+	{
+		return field;
+	}
+
+	@Override
+	public Object get(Object target)
+	{
+		try
+		{
+			return (Object) boxedGetter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void set(Object target, Object value)
+	{
+		try
+		{
+			boxedSetter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(Object target)
+	{
+		try
+		{
+			return (boolean) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setBoolean(Object target, boolean value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public byte getByte(Object target)
+	{
+		try
+		{
+			return (byte) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setByte(Object target, byte value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public short getShort(Object target)
+	{
+		try
+		{
+			return (short) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setShort(Object target, short value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public char getChar(Object target)
+	{
+		try
+		{
+			return (char) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setChar(Object target, char value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public int getInt(Object target)
+	{
+		try
+		{
+			return (int) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setInt(Object target, int value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public long getLong(Object target)
+	{
+		try
+		{
+			return (long) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setLong(Object target, long value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public float getFloat(Object target)
+	{
+		try
+		{
+			return (float) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setFloat(Object target, float value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public double getDouble(Object target)
+	{
+		try
+		{
+			return (double) getter.invokeExact(target);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	@Override
+	public void setDouble(Object target, double value)
+	{
+		try
+		{
+			setter.invokeExact(target, value);
+		}
+		catch(Throwable t)
+		{
+			throw rethrow(t);
+		}
+	}
+
+	/**
+	 * Rethrow unchecked exceptions as is and wrap anything else in a
+	 * {@link SerializationException}.
+	 *
+	 * @param t
+	 * @return
+	 */
+	private RuntimeException rethrow(Throwable t)
+	{
+		if(t instanceof RuntimeException)
+		{
+			return (RuntimeException) t;
+		}
+		else if(t instanceof Error)
+		{
+			throw (Error) t;
+		}
+
+		return new SerializationException("Unable to access field " + field + "; " + t.getMessage(), t);
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{field=" + field + "}";
+	}
+}
@@ -0,0 +1,274 @@
+package se.l4.commons.serialization.internal.reflection;
+
+import java.lang.reflect.Field;
+
+import se.l4.commons.serialization.SerializationException;
+
+/**
+ * {@link FieldAccessor} that uses plain reflection. Used as a fallback when
+ * a field can not be accessed via method handles.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ReflectionFieldAccessor
+	implements FieldAccessor
+{
+	private final Field field;
+
+	public ReflectionFieldAccessor(Field field)
+	{
+		this.field = field;
+	}
+
+	@Override
+	public Field getField()
+	{
+		return field;
+	}
+
+	@Override
+	public Object get(Object target)
+	{
+		try
+		{
+			return field.get(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void set(Object target, Object value)
+	{
+		try
+		{
+			field.set(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public boolean getBoolean(Object target)
+	{
+		try
+		{
+			return field.getBoolean(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setBoolean(Object target, boolean value)
+	{
+		try
+		{
+			field.setBoolean(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public byte getByte(Object target)
+	{
+		try
+		{
+			return field.getByte(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setByte(Object target, byte value)
+	{
+		try
+		{
+			field.setByte(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public short getShort(Object target)
+	{
+		try
+		{
+			return field.getShort(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setShort(Object target, short value)
+	{
+		try
+		{
+			field.setShort(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public char getChar(Object target)
+	{
+		try
+		{
+			return field.getChar(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setChar(Object target, char value)
+	{
+		try
+		{
+			field.setChar(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public int getInt(Object target)
+	{
+		try
+		{
+			return field.getInt(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setInt(Object target, int value)
+	{
+		try
+		{
+			field.setInt(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public long getLong(Object target)
+	{
+		try
+		{
+			return field.getLong(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setLong(Object target, long value)
+	{
+		try
+		{
+			field.setLong(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public float getFloat(Object target)
+	{
+		try
+		{
+			return field.getFloat(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setFloat(Object target, float value)
+	{
+		try
+		{
+			field.setFloat(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public double getDouble(Object target)
+	{
+		try
+		{
+			return field.getDouble(target);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	@Override
+	public void setDouble(Object target, double value)
+	{
+		try
+		{
+			field.setDouble(target, value);
+		}
+		catch(IllegalAccessException e)
+		{
+			throw raise(e);
+		}
+	}
+
+	private SerializationException raise(IllegalAccessException e)
+	{
+		return new SerializationException("Unable to access field " + field + "; " + e.getMessage(), e);
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{field=" + field + "}";
+	}
+}
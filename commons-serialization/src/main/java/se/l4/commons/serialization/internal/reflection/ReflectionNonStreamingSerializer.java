@@ -8,6 +8,7 @@ import java.util.Optional;
 import se.l4.commons.serialization.QualifiedName;
 import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.format.KeySet;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.serialization.format.Token;
@@ -45,20 +46,21 @@ public class ReflectionNonStreamingSerializer<T>
 
 		// First create a map with all the data
 		Map<String, Object> data = new HashMap<>(size);
+		KeySet keys = type.getKeys();
+		FieldDefinition[] fields = type.getAllFields();
 		while(in.peek() != Token.OBJECT_END)
 		{
 			in.next(Token.KEY);
-			String key = in.readString();
+			int index = in.readKey(keys);
 
-			FieldDefinition def = type.getField(key);
-			if(def == null)
+			if(index < 0)
 			{
 				// No such field, skip the entire value
 				in.skipValue();
 			}
 			else
 			{
-				data.put(key, def.read(in));
+				data.put(keys.get(index), fields[index].read(in));
 			}
 		}
 
@@ -9,6 +9,7 @@ import java.util.TreeMap;
 import se.l4.commons.serialization.QualifiedName;
 import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.format.KeySet;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.serialization.format.Token;
@@ -28,7 +29,7 @@ public class ReflectionOnlySingleFactorySerializer<T>
 	private final FactoryDefinition<T> factory;
 	private final Object[] defaultArguments;
 
-	private final String[] names;
+	private final KeySet keys;
 	private final FieldDefinition[] fields;
 	private final int[] mapping;
 
@@ -68,7 +69,7 @@ public class ReflectionOnlySingleFactorySerializer<T>
 
 		}
 
-		this.names = names;
+		this.keys = KeySet.of(names);
 		this.fields = fields;
 		this.mapping = mapping;
 	}
@@ -90,9 +91,7 @@ public class ReflectionOnlySingleFactorySerializer<T>
 		while(in.peek() != Token.OBJECT_END)
 		{
 			in.next(Token.KEY);
-			String key = in.readString();
-
-			int idx = Arrays.binarySearch(names, key);
+			int idx = in.readKey(keys);
 			if(idx >= 0)
 			{
 				args[mapping[idx]] = fields[idx].read(in);
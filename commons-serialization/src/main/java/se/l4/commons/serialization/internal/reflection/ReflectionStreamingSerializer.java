@@ -6,6 +6,7 @@ import java.util.Optional;
 import se.l4.commons.serialization.QualifiedName;
 import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.format.KeySet;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.serialization.format.Token;
@@ -40,20 +41,21 @@ public class ReflectionStreamingSerializer<T>
 		in.next(Token.OBJECT_START);
 
 		T instance = type.newInstance(null);
+		KeySet keys = type.getKeys();
+		FieldDefinition[] fields = type.getAllFields();
 		while(in.peek() != Token.OBJECT_END)
 		{
 			in.next(Token.KEY);
-			String key = in.readString();
+			int index = in.readKey(keys);
 
-			FieldDefinition def = type.getField(key);
-			if(def == null)
+			if(index < 0)
 			{
 				// No such field, skip the entire value
 				in.skipValue();
 			}
 			else
 			{
-				def.read(instance, in);
+				fields[index].read(instance, in);
 			}
 		}
 
@@ -7,6 +7,7 @@ import org.eclipse.collections.api.map.MapIterable;
 import se.l4.commons.serialization.QualifiedName;
 import se.l4.commons.serialization.ReflectionSerializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.format.KeySet;
 
 /**
  * Information about a type used with {@link ReflectionSerializer}.
@@ -20,6 +21,7 @@ public class TypeInfo<T>
 	private final QualifiedName name;
 	private final FieldDefinition[] fields;
 	private final MapIterable<String, FieldDefinition> fieldMap;
+	private final KeySet keys;
 	private final FactoryDefinition<T>[] factories;
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -37,6 +39,13 @@ public class TypeInfo<T>
 		this.fieldMap = fieldMap;
 		this.fields = fields;
 
+		String[] names = new String[fields.length];
+		for(int i=0; i<fields.length; i++)
+		{
+			names[i] = fields[i].getName();
+		}
+		keys = KeySet.of(names);
+
 		SerializerFormatDefinition.Builder builder = SerializerFormatDefinition.builder();
 		for(FieldDefinition fdef : fields)
 		{
@@ -68,6 +77,17 @@ public class TypeInfo<T>
 		return fieldMap.get(name);
 	}
 
+	/**
+	 * Get the names of all fields as a set of keys, the index of a key is
+	 * the index of the field in {@link #getAllFields()}.
+	 *
+	 * @return
+	 */
+	public KeySet getKeys()
+	{
+		return keys;
+	}
+
 	/**
 	 * Create a new instance.
 	 *
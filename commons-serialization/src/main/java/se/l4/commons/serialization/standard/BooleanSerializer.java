@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.BooleanValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class BooleanSerializer
-	implements Serializer<Boolean>
+	implements BooleanValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class BooleanSerializer
 	}
 
 	@Override
-	public Boolean read(StreamingInput in)
+	public boolean readBoolean(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class BooleanSerializer
 	}
 
 	@Override
-	public void write(Boolean object, StreamingOutput stream)
+	public void writeBoolean(boolean value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeBoolean(object);
+		stream.writeBoolean(value);
 	}
 
 	@Override
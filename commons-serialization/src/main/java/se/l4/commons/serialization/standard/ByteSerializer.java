@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.ByteValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class ByteSerializer
-	implements Serializer<Byte>
+	implements ByteValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class ByteSerializer
 	}
 
 	@Override
-	public Byte read(StreamingInput in)
+	public byte readByte(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class ByteSerializer
 	}
 
 	@Override
-	public void write(Byte object, StreamingOutput stream)
+	public void writeByte(byte value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeByte(object);
+		stream.writeByte(value);
 	}
 
 	@Override
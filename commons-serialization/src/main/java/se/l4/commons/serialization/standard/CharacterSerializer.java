@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.CharValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class CharacterSerializer
-	implements Serializer<Character>
+	implements CharValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class CharacterSerializer
 	}
 
 	@Override
-	public Character read(StreamingInput in)
+	public char readChar(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class CharacterSerializer
 	}
 
 	@Override
-	public void write(Character object, StreamingOutput stream)
+	public void writeChar(char value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeChar(object);
+		stream.writeChar(value);
 	}
 
 	@Override
@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.DoubleValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class DoubleSerializer
-	implements Serializer<Double>
+	implements DoubleValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class DoubleSerializer
 	}
 
 	@Override
-	public Double read(StreamingInput in)
+	public double readDouble(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class DoubleSerializer
 	}
 
 	@Override
-	public void write(Double object, StreamingOutput stream)
+	public void writeDouble(double value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeDouble(object);
+		stream.writeDouble(value);
 	}
 
 	@Override
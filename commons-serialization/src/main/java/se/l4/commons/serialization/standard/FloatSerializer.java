@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.FloatValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class FloatSerializer
-	implements Serializer<Float>
+	implements FloatValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class FloatSerializer
 	}
 
 	@Override
-	public Float read(StreamingInput in)
+	public float readFloat(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class FloatSerializer
 	}
 
 	@Override
-	public void write(Float object, StreamingOutput stream)
+	public void writeFloat(float value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeFloat(object);
+		stream.writeFloat(value);
 	}
 
 	@Override
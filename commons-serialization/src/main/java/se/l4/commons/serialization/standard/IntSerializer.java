@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.IntValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class IntSerializer
-	implements Serializer<Integer>
+	implements IntValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class IntSerializer
 	}
 
 	@Override
-	public Integer read(StreamingInput in)
+	public int readInt(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class IntSerializer
 	}
 
 	@Override
-	public void write(Integer object, StreamingOutput stream)
+	public void writeInt(int value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeInt(object);
+		stream.writeInt(value);
 	}
 
 	@Override
@@ -3,8 +3,8 @@ package se.l4.commons.serialization.standard;
 import java.io.IOException;
 import java.util.Optional;
 
+import se.l4.commons.serialization.LongValueSerializer;
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class LongSerializer
-	implements Serializer<Long>
+	implements LongValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class LongSerializer
 	}
 
 	@Override
-	public Long read(StreamingInput in)
+	public long readLong(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class LongSerializer
 	}
 
 	@Override
-	public void write(Long object, StreamingOutput stream)
+	public void writeLong(long value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeLong(object);
+		stream.writeLong(value);
 	}
 
 	@Override
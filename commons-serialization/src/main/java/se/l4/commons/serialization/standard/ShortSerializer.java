@@ -4,8 +4,8 @@ import java.io.IOException;
 import java.util.Optional;
 
 import se.l4.commons.serialization.QualifiedName;
-import se.l4.commons.serialization.Serializer;
 import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.ShortValueSerializer;
 import se.l4.commons.serialization.format.StreamingInput;
 import se.l4.commons.serialization.format.StreamingOutput;
 import se.l4.commons.serialization.format.Token;
@@ -18,7 +18,7 @@ import se.l4.commons.serialization.format.ValueType;
  *
  */
 public class ShortSerializer
-	implements Serializer<Short>
+	implements ShortValueSerializer
 {
 	private final SerializerFormatDefinition formatDefinition;
 
@@ -34,7 +34,7 @@ public class ShortSerializer
 	}
 
 	@Override
-	public Short read(StreamingInput in)
+	public short readShort(StreamingInput in)
 		throws IOException
 	{
 		in.next(Token.VALUE);
@@ -42,10 +42,10 @@ public class ShortSerializer
 	}
 
 	@Override
-	public void write(Short object, StreamingOutput stream)
+	public void writeShort(short value, StreamingOutput stream)
 		throws IOException
 	{
-		stream.writeInt(object);
+		stream.writeInt(value);
 	}
 
 	@Override
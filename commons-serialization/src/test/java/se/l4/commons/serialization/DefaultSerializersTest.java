@@ -1,8 +1,24 @@
 package se.l4.commons.serialization;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+import se.l4.commons.types.DefaultInstanceFactory;
+import se.l4.commons.types.Types;
+import se.l4.commons.types.mapping.CachePolicy;
+
 public class DefaultSerializersTest
 {
 	private Serializers serializers;
@@ -40,6 +56,130 @@ public class DefaultSerializersTest
 		Serializer<String> string = serializers.find(String.class);
 	}
 
+	@Test
+	public void testFindReturnsSameInstance()
+	{
+		Serializer<ClassWithUse> first = serializers.find(ClassWithUse.class);
+		Serializer<ClassWithUse> second = serializers.find(ClassWithUse.class);
+
+		if(first != second)
+		{
+			throw new AssertionError("Serializer should only be resolved once");
+		}
+	}
+
+	@Test
+	public void testFindRecursive()
+	{
+		Serializer<Node> serializer = serializers.find(Node.class);
+		if(serializers.find(Node.class) != serializer)
+		{
+			throw new AssertionError("Serializer should only be resolved once");
+		}
+	}
+
+	@Test
+	public void testCachePolicy()
+	{
+		Serializers serializers = new DefaultSerializers(
+			new DefaultInstanceFactory(),
+			CachePolicy.maximumSize(500).withExpireAfterAccess(Duration.ofMinutes(10))
+		);
+
+		serializers.find(Types.reference(ClassWithUse.class));
+		serializers.find(Types.reference(ClassWithUse.class));
+
+		assertThat(serializers.getCacheStats().getHitCount(), is(1l));
+	}
+
+	@Test
+	public void testCacheStatsCountClassLookups()
+	{
+		serializers.find(ClassWithUse.class);
+		long hits = serializers.getCacheStats().getHitCount();
+
+		serializers.find(ClassWithUse.class);
+		serializers.find(ClassWithUse.class);
+
+		assertThat(serializers.getCacheStats().getHitCount(), is(hits + 2));
+	}
+
+	@Test
+	public void testBindAfterFind()
+	{
+		Serializer<ClassWithUse> first = serializers.find(ClassWithUse.class);
+
+		Serializer<Unbound> bound = new Serializer<Unbound>()
+		{
+			@Override
+			public Unbound read(StreamingInput in)
+			{
+				return new Unbound();
+			}
+
+			@Override
+			public void write(Unbound object, StreamingOutput out)
+			{
+			}
+		};
+		serializers.bind(Unbound.class, bound);
+
+		assertThat(serializers.find(Unbound.class) == bound, is(true));
+		assertThat(serializers.find(ClassWithUse.class) == first, is(true));
+	}
+
+	@Test(timeout=20000)
+	public void testConcurrentMutuallyRecursive()
+		throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try
+		{
+			for(int i=0; i<50; i++)
+			{
+				// Resolve each side of the cycle in its own thread at the same time
+				Serializers serializers = new DefaultSerializers();
+				CyclicBarrier barrier = new CyclicBarrier(2);
+				Future<?> a = executor.submit(() -> {
+					barrier.await();
+					return serializers.find(Parent.class);
+				});
+				Future<?> b = executor.submit(() -> {
+					barrier.await();
+					return serializers.find(Child.class);
+				});
+
+				a.get(5, TimeUnit.SECONDS);
+				b.get(5, TimeUnit.SECONDS);
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Parent
+	{
+		@Expose
+		public Child child;
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Child
+	{
+		@Expose
+		public Parent parent;
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Node
+	{
+		@Expose
+		public Node next;
+	}
+
 	@Use(ReflectionSerializer.class)
 	public static class ClassWithUse
 	{
@@ -50,4 +190,8 @@ public class DefaultSerializersTest
 	{
 
 	}
+
+	public static class Unbound
+	{
+	}
 }
@@ -0,0 +1,194 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.IOConsumer;
+
+/**
+ * Tests for the binary format where objects and lists are written with
+ * their size.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class BinarySizedTest
+	extends StreamingFormatTest
+{
+	@Override
+	protected StreamingFormat format()
+	{
+		return StreamingFormat.BINARY_V2_SIZED;
+	}
+
+	private static byte[] writeSized(IOConsumer<StreamingOutput> output)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = new BinaryOutput(stream, 16, true, true))
+		{
+			output.accept(out);
+		}
+
+		return stream.toByteArray();
+	}
+
+	private static void writeNested(StreamingOutput out, int count)
+		throws IOException
+	{
+		out.writeObjectStart();
+		out.writeString("skipped");
+		out.writeListStart();
+		for(int i=0; i<count; i++)
+		{
+			out.writeObjectStart();
+			out.writeString("name");
+			out.writeString("Name åäö " + i);
+			out.writeString("values");
+			out.writeIntArray(new int[] { i, -i });
+			out.writeObjectEnd();
+		}
+		out.writeListEnd();
+		out.writeString("id");
+		out.writeInt(12);
+		out.writeObjectEnd();
+	}
+
+	private static void readNested(StreamingInput in)
+		throws IOException
+	{
+		in.next(Token.OBJECT_START);
+		in.next(Token.KEY);
+		assertThat(in.readString(), is("skipped"));
+		in.skipValue();
+		assertThat(in.current(), is(Token.LIST_END));
+		in.next(Token.KEY);
+		assertThat(in.readString(), is("id"));
+		in.next(Token.VALUE);
+		assertThat(in.readInt(), is(12));
+		in.next(Token.OBJECT_END);
+		in.next(Token.END_OF_STREAM);
+	}
+
+	@Test
+	public void testSkipLargeContainer()
+		throws IOException
+	{
+		byte[] data = writeSized(out -> writeNested(out, 1000));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			readNested(in);
+		}
+
+		try(StreamingInput in = format().createInput(Bytes.create(data)))
+		{
+			readNested(in);
+		}
+	}
+
+	@Test
+	public void testSkipAfterPeek()
+		throws IOException
+	{
+		byte[] data = writeSized(out -> writeNested(out, 10));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			in.next(Token.LIST_START);
+			assertThat(in.peek(), is(Token.OBJECT_START));
+			in.skip();
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("id"));
+		}
+	}
+
+	@Test
+	public void testReadAllTokens()
+		throws IOException
+	{
+		byte[] data = writeSized(out -> writeNested(out, 100));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			in.next(Token.LIST_START);
+			for(int i=0; i<100; i++)
+			{
+				in.next(Token.OBJECT_START);
+				in.next(Token.KEY);
+				assertThat(in.readString(), is("name"));
+				in.next(Token.VALUE);
+				assertThat(in.readString(), is("Name åäö " + i));
+				in.next(Token.KEY);
+				assertThat(in.readString(), is("values"));
+				assertThat(in.readIntArray(), is(new int[] { i, -i }));
+				in.next(Token.OBJECT_END);
+			}
+			in.next(Token.LIST_END);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("id"));
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(12));
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testSkipUnsizedValues()
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = StreamingFormat.BINARY.createOutput(stream))
+		{
+			writeNested(out, 100);
+		}
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			readNested(in);
+		}
+	}
+
+	@Test
+	public void testKeysAfterSkippedObject()
+		throws IOException
+	{
+		byte[] data = writeSized(out -> {
+			out.writeListStart();
+			for(int i=0; i<2; i++)
+			{
+				out.writeObjectStart();
+				out.writeString("id");
+				out.writeInt(i);
+				out.writeObjectEnd();
+			}
+			out.writeListEnd();
+		});
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.LIST_START);
+			in.next(Token.OBJECT_START);
+			in.skip();
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("id"));
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(1));
+			in.next(Token.OBJECT_END);
+			in.next(Token.LIST_END);
+		}
+	}
+}
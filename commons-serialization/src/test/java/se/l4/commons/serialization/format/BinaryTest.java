@@ -1,5 +1,23 @@
 package se.l4.commons.serialization.format;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import se.l4.commons.io.ByteBufferChain;
+import se.l4.commons.io.ByteBufferPool;
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.IOSupplier;
+
 /**
  * Tests for the binary format. Tests by first writing some values and then
  * checking that it is possible to read the serialized stream.
@@ -15,4 +33,371 @@ public class BinaryTest
 	{
 		return StreamingFormat.BINARY;
 	}
+
+	@Test
+	public void testStringMultiByte()
+		throws IOException
+	{
+		String value = "åäö € test";
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = new BinaryOutput(stream))
+		{
+			out.writeString(value);
+		}
+
+		try(StreamingInput in = new BinaryInput(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is(value));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testRootValuesWrittenWithoutFlush()
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		StreamingOutput out = new BinaryOutput(stream);
+
+		out.writeInt(12);
+		int afterInt = stream.size();
+		assertThat(afterInt > 0, is(true));
+
+		out.writeObjectStart();
+		out.writeString("key");
+		out.writeString("value");
+		assertThat(stream.size(), is(afterInt));
+
+		out.writeObjectEnd();
+
+		try(StreamingInput in = new BinaryInput(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(12));
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("key"));
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("value"));
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testKeysAreCached()
+		throws IOException
+	{
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeObjectStart();
+			out.writeString("key");
+			out.writeInt(1);
+			out.writeObjectEnd();
+		});
+
+		String first;
+		try(StreamingInput in = in0.get())
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			first = in.readString();
+		}
+
+		try(StreamingInput in = in0.get())
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), sameInstance(first));
+		}
+	}
+
+	@Test
+	public void testSmallBuffers()
+		throws IOException
+	{
+		StringBuilder builder = new StringBuilder();
+		for(int i=0; i<200; i++)
+		{
+			builder.append((char) ('a' + i % 26)).append('ö').append('€');
+		}
+		String longString = builder.toString();
+
+		byte[] data = new byte[100];
+		for(int i=0; i<data.length; i++)
+		{
+			data[i] = (byte) i;
+		}
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = new BinaryOutput(stream, 16))
+		{
+			out.writeListStart();
+			for(int i=0; i<10; i++)
+			{
+				out.writeString(longString);
+				out.writeLong(Long.MIN_VALUE + i);
+				out.writeInt(Integer.MAX_VALUE - i);
+				out.writeDouble(i * 1.5);
+				out.writeFloat(i * 2.5f);
+				out.writeBoolean(i % 2 == 0);
+				out.writeBytes(data);
+				out.writeNull();
+			}
+			out.writeListEnd();
+		}
+
+		// Read back via a stream that only returns a single byte per read
+		InputStream trickle = new FilterInputStream(new ByteArrayInputStream(stream.toByteArray()))
+		{
+			@Override
+			public int read(byte[] b, int off, int len)
+				throws IOException
+			{
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+
+		try(StreamingInput in = new BinaryInput(trickle, 16))
+		{
+			in.next(Token.LIST_START);
+			for(int i=0; i<10; i++)
+			{
+				in.next(Token.VALUE);
+				assertThat(in.readString(), is(longString));
+				in.next(Token.VALUE);
+				assertThat(in.readLong(), is(Long.MIN_VALUE + i));
+				in.next(Token.VALUE);
+				assertThat(in.readInt(), is(Integer.MAX_VALUE - i));
+				in.next(Token.VALUE);
+				assertThat(in.readDouble(), is(i * 1.5));
+				in.next(Token.VALUE);
+				assertThat(in.readFloat(), is(i * 2.5f));
+				in.next(Token.VALUE);
+				assertThat(in.readBoolean(), is(i % 2 == 0));
+				in.next(Token.VALUE);
+				assertThat(in.readByteArray(), is(data));
+				in.next(Token.NULL);
+			}
+			in.next(Token.LIST_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	private static byte[] writeSample(byte[] data)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = new BinaryOutput(stream))
+		{
+			out.writeObjectStart();
+			out.writeString("name");
+			out.writeString("Donna Noble");
+			out.writeString("data");
+			out.writeBytes(data);
+			out.writeString("age");
+			out.writeInt(38);
+			out.writeObjectEnd();
+		}
+
+		return stream.toByteArray();
+	}
+
+	private static void readSample(StreamingInput in, byte[] data)
+		throws IOException
+	{
+		in.next(Token.OBJECT_START);
+		in.next(Token.KEY);
+		assertThat(in.readString(), is("name"));
+		in.next(Token.VALUE);
+		assertThat(in.readString(), is("Donna Noble"));
+		in.next(Token.KEY);
+		assertThat(in.readString(), is("data"));
+		in.next(Token.VALUE);
+		assertThat(in.readBytes().toByteArray(), is(data));
+		in.next(Token.KEY);
+		assertThat(in.readString(), is("age"));
+		in.next(Token.VALUE);
+		assertThat(in.readInt(), is(38));
+		in.next(Token.OBJECT_END);
+		in.next(Token.END_OF_STREAM);
+	}
+
+	@Test
+	public void testReadFromBytesRegion()
+		throws IOException
+	{
+		byte[] data = new byte[] { 1, 2, 3, 4 };
+		byte[] encoded = writeSample(data);
+
+		// Place the encoded data in the middle of a larger array
+		byte[] array = new byte[encoded.length + 20];
+		System.arraycopy(encoded, 0, array, 10, encoded.length);
+
+		try(StreamingInput in = format().createInput(Bytes.create(array, 10, encoded.length)))
+		{
+			readSample(in, data);
+		}
+	}
+
+	@Test
+	public void testReadBytesSharesArray()
+		throws IOException
+	{
+		byte[] encoded = writeSample(new byte[] { 1, 2, 3, 4 });
+
+		Bytes bytes;
+		try(StreamingInput in = new BinaryInput(encoded))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			in.skipValue();
+			in.next(Token.KEY);
+			in.next(Token.VALUE);
+			bytes = in.readBytes();
+		}
+
+		// Modify the array to verify that the bytes are a slice of it, the
+		// data is followed by the age key and value and the end of the object
+		int offset = encoded.length - 12;
+		assertThat(encoded[offset], is((byte) 1));
+		encoded[offset] = 9;
+
+		assertThat(bytes.toByteArray(), is(new byte[] { 9, 2, 3, 4 }));
+	}
+
+	@Test
+	public void testReadFromHeapBuffer()
+		throws IOException
+	{
+		byte[] data = new byte[] { 1, 2, 3, 4 };
+		byte[] encoded = writeSample(data);
+
+		ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 5);
+		buffer.position(5);
+		buffer.put(encoded);
+		buffer.position(5);
+
+		try(StreamingInput in = format().createInput(buffer))
+		{
+			readSample(in, data);
+		}
+
+		assertThat(buffer.position(), is(5));
+	}
+
+	@Test
+	public void testReadFromDirectBuffer()
+		throws IOException
+	{
+		// Larger than the internal buffer to force several copies
+		byte[] data = new byte[BinaryInput.DEFAULT_BUFFER_SIZE * 3];
+		for(int i=0; i<data.length; i++)
+		{
+			data[i] = (byte) i;
+		}
+
+		byte[] encoded = writeSample(data);
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length);
+		buffer.put(encoded);
+		buffer.flip();
+
+		try(StreamingInput in = format().createInput(buffer))
+		{
+			readSample(in, data);
+		}
+
+		assertThat(buffer.position(), is(0));
+	}
+
+	private void testPooled(ByteBufferPool pool)
+		throws IOException
+	{
+		byte[] data = new byte[1000];
+		for(int i=0; i<data.length; i++)
+		{
+			data[i] = (byte) i;
+		}
+
+		byte[] expected = writeSample(data);
+
+		try(PooledBinaryOutput out = new PooledBinaryOutput(pool))
+		{
+			out.writeObjectStart();
+			out.writeString("name");
+			out.writeString("Donna Noble");
+			out.writeString("data");
+			out.writeBytes(data);
+			out.writeString("age");
+			out.writeInt(38);
+			out.writeObjectEnd();
+
+			try(ByteBufferChain result = out.getResult())
+			{
+				assertThat(result.size(), is((long) expected.length));
+				assertThat(result.toByteArray(), is(expected));
+
+				ByteArrayOutputStream gathered = new ByteArrayOutputStream();
+				for(ByteBuffer buffer : result.toByteBuffers())
+				{
+					byte[] chunk = new byte[buffer.remaining()];
+					buffer.get(chunk);
+					gathered.write(chunk);
+				}
+				assertThat(gathered.toByteArray(), is(expected));
+
+				try(StreamingInput in = format().createInput(result))
+				{
+					readSample(in, data);
+				}
+			}
+		}
+
+		assertThat(pool.getPooledCount() > 0, is(true));
+	}
+
+	@Test
+	public void testPooledHeapOutput()
+		throws IOException
+	{
+		testPooled(ByteBufferPool.builder()
+			.withBufferSize(64)
+			.build()
+		);
+	}
+
+	@Test
+	public void testPooledDirectOutput()
+		throws IOException
+	{
+		testPooled(ByteBufferPool.builder()
+			.withBufferSize(64)
+			.direct()
+			.build()
+		);
+	}
+
+	@Test
+	public void testPooledOutputSingleBuffer()
+		throws IOException
+	{
+		ByteBufferPool pool = ByteBufferPool.builder().build();
+		try(PooledBinaryOutput out = new PooledBinaryOutput(pool))
+		{
+			out.writeString("test");
+
+			try(ByteBufferChain result = out.getResult())
+			{
+				assertThat(result.toByteBuffers().length, is(1));
+
+				try(StreamingInput in = new BinaryInput(result.asByteBuffer()))
+				{
+					in.next(Token.VALUE);
+					assertThat(in.readString(), is("test"));
+					in.next(Token.END_OF_STREAM);
+				}
+			}
+		}
+	}
 }
@@ -0,0 +1,199 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import se.l4.commons.io.IOConsumer;
+
+/**
+ * Tests for version two of the binary format, which writes keys via a key
+ * dictionary.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class BinaryV2Test
+	extends StreamingFormatTest
+{
+	@Override
+	protected StreamingFormat format()
+	{
+		return StreamingFormat.BINARY_V2;
+	}
+
+	private static byte[] write(StreamingFormat format, IOConsumer<StreamingOutput> output)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			output.accept(out);
+		}
+
+		return stream.toByteArray();
+	}
+
+	private static void writeObjects(StreamingOutput out, int count)
+		throws IOException
+	{
+		out.writeListStart();
+		for(int i=0; i<count; i++)
+		{
+			out.writeObjectStart();
+			out.writeString("id");
+			out.writeInt(i);
+			out.writeString("name");
+			out.writeString("Name " + i);
+			out.writeObjectEnd();
+		}
+		out.writeListEnd();
+	}
+
+	private static void readObjects(StreamingInput in, int count)
+		throws IOException
+	{
+		in.next(Token.LIST_START);
+		for(int i=0; i<count; i++)
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("id"));
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(i));
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("name"));
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("Name " + i));
+			in.next(Token.OBJECT_END);
+		}
+		in.next(Token.LIST_END);
+		in.next(Token.END_OF_STREAM);
+	}
+
+	@Test
+	public void testRepeatedKeys()
+		throws IOException
+	{
+		byte[] v1 = write(StreamingFormat.BINARY, out -> writeObjects(out, 100));
+		byte[] v2 = write(StreamingFormat.BINARY_V2, out -> writeObjects(out, 100));
+
+		// Every object after the first saves two bytes for id and four for name
+		assertThat(v2.length, is(v1.length - 99 * 6));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(v2)))
+		{
+			readObjects(in, 100);
+		}
+	}
+
+	@Test
+	public void testReadVersionOne()
+		throws IOException
+	{
+		byte[] v1 = write(StreamingFormat.BINARY, out -> writeObjects(out, 10));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(v1)))
+		{
+			readObjects(in, 10);
+		}
+	}
+
+	@Test
+	public void testKeysDefinedInSkippedObject()
+		throws IOException
+	{
+		byte[] data = write(StreamingFormat.BINARY_V2, out -> writeObjects(out, 3));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.LIST_START);
+			in.next(Token.OBJECT_START);
+			in.skip();
+
+			KeySet keys = KeySet.of("name", "id");
+			for(int i=1; i<3; i++)
+			{
+				in.next(Token.OBJECT_START);
+				in.next(Token.KEY);
+				assertThat(in.readKey(keys), is(1));
+				in.next(Token.VALUE);
+				assertThat(in.readInt(), is(i));
+				in.next(Token.KEY);
+				assertThat(in.readKey(keys), is(0));
+				in.skipValue();
+				in.next(Token.OBJECT_END);
+			}
+			in.next(Token.LIST_END);
+		}
+	}
+
+	@Test
+	public void testManyKeys()
+		throws IOException
+	{
+		int count = BinaryOutput.MAX_KEYS + 10;
+		byte[] data = write(StreamingFormat.BINARY_V2, out -> {
+			out.writeObjectStart();
+			for(int i=0; i<count; i++)
+			{
+				out.writeString("key" + i);
+				out.writeInt(i);
+			}
+			for(int i=count - 1; i>=0; i--)
+			{
+				out.writeString("key" + i);
+				out.writeInt(i);
+			}
+			out.writeObjectEnd();
+		});
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.OBJECT_START);
+			for(int i=0; i<count; i++)
+			{
+				in.next(Token.KEY);
+				assertThat(in.readString(), is("key" + i));
+				in.next(Token.VALUE);
+				assertThat(in.readInt(), is(i));
+			}
+			for(int i=count - 1; i>=0; i--)
+			{
+				in.next(Token.KEY);
+				assertThat(in.readString(), is("key" + i));
+				in.next(Token.VALUE);
+				assertThat(in.readInt(), is(i));
+			}
+			in.next(Token.OBJECT_END);
+		}
+	}
+
+	@Test
+	public void testPackedArrays()
+		throws IOException
+	{
+		int[] values = new int[100];
+		for(int i=0; i<values.length; i++)
+		{
+			values[i] = i - 50;
+		}
+
+		byte[] v1 = write(StreamingFormat.BINARY, out -> out.writeIntArray(values));
+		byte[] v2 = write(StreamingFormat.BINARY_V2, out -> out.writeIntArray(values));
+
+		// Packed arrays skip the tag of every item and the end of the list
+		assertThat(v2.length, is(v1.length - 100));
+
+		try(StreamingInput in = format().createInput(new ByteArrayInputStream(v2)))
+		{
+			assertThat(in.readIntArray(), is(values));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.junit.Test;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.IOConsumer;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.Use;
+
+/**
+ * Tests for {@link FeedInput}. Data is fed in chunks of different sizes to
+ * make sure that values are found regardless of where the chunks end.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class FeedInputTest
+{
+	private static final List<StreamingFormat> FORMATS = Arrays.asList(
+		StreamingFormat.BINARY,
+		StreamingFormat.BINARY_V2,
+		StreamingFormat.BINARY_V2_SIZED,
+		StreamingFormat.JSON
+	);
+
+	private final DefaultSerializers serializers = new DefaultSerializers();
+
+	private static byte[] write(StreamingFormat format, IOConsumer<StreamingOutput> output)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			output.accept(out);
+		}
+
+		return stream.toByteArray();
+	}
+
+	private static <T> List<T> feed(FeedInput feed, Serializer<T> serializer, byte[] data, int chunkSize)
+		throws IOException
+	{
+		List<T> result = new ArrayList<>();
+		for(int i=0; i<data.length; i+=chunkSize)
+		{
+			feed.feed(ByteBuffer.wrap(data, i, Math.min(chunkSize, data.length - i)));
+			while(feed.poll() == FeedState.VALUE_AVAILABLE)
+			{
+				result.add(feed.read(serializer));
+			}
+		}
+
+		feed.endOfInput();
+		while(feed.poll() == FeedState.VALUE_AVAILABLE)
+		{
+			result.add(feed.read(serializer));
+		}
+
+		assertThat(feed.poll(), is(FeedState.END_OF_INPUT));
+		return result;
+	}
+
+	private static List<Point> createPoints()
+	{
+		List<Point> points = new ArrayList<>();
+		for(int i=0; i<20; i++)
+		{
+			Point point = new Point();
+			point.x = i * 1000 - 5000;
+			point.y = i / 3.0;
+			point.name = i % 4 == 0 ? null : "Point åäö " + i;
+			point.data = new int[] { i, i * 2, i * 3 };
+			points.add(point);
+		}
+		return points;
+	}
+
+	@Test
+	public void testObjectsInChunks()
+		throws IOException
+	{
+		Serializer<Point> serializer = serializers.find(Point.class);
+		List<Point> points = createPoints();
+
+		List<StreamingFormat> formats = new ArrayList<>(FORMATS);
+		formats.add(StreamingFormat.schemaBinary(serializer.getFormatDefinition()));
+
+		for(StreamingFormat format : formats)
+		{
+			byte[] data = write(format, out -> {
+				for(Point point : points)
+				{
+					out.writeObject(serializer, point);
+				}
+			});
+
+			for(int chunkSize : new int[] { 1, 3, 7, 64, data.length })
+			{
+				List<Point> read = feed(format.createFeedInput().get(), serializer, data, chunkSize);
+				assertThat(format + " with chunks of " + chunkSize, read, is(points));
+			}
+		}
+	}
+
+	@Test
+	public void testValuesAtRoot()
+		throws IOException
+	{
+		Serializer<Object> serializer = new Serializer<Object>()
+		{
+			@Override
+			public Object read(StreamingInput in)
+				throws IOException
+			{
+				in.next(Token.VALUE);
+				return in.readDynamic();
+			}
+
+			@Override
+			public void write(Object object, StreamingOutput out)
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		List<StreamingFormat> formats = new ArrayList<>(FORMATS);
+		formats.add(StreamingFormat.schemaBinary(SerializerFormatDefinition.any()));
+
+		for(StreamingFormat format : formats)
+		{
+			byte[] data = write(format, out -> {
+				out.writeInt(12);
+				out.writeString("value");
+				out.writeNull();
+				out.writeDouble(2.5);
+				out.writeBoolean(true);
+				out.writeLong(-9000000000l);
+			});
+
+			for(int chunkSize : new int[] { 1, data.length })
+			{
+				List<Object> read = feed(format.createFeedInput().get(), serializer, data, chunkSize);
+				assertThat(read.size(), is(6));
+				assertThat(((Number) read.get(0)).intValue(), is(12));
+				assertThat(read.get(1), is("value"));
+				assertThat(read.get(2), nullValue());
+				assertThat(((Number) read.get(3)).doubleValue(), is(2.5));
+				assertThat(read.get(4), is(true));
+				assertThat(((Number) read.get(5)).longValue(), is(-9000000000l));
+			}
+		}
+	}
+
+	@Test
+	public void testNeedMoreInput()
+		throws IOException
+	{
+		Serializer<Point> serializer = serializers.find(Point.class);
+		Point point = createPoints().get(1);
+
+		List<StreamingFormat> formats = new ArrayList<>(FORMATS);
+		formats.add(StreamingFormat.schemaBinary(serializer.getFormatDefinition()));
+
+		for(StreamingFormat format : formats)
+		{
+			byte[] data = write(format, out -> out.writeObject(serializer, point));
+
+			FeedInput feed = format.createFeedInput().get();
+			assertThat(feed.poll(), is(FeedState.NEED_MORE_INPUT));
+
+			feed.feed(ByteBuffer.wrap(data, 0, data.length - 1));
+			assertThat(feed.poll(), is(FeedState.NEED_MORE_INPUT));
+
+			feed.feed(ByteBuffer.wrap(data, data.length - 1, 1));
+			assertThat(feed.poll(), is(FeedState.VALUE_AVAILABLE));
+			assertThat(feed.read(serializer), is(point));
+			assertThat(feed.poll(), is(FeedState.NEED_MORE_INPUT));
+		}
+	}
+
+	@Test
+	public void testReadBytesNotOverwrittenByFeed()
+		throws IOException
+	{
+		Serializer<Bytes> serializer = new Serializer<Bytes>()
+		{
+			@Override
+			public Bytes read(StreamingInput in)
+				throws IOException
+			{
+				in.next(Token.VALUE);
+				return in.readBytes();
+			}
+
+			@Override
+			public void write(Bytes object, StreamingOutput out)
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+
+		// Large enough for the buffer to be compacted while feeding
+		byte[] data = write(StreamingFormat.BINARY, out -> {
+			for(int i=0; i<500; i++)
+			{
+				out.writeBytes(new byte[] { (byte) i, (byte) (i + 1), (byte) (i + 2) });
+			}
+		});
+
+		List<Bytes> read = feed(StreamingFormat.BINARY.createFeedInput().get(), serializer, data, 13);
+		assertThat(read.size(), is(500));
+		for(int i=0; i<500; i++)
+		{
+			assertThat(read.get(i).toByteArray(), is(new byte[] { (byte) i, (byte) (i + 1), (byte) (i + 2) }));
+		}
+	}
+
+	@Test(expected=EOFException.class)
+	public void testEndInMiddleOfValue()
+		throws IOException
+	{
+		FeedInput feed = StreamingFormat.BINARY.createFeedInput().get();
+		byte[] data = write(StreamingFormat.BINARY, out -> out.writeString("value"));
+
+		feed.feed(ByteBuffer.wrap(data, 0, data.length - 1));
+		feed.endOfInput();
+		feed.poll();
+	}
+
+	@Test
+	public void testFeedingIsOptional()
+	{
+		StreamingFormat format = StreamingFormat.create(
+			in -> new JsonInput(in),
+			out -> new JsonOutput(out)
+		);
+
+		assertThat(format.createFeedInput().isPresent(), is(false));
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Point
+	{
+		@Expose
+		public int x;
+		@Expose
+		public double y;
+		@Expose
+		public String name;
+		@Expose
+		public int[] data;
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(x, y, name, Arrays.hashCode(data));
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj) return true;
+			if(obj == null || getClass() != obj.getClass()) return false;
+			Point other = (Point) obj;
+			return x == other.x
+				&& y == other.y
+				&& Objects.equals(name, other.name)
+				&& Arrays.equals(data, other.data);
+		}
+	}
+}
@@ -10,6 +10,8 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -47,6 +49,29 @@ public class JsonInputTest
 		}
 	}
 
+	@Test
+	public void testKeysAreReused()
+		throws IOException
+	{
+		String v = "[{\"key\": 1}, {\"key\": 2, \"k\\u0065y2\": 3}]";
+		try(StreamingInput in = createInput(v))
+		{
+			in.next(Token.LIST_START);
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			String first = in.readString();
+			in.next(Token.VALUE);
+			in.next(Token.OBJECT_END);
+
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString() == first, is(true));
+			in.next(Token.VALUE);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("key2"));
+		}
+	}
+
 	@Test
 	public void testReadNull()
 		throws IOException
@@ -527,6 +552,134 @@ public class JsonInputTest
 		assertStream(out, "12.2");
 	}
 
+	@Test
+	public void testWriteIntExtremes()
+		throws IOException
+	{
+		StreamingOutput out = createOutput();
+		out.writeListStart();
+		out.writeInt(0);
+		out.writeInt(-7);
+		out.writeInt(Integer.MIN_VALUE);
+		out.writeInt(Integer.MAX_VALUE);
+		out.writeLong(Long.MIN_VALUE);
+		out.writeLong(Long.MAX_VALUE);
+		out.writeLong(1000000000000000000l);
+		out.writeListEnd();
+
+		assertStream(out, "[0,-7,-2147483648,2147483647,-9223372036854775808,9223372036854775807,1000000000000000000]");
+	}
+
+	@Test
+	public void testWriteDoubleValues()
+		throws IOException
+	{
+		StreamingOutput out = createOutput();
+		out.writeListStart();
+		out.writeDouble(0.0);
+		out.writeDouble(-0.0);
+		out.writeDouble(100.0);
+		out.writeDouble(-98.5);
+		out.writeDouble(0.001);
+		out.writeDouble(0.1 + 0.2);
+		out.writeDouble(1e7);
+		out.writeDouble(1.5e-4);
+		out.writeListEnd();
+
+		assertStream(out, "[0.0,-0.0,100.0,-98.5,0.001,0.30000000000000004,1.0E7,1.5E-4]");
+	}
+
+	@Test
+	public void testWriteDoubleRoundTrip()
+		throws IOException
+	{
+		Random random = new Random(1201);
+		for(int i=0; i<10000; i++)
+		{
+			double value;
+			switch(i % 3)
+			{
+				case 0:
+					value = random.nextDouble();
+					break;
+				case 1:
+					value = random.nextInt(100000000) / 100.0;
+					break;
+				default:
+					value = (random.nextDouble() - 0.5) * 2e7;
+			}
+
+			StringWriter writer = new StringWriter();
+			try(StreamingOutput out = new JsonOutput(writer))
+			{
+				out.writeDouble(value);
+			}
+
+			assertThat(Double.parseDouble(writer.toString()), is(value));
+			assertThat(writer.toString().length() <= Double.toString(value).length(), is(true));
+		}
+	}
+
+	@Test
+	public void testRootValuesWrittenWithoutFlush()
+		throws IOException
+	{
+		StringWriter writer = new StringWriter();
+		StreamingOutput out = new JsonOutput(writer);
+
+		out.writeInt(12);
+		assertThat(writer.toString(), is("12"));
+
+		out.writeObjectStart();
+		out.writeString("key");
+		out.writeString("value");
+		assertThat(writer.toString(), is("12"));
+
+		out.writeObjectEnd();
+		assertThat(writer.toString(), is("12,{\"key\":\"value\"}"));
+	}
+
+	@Test
+	public void testWriteFloatRoundTrip()
+		throws IOException
+	{
+		Random random = new Random(1201);
+		for(int i=0; i<10000; i++)
+		{
+			float value;
+			switch(i % 3)
+			{
+				case 0:
+					value = random.nextFloat();
+					break;
+				case 1:
+					value = random.nextInt(1000000) / 100f;
+					break;
+				default:
+					value = (random.nextFloat() - 0.5f) * 2e7f;
+			}
+
+			StringWriter writer = new StringWriter();
+			try(StreamingOutput out = new JsonOutput(writer))
+			{
+				out.writeFloat(value);
+			}
+
+			assertThat(Float.parseFloat(writer.toString()), is(value));
+			assertThat(writer.toString().length() <= Float.toString(value).length(), is(true));
+		}
+	}
+
+	@Test
+	public void testWriteEscapedString()
+		throws IOException
+	{
+		StreamingOutput out = createOutput();
+		out.writeString("a\"b\\c\nd\u0001e\u001ffå");
+
+		assertStream(out, "\"a\\\"b\\\\c\\nd\\u0001e\\u001Ffå\"");
+	}
+
 	@Test
 	public void testWriteShort()
 		throws IOException
@@ -753,6 +906,38 @@ public class JsonInputTest
 		assertStream(out, "\"a2FrYQ==\"");
 	}
 
+	@Test
+	public void testWriteByteArrayLengths()
+		throws IOException
+	{
+		for(int length=0; length<10; length++)
+		{
+			byte[] data = new byte[length];
+			for(int i=0; i<length; i++)
+			{
+				data[i] = (byte) (i * 97);
+			}
+
+			StreamingOutput out = createOutput();
+			out.writeBytes(data);
+
+			assertStream(out, "\"" + Base64.getEncoder().encodeToString(data) + "\"");
+		}
+	}
+
+	@Test
+	public void testWriteLargeByteArray()
+		throws IOException
+	{
+		byte[] data = new byte[10000];
+		new Random(1201).nextBytes(data);
+
+		StreamingOutput out = createOutput();
+		out.writeBytes(data);
+
+		assertStream(out, "\"" + Base64.getEncoder().encodeToString(data) + "\"");
+	}
+
 	private StreamingOutput createOutput()
 	{
 		return new TestJsonOutput();
@@ -773,6 +958,15 @@ public class JsonInputTest
 
 		public void verify(String expected)
 		{
+			try
+			{
+				flush();
+			}
+			catch(IOException e)
+			{
+				throw new AssertionError(e);
+			}
+
 			String value = ((StringWriter) writer).toString();
 			assertThat(value, is(expected));
 		}
@@ -0,0 +1,197 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.junit.Test;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.IOConsumer;
+import se.l4.commons.serialization.DefaultSerializers;
+
+/**
+ * Tests for {@link LazyValue} and {@link LazyObject}. Every test is run
+ * against formats that can seek and formats that can not.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class LazyValueTest
+{
+	private static final List<StreamingFormat> FORMATS = Arrays.asList(
+		StreamingFormat.BINARY,
+		StreamingFormat.BINARY_V2,
+		StreamingFormat.BINARY_V2_SIZED,
+		StreamingFormat.JSON
+	);
+
+	private static Bytes write(StreamingFormat format, IOConsumer<StreamingOutput> output)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			output.accept(out);
+		}
+
+		return Bytes.create(stream.toByteArray());
+	}
+
+	private static void writeOrder(StreamingOutput out)
+		throws IOException
+	{
+		out.writeObjectStart();
+		out.writeString("order");
+		out.writeObjectStart();
+
+		out.writeString("lines");
+		out.writeListStart();
+		for(int i=0; i<3; i++)
+		{
+			out.writeObjectStart();
+			out.writeString("id");
+			out.writeInt(i);
+			out.writeString("name");
+			out.writeString("Line " + i);
+			out.writeObjectEnd();
+		}
+		out.writeListEnd();
+
+		out.writeString("customer");
+		out.writeObjectStart();
+		out.writeString("id");
+		out.writeLong(9000000000l);
+		out.writeString("name");
+		out.writeString("Customer åäö");
+		out.writeString("vip");
+		out.writeBoolean(true);
+		out.writeString("note");
+		out.writeNull();
+		out.writeObjectEnd();
+
+		out.writeObjectEnd();
+		out.writeObjectEnd();
+	}
+
+	@Test
+	public void testPathLookup()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, LazyValueTest::writeOrder), format);
+
+			assertThat(value.get("order.customer.id").get().asLong(), is(9000000000l));
+			assertThat(value.get("order.customer.name").get().asString(), is("Customer åäö"));
+			assertThat(value.get("order.customer.vip").get().asBoolean(), is(true));
+			assertThat(value.get("order.lines.2.name").get().asString(), is("Line 2"));
+			assertThat(value.get("order.lines.1.id").get().asInt(), is(1));
+		}
+	}
+
+	@Test
+	public void testMissingPath()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, LazyValueTest::writeOrder), format);
+
+			assertThat(value.get("order.unknown").isPresent(), is(false));
+			assertThat(value.get("order.lines.3").isPresent(), is(false));
+			assertThat(value.get("order.lines.name").isPresent(), is(false));
+			assertThat(value.get("order.customer.id.value").isPresent(), is(false));
+		}
+	}
+
+	@Test
+	public void testObjectKeys()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, LazyValueTest::writeOrder), format);
+
+			LazyObject customer = value.get("order.customer").get().asObject();
+			assertThat(customer.size(), is(4));
+			assertThat(customer.keys().toList(), is(Lists.mutable.of("id", "name", "vip", "note")));
+			assertThat(customer.getField("note").get().isNull(), is(true));
+			assertThat(customer.getField("note").get().asString(), nullValue());
+			assertThat(customer.get("vip").get().getToken(), is(Token.VALUE));
+		}
+	}
+
+	@Test
+	public void testList()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, LazyValueTest::writeOrder), format);
+
+			LazyValue lines = value.get("order.lines").get();
+			assertThat(lines.isList(), is(true));
+			assertThat(lines.asList().size(), is(3));
+			assertThat(lines.asList().get(0).isObject(), is(true));
+			assertThat(lines.asList().get(0).get("name").get().asDynamic(), is("Line 0"));
+		}
+	}
+
+	@Test
+	public void testReadWithSerializer()
+		throws IOException
+	{
+		DefaultSerializers serializers = new DefaultSerializers();
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, LazyValueTest::writeOrder), format);
+
+			assertThat(value.get("order.customer.name").get().read(serializers.find(String.class)), is("Customer åäö"));
+			assertThat(value.get("order.customer.note").get().read(serializers.find(String.class)), nullValue());
+		}
+	}
+
+	@Test
+	public void testRootValue()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			LazyValue value = LazyValue.of(write(format, out -> out.writeString("value")), format);
+
+			assertThat(value.getToken(), is(Token.VALUE));
+			assertThat(value.asString(), is("value"));
+			assertThat(value.get("key").isPresent(), is(false));
+		}
+	}
+
+	@Test
+	public void testSeekWithKeyDictionary()
+		throws IOException
+	{
+		Bytes data = write(StreamingFormat.BINARY_V2, out -> {
+			out.writeListStart();
+			for(int i=0; i<3; i++)
+			{
+				out.writeObjectStart();
+				out.writeString("id");
+				out.writeInt(i);
+				out.writeObjectEnd();
+			}
+			out.writeListEnd();
+		});
+
+		LazyValue value = LazyValue.of(data, StreamingFormat.BINARY_V2);
+
+		// Read the last object first, its key refers to the first object
+		assertThat(value.get("2.id").get().asInt(), is(2));
+		assertThat(value.get("0.id").get().asInt(), is(0));
+	}
+}
@@ -0,0 +1,156 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.io.IOConsumer;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Serializers;
+
+/**
+ * Tests for reading and writing lists one item at a time via
+ * {@link StreamingInput#readAsIterator(se.l4.commons.serialization.Serializer)}
+ * and {@link StreamingOutput#writeAll(se.l4.commons.serialization.Serializer, Iterator)}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class ListStreamingTest
+{
+	private static final List<StreamingFormat> FORMATS = Arrays.asList(
+		StreamingFormat.BINARY,
+		StreamingFormat.BINARY_V2,
+		StreamingFormat.BINARY_V2_SIZED,
+		StreamingFormat.JSON
+	);
+
+	private final Serializers serializers = new DefaultSerializers();
+
+	private static Bytes write(StreamingFormat format, IOConsumer<StreamingOutput> output)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			output.accept(out);
+		}
+
+		return Bytes.create(stream.toByteArray());
+	}
+
+	@Test
+	public void testLargeList()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			Bytes data = write(format, out -> serializers.writeAll(
+				out, Integer.class, IntStream.range(0, 100000).iterator()
+			));
+
+			try(StreamingInput in = format.createInput(data))
+			{
+				try(Stream<Integer> stream = serializers.readAsStream(in, Integer.class))
+				{
+					assertThat(stream.mapToLong(i -> i).sum(), is(4999950000l));
+				}
+
+				in.next(Token.END_OF_STREAM);
+			}
+		}
+	}
+
+	@Test
+	public void testNullItems()
+		throws IOException
+	{
+		List<String> items = Arrays.asList("a", null, "c");
+		for(StreamingFormat format : FORMATS)
+		{
+			Bytes data = write(format, out -> serializers.writeAll(out, String.class, items.iterator()));
+
+			try(StreamingInput in = format.createInput(data))
+			{
+				List<String> read = serializers.readAsStream(in, String.class)
+					.collect(Collectors.toList());
+
+				assertThat(read, is(items));
+			}
+		}
+	}
+
+	@Test
+	public void testEmptyList()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			Bytes data = write(format, out -> {
+				out.writeListStart();
+				out.writeListStart();
+				out.writeListEnd();
+				out.writeString("after");
+				out.writeListEnd();
+			});
+
+			try(StreamingInput in = format.createInput(data))
+			{
+				in.next(Token.LIST_START);
+				Iterator<String> it = serializers.readAsIterator(in, String.class);
+				assertThat(it.hasNext(), is(false));
+				assertThat(it.hasNext(), is(false));
+
+				in.next(Token.VALUE);
+				assertThat(in.readString(), is("after"));
+			}
+		}
+	}
+
+	@Test
+	public void testPartialRead()
+		throws IOException
+	{
+		for(StreamingFormat format : FORMATS)
+		{
+			Bytes data = write(format, out -> serializers.writeAll(
+				out, Integer.class, IntStream.range(0, 10).iterator()
+			));
+
+			try(StreamingInput in = format.createInput(data))
+			{
+				Iterator<Integer> it = serializers.readAsIterator(in, Integer.class);
+				assertThat(it.next(), is(0));
+				assertThat(it.next(), is(1));
+				assertThat(in.current(), is(Token.VALUE));
+			}
+		}
+	}
+
+	@Test(expected=UncheckedIOException.class)
+	public void testTruncatedList()
+		throws IOException
+	{
+		Bytes data = write(StreamingFormat.BINARY, out -> {
+			out.writeListStart();
+			out.writeInt(1);
+		});
+
+		try(StreamingInput in = StreamingFormat.BINARY.createInput(data))
+		{
+			serializers.readAsStream(in, Integer.class).count();
+		}
+	}
+}
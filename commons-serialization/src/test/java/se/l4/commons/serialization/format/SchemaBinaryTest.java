@@ -0,0 +1,335 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.Test;
+
+import se.l4.commons.io.Bytes;
+import se.l4.commons.serialization.AllowAny;
+import se.l4.commons.serialization.DefaultSerializers;
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.SerializerFormatDefinition;
+import se.l4.commons.serialization.Use;
+import se.l4.commons.serialization.collections.StringKey;
+
+/**
+ * Tests for the schema based binary format created via
+ * {@link StreamingFormat#schemaBinary(SerializerFormatDefinition)}.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class SchemaBinaryTest
+{
+	private final DefaultSerializers collection = new DefaultSerializers();
+
+	private static <T> byte[] write(Serializer<T> serializer, StreamingFormat format, T object)
+		throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			out.writeObject(serializer, object);
+		}
+
+		return stream.toByteArray();
+	}
+
+	private static <T> T read(Serializer<T> serializer, StreamingFormat format, byte[] data)
+		throws IOException
+	{
+		try(StreamingInput in = format.createInput(new ByteArrayInputStream(data)))
+		{
+			if(in.peek() == Token.NULL)
+			{
+				in.next();
+				return null;
+			}
+
+			return serializer.read(in);
+		}
+	}
+
+	private static Order createOrder()
+	{
+		Order order = new Order();
+		order.id = 9000000000l;
+		order.customer = "Customer åäö";
+		order.paid = true;
+		order.lines = new ArrayList<>();
+		for(int i=0; i<10; i++)
+		{
+			Line line = new Line();
+			line.sku = "SKU-" + i;
+			line.quantity = i - 2;
+			line.price = i * 1.25;
+			line.weight = i / 4f;
+			order.lines.add(line);
+		}
+		order.lines.add(null);
+
+		order.counts = new HashMap<>();
+		order.counts.put("a", 1);
+		order.counts.put("b", null);
+
+		order.data = new byte[] { 1, 2, 3 };
+		order.extra = 12l;
+		return order;
+	}
+
+	@Test
+	public void testRoundTrip()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		Order order = createOrder();
+		byte[] data = write(serializer, format, order);
+		assertThat(read(serializer, format, data), is(order));
+	}
+
+	@Test
+	public void testRoundTripWithNulls()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		Order order = new Order();
+		order.id = 1;
+		byte[] data = write(serializer, format, order);
+		assertThat(read(serializer, format, data), is(order));
+	}
+
+	@Test
+	public void testNullRoot()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		byte[] data = write(serializer, format, null);
+		assertThat(read(serializer, format, data), nullValue());
+	}
+
+	@Test
+	public void testReadFromBytes()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		Order order = createOrder();
+		byte[] data = write(serializer, format, order);
+		try(StreamingInput in = format.createInput(Bytes.create(data)))
+		{
+			assertThat(serializer.read(in), is(order));
+		}
+	}
+
+	@Test
+	public void testSmallerThanBinary()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		Order order = createOrder();
+		byte[] binary = write(serializer, StreamingFormat.BINARY, order);
+		byte[] schema = write(serializer, format, order);
+
+		assertThat(schema.length, lessThan(binary.length / 2));
+	}
+
+	@Test(expected=IOException.class)
+	public void testFingerprintMismatch()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		Serializer<Line> lineSerializer = collection.find(Line.class);
+
+		byte[] data = write(lineSerializer, StreamingFormat.schemaBinary(lineSerializer.getFormatDefinition()), new Line());
+		read(serializer, StreamingFormat.schemaBinary(serializer.getFormatDefinition()), data);
+	}
+
+	@Test
+	public void testSameDefinitionSameFingerprint()
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+
+		SchemaLayout a = SchemaLayout.of(serializer.getFormatDefinition());
+		SchemaLayout b = SchemaLayout.of(new DefaultSerializers().find(Order.class).getFormatDefinition());
+		assertThat(a.getFingerprint(), is(b.getFingerprint()));
+	}
+
+	@Test
+	public void testSkipValues()
+		throws IOException
+	{
+		Serializer<Order> serializer = collection.find(Order.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		byte[] data = write(serializer, format, createOrder());
+		try(StreamingInput in = format.createInput(new ByteArrayInputStream(data)))
+		{
+			in.next(Token.OBJECT_START);
+			while(in.peek() != Token.OBJECT_END)
+			{
+				in.next(Token.KEY);
+				in.skipValue();
+			}
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testAnyValues()
+		throws IOException
+	{
+		StreamingFormat format = StreamingFormat.schemaBinary(SerializerFormatDefinition.any());
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(StreamingOutput out = format.createOutput(stream))
+		{
+			out.writeObjectStart();
+			out.writeString("list");
+			out.writeListStart();
+			out.writeInt(12);
+			out.writeNull();
+			out.writeString("value");
+			out.writeListEnd();
+			out.writeString("double");
+			out.writeDouble(2.5);
+			out.writeObjectEnd();
+
+			out.writeBoolean(true);
+		}
+
+		try(StreamingInput in = format.createInput(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("list"));
+			in.next(Token.LIST_START);
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(12));
+			in.next(Token.NULL);
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("value"));
+			in.next(Token.LIST_END);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("double"));
+			in.next(Token.VALUE);
+			assertThat(in.readDouble(), is(2.5));
+			in.next(Token.OBJECT_END);
+
+			in.next(Token.VALUE);
+			assertThat(in.readBoolean(), is(true));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testUnknownKeyFails()
+		throws IOException
+	{
+		Serializer<Line> serializer = collection.find(Line.class);
+		StreamingFormat format = StreamingFormat.schemaBinary(serializer.getFormatDefinition());
+
+		try(StreamingOutput out = format.createOutput(new ByteArrayOutputStream()))
+		{
+			out.writeObjectStart();
+			out.writeString("unknown");
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Order
+	{
+		@Expose
+		public long id;
+		@Expose
+		public String customer;
+		@Expose
+		public boolean paid;
+		@Expose
+		public List<Line> lines;
+		@Expose
+		@StringKey
+		public Map<String, Integer> counts;
+		@Expose
+		public byte[] data;
+		@Expose
+		@AllowAny
+		public Object extra;
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(id, customer, paid, lines, counts, Arrays.hashCode(data), extra);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj) return true;
+			if(obj == null || getClass() != obj.getClass()) return false;
+			Order other = (Order) obj;
+			return id == other.id
+				&& Objects.equals(customer, other.customer)
+				&& paid == other.paid
+				&& Objects.equals(lines, other.lines)
+				&& Objects.equals(counts, other.counts)
+				&& Arrays.equals(data, other.data)
+				&& Objects.equals(extra, other.extra);
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Line
+	{
+		@Expose
+		public String sku;
+		@Expose
+		public int quantity;
+		@Expose
+		public double price;
+		@Expose
+		public float weight;
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(sku, quantity, price, weight);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj) return true;
+			if(obj == null || getClass() != obj.getClass()) return false;
+			Line other = (Line) obj;
+			return Objects.equals(sku, other.sku)
+				&& quantity == other.quantity
+				&& price == other.price
+				&& weight == other.weight;
+		}
+	}
+}
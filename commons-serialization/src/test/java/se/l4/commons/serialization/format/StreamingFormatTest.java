@@ -272,6 +272,41 @@ public abstract class StreamingFormatTest
 		}
 	}
 
+	@Test
+	public void testObjectReadKey()
+		throws IOException
+	{
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeObjectStart();
+			out.writeString("key2");
+			out.writeInt(12);
+			out.writeString("unknown");
+			out.writeString("value");
+			out.writeString("key1");
+			out.writeString("value1");
+			out.writeObjectEnd();
+		});
+
+		KeySet keys = KeySet.of("key1", "key2");
+		try(StreamingInput in = in0.get())
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readKey(keys), is(1));
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(12));
+			in.next(Token.KEY);
+			assertThat(in.readKey(keys), is(-1));
+			in.skipValue();
+			in.next(Token.KEY);
+			assertThat(in.readKey(keys), is(0));
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("value1"));
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
 	@Test
 	public void testObjectValuesWithNull()
 		throws IOException
@@ -340,4 +375,148 @@ public abstract class StreamingFormatTest
 			in.next(Token.END_OF_STREAM);
 		}
 	}
+
+	@Test
+	public void testIntArray()
+		throws IOException
+	{
+		int[] values = { 0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 74749 };
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeIntArray(values);
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			assertThat(in.readIntArray(), is(values));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testIntArrayEmpty()
+		throws IOException
+	{
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeIntArray(new int[0]);
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			assertThat(in.readIntArray(), is(new int[0]));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testIntArrayAsList()
+		throws IOException
+	{
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeObjectStart();
+			out.writeString("values");
+			out.writeIntArray(new int[] { 1, -2 });
+			out.writeString("skipped");
+			out.writeIntArray(new int[] { 3, 4 });
+			out.writeString("name");
+			out.writeString("value");
+			out.writeObjectEnd();
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("values"));
+			in.next(Token.LIST_START);
+			in.next(Token.VALUE);
+			assertThat(in.readInt(), is(1));
+			in.next(Token.VALUE);
+			assertThat(in.readLong(), is(-2l));
+			in.next(Token.LIST_END);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("skipped"));
+			in.skipValue();
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("name"));
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("value"));
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testIntArrayFromList()
+		throws IOException
+	{
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeListStart();
+			for(int i=0; i<100; i++)
+			{
+				out.writeInt(i);
+			}
+			out.writeListEnd();
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			int[] values = in.readIntArray();
+			assertThat(values.length, is(100));
+			assertThat(values[99], is(99));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testLongArray()
+		throws IOException
+	{
+		long[] values = { 0, -1, Long.MAX_VALUE, Long.MIN_VALUE, 9000000000l };
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeLongArray(values);
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			assertThat(in.readLongArray(), is(values));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testFloatArray()
+		throws IOException
+	{
+		float[] values = { 0f, -1.5f, 3.25f, 1024.5f };
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeFloatArray(values);
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			assertThat(in.readFloatArray(), is(values));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testDoubleArray()
+		throws IOException
+	{
+		double[] values = new double[1000];
+		for(int i=0; i<values.length; i++)
+		{
+			values[i] = i * 0.75;
+		}
+
+		IOSupplier<StreamingInput> in0 = write(out -> {
+			out.writeDoubleArray(values);
+		});
+
+		try(StreamingInput in = in0.get())
+		{
+			assertThat(in.readDoubleArray(), is(values));
+			in.next(Token.END_OF_STREAM);
+		}
+	}
 }
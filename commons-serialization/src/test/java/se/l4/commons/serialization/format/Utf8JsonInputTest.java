@@ -0,0 +1,166 @@
+package se.l4.commons.serialization.format;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link Utf8JsonInput}, runs the same tests as for
+ * {@link JsonInput} and some tests for reading from bytes.
+ *
+ * @author Andreas Holstenson
+ *
+ */
+public class Utf8JsonInputTest
+	extends JsonInputTest
+{
+	@Override
+	protected StreamingInput createInput(String in)
+	{
+		return new Utf8JsonInput(new ByteArrayInputStream(in.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Create an input that reads a single byte at a time into a small
+	 * buffer.
+	 *
+	 * @param in
+	 * @return
+	 */
+	private StreamingInput createTrickleInput(String in)
+	{
+		InputStream stream = new FilterInputStream(new ByteArrayInputStream(in.getBytes(StandardCharsets.UTF_8)))
+		{
+			@Override
+			public int read(byte[] b, int off, int len)
+				throws IOException
+			{
+				return super.read(b, off, Math.min(len, 1));
+			}
+		};
+
+		return new Utf8JsonInput(stream, 16);
+	}
+
+	@Test
+	public void testSmallBuffer()
+		throws IOException
+	{
+		String v = "{ \"a long key that does not fit\": \"åäö \\\"quoted\\\" \\u00e5 and more text\", "
+			+ "\"number\": 12345678901234, \"double\": -12.5e-3, \"list\": [ true, false, null ] }";
+
+		try(StreamingInput in = createTrickleInput(v))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("a long key that does not fit"));
+			in.next(Token.VALUE);
+			assertThat(in.readString(), is("åäö \"quoted\" å and more text"));
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("number"));
+			in.next(Token.VALUE);
+			assertThat(in.readLong(), is(12345678901234l));
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("double"));
+			in.next(Token.VALUE);
+			assertThat(in.readDouble(), is(-12.5e-3));
+			in.next(Token.KEY);
+			assertThat(in.readString(), is("list"));
+			in.next(Token.LIST_START);
+			in.next(Token.VALUE);
+			assertThat(in.readBoolean(), is(true));
+			in.next(Token.VALUE);
+			assertThat(in.readBoolean(), is(false));
+			in.next(Token.NULL);
+			in.next(Token.LIST_END);
+			in.next(Token.OBJECT_END);
+			in.next(Token.END_OF_STREAM);
+		}
+	}
+
+	@Test
+	public void testPeekBeforeReadingString()
+		throws IOException
+	{
+		String v = "[\"first value\", \"second value\"]";
+		try(StreamingInput in = createTrickleInput(v))
+		{
+			in.next(Token.LIST_START);
+			in.next(Token.VALUE);
+			assertThat(in.peek(), is(Token.VALUE));
+			assertThat(in.readString(), is("first value"));
+			in.next(Token.VALUE);
+			assertThat(in.peek(), is(Token.LIST_END));
+			assertThat(in.readString(), is("second value"));
+			in.next(Token.LIST_END);
+		}
+	}
+
+	@Test
+	public void testNumbers()
+		throws IOException
+	{
+		String v = "[0, -0, 9223372036854775807, -9223372036854775808, 9223372036854775808, "
+			+ "0.1, 1e5, 1E-5, 0.30000000000000004, 1.7976931348623157E308, 4.9E-324, -0.0]";
+
+		try(StreamingInput in = createInput(v))
+		{
+			in.next(Token.LIST_START);
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(0l));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(0l));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(Long.MAX_VALUE));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(Long.MIN_VALUE));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(9223372036854775808.0));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(0.1));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(1e5));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(1e-5));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(0.1 + 0.2));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(Double.MAX_VALUE));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(Double.MIN_VALUE));
+			in.next(Token.VALUE);
+			assertThat(in.readDynamic(), is(-0.0));
+			in.next(Token.LIST_END);
+		}
+	}
+
+	@Test
+	public void testKeysAreCached()
+		throws IOException
+	{
+		String v = "{\"key\": 1}";
+
+		String first;
+		try(StreamingInput in = createInput(v))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			first = in.readString();
+		}
+
+		try(StreamingInput in = createInput(v))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			assertThat(in.readString(), sameInstance(first));
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package se.l4.commons.serialization.reflection;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+import org.junit.Test;
+
+import se.l4.commons.serialization.CompiledSerializer;
+import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
+import se.l4.commons.serialization.SerializationTestHelper;
+import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.SkipDefaultValue;
+import se.l4.commons.serialization.Use;
+import se.l4.commons.serialization.format.JsonInput;
+import se.l4.commons.serialization.internal.TypeEncounterImpl;
+import se.l4.commons.serialization.internal.reflection.AbstractCompiledSerializer;
+import se.l4.commons.types.Types;
+import se.l4.commons.types.mapping.OutputDeduplicator;
+
+public class CompiledSerializerTest
+	extends ReflectionTest
+{
+	@Override
+	public <T> Serializer<T> resolve(Class<T> type)
+	{
+		return new CompiledSerializer<T>()
+			.find(new TypeEncounterImpl(collection, OutputDeduplicator.none(), Types.reference(type)))
+			.get();
+	}
+
+	@Test
+	public void testGenerated()
+	{
+		Serializer<AllTypes> serializer = resolve(AllTypes.class);
+		assertThat(serializer, instanceOf(AbstractCompiledSerializer.class));
+	}
+
+	@Test
+	public void testGeneratedClassCanBeUnloaded()
+	{
+		Serializer<AllTypes> serializer = resolve(AllTypes.class);
+		ClassLoader loader = serializer.getClass().getClassLoader();
+		assertThat(loader == CompiledSerializer.class.getClassLoader(), is(false));
+
+		WeakReference<ClassLoader> ref = new WeakReference<>(loader);
+		serializer = null;
+		loader = null;
+
+		for(int i=0; i<50 && ref.get() != null; i++)
+		{
+			System.gc();
+		}
+
+		assertThat(ref.get() == null, is(true));
+	}
+
+	@Test
+	public void testAllTypes()
+	{
+		Serializer<AllTypes> serializer = resolve(AllTypes.class);
+
+		AllTypes instance = new AllTypes();
+		instance.b = true;
+		instance.by = 12;
+		instance.s = 1024;
+		instance.c = 'c';
+		instance.i = -80000;
+		instance.l = 9000000000l;
+		instance.f = 1.5f;
+		instance.d = -2.25;
+		instance.string = "test";
+		instance.wrapped = 42;
+		instance.nested = new Nested();
+		instance.nested.value = "nested";
+		instance.skipped = 0;
+
+		testSymmetry(serializer, instance);
+		SerializationTestHelper.testWriteAndRead(serializer, instance);
+	}
+
+	@Test
+	public void testNulls()
+	{
+		Serializer<AllTypes> serializer = resolve(AllTypes.class);
+
+		AllTypes instance = new AllTypes();
+		instance.i = 10;
+		testSymmetry(serializer, instance);
+		SerializationTestHelper.testWriteAndRead(serializer, instance);
+	}
+
+	@Test
+	public void testNullAsDefaultAndUnknownKeys()
+		throws IOException
+	{
+		Serializer<AllTypes> serializer = resolve(AllTypes.class);
+
+		AllTypes instance = serializer.read(new JsonInput(new StringReader(
+			"{ \"i\": null, \"unknown\": { \"a\": [ 1, 2 ] }, \"l\": 20, \"string\": null }"
+		)));
+
+		AllTypes expected = new AllTypes();
+		expected.l = 20;
+		assertThat(instance, is(expected));
+	}
+
+	@Test
+	public void testConstructorFallsBack()
+	{
+		Serializer<WithConstructor> serializer = resolve(WithConstructor.class);
+		assertThat(serializer, not(instanceOf(AbstractCompiledSerializer.class)));
+
+		testSymmetry(serializer, new WithConstructor(20));
+	}
+
+	public static class AllTypes
+	{
+		@Expose
+		private boolean b;
+		@Expose
+		private byte by;
+		@Expose
+		private short s;
+		@Expose
+		private char c;
+		@Expose
+		private int i;
+		@Expose
+		private long l;
+		@Expose
+		private float f;
+		@Expose
+		private double d;
+		@Expose
+		private String string;
+		@Expose
+		private Integer wrapped;
+		@Expose
+		private Nested nested;
+		@Expose
+		@SkipDefaultValue
+		private int skipped;
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(b, by, s, c, i, l, f, d, string, wrapped, nested, skipped);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj)
+				return true;
+			if(obj == null)
+				return false;
+			if(getClass() != obj.getClass())
+				return false;
+			AllTypes other = (AllTypes) obj;
+			return b == other.b && by == other.by && s == other.s && c == other.c
+				&& i == other.i && l == other.l && f == other.f && d == other.d
+				&& Objects.equals(string, other.string)
+				&& Objects.equals(wrapped, other.wrapped)
+				&& Objects.equals(nested, other.nested)
+				&& skipped == other.skipped;
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Nested
+	{
+		@Expose
+		private String value;
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(value);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj)
+				return true;
+			if(obj == null)
+				return false;
+			if(getClass() != obj.getClass())
+				return false;
+			Nested other = (Nested) obj;
+			return Objects.equals(value, other.value);
+		}
+	}
+
+	public static class WithConstructor
+	{
+		@Expose
+		private final int value;
+
+		public WithConstructor(@Expose("value") int value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return value;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj)
+				return true;
+			if(obj == null)
+				return false;
+			if(getClass() != obj.getClass())
+				return false;
+			WithConstructor other = (WithConstructor) obj;
+			return value == other.value;
+		}
+	}
+}
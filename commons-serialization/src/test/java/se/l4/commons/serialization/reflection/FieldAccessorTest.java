@@ -0,0 +1,89 @@
+package se.l4.commons.serialization.reflection;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.lang.reflect.Field;
+
+import org.junit.Test;
+
+import se.l4.commons.serialization.internal.reflection.FieldAccessor;
+import se.l4.commons.serialization.internal.reflection.MethodHandleFieldAccessor;
+import se.l4.commons.serialization.internal.reflection.ReflectionFieldAccessor;
+
+public class FieldAccessorTest
+{
+	private static FieldAccessor accessor(String name)
+		throws Exception
+	{
+		Field field = Holder.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return FieldAccessor.create(field);
+	}
+
+	@Test
+	public void testUsesMethodHandles()
+		throws Exception
+	{
+		assertThat(accessor("i"), instanceOf(MethodHandleFieldAccessor.class));
+	}
+
+	@Test
+	public void testTypedInt()
+		throws Exception
+	{
+		FieldAccessor accessor = accessor("i");
+
+		Holder holder = new Holder();
+		accessor.setInt(holder, 20);
+		assertThat(holder.i, is(20));
+		assertThat(accessor.getInt(holder), is(20));
+		assertThat(accessor.get(holder), is(20));
+	}
+
+	@Test
+	public void testBoxedLong()
+		throws Exception
+	{
+		FieldAccessor accessor = accessor("l");
+
+		Holder holder = new Holder();
+		accessor.set(holder, 12l);
+		assertThat(holder.l, is(12l));
+		assertThat(accessor.getLong(holder), is(12l));
+	}
+
+	@Test
+	public void testFinalObject()
+		throws Exception
+	{
+		FieldAccessor accessor = accessor("s");
+
+		Holder holder = new Holder();
+		accessor.set(holder, "test");
+		assertThat(accessor.get(holder), is("test"));
+	}
+
+	@Test
+	public void testReflectionFallback()
+		throws Exception
+	{
+		Field field = Holder.class.getDeclaredField("d");
+		field.setAccessible(true);
+		FieldAccessor accessor = new ReflectionFieldAccessor(field);
+
+		Holder holder = new Holder();
+		accessor.setDouble(holder, 2.5);
+		assertThat(accessor.getDouble(holder), is(2.5));
+		assertThat(accessor.get(holder), is(2.5));
+	}
+
+	private static class Holder
+	{
+		private int i;
+		private long l;
+		private double d;
+		private final String s = null;
+	}
+}
@@ -1,6 +1,12 @@
 package se.l4.commons.serialization.reflection;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -8,7 +14,10 @@ import org.junit.Test;
 
 import se.l4.commons.serialization.AllowAny;
 import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.ReflectionSerializer;
 import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.Use;
+import se.l4.commons.serialization.format.JsonInput;
 
 public class ReflectionCollectionTest
 	extends ReflectionTest
@@ -42,6 +51,20 @@ public class ReflectionCollectionTest
 		}
 	}
 
+	@Test
+	public void testListReadsExistingData()
+		throws IOException
+	{
+		Serializer<WithList> serializer = resolve(WithList.class);
+
+		// Items of named types are wrapped with their name
+		WithList instance = serializer.read(new JsonInput(new StringReader(
+			"{ \"f1\": [ { \"name\": \"string\", \"value\": \"test\" } ] }"
+		)));
+
+		assertThat(instance.f1, is(Arrays.asList("test")));
+	}
+
 	@Test
 	public void testListAllowAnyItem()
 	{
@@ -71,4 +94,55 @@ public class ReflectionCollectionTest
 			return Objects.equals(f1, other.f1);
 		}
 	}
+
+	@Test
+	public void testListOfUnnamedObjects()
+	{
+		Serializer<WithListOfObjects> serializer = resolve(WithListOfObjects.class);
+
+		WithListOfObjects instance = new WithListOfObjects();
+		instance.f1 = new ArrayList<>();
+		instance.f1.add(new Item());
+		instance.f1.get(0).f1 = "test";
+		testSymmetry(serializer, instance);
+	}
+
+	public static class WithListOfObjects
+	{
+		@Expose
+		public List<Item> f1;
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			WithListOfObjects other = (WithListOfObjects) obj;
+			return Objects.equals(f1, other.f1);
+		}
+	}
+
+	@Use(ReflectionSerializer.class)
+	public static class Item
+	{
+		@Expose
+		public String f1;
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Item other = (Item) obj;
+			return Objects.equals(f1, other.f1);
+		}
+	}
 }
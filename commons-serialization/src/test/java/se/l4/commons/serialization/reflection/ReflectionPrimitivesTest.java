@@ -1,9 +1,25 @@
 package se.l4.commons.serialization.reflection;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 
 import se.l4.commons.serialization.Expose;
+import se.l4.commons.serialization.IntValueSerializer;
 import se.l4.commons.serialization.Serializer;
+import se.l4.commons.serialization.format.JsonInput;
+import se.l4.commons.serialization.format.JsonOutput;
+import se.l4.commons.serialization.format.StreamingInput;
+import se.l4.commons.serialization.format.StreamingOutput;
+import se.l4.commons.serialization.format.Token;
+import se.l4.commons.serialization.internal.reflection.FieldDefinition;
 
 public class ReflectionPrimitivesTest
 	extends ReflectionTest
@@ -123,4 +139,97 @@ public class ReflectionPrimitivesTest
 			return f1.equals(other.f1);
 		}
 	}
+
+	@Test
+	public void testIntegerValueSerializer()
+		throws Exception
+	{
+		IntegerCustom instance = new IntegerCustom();
+		instance.f1 = 512;
+
+		IntegerCustom read = writeAndRead(instance, IntegerCustom.class.getField("f1"));
+		assertThat(read.f1, is(512));
+	}
+
+	@Test
+	public void testIntegerValueSerializerSkipDefault()
+		throws Exception
+	{
+		Field field = IntegerCustom.class.getField("f1");
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(JsonOutput out = new JsonOutput(stream))
+		{
+			out.writeObjectStart();
+			new FieldDefinition(field, "f1", new UnboxedIntSerializer(), int.class, true)
+				.write(new IntegerCustom(), out);
+			out.writeObjectEnd();
+		}
+
+		assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8), is("{}"));
+	}
+
+	private IntegerCustom writeAndRead(IntegerCustom instance, Field field)
+		throws IOException
+	{
+		FieldDefinition def = new FieldDefinition(field, field.getName(), new UnboxedIntSerializer(), int.class, false);
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try(JsonOutput out = new JsonOutput(stream))
+		{
+			out.writeObjectStart();
+			def.write(instance, out);
+			out.writeObjectEnd();
+		}
+
+		IntegerCustom result = new IntegerCustom();
+		try(JsonInput in = new JsonInput(new StringReader(new String(stream.toByteArray(), StandardCharsets.UTF_8))))
+		{
+			in.next(Token.OBJECT_START);
+			in.next(Token.KEY);
+			def.read(result, in);
+			in.next(Token.OBJECT_END);
+		}
+
+		return result;
+	}
+
+	public static class IntegerCustom
+	{
+		public int f1;
+	}
+
+	/**
+	 * Serializer that fails if used via its boxed methods.
+	 */
+	public static class UnboxedIntSerializer
+		implements IntValueSerializer
+	{
+		@Override
+		public int readInt(StreamingInput in)
+			throws IOException
+		{
+			in.next(Token.VALUE);
+			return in.readInt();
+		}
+
+		@Override
+		public void writeInt(int value, StreamingOutput out)
+			throws IOException
+		{
+			out.writeInt(value);
+		}
+
+		@Override
+		public Integer read(StreamingInput in)
+		{
+			throw new AssertionError("Boxed read should not be used");
+		}
+
+		@Override
+		public void write(Integer object, StreamingOutput out)
+		{
+			throw new AssertionError("Boxed write should not be used");
+		}
+	}
 }
@@ -7,6 +7,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import se.l4.commons.types.internal.TypeHierarchy;
 import se.l4.commons.types.internal.reflect.Primitives;
 import se.l4.commons.types.internal.reflect.TypeHelperImpl;
+import se.l4.commons.types.internal.reflect.TypeRefInterner;
 import se.l4.commons.types.reflect.TypeRef;
 
 /**
@@ -24,6 +25,23 @@ public class Types
 		return TypeHelperImpl.reference(type, typeParameters);
 	}
 
+	/**
+	 * Get a canonical instance of the given type. Types that are equal will
+	 * return the same instance, which makes it possible to use them as keys
+	 * where equality checks are frequent. Interned types are held weakly
+	 * and do not prevent classes from being unloaded.
+	 *
+	 * @param type
+	 *   the type to intern
+	 * @return
+	 *   the canonical instance that is equal to {@code type}
+	 */
+	@NonNull
+	public static TypeRef intern(@NonNull TypeRef type)
+	{
+		return TypeRefInterner.intern(type);
+	}
+
 	/**
 	 * Visit the hierarchy of the specified type. Will visit all interfaces,
 	 * directly or indirectly present, and the superclasses.
@@ -1,8 +1,8 @@
 package se.l4.commons.types.internal;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -11,10 +11,36 @@ import java.util.function.Predicate;
  */
 public class TypeHierarchy
 {
+	/**
+	 * Linearized hierarchies, only refers to classes that are reachable from
+	 * the class itself so it will not keep any class loaders alive.
+	 */
+	private static final ClassValue<Class<?>[]> HIERARCHIES = new ClassValue<Class<?>[]>()
+	{
+		@Override
+		protected Class<?>[] computeValue(Class<?> type)
+		{
+			return linearize(type);
+		}
+	};
+
 	private TypeHierarchy()
 	{
 	}
 
+	/**
+	 * Get the hierarchy of the given type in a breadth-first order, starting
+	 * with the type itself. The returned array is shared and must not be
+	 * modified.
+	 *
+	 * @param root
+	 * @return
+	 */
+	public static Class<?>[] getHierarchy(Class<?> root)
+	{
+		return HIERARCHIES.get(root);
+	}
+
 	/**
 	 * Visit the hierarchy of the given type, in a breadth-first order. If the
 	 * visitor returns {@code false} the visiting will be aborted, while
@@ -25,32 +51,41 @@ public class TypeHierarchy
 	 */
 	public static void visitHierarchy(Class<?> root, Predicate<Class<?>> visitor)
 	{
-		Queue<Class<?>> queue = new LinkedList<>();
-		Set<Class<?>> visited = new HashSet<>();
-
-		queue.add(root);
-
-		while(! queue.isEmpty())
+		for(Class<?> type : HIERARCHIES.get(root))
 		{
-			Class<?> type = queue.poll();
 			if(! visitor.test(type))
 			{
 				return;
 			}
+		}
+	}
+
+	private static Class<?>[] linearize(Class<?> root)
+	{
+		List<Class<?>> result = new ArrayList<>();
+		Set<Class<?>> visited = new HashSet<>();
+
+		result.add(root);
+
+		// The result doubles as the queue of types to visit
+		for(int i=0; i<result.size(); i++)
+		{
+			Class<?> type = result.get(i);
 
 			for(Class<?> interfaceRef : type.getInterfaces())
 			{
 				if(! visited.add(interfaceRef)) continue;
 
-				queue.add(interfaceRef);
+				result.add(interfaceRef);
 			}
 
 			Class<?> superclass = type.getSuperclass();
 			if(superclass != null && visited.add(superclass))
 			{
-				queue.add(superclass);
+				result.add(superclass);
 			}
 		}
-	}
 
+		return result.toArray(new Class<?>[result.size()]);
+	}
 }
@@ -1,21 +1,31 @@
 package se.l4.commons.types.internal.mapping;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
 
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.list.ListIterable;
 import org.eclipse.collections.api.list.MutableList;
 
 import se.l4.commons.types.Types;
+import se.l4.commons.types.mapping.CachePolicy;
 import se.l4.commons.types.mapping.Mapped;
 import se.l4.commons.types.mapping.OutputDeduplicator;
 import se.l4.commons.types.mapping.ResolutionEncounter;
 import se.l4.commons.types.mapping.Resolver;
 import se.l4.commons.types.mapping.TypeMapper;
+import se.l4.commons.types.mapping.TypeMapperStats;
 import se.l4.commons.types.matching.TypeMatchingMultimap;
 import se.l4.commons.types.reflect.TypeRef;
 
@@ -29,6 +39,12 @@ import se.l4.commons.types.reflect.TypeRef;
 public abstract class AbstractTypeMapper<I extends ResolutionEncounter<O>, O>
 	implements TypeMapper<I, O>
 {
+	/**
+	 * The resolution every thread is waiting for, in any mapper. Used to
+	 * find out if waiting would cause a deadlock. Guarded by itself.
+	 */
+	private static final Map<Thread, InFlight<?>> waiting = new HashMap<>();
+
 	private final ErrorStrategy errorStrategy;
 	private final Function<TypeRef, I> encounterCreator;
 
@@ -36,12 +52,19 @@ public abstract class AbstractTypeMapper<I extends ResolutionEncounter<O>, O>
 	private final ListIterable<Resolver<I, O>> annotationResolvers;
 
 	private final Cache<TypeRef, Mapped<O>> cache;
+	private final StatsCounter stats;
+
+	/**
+	 * Resolutions that are in progress, used so that a type is only
+	 * resolved by one thread at a time.
+	 */
+	private final ConcurrentMap<TypeRef, InFlight<O>> inProgress;
 	private final OutputDeduplicator<O> deduplicator;
 
 	public AbstractTypeMapper(
 		Function<TypeRef, I> encounterCreator,
 		ErrorStrategy errorStrategy,
-		int cachingSize,
+		CachePolicy cachePolicy,
 		OutputDeduplicator<O> deduplicator,
 		TypeMatchingMultimap<Resolver<I, O>> resolvers,
 		ListIterable<Resolver<I, O>> annotationResolvers
@@ -53,9 +76,21 @@ public abstract class AbstractTypeMapper<I extends ResolutionEncounter<O>, O>
 		this.resolvers = resolvers;
 		this.annotationResolvers = annotationResolvers;
 
-		cache = Caffeine.newBuilder()
-			.maximumSize(cachingSize)
-			.build();
+		inProgress = new ConcurrentHashMap<>();
+		stats = new ConcurrentStatsCounter();
+
+		Caffeine<Object, Object> builder = Caffeine.newBuilder()
+			.recordStats(() -> stats);
+
+		cachePolicy.getMaximumSize().ifPresent(builder::maximumSize);
+		cachePolicy.getExpireAfterAccess().ifPresent(builder::expireAfterAccess);
+
+		if(cachePolicy.isSoftValues())
+		{
+			builder.softValues();
+		}
+
+		cache = builder.build();
 	}
 
 	@Override
@@ -68,15 +103,149 @@ public abstract class AbstractTypeMapper<I extends ResolutionEncounter<O>, O>
 	public Mapped<O> get(TypeRef type)
 	{
 		Mapped<O> mapped = cache.getIfPresent(type);
-		if(mapped == null)
+		if(mapped != null)
+		{
+			return mapped;
+		}
+
+		InFlight<O> future = new InFlight<>();
+		InFlight<O> existing = inProgress.putIfAbsent(type, future);
+		if(existing != null)
+		{
+			if(startWaiting(existing))
+			{
+				return await(existing);
+			}
+
+			/*
+			 * This thread is already resolving this type or the thread
+			 * resolving it is waiting for this thread, resolve it here
+			 * instead of waiting to avoid a deadlock.
+			 */
+			return resolveAndCache(type);
+		}
+
+		try
+		{
+			// Another thread might have finished just before this one started
+			mapped = cache.asMap().get(type);
+			if(mapped == null)
+			{
+				mapped = resolveAndCache(type);
+			}
+
+			future.complete(mapped);
+			return mapped;
+		}
+		catch(RuntimeException | Error e)
+		{
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally
+		{
+			inProgress.remove(type, future);
+		}
+	}
+
+	/**
+	 * Register that the current thread is about to wait for the given
+	 * resolution. Waiting is not allowed if the thread doing the resolution
+	 * is directly or indirectly waiting for the current thread.
+	 *
+	 * @param future
+	 * @return
+	 *   {@code true} if the current thread can wait for the resolution
+	 */
+	private static boolean startWaiting(InFlight<?> future)
+	{
+		Thread current = Thread.currentThread();
+		synchronized(waiting)
+		{
+			Thread thread = future.owner;
+			while(thread != null)
+			{
+				if(thread == current)
+				{
+					return false;
+				}
+
+				InFlight<?> waitingFor = waiting.get(thread);
+				thread = waitingFor == null ? null : waitingFor.owner;
+			}
+
+			waiting.put(current, future);
+			return true;
+		}
+	}
+
+	/**
+	 * Wait for a resolution done by another thread. The current thread must
+	 * have been registered via {@link #startWaiting(InFlight)}.
+	 *
+	 * @param future
+	 * @return
+	 */
+	private Mapped<O> await(InFlight<O> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch(CompletionException e)
+		{
+			if(e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			else if(e.getCause() instanceof Error)
+			{
+				throw (Error) e.getCause();
+			}
+
+			throw e;
+		}
+		finally
+		{
+			synchronized(waiting)
+			{
+				waiting.remove(Thread.currentThread());
+			}
+		}
+	}
+
+	/**
+	 * Resolve the given type and store the result in the cache.
+	 *
+	 * @param type
+	 * @return
+	 */
+	private Mapped<O> resolveAndCache(TypeRef type)
+	{
+		// Resolution is not done via the cache, so record the time it takes
+		long start = System.nanoTime();
+		Mapped<O> mapped;
+		try
 		{
 			mapped = resolve(type);
-			cache.put(type, mapped);
+		}
+		catch(RuntimeException e)
+		{
+			stats.recordLoadFailure(System.nanoTime() - start);
+			throw e;
 		}
 
+		stats.recordLoadSuccess(System.nanoTime() - start);
+		cache.put(type, mapped);
 		return mapped;
 	}
 
+	@Override
+	public TypeMapperStats getStats()
+	{
+		return new TypeMapperStatsImpl(cache.stats(), cache.estimatedSize());
+	}
+
 	private Mapped<O> resolve(TypeRef type)
 	{
 		type = type.wrap();
@@ -114,4 +283,18 @@ public abstract class AbstractTypeMapper<I extends ResolutionEncounter<O>, O>
 
 		return new MappedImpl<>(null, exceptions);
 	}
+
+	/**
+	 * Resolution in progress, keeps track of the thread doing it.
+	 */
+	private static class InFlight<O>
+		extends CompletableFuture<Mapped<O>>
+	{
+		private final Thread owner;
+
+		public InFlight()
+		{
+			owner = Thread.currentThread();
+		}
+	}
 }
@@ -2,18 +2,20 @@ package se.l4.commons.types.internal.mapping;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 
 import org.eclipse.collections.api.list.MutableList;
-import org.eclipse.collections.impl.list.mutable.MultiReaderFastList;
+import org.eclipse.collections.impl.list.mutable.ListAdapter;
 
 import se.l4.commons.types.Types;
+import se.l4.commons.types.mapping.CachePolicy;
 import se.l4.commons.types.mapping.MutableTypeMapper;
 import se.l4.commons.types.mapping.OutputDeduplicator;
 import se.l4.commons.types.mapping.ResolutionEncounter;
 import se.l4.commons.types.mapping.Resolver;
 import se.l4.commons.types.matching.MutableTypeMatchingMultimap;
-import se.l4.commons.types.matching.TypeMatchingMultiReaderFastListMultimap;
+import se.l4.commons.types.matching.TypeMatchingCopyOnWriteMultimap;
 import se.l4.commons.types.reflect.TypeRef;
 
 public class MutableTypeMapperImpl<I extends ResolutionEncounter<O>, O>
@@ -26,13 +28,13 @@ public class MutableTypeMapperImpl<I extends ResolutionEncounter<O>, O>
 	public MutableTypeMapperImpl(
 		Function<TypeRef, I> inputCreator,
 		ErrorStrategy errorStrategy,
-		int cachingSize,
+		CachePolicy cachePolicy,
 		OutputDeduplicator<O> deduplicator,
 		MutableTypeMatchingMultimap<Resolver<I, O>> resolvers,
 		MutableList<Resolver<I, O>> annotationResolvers
 	)
 	{
-		super(inputCreator, errorStrategy, cachingSize, deduplicator, resolvers, annotationResolvers);
+		super(inputCreator, errorStrategy, cachePolicy, deduplicator, resolvers, annotationResolvers);
 
 		this.resolvers = resolvers;
 		this.annotationResolvers = annotationResolvers;
@@ -74,14 +76,20 @@ public class MutableTypeMapperImpl<I extends ResolutionEncounter<O>, O>
 	{
 		return new Builder<I, O>()
 		{
-			private int caching = 0;
+			private CachePolicy cachePolicy = CachePolicy.none();
 			private ErrorStrategy errorStrategy = ErrorStrategy.BREAK;
 			private OutputDeduplicator<O> deduplicator = OutputDeduplicator.none();
 
 			@Override
 			public Builder<I, O> withCaching(int maximumSize)
 			{
-				this.caching = maximumSize;
+				return withCaching(CachePolicy.maximumSize(maximumSize));
+			}
+
+			@Override
+			public Builder<I, O> withCaching(CachePolicy policy)
+			{
+				this.cachePolicy = Objects.requireNonNull(policy);
 				return this;
 			}
 
@@ -105,10 +113,10 @@ public class MutableTypeMapperImpl<I extends ResolutionEncounter<O>, O>
 				return new MutableTypeMapperImpl<>(
 					encounterCreator,
 					errorStrategy,
-					caching,
+					cachePolicy,
 					deduplicator,
-					new TypeMatchingMultiReaderFastListMultimap<>(),
-					MultiReaderFastList.newList()
+					new TypeMatchingCopyOnWriteMultimap<>(),
+					ListAdapter.adapt(new CopyOnWriteArrayList<>())
 				);
 			}
 		};
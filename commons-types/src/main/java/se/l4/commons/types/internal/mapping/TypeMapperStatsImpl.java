@@ -0,0 +1,86 @@
+package se.l4.commons.types.internal.mapping;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import se.l4.commons.types.mapping.TypeMapperStats;
+
+/**
+ * Implementation of {@link TypeMapperStats} on top of the statistics
+ * recorded by the cache.
+ */
+public class TypeMapperStatsImpl
+	implements TypeMapperStats
+{
+	public static final TypeMapperStats EMPTY = new TypeMapperStatsImpl(CacheStats.empty(), 0);
+
+	private final CacheStats stats;
+	private final long size;
+
+	public TypeMapperStatsImpl(CacheStats stats, long size)
+	{
+		this.stats = stats;
+		this.size = size;
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return stats.hitCount();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return stats.missCount();
+	}
+
+	@Override
+	public double getHitRate()
+	{
+		return stats.hitRate();
+	}
+
+	@Override
+	public long getEvictionCount()
+	{
+		return stats.evictionCount();
+	}
+
+	@Override
+	public long getLoadCount()
+	{
+		return stats.loadCount();
+	}
+
+	@Override
+	public Duration getTotalLoadTime()
+	{
+		return Duration.ofNanos(stats.totalLoadTime());
+	}
+
+	@Override
+	public Duration getAverageLoadTime()
+	{
+		return Duration.ofNanos((long) stats.averageLoadPenalty());
+	}
+
+	@Override
+	public long getSize()
+	{
+		return size;
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{hits=" + getHitCount()
+			+ ", misses=" + getMissCount()
+			+ ", evictions=" + getEvictionCount()
+			+ ", loads=" + getLoadCount()
+			+ ", totalLoadTime=" + getTotalLoadTime()
+			+ ", size=" + size
+			+ "}";
+	}
+}
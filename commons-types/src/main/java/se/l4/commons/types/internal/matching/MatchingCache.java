@@ -0,0 +1,216 @@
+package se.l4.commons.types.internal.matching;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * Cache for results of matching against a type. Results are tagged with the
+ * version of the map they were calculated against and the version is bumped
+ * whenever the map is changed, so a result calculated while a change is
+ * being made will never be returned after that change.
+ *
+ * <p>
+ * Caches never keep the types they are queried with alive. Results for
+ * classes are stored on the classes via {@link ClassValue} and results for
+ * {@link TypeRef}s are kept in a cache with a maximum size.
+ *
+ * @param <K>
+ * @param <V>
+ */
+public abstract class MatchingCache<K, V>
+{
+	/**
+	 * The maximum number of results kept for {@link TypeRef}s.
+	 */
+	private static final int MAXIMUM_TYPES = 1024;
+
+	private final AtomicLong version;
+
+	private MatchingCache()
+	{
+		version = new AtomicLong();
+	}
+
+	/**
+	 * Create a cache for results of matching against classes.
+	 *
+	 * @return
+	 */
+	public static <K extends Class<?>, V> MatchingCache<K, V> forClasses()
+	{
+		return new ClassCache<>();
+	}
+
+	/**
+	 * Create a cache for results of matching against {@link TypeRef}s.
+	 *
+	 * @return
+	 */
+	public static <V> MatchingCache<TypeRef, V> forTypes()
+	{
+		return new TypeCache<>(MAXIMUM_TYPES);
+	}
+
+	/**
+	 * Get the result for the given key, calculating it if it is not cached
+	 * or if the map has changed since it was cached.
+	 *
+	 * @param key
+	 * @param loader
+	 * @return
+	 */
+	public V get(K key, Function<K, V> loader)
+	{
+		long current = version.get();
+
+		Entry<V> entry = getEntry(key);
+		if(entry != null && entry.version == current)
+		{
+			return entry.value;
+		}
+
+		V value = loader.apply(key);
+		Entry<V> loaded = new Entry<>(current, value);
+		putEntry(key, loaded);
+
+		if(version.get() != current)
+		{
+			/*
+			 * The map was invalidated while loading, remove the result so
+			 * that it does not linger until the key is loaded again.
+			 */
+			removeEntry(key, loaded);
+		}
+
+		return value;
+	}
+
+	/**
+	 * Invalidate all cached results, should be called after the map has been
+	 * changed.
+	 */
+	public void invalidate()
+	{
+		version.incrementAndGet();
+		clear();
+	}
+
+	protected abstract Entry<V> getEntry(K key);
+
+	protected abstract void putEntry(K key, Entry<V> entry);
+
+	protected abstract void removeEntry(K key, Entry<V> entry);
+
+	protected abstract void clear();
+
+	protected static class Entry<V>
+	{
+		private final long version;
+		private final V value;
+
+		public Entry(long version, V value)
+		{
+			this.version = version;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Cache that stores results on the classes themselves. Clearing the
+	 * cache replaces the {@link ClassValue}, which lets results stored for
+	 * the previous one be collected.
+	 */
+	private static class ClassCache<K extends Class<?>, V>
+		extends MatchingCache<K, V>
+	{
+		private volatile ClassValue<AtomicReference<Entry<V>>> entries;
+
+		public ClassCache()
+		{
+			entries = createEntries();
+		}
+
+		private static <V> ClassValue<AtomicReference<Entry<V>>> createEntries()
+		{
+			return new ClassValue<AtomicReference<Entry<V>>>()
+			{
+				@Override
+				protected AtomicReference<Entry<V>> computeValue(Class<?> type)
+				{
+					return new AtomicReference<>();
+				}
+			};
+		}
+
+		@Override
+		protected Entry<V> getEntry(K key)
+		{
+			return entries.get(key).get();
+		}
+
+		@Override
+		protected void putEntry(K key, Entry<V> entry)
+		{
+			entries.get(key).set(entry);
+		}
+
+		@Override
+		protected void removeEntry(K key, Entry<V> entry)
+		{
+			entries.get(key).compareAndSet(entry, null);
+		}
+
+		@Override
+		protected void clear()
+		{
+			entries = createEntries();
+		}
+	}
+
+	/**
+	 * Cache that keeps a limited number of results for {@link TypeRef}s.
+	 */
+	private static class TypeCache<V>
+		extends MatchingCache<TypeRef, V>
+	{
+		private final ConcurrentMap<TypeRef, Entry<V>> entries;
+
+		public TypeCache(int maximumSize)
+		{
+			entries = Caffeine.newBuilder()
+				.maximumSize(maximumSize)
+				.<TypeRef, Entry<V>>build()
+				.asMap();
+		}
+
+		@Override
+		protected Entry<V> getEntry(TypeRef key)
+		{
+			return entries.get(key);
+		}
+
+		@Override
+		protected void putEntry(TypeRef key, Entry<V> entry)
+		{
+			entries.put(key, entry);
+		}
+
+		@Override
+		protected void removeEntry(TypeRef key, Entry<V> entry)
+		{
+			entries.remove(key, entry);
+		}
+
+		@Override
+		protected void clear()
+		{
+			entries.clear();
+		}
+	}
+}
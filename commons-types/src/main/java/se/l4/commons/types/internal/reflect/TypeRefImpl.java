@@ -45,6 +45,27 @@ public class TypeRefImpl
 	protected final TypeRefBindings typeBindings;
 	protected final TypeUsage usage;
 
+	/*
+	 * Members resolved the first time they are requested. The lists are
+	 * immutable so if several threads resolve them at the same time the
+	 * result of any of them can be kept.
+	 */
+	private volatile Optional<TypeRef> superclass;
+	private volatile ListIterable<TypeRef> interfaces;
+	private volatile ListIterable<FieldRef> fields;
+	private volatile ListIterable<FieldRef> declaredFields;
+	private volatile ListIterable<MethodRef> methods;
+	private volatile ListIterable<MethodRef> declaredMethods;
+	private volatile ListIterable<ConstructorRef> constructors;
+	private volatile ListIterable<ConstructorRef> declaredConstructors;
+
+	/*
+	 * Hash code calculated the first time it is requested, zero if not yet
+	 * calculated. Racy like String#hashCode as every thread calculates the
+	 * same value.
+	 */
+	private int hashCode;
+
 	TypeRefImpl(
 		Type type,
 		TypeRefBindings typeBindings,
@@ -98,12 +119,22 @@ public class TypeRefImpl
 	@Override
 	public boolean equals(Object obj)
 	{
+		if(this == obj)
+		{
+			return true;
+		}
+
 		if(! (obj instanceof TypeRefImpl))
 		{
 			return false;
 		}
 
 		TypeRefImpl other = (TypeRefImpl) obj;
+		if(hashCode() != other.hashCode())
+		{
+			return false;
+		}
+
 		return TypeHelperImpl.typeEquals(type, other.type)
 			&& typeBindings.equals(other.typeBindings)
 			&& usage.equals(other.usage);
@@ -112,9 +143,16 @@ public class TypeRefImpl
 	@Override
 	public int hashCode()
 	{
-		return TypeHelperImpl.typeHashCode(type)
-			^ typeBindings.hashCode()
-			^ usage.hashCode();
+		int result = hashCode;
+		if(result == 0)
+		{
+			result = TypeHelperImpl.typeHashCode(type)
+				^ typeBindings.hashCode()
+				^ usage.hashCode();
+			hashCode = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -443,6 +481,18 @@ public class TypeRefImpl
 
 	@Override
 	public Optional<TypeRef> getSuperclass()
+	{
+		Optional<TypeRef> result = superclass;
+		if(result == null)
+		{
+			result = resolveSuperclass();
+			superclass = result;
+		}
+
+		return result;
+	}
+
+	private Optional<TypeRef> resolveSuperclass()
 	{
 		if(erasedType.isInterface())
 		{
@@ -479,8 +529,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<TypeRef> getInterfaces()
 	{
-		return Lists.immutable.of(erasedType.getAnnotatedInterfaces())
-			.collect(t -> TypeHelperImpl.resolve(t, typeBindings));
+		ListIterable<TypeRef> result = interfaces;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getAnnotatedInterfaces())
+				.collect(t -> TypeHelperImpl.resolve(t, typeBindings));
+			interfaces = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -574,8 +631,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<FieldRef> getFields()
 	{
-		return Lists.immutable.of(erasedType.getFields())
-			.collect(f -> TypeHelperImpl.resolveField(this, f));
+		ListIterable<FieldRef> result = fields;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getFields())
+				.collect(f -> TypeHelperImpl.resolveField(this, f));
+			fields = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -595,8 +659,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<MethodRef> getMethods()
 	{
-		return Lists.immutable.of(erasedType.getMethods())
-			.collect(m -> TypeHelperImpl.resolveMethod(this, m));
+		ListIterable<MethodRef> result = methods;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getMethods())
+				.collect(m -> TypeHelperImpl.resolveMethod(this, m));
+			methods = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -625,8 +696,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<ConstructorRef> getConstructors()
 	{
-		return Lists.immutable.of(erasedType.getConstructors())
-			.collect(m -> TypeHelperImpl.resolveConstructor(this, m));
+		ListIterable<ConstructorRef> result = constructors;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getConstructors())
+				.collect(m -> TypeHelperImpl.resolveConstructor(this, m));
+			constructors = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -655,8 +733,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<FieldRef> getDeclaredFields()
 	{
-		return Lists.immutable.of(erasedType.getDeclaredFields())
-			.collect(f -> TypeHelperImpl.resolveField(this, f));
+		ListIterable<FieldRef> result = declaredFields;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getDeclaredFields())
+				.collect(f -> TypeHelperImpl.resolveField(this, f));
+			declaredFields = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -676,8 +761,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<MethodRef> getDeclaredMethods()
 	{
-		return Lists.immutable.of(erasedType.getDeclaredMethods())
-			.collect(m -> TypeHelperImpl.resolveMethod(this, m));
+		ListIterable<MethodRef> result = declaredMethods;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getDeclaredMethods())
+				.collect(m -> TypeHelperImpl.resolveMethod(this, m));
+			declaredMethods = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -706,8 +798,15 @@ public class TypeRefImpl
 	@Override
 	public ListIterable<ConstructorRef> getDeclaredConstructors()
 	{
-		return Lists.immutable.of(erasedType.getDeclaredConstructors())
-			.collect(m -> TypeHelperImpl.resolveConstructor(this, m));
+		ListIterable<ConstructorRef> result = declaredConstructors;
+		if(result == null)
+		{
+			result = Lists.immutable.of(erasedType.getDeclaredConstructors())
+				.collect(m -> TypeHelperImpl.resolveConstructor(this, m));
+			declaredConstructors = result;
+		}
+
+		return result;
 	}
 
 	@Override
@@ -0,0 +1,101 @@
+package se.l4.commons.types.internal.reflect;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * Interner for {@link TypeRef}s, keeps a single canonical instance of every
+ * type that is in use. Instances are held weakly and are removed when no
+ * longer referenced.
+ */
+public class TypeRefInterner
+{
+	private static final ConcurrentMap<Key, Key> INSTANCES = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<TypeRef> QUEUE = new ReferenceQueue<>();
+
+	private TypeRefInterner()
+	{
+	}
+
+	/**
+	 * Get the canonical instance of the given type.
+	 *
+	 * @param type
+	 * @return
+	 */
+	public static TypeRef intern(TypeRef type)
+	{
+		expunge();
+
+		Key key = new Key(type, QUEUE);
+		while(true)
+		{
+			Key existing = INSTANCES.putIfAbsent(key, key);
+			if(existing == null)
+			{
+				return type;
+			}
+
+			TypeRef value = existing.get();
+			if(value != null)
+			{
+				key.clear();
+				return value;
+			}
+
+			// Collected after it was matched, remove it and try again
+			INSTANCES.remove(existing, existing);
+		}
+	}
+
+	/**
+	 * Remove keys whose types have been collected.
+	 */
+	private static void expunge()
+	{
+		Reference<? extends TypeRef> ref;
+		while((ref = QUEUE.poll()) != null)
+		{
+			INSTANCES.remove(ref, ref);
+		}
+	}
+
+	/**
+	 * Weak key that keeps the hash code of its type, so that it can be
+	 * removed after the type has been collected. Keys with collected types
+	 * are only equal to themselves.
+	 */
+	private static class Key
+		extends WeakReference<TypeRef>
+	{
+		private final int hashCode;
+
+		public Key(TypeRef type, ReferenceQueue<TypeRef> queue)
+		{
+			super(type, queue);
+
+			this.hashCode = type.hashCode();
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(this == obj) return true;
+			if(! (obj instanceof Key)) return false;
+
+			TypeRef type = get();
+			return type != null && type.equals(((Key) obj).get());
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package se.l4.commons.types.mapping;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Policy for how a {@link TypeMapper} caches the results of resolving types.
+ * Instances are immutable, methods that modify the policy return a new
+ * instance.
+ *
+ * <pre>
+ * CachePolicy policy = CachePolicy.maximumSize(1000)
+ *   .withExpireAfterAccess(Duration.ofHours(1));
+ * </pre>
+ */
+public final class CachePolicy
+{
+	private static final CachePolicy UNBOUNDED = new CachePolicy(-1, false, null);
+
+	private final long maximumSize;
+	private final boolean softValues;
+	private final Duration expireAfterAccess;
+
+	private CachePolicy(long maximumSize, boolean softValues, Duration expireAfterAccess)
+	{
+		this.maximumSize = maximumSize;
+		this.softValues = softValues;
+		this.expireAfterAccess = expireAfterAccess;
+	}
+
+	/**
+	 * Get a policy that never evicts results.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public static CachePolicy unbounded()
+	{
+		return UNBOUNDED;
+	}
+
+	/**
+	 * Get a policy that keeps at most the given number of results.
+	 *
+	 * @param maximumSize
+	 * @return
+	 */
+	@NonNull
+	public static CachePolicy maximumSize(long maximumSize)
+	{
+		if(maximumSize < 0)
+		{
+			throw new IllegalArgumentException("maximumSize can not be negative, was " + maximumSize);
+		}
+
+		return new CachePolicy(maximumSize, false, null);
+	}
+
+	/**
+	 * Get a policy that does not keep any results.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public static CachePolicy none()
+	{
+		return maximumSize(0);
+	}
+
+	/**
+	 * Get a copy of this policy where results are held via soft references,
+	 * letting the garbage collector evict them when memory is needed.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public CachePolicy withSoftValues()
+	{
+		return new CachePolicy(maximumSize, true, expireAfterAccess);
+	}
+
+	/**
+	 * Get a copy of this policy where results are evicted if they have not
+	 * been accessed for the given duration.
+	 *
+	 * @param duration
+	 * @return
+	 */
+	@NonNull
+	public CachePolicy withExpireAfterAccess(@NonNull Duration duration)
+	{
+		Objects.requireNonNull(duration);
+		return new CachePolicy(maximumSize, softValues, duration);
+	}
+
+	/**
+	 * Get the maximum number of results to keep.
+	 *
+	 * @return
+	 *   the maximum size, or empty if the number of results is not limited
+	 */
+	@NonNull
+	public OptionalLong getMaximumSize()
+	{
+		return maximumSize < 0 ? OptionalLong.empty() : OptionalLong.of(maximumSize);
+	}
+
+	/**
+	 * Get if results are held via soft references.
+	 *
+	 * @return
+	 */
+	public boolean isSoftValues()
+	{
+		return softValues;
+	}
+
+	/**
+	 * Get the duration after which results that have not been accessed are
+	 * evicted.
+	 *
+	 * @return
+	 */
+	@NonNull
+	public Optional<Duration> getExpireAfterAccess()
+	{
+		return Optional.ofNullable(expireAfterAccess);
+	}
+
+	/**
+	 * Get if this policy can evict results.
+	 *
+	 * @return
+	 */
+	public boolean canEvict()
+	{
+		return maximumSize >= 0 || softValues || expireAfterAccess != null;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(maximumSize, softValues, expireAfterAccess);
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if(this == obj) return true;
+		if(obj == null || getClass() != obj.getClass()) return false;
+		CachePolicy other = (CachePolicy) obj;
+		return maximumSize == other.maximumSize
+			&& softValues == other.softValues
+			&& Objects.equals(expireAfterAccess, other.expireAfterAccess);
+	}
+
+	@Override
+	public String toString()
+	{
+		return getClass().getSimpleName() + "{maximumSize=" + (maximumSize < 0 ? "unbounded" : maximumSize)
+			+ ", softValues=" + softValues
+			+ ", expireAfterAccess=" + expireAfterAccess
+			+ "}";
+	}
+}
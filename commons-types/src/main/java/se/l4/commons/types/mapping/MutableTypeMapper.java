@@ -85,6 +85,29 @@ public interface MutableTypeMapper<I extends ResolutionEncounter<O>, O>
 		 */
 		Builder<I, O> withCaching(int maximumSize);
 
+		/**
+		 * Set the policy used to cache combinations of {@link TypeRef} and
+		 * the output those generates. By default nothing is cached.
+		 *
+		 * <p>
+		 * The default implementation supports policies that only limit the
+		 * number of results and delegates to {@link #withCaching(int)}.
+		 * Unbounded policies are mapped to {@link Integer#MAX_VALUE} results.
+		 *
+		 * @param policy
+		 * @return
+		 */
+		default Builder<I, O> withCaching(@NonNull CachePolicy policy)
+		{
+			if(policy.isSoftValues() || policy.getExpireAfterAccess().isPresent())
+			{
+				throw new UnsupportedOperationException("Cache policy is not supported by this builder");
+			}
+
+			long maximumSize = policy.getMaximumSize().orElse(Integer.MAX_VALUE);
+			return withCaching((int) Math.min(maximumSize, Integer.MAX_VALUE));
+		}
+
 		/**
 		 * Set that mapped instances should be cached. This is used as an
 		 * additional layer to {@link #withCaching(int)} to deduplicate.
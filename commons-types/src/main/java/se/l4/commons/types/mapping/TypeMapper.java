@@ -50,6 +50,19 @@ public interface TypeMapper<I extends ResolutionEncounter<O>, O>
 	@NonNull
 	Mapped<O> get(@NonNull TypeRef type);
 
+	/**
+	 * Get statistics about the cache of resolved types, such as the number
+	 * of hits and misses and the time spent resolving types. Mappers that
+	 * do not keep track of their cache return {@link TypeMapperStats#empty()}.
+	 *
+	 * @return
+	 */
+	@NonNull
+	default TypeMapperStats getStats()
+	{
+		return TypeMapperStats.empty();
+	}
+
 	/**
 	 * Strategy used for error handling in {@link Resolver}s.
 	 */
@@ -0,0 +1,87 @@
+package se.l4.commons.types.mapping;
+
+import java.time.Duration;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import se.l4.commons.types.internal.mapping.TypeMapperStatsImpl;
+
+/**
+ * Snapshot of statistics about the cache of a {@link TypeMapper}, retrieved
+ * via {@link TypeMapper#getStats()}. Counts are taken from when the mapper
+ * was created.
+ */
+public interface TypeMapperStats
+{
+	/**
+	 * Get statistics for a mapper that does not keep track of its cache.
+	 * All counts are zero.
+	 *
+	 * @return
+	 */
+	@NonNull
+	static TypeMapperStats empty()
+	{
+		return TypeMapperStatsImpl.EMPTY;
+	}
+
+	/**
+	 * Get the number of times a type was found in the cache.
+	 *
+	 * @return
+	 */
+	long getHitCount();
+
+	/**
+	 * Get the number of times a type was not found in the cache and had to
+	 * be resolved.
+	 *
+	 * @return
+	 */
+	long getMissCount();
+
+	/**
+	 * Get the ratio of lookups that were found in the cache, {@code 1.0} if
+	 * no lookups have been made.
+	 *
+	 * @return
+	 */
+	double getHitRate();
+
+	/**
+	 * Get the number of results that have been evicted from the cache.
+	 *
+	 * @return
+	 */
+	long getEvictionCount();
+
+	/**
+	 * Get the number of types that have been resolved.
+	 *
+	 * @return
+	 */
+	long getLoadCount();
+
+	/**
+	 * Get the total time spent resolving types. Resolving a type includes
+	 * the time spent resolving any types it depends on.
+	 *
+	 * @return
+	 */
+	@NonNull
+	Duration getTotalLoadTime();
+
+	/**
+	 * Get the average time spent resolving a type.
+	 *
+	 * @return
+	 */
+	@NonNull
+	Duration getAverageLoadTime();
+
+	/**
+	 * Get the approximate number of results currently in the cache.
+	 *
+	 * @return
+	 */
+	long getSize();
+}
@@ -83,15 +83,17 @@ public abstract class AbstractClassMatchingMap<T, D>
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	protected void findMatching(Class<? extends T> type, BiPredicate<Class<? extends T>, D> predicate)
 	{
-		TypeHierarchy.visitHierarchy(type, t -> {
+		for(Class<?> t : TypeHierarchy.getHierarchy(type))
+		{
 			if(backingMap.containsKey(t))
 			{
 				D data = backingMap.get(t);
-				return predicate.test((Class) t, data);
+				if(! predicate.test((Class) t, data))
+				{
+					return;
+				}
 			}
-
-			return true;
-		});
+		}
 	}
 
 	private static class MutableHolder
@@ -80,15 +80,17 @@ public abstract class AbstractClassMatchingMultimap<T, D>
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	protected void findMatching(Class<? extends T> type, BiPredicate<Class<? extends T>, ListIterable<D>> predicate)
 	{
-		TypeHierarchy.visitHierarchy(type, t -> {
+		for(Class<?> t : TypeHierarchy.getHierarchy(type))
+		{
 			if(backingMap.containsKey(t))
 			{
 				ListIterable<D> data = backingMap.get((Class) t);
-				return predicate.test((Class) t, data);
+				if(! predicate.test((Class) t, data))
+				{
+					return;
+				}
 			}
-
-			return true;
-		});
+		}
 	}
 
 }
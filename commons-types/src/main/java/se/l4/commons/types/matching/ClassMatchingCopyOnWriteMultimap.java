@@ -0,0 +1,83 @@
+package se.l4.commons.types.matching;
+
+import java.util.Objects;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.list.ListIterable;
+import org.eclipse.collections.api.multimap.list.ImmutableListMultimap;
+import org.eclipse.collections.impl.factory.Multimaps;
+
+/**
+ * Thread-safe version of {@link MutableClassMatchingMultimap} where reads
+ * use an immutable snapshot of the data without any locking. Every write
+ * creates a new snapshot, so this map is intended for data that is mostly
+ * written during startup and then read often.
+ *
+ * @param <T>
+ * @param <D>
+ */
+public class ClassMatchingCopyOnWriteMultimap<T, D>
+	implements MutableClassMatchingMultimap<T, D>
+{
+	private volatile ImmutableClassMatchingMultimap<T, D> snapshot;
+
+	public ClassMatchingCopyOnWriteMultimap()
+	{
+		this(Multimaps.immutable.list.empty());
+	}
+
+	protected ClassMatchingCopyOnWriteMultimap(ImmutableListMultimap<Class<? extends T>, D> data)
+	{
+		snapshot = new ImmutableClassMatchingMultimap<>(data);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized void put(Class<? extends T> type, D data)
+	{
+		Objects.requireNonNull(type);
+		Objects.requireNonNull(data);
+
+		ImmutableListMultimap<Class<? extends T>, D> current = (ImmutableListMultimap<Class<? extends T>, D>) snapshot.backingMap;
+		snapshot = new ImmutableClassMatchingMultimap<>(current.newWith(type, data));
+	}
+
+	@Override
+	public ListIterable<D> get(Class<? extends T> type)
+	{
+		return snapshot.get(type);
+	}
+
+	@Override
+	public ListIterable<D> getBest(Class<? extends T> type)
+	{
+		return snapshot.getBest(type);
+	}
+
+	@Override
+	public ListIterable<MatchedType<T, D>> getAll(Class<? extends T> type)
+	{
+		return snapshot.getAll(type);
+	}
+
+	@Override
+	public RichIterable<MatchedType<T, D>> entries()
+	{
+		return snapshot.entries();
+	}
+
+	@Override
+	public ClassMatchingMultimap<T, D> toImmutable()
+	{
+		return snapshot;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public MutableClassMatchingMultimap<T, D> toMutable()
+	{
+		return new ClassMatchingCopyOnWriteMultimap<>(
+			(ImmutableListMultimap<Class<? extends T>, D>) snapshot.backingMap
+		);
+	}
+}
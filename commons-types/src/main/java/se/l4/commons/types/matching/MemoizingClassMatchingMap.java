@@ -0,0 +1,95 @@
+package se.l4.commons.types.matching;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.list.ListIterable;
+
+import se.l4.commons.types.internal.matching.MatchingCache;
+
+/**
+ * {@link MutableClassMatchingMap} that remembers the results of
+ * {@link #getBest(Class)} and {@link #getAll(Class)} for every type it is
+ * queried with. Results are invalidated when data is put into the map,
+ * making this suitable for maps that are built once and then queried
+ * often.
+ *
+ * <p>
+ * Results are stored on the queried classes via {@link ClassValue}, so
+ * they do not keep the classes loaded.
+ *
+ * <p>
+ * The wrapped map must only be changed via this map.
+ */
+public class MemoizingClassMatchingMap<T, D>
+	implements MutableClassMatchingMap<T, D>
+{
+	private final MutableClassMatchingMap<T, D> map;
+
+	private final MatchingCache<Class<? extends T>, Optional<D>> best;
+	private final MatchingCache<Class<? extends T>, ListIterable<MatchedType<T, D>>> all;
+
+	public MemoizingClassMatchingMap(MutableClassMatchingMap<T, D> map)
+	{
+		this.map = Objects.requireNonNull(map);
+
+		best = MatchingCache.forClasses();
+		all = MatchingCache.forClasses();
+	}
+
+	@Override
+	public void put(Class<? extends T> type, D data)
+	{
+		map.put(type, data);
+
+		best.invalidate();
+		all.invalidate();
+	}
+
+	@Override
+	public Optional<D> get(Class<? extends T> type)
+	{
+		return map.get(type);
+	}
+
+	@Override
+	public Optional<D> getBest(Class<? extends T> type)
+	{
+		Objects.requireNonNull(type);
+
+		return best.get(type, map::getBest);
+	}
+
+	@Override
+	public ListIterable<MatchedType<T, D>> getAll(Class<? extends T> type)
+	{
+		Objects.requireNonNull(type);
+
+		return all.get(type, t -> map.getAll(t).toImmutable());
+	}
+
+	@Override
+	public RichIterable<MatchedType<T, D>> entries()
+	{
+		return map.entries();
+	}
+
+	/**
+	 * Get an immutable copy of the wrapped map. The copy does not remember
+	 * any results, wrap a mutable copy of it to memoize queries against it.
+	 *
+	 * @return
+	 */
+	@Override
+	public ClassMatchingMap<T, D> toImmutable()
+	{
+		return map.toImmutable();
+	}
+
+	@Override
+	public MutableClassMatchingMap<T, D> toMutable()
+	{
+		return new MemoizingClassMatchingMap<>(map.toMutable());
+	}
+}
@@ -0,0 +1,95 @@
+package se.l4.commons.types.matching;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.list.ListIterable;
+
+import se.l4.commons.types.internal.matching.MatchingCache;
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * {@link MutableTypeMatchingMap} that remembers the results of
+ * {@link #getBest(TypeRef)} and {@link #getAll(TypeRef)} for every type it
+ * is queried with. Results are invalidated when data is put into the map,
+ * making this suitable for maps that are built once and then queried
+ * often.
+ *
+ * <p>
+ * Results are only kept for a limited number of types.
+ *
+ * <p>
+ * The wrapped map must only be changed via this map.
+ */
+public class MemoizingTypeMatchingMap<D>
+	implements MutableTypeMatchingMap<D>
+{
+	private final MutableTypeMatchingMap<D> map;
+
+	private final MatchingCache<TypeRef, Optional<D>> best;
+	private final MatchingCache<TypeRef, ListIterable<MatchedTypeRef<D>>> all;
+
+	public MemoizingTypeMatchingMap(MutableTypeMatchingMap<D> map)
+	{
+		this.map = Objects.requireNonNull(map);
+
+		best = MatchingCache.forTypes();
+		all = MatchingCache.forTypes();
+	}
+
+	@Override
+	public void put(TypeRef type, D data)
+	{
+		map.put(type, data);
+
+		best.invalidate();
+		all.invalidate();
+	}
+
+	@Override
+	public Optional<D> get(TypeRef type)
+	{
+		return map.get(type);
+	}
+
+	@Override
+	public Optional<D> getBest(TypeRef type)
+	{
+		Objects.requireNonNull(type);
+
+		return best.get(type, map::getBest);
+	}
+
+	@Override
+	public ListIterable<MatchedTypeRef<D>> getAll(TypeRef type)
+	{
+		Objects.requireNonNull(type);
+
+		return all.get(type, t -> map.getAll(t).toImmutable());
+	}
+
+	@Override
+	public RichIterable<MatchedTypeRef<D>> entries()
+	{
+		return map.entries();
+	}
+
+	/**
+	 * Get an immutable copy of the wrapped map. The copy does not remember
+	 * any results, wrap a mutable copy of it to memoize queries against it.
+	 *
+	 * @return
+	 */
+	@Override
+	public TypeMatchingMap<D> toImmutable()
+	{
+		return map.toImmutable();
+	}
+
+	@Override
+	public MutableTypeMatchingMap<D> toMutable()
+	{
+		return new MemoizingTypeMatchingMap<>(map.toMutable());
+	}
+}
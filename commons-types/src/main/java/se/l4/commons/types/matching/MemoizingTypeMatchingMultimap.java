@@ -0,0 +1,82 @@
+package se.l4.commons.types.matching;
+
+import java.util.Objects;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.list.ListIterable;
+
+import se.l4.commons.types.internal.matching.MatchingCache;
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * {@link MutableTypeMatchingMultimap} that remembers the results of
+ * {@link #getAll(TypeRef)} for every type it is queried with. Results are
+ * invalidated when data is put into the map, making this suitable for maps
+ * that are built once and then queried often.
+ *
+ * <p>
+ * Results are only kept for a limited number of types.
+ *
+ * <p>
+ * The wrapped map must only be changed via this map.
+ */
+public class MemoizingTypeMatchingMultimap<D>
+	implements MutableTypeMatchingMultimap<D>
+{
+	private final MutableTypeMatchingMultimap<D> map;
+
+	private final MatchingCache<TypeRef, ListIterable<MatchedTypeRef<D>>> all;
+
+	public MemoizingTypeMatchingMultimap(MutableTypeMatchingMultimap<D> map)
+	{
+		this.map = Objects.requireNonNull(map);
+
+		all = MatchingCache.forTypes();
+	}
+
+	@Override
+	public void put(TypeRef type, D data)
+	{
+		map.put(type, data);
+
+		all.invalidate();
+	}
+
+	@Override
+	public ListIterable<D> get(TypeRef type)
+	{
+		return map.get(type);
+	}
+
+	@Override
+	public ListIterable<MatchedTypeRef<D>> getAll(TypeRef type)
+	{
+		Objects.requireNonNull(type);
+
+		return all.get(type, t -> map.getAll(t).toImmutable());
+	}
+
+	@Override
+	public RichIterable<MatchedTypeRef<D>> entries()
+	{
+		return map.entries();
+	}
+
+	/**
+	 * Get an immutable copy of the wrapped map. The copy does not remember
+	 * any results, wrap a mutable copy of it to memoize queries against it.
+	 *
+	 * @return
+	 */
+	@Override
+	public TypeMatchingMultimap<D> toImmutable()
+	{
+		return map.toImmutable();
+	}
+
+	@Override
+	public MutableTypeMatchingMultimap<D> toMutable()
+	{
+		return new MemoizingTypeMatchingMultimap<>(map.toMutable());
+	}
+}
@@ -0,0 +1,81 @@
+package se.l4.commons.types.matching;
+
+import java.util.Objects;
+
+import org.eclipse.collections.api.RichIterable;
+import org.eclipse.collections.api.list.ListIterable;
+import org.eclipse.collections.api.multimap.list.ImmutableListMultimap;
+import org.eclipse.collections.impl.factory.Multimaps;
+
+import se.l4.commons.types.matching.AbstractTypeMatchingMultimap.TypeRefHolder;
+import se.l4.commons.types.reflect.TypeRef;
+
+/**
+ * Thread-safe version of {@link MutableTypeMatchingMultimap} where reads
+ * use an immutable snapshot of the data without any locking. Every write
+ * creates a new snapshot, so this map is intended for data that is mostly
+ * written during startup and then read often.
+ *
+ * @param <D>
+ */
+public class TypeMatchingCopyOnWriteMultimap<D>
+	implements MutableTypeMatchingMultimap<D>
+{
+	private volatile ImmutableTypeMatchingMultimap<D> snapshot;
+
+	public TypeMatchingCopyOnWriteMultimap()
+	{
+		this(Multimaps.immutable.list.empty());
+	}
+
+	protected TypeMatchingCopyOnWriteMultimap(ImmutableListMultimap<Class<?>, TypeRefHolder<D>> data)
+	{
+		snapshot = new ImmutableTypeMatchingMultimap<>(data);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized void put(TypeRef type, D data)
+	{
+		Objects.requireNonNull(type);
+		Objects.requireNonNull(data);
+
+		ImmutableListMultimap<Class<?>, TypeRefHolder<D>> current = (ImmutableListMultimap<Class<?>, TypeRefHolder<D>>) snapshot.backingMap;
+		snapshot = new ImmutableTypeMatchingMultimap<>(
+			current.newWith(type.getErasedType(), new TypeRefHolder<>(type, data))
+		);
+	}
+
+	@Override
+	public ListIterable<D> get(TypeRef type)
+	{
+		return snapshot.get(type);
+	}
+
+	@Override
+	public ListIterable<MatchedTypeRef<D>> getAll(TypeRef type)
+	{
+		return snapshot.getAll(type);
+	}
+
+	@Override
+	public RichIterable<MatchedTypeRef<D>> entries()
+	{
+		return snapshot.entries();
+	}
+
+	@Override
+	public TypeMatchingMultimap<D> toImmutable()
+	{
+		return snapshot;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public MutableTypeMatchingMultimap<D> toMutable()
+	{
+		return new TypeMatchingCopyOnWriteMultimap<>(
+			(ImmutableListMultimap<Class<?>, TypeRefHolder<D>>) snapshot.backingMap
+		);
+	}
+}
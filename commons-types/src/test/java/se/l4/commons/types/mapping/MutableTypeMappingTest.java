@@ -4,8 +4,21 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -46,6 +59,216 @@ public class MutableTypeMappingTest
 		assertThat(m3.isPresent(), is(false));
 	}
 
+	@Test
+	public void testStats()
+	{
+		MutableTypeMapper<TestEncounter, String> mapper = MutableTypeMapper.create(TestEncounter::new)
+			.withCaching(CachePolicy.unbounded())
+			.build();
+
+		mapper.addSpecific(Map.class, "map");
+
+		mapper.get(Map.class);
+		mapper.get(Map.class);
+		mapper.get(Object.class);
+
+		TypeMapperStats stats = mapper.getStats();
+		assertThat(stats.getHitCount(), is(1l));
+		assertThat(stats.getMissCount(), is(2l));
+		assertThat(stats.getLoadCount(), is(2l));
+		assertThat(stats.getSize(), is(2l));
+	}
+
+	@Test
+	public void testMaximumSizeEvicts()
+		throws InterruptedException
+	{
+		MutableTypeMapper<TestEncounter, String> mapper = MutableTypeMapper.create(TestEncounter::new)
+			.withCaching(CachePolicy.maximumSize(1))
+			.build();
+
+		mapper.get(Map.class);
+		mapper.get(List.class);
+		mapper.get(Set.class);
+		mapper.get(Object.class);
+
+		// Eviction is done in the background, ask until it has happened
+		long evictions = 0;
+		for(int i=0; i<500 && evictions == 0; i++)
+		{
+			mapper.get(Map.class);
+			evictions = mapper.getStats().getEvictionCount();
+			if(evictions == 0)
+			{
+				Thread.sleep(10);
+			}
+		}
+
+		assertThat(evictions > 0, is(true));
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentResolutionIsDoneOnce()
+		throws Exception
+	{
+		MutableTypeMapper<TestEncounter, String> mapper = MutableTypeMapper.create(TestEncounter::new)
+			.withCaching(CachePolicy.unbounded())
+			.build();
+
+		AtomicInteger resolutions = new AtomicInteger();
+		mapper.addHierarchyResolver(Map.class, encounter -> {
+			resolutions.incrementAndGet();
+			try
+			{
+				Thread.sleep(50);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			return Optional.of("map");
+		});
+
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Mapped<String>>> results = new ArrayList<>();
+			for(int i=0; i<threads; i++)
+			{
+				results.add(executor.submit(() -> {
+					start.await();
+					return mapper.get(Map.class);
+				}));
+			}
+
+			start.countDown();
+			for(Future<Mapped<String>> result : results)
+			{
+				assertThat(result.get(5, TimeUnit.SECONDS).get(), is("map"));
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		assertThat(resolutions.get(), is(1));
+	}
+
+	@Test(timeout=10000)
+	public void testConcurrentNestedResolutionIsDoneOnce()
+		throws Exception
+	{
+		MutableTypeMapper<TestEncounter, String> mapper = MutableTypeMapper.create(TestEncounter::new)
+			.withCaching(CachePolicy.unbounded())
+			.build();
+
+		AtomicInteger resolutions = new AtomicInteger();
+		mapper.addSpecific(List.class, "list");
+		mapper.addHierarchyResolver(Set.class, encounter -> {
+			resolutions.incrementAndGet();
+			try
+			{
+				Thread.sleep(50);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+
+			return Optional.of("set");
+		});
+
+		// Every top-level type needs the same nested type
+		mapper.addHierarchyResolver(Map.class, encounter -> {
+			mapper.get(Set.class);
+			return Optional.of(encounter.getType().getErasedType().getSimpleName());
+		});
+
+		List<Class<?>> types = List.of(HashMap.class, TreeMap.class, LinkedHashMap.class, ConcurrentHashMap.class);
+		ExecutorService executor = Executors.newFixedThreadPool(types.size());
+		try
+		{
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Mapped<String>>> results = new ArrayList<>();
+			for(Class<?> type : types)
+			{
+				results.add(executor.submit(() -> {
+					start.await();
+					return mapper.get(type);
+				}));
+			}
+
+			start.countDown();
+			for(int i=0; i<types.size(); i++)
+			{
+				assertThat(results.get(i).get(5, TimeUnit.SECONDS).get(), is(types.get(i).getSimpleName()));
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+
+		assertThat(resolutions.get(), is(1));
+	}
+
+	@Test
+	public void testDefaultCachePolicy()
+	{
+		SizeBuilder builder = new SizeBuilder();
+
+		builder.withCaching(CachePolicy.maximumSize(20));
+		assertThat(builder.maximumSize, is(20));
+
+		builder.withCaching(CachePolicy.unbounded());
+		assertThat(builder.maximumSize, is(Integer.MAX_VALUE));
+	}
+
+	@Test(expected=UnsupportedOperationException.class)
+	public void testDefaultCachePolicySoftValues()
+	{
+		new SizeBuilder().withCaching(CachePolicy.unbounded().withSoftValues());
+	}
+
+	/**
+	 * Builder that only supports setting the maximum size, used to test
+	 * the default implementation of {@link MutableTypeMapper.Builder#withCaching(CachePolicy)}.
+	 */
+	private static class SizeBuilder
+		implements MutableTypeMapper.Builder<TestEncounter, String>
+	{
+		private int maximumSize;
+
+		@Override
+		public MutableTypeMapper.Builder<TestEncounter, String> withErrorStrategy(TypeMapper.ErrorStrategy strategy)
+		{
+			return this;
+		}
+
+		@Override
+		public MutableTypeMapper.Builder<TestEncounter, String> withCaching(int maximumSize)
+		{
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		@Override
+		public MutableTypeMapper.Builder<TestEncounter, String> withOutputDeduplication(OutputDeduplicator<String> deduplicator)
+		{
+			return this;
+		}
+
+		@Override
+		public MutableTypeMapper<TestEncounter, String> build()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+
 	private static class TestEncounter
 		implements ResolutionEncounter<String>
 	{
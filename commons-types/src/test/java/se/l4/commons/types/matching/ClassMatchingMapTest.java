@@ -4,9 +4,15 @@ import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.collections.api.list.ListIterable;
 import org.junit.Test;
 
+import se.l4.commons.types.Types;
+
 public class ClassMatchingMapTest
 {
 	@Test
@@ -75,6 +81,32 @@ public class ClassMatchingMapTest
 		assertThat(all.get(1).getData(), is("map"));
 	}
 
+	@Test
+	public void testHierarchyIsBreadthFirst()
+	{
+		List<Class<?>> visited = new ArrayList<>();
+		Types.visitHierarchy(Integer.class, visited::add);
+
+		assertThat(visited.get(0), is((Object) Integer.class));
+		assertThat(visited.get(1), is((Object) Comparable.class));
+		assertThat(visited.get(visited.size() - 1), is((Object) Object.class));
+		assertThat(visited.indexOf(Number.class) < visited.indexOf(Serializable.class), is(true));
+	}
+
+	@Test
+	public void testMemoizedInvalidatedOnPut()
+	{
+		MemoizingClassMatchingMap<Object, String> map = new MemoizingClassMatchingMap<>(new ClassMatchingConcurrentHashMap<>());
+		map.put(Object.class, "object");
+
+		assertThat(map.getBest(String.class).get(), is("object"));
+		assertThat(map.getAll(String.class) == map.getAll(String.class), is(true));
+
+		map.put(CharSequence.class, "chars");
+		assertThat(map.getBest(String.class).get(), is("chars"));
+		assertThat(map.getAll(String.class).size(), is(2));
+	}
+
 	// Map only used for running tests against
 	private static class FakeMatchingMap<D, T>
 		extends AbstractClassMatchingMap<D, T>
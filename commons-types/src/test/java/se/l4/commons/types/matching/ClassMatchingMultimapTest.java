@@ -135,6 +135,39 @@ public class ClassMatchingMultimapTest
 		assertThat(all.get(2).getData(), anyOf(is("map1"), is("map2")));
 	}
 
+	@Test
+	public void testMemoizedInvalidatedOnPut()
+	{
+		MemoizingClassMatchingMultimap<Object, String> map = new MemoizingClassMatchingMultimap<>(new ClassMatchingMultiReaderFastListMultimap<>());
+		map.put(Object.class, "object");
+
+		assertThat(map.getBest(String.class), hasItem("object"));
+
+		map.put(Object.class, "object2");
+		assertThat(map.getBest(String.class).size(), is(2));
+		assertThat(map.getAll(String.class).size(), is(2));
+	}
+
+	@Test
+	public void testCopyOnWriteSnapshots()
+	{
+		ClassMatchingCopyOnWriteMultimap<Object, String> map = new ClassMatchingCopyOnWriteMultimap<>();
+		map.put(Object.class, "object");
+
+		ClassMatchingMultimap<Object, String> snapshot = map.toImmutable();
+
+		map.put(CharSequence.class, "chars");
+		map.put(Object.class, "object2");
+
+		assertThat(map.getBest(String.class).size(), is(1));
+		assertThat(map.getBest(String.class), hasItem("chars"));
+		assertThat(map.getAll(String.class).size(), is(3));
+		assertThat(map.get(Object.class).size(), is(2));
+
+		// Snapshots are not affected by later writes
+		assertThat(snapshot.getAll(String.class).size(), is(1));
+	}
+
 	// Map only used for running tests against
 	private static class FakeMatchingMap<D, T>
 		extends AbstractClassMatchingMap<D, T>
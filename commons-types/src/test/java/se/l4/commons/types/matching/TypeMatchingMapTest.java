@@ -77,6 +77,19 @@ public class TypeMatchingMapTest
 		assertThat(all.get(1).getData(), is("map"));
 	}
 
+	@Test
+	public void testMemoizedInvalidatedOnPut()
+	{
+		MemoizingTypeMatchingMap<String> map = new MemoizingTypeMatchingMap<>(new TypeMatchingUnifiedSetMap<>());
+		map.put(Types.reference(Object.class), "object");
+
+		assertThat(map.getBest(Types.reference(String.class)).get(), is("object"));
+
+		map.put(Types.reference(String.class), "string");
+		assertThat(map.getBest(Types.reference(String.class)).get(), is("string"));
+		assertThat(map.getAll(Types.reference(String.class)).size(), is(2));
+	}
+
 	// Map only used for running tests against
 	private static class FakeMatchingMap<D, T>
 		extends AbstractClassMatchingMap<D, T>
@@ -0,0 +1,82 @@
+package se.l4.commons.types.matching;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import se.l4.commons.types.Types;
+
+public class TypeMatchingMultimapTest
+{
+	@Test
+	public void testCopyOnWritePutAndGet()
+	{
+		MutableTypeMatchingMultimap<String> map = new TypeMatchingCopyOnWriteMultimap<>();
+		map.put(Types.reference(Object.class), "object");
+		map.put(Types.reference(String.class), "string");
+		map.put(Types.reference(String.class), "string2");
+
+		assertThat(map.get(Types.reference(String.class)).size(), is(2));
+		assertThat(map.get(Types.reference(String.class)), hasItem("string"));
+		assertThat(map.get(Types.reference(String.class)), hasItem("string2"));
+		assertThat(map.get(Types.reference(Object.class)).size(), is(1));
+		assertThat(map.get(Types.reference(Boolean.class)).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testCopyOnWriteGetAll()
+	{
+		MutableTypeMatchingMultimap<String> map = new TypeMatchingCopyOnWriteMultimap<>();
+		map.put(Types.reference(Object.class), "object");
+		map.put(Types.reference(CharSequence.class), "chars");
+		map.put(Types.reference(Number.class), "number");
+
+		assertThat(map.getAll(Types.reference(String.class)).size(), is(2));
+		assertThat(map.getAll(Types.reference(String.class)).collect(MatchedTypeRef::getData), hasItem("chars"));
+		assertThat(map.getAll(Types.reference(String.class)).collect(MatchedTypeRef::getData), hasItem("object"));
+		assertThat(map.getAll(Types.reference(Integer.class)).size(), is(2));
+	}
+
+	@Test
+	public void testCopyOnWriteGenerics()
+	{
+		MutableTypeMatchingMultimap<String> map = new TypeMatchingCopyOnWriteMultimap<>();
+		map.put(Types.reference(List.class, String.class), "strings");
+		map.put(Types.reference(List.class, Integer.class), "ints");
+
+		assertThat(map.get(Types.reference(List.class, String.class)).size(), is(1));
+		assertThat(map.get(Types.reference(List.class, String.class)), hasItem("strings"));
+	}
+
+	@Test
+	public void testCopyOnWriteSnapshots()
+	{
+		MutableTypeMatchingMultimap<String> map = new TypeMatchingCopyOnWriteMultimap<>();
+		map.put(Types.reference(Object.class), "object");
+
+		TypeMatchingMultimap<String> snapshot = map.toImmutable();
+		MutableTypeMatchingMultimap<String> copy = map.toMutable();
+
+		map.put(Types.reference(CharSequence.class), "chars");
+		map.put(Types.reference(Object.class), "object2");
+
+		assertThat(map.getAll(Types.reference(String.class)).size(), is(3));
+		assertThat(map.get(Types.reference(Object.class)).size(), is(2));
+
+		// Snapshots and copies are not affected by later writes
+		assertThat(snapshot.getAll(Types.reference(String.class)).size(), is(1));
+		assertThat(snapshot.get(Types.reference(Object.class)).size(), is(1));
+		assertThat(copy.getAll(Types.reference(String.class)).size(), is(1));
+
+		// Writes to copies do not affect the original
+		copy.put(Types.reference(Number.class), "number");
+		assertThat(map.get(Types.reference(Number.class)).isEmpty(), is(true));
+		assertThat(copy.get(Types.reference(Number.class)), hasItem("number"));
+		assertThat(copy.entries().size(), is(2));
+		assertThat(map.entries().size(), is(3));
+	}
+}
@@ -10,6 +10,9 @@ import java.lang.annotation.Target;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 
@@ -227,6 +230,60 @@ public class TypeRefTest
 		);
 	}
 
+	@Test
+	public void testMembersAreResolvedOnce()
+	{
+		TypeRef ref = Types.reference(ArrayList.class, String.class);
+
+		assertThat(ref.getMethods() == ref.getMethods(), is(true));
+		assertThat(ref.getFields() == ref.getFields(), is(true));
+		assertThat(ref.getDeclaredFields() == ref.getDeclaredFields(), is(true));
+		assertThat(ref.getConstructors() == ref.getConstructors(), is(true));
+		assertThat(ref.getInterfaces() == ref.getInterfaces(), is(true));
+		assertThat(ref.getSuperclass().get() == ref.getSuperclass().get(), is(true));
+
+		// Members are still resolved against the bindings of the type
+		TypeRef list = ref.findInterface(List.class).get();
+		assertThat(list.getTypeParameter(0).get().getErasedType(), is((Object) String.class));
+	}
+
+	@Test
+	public void testIntern()
+	{
+		TypeRef a = Types.reference(List.class, String.class);
+		TypeRef b = Types.reference(List.class, String.class);
+
+		assertThat(a == b, is(false));
+		assertThat(a.hashCode(), is(b.hashCode()));
+		assertThat(Types.intern(a) == Types.intern(b), is(true));
+		assertThat(Types.intern(a) == Types.intern(Types.reference(List.class, Integer.class)), is(false));
+	}
+
+	@Test
+	public void testInternConcurrently()
+		throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<TypeRef>> futures = new ArrayList<>();
+			for(int i=0; i<100; i++)
+			{
+				futures.add(executor.submit(() -> Types.intern(Types.reference(List.class, Long.class))));
+			}
+
+			TypeRef first = futures.get(0).get();
+			for(Future<TypeRef> future : futures)
+			{
+				assertThat(future.get() == first, is(true));
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
 	@Retention(RetentionPolicy.RUNTIME)
 	@Target({ ElementType.TYPE_USE, ElementType.TYPE_PARAMETER })
 	public @interface NonNull